@@ -0,0 +1,44 @@
+package com.deliveryoptimizer.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.deliveryoptimizer.constants.PriorityEnum;
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
+
+/**
+ * Seeded random scenarios for benchmarks
+ * Orders are spread uniformly over a few kilometres of central Bangalore
+ */
+final class BenchmarkScenarios {
+
+    private static final double BASE_LAT = 12.9716;
+    private static final double BASE_LNG = 77.5946;
+    private static final double SPREAD_DEG = 0.04;
+
+    private BenchmarkScenarios() {
+    }
+
+    static DeliveryScenario randomScenario(int orderCount, long seed) {
+        Random random = new Random(seed);
+        Location start = new Location("START", "Courier", BASE_LAT, BASE_LNG);
+        List<DeliveryOrder> orders = new ArrayList<>(orderCount);
+        PriorityEnum[] priorities = PriorityEnum.values();
+        for (int i = 0; i < orderCount; i++) {
+            Location restaurant = randomLocation(random, "R" + i);
+            Location consumer = randomLocation(random, "C" + i);
+            orders.add(new DeliveryOrder(String.format("ORD%05d", i), restaurant, consumer,
+                                         5 + random.nextInt(30), priorities[random.nextInt(priorities.length)]));
+        }
+        return new DeliveryScenario("Benchmark " + orderCount + " orders (seed " + seed + ")", start, orders);
+    }
+
+    static Location randomLocation(Random random, String name) {
+        return new Location(name, name,
+                            BASE_LAT + (random.nextDouble() - 0.5) * SPREAD_DEG,
+                            BASE_LNG + (random.nextDouble() - 0.5) * SPREAD_DEG);
+    }
+}
@@ -0,0 +1,68 @@
+package com.deliveryoptimizer.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.SpeedProfileTable;
+import com.deliveryoptimizer.distancestrategy.TimeDependentDistanceCalculator;
+
+/**
+ * Per-pair cost of distance and travel-time queries
+ * Cycles through a fixed pool of location pairs so the JIT cannot fold the inputs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DistanceCalculatorBenchmark {
+
+    private static final int POOL_SIZE = 1024;
+    private static final String PROFILES =
+        "zone CENTRE 12.96 77.58 12.98 77.61 00:00=1.1 09:00=0.45 11:00=0.8 19:00=0.4 22:00=1.0\n"
+      + "default 00:00=1.0 09:00=0.7 18:00=0.65 21:00=1.0\n";
+
+    private final Location[] from = new Location[POOL_SIZE];
+    private final Location[] to = new Location[POOL_SIZE];
+    private final DistanceCalculator haversine = new HaversineDistanceCalculator();
+    private DistanceCalculator timeDependent;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            from[i] = BenchmarkScenarios.randomLocation(random, "A" + i);
+            to[i] = BenchmarkScenarios.randomLocation(random, "B" + i);
+        }
+        SpeedProfileTable table = SpeedProfileTable.parse(new BufferedReader(new StringReader(PROFILES)));
+        timeDependent = new TimeDependentDistanceCalculator(haversine, table, 8 * 60);
+    }
+
+    @Benchmark
+    public double haversineDistance() {
+        int i = next++ & (POOL_SIZE - 1);
+        return haversine.calculateDistance(from[i], to[i]);
+    }
+
+    @Benchmark
+    public double haversineTravelTime() {
+        int i = next++ & (POOL_SIZE - 1);
+        return haversine.calculateTravelTime(from[i], to[i], 20.0);
+    }
+
+    @Benchmark
+    public double timeDependentTravelTime() {
+        int i = next++ & (POOL_SIZE - 1);
+        return timeDependent.calculateTravelTime(from[i], to[i], 20.0, i % 240);
+    }
+}
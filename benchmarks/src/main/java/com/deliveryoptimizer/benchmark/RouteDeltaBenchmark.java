@@ -0,0 +1,62 @@
+package com.deliveryoptimizer.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
+import com.deliveryoptimizer.optimizationstrategy.GreedyNearestNeighborStrategy;
+import com.deliveryoptimizer.routedelta.RouteDelta;
+import com.deliveryoptimizer.routedelta.RouteDeltaDecoder;
+import com.deliveryoptimizer.routedelta.RouteDeltaEncoder;
+import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
+
+/**
+ * Cost of shipping a re-plan that added one order, as a full encoding and as a delta against the previous route
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RouteDeltaBenchmark {
+
+    @Param({"10", "40"})
+    int orderCount;
+
+    private final RouteDeltaEncoder encoder = new RouteDeltaEncoder();
+    private RouteResult previous;
+    private RouteResult next;
+    private byte[] delta;
+
+    @Setup
+    public void setUp() {
+        DeliveryScenario scenario = BenchmarkScenarios.randomScenario(orderCount + 1, 1);
+        List<DeliveryOrder> orders = new ArrayList<>(scenario.getOrders());
+        GreedyNearestNeighborStrategy strategy = new GreedyNearestNeighborStrategy();
+        HaversineDistanceCalculator calculator = new HaversineDistanceCalculator();
+        next = strategy.optimizeRoute(scenario.getStartLocation(), orders, calculator, 20.0);
+        previous = strategy.optimizeRoute(scenario.getStartLocation(), orders.subList(0, orderCount), calculator, 20.0);
+        delta = encoder.encode(previous, next).toByteArray();
+    }
+
+    @Benchmark
+    public RouteDelta fullEncode() {
+        return encoder.encode(next);
+    }
+
+    @Benchmark
+    public RouteDelta deltaEncode() {
+        return encoder.encode(previous, next);
+    }
+
+    @Benchmark
+    public RouteResult deltaApply() {
+        return RouteDeltaDecoder.apply(previous, delta);
+    }
+}
@@ -0,0 +1,118 @@
+package com.deliveryoptimizer.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
+import com.deliveryoptimizer.optimizationstrategy.BeamSearchOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.ExhaustiveSearchOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.GreedyNearestNeighborStrategy;
+import com.deliveryoptimizer.optimizationstrategy.PriorityBasedOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.RouteOptimizationStrategy;
+import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
+
+/**
+ * End-to-end cost of one optimizeRoute call per strategy
+ * Exhaustive search is measured on small order counts, the heuristics on larger ones and beam search on the
+ * 10-50 order range it targets
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrategyBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ExhaustiveState {
+        @Param({"3", "5", "6"})
+        int orderCount;
+
+        @Param({"1", "2"})
+        long seed;
+
+        Location start;
+        List<DeliveryOrder> orders;
+        final RouteOptimizationStrategy strategy = new ExhaustiveSearchOptimizationStrategy();
+        final DistanceCalculator calculator = new HaversineDistanceCalculator();
+
+        @Setup
+        public void setUp() {
+            DeliveryScenario scenario = BenchmarkScenarios.randomScenario(orderCount, seed);
+            start = scenario.getStartLocation();
+            orders = scenario.getOrders();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class HeuristicState {
+        @Param({"GREEDY", "PRIORITY"})
+        String strategyName;
+
+        @Param({"10", "100", "1000"})
+        int orderCount;
+
+        @Param({"1", "2"})
+        long seed;
+
+        Location start;
+        List<DeliveryOrder> orders;
+        RouteOptimizationStrategy strategy;
+        final DistanceCalculator calculator = new HaversineDistanceCalculator();
+
+        @Setup
+        public void setUp() {
+            DeliveryScenario scenario = BenchmarkScenarios.randomScenario(orderCount, seed);
+            start = scenario.getStartLocation();
+            orders = scenario.getOrders();
+            strategy = strategyName.equals("GREEDY") ? new GreedyNearestNeighborStrategy()
+                                                     : new PriorityBasedOptimizationStrategy();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BeamState {
+        @Param({"1", "16", "128"})
+        int beamWidth;
+
+        @Param({"10", "30", "50"})
+        int orderCount;
+
+        @Param({"1", "2"})
+        long seed;
+
+        Location start;
+        List<DeliveryOrder> orders;
+        RouteOptimizationStrategy strategy;
+        final DistanceCalculator calculator = new HaversineDistanceCalculator();
+
+        @Setup
+        public void setUp() {
+            DeliveryScenario scenario = BenchmarkScenarios.randomScenario(orderCount, seed);
+            start = scenario.getStartLocation();
+            orders = scenario.getOrders();
+            strategy = new BeamSearchOptimizationStrategy(beamWidth);
+        }
+    }
+
+    @Benchmark
+    public RouteResult exhaustiveSearch(ExhaustiveState state) {
+        return state.strategy.optimizeRoute(state.start, state.orders, state.calculator, 20.0);
+    }
+
+    @Benchmark
+    public RouteResult heuristic(HeuristicState state) {
+        return state.strategy.optimizeRoute(state.start, state.orders, state.calculator, 20.0);
+    }
+
+    @Benchmark
+    public RouteResult beamSearch(BeamState state) {
+        return state.strategy.optimizeRoute(state.start, state.orders, state.calculator, 20.0);
+    }
+}
@@ -0,0 +1,57 @@
+package com.deliveryoptimizer.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Task;
+import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
+import com.deliveryoptimizer.util.CoLocatedStopMerger;
+import com.deliveryoptimizer.util.TaskSequenceGenerator;
+
+/**
+ * Throughput of task and sequence generation
+ * Sequence counts grow as (2n)!/2^n, so order counts stay small
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskSequenceGeneratorBenchmark {
+
+    @Param({"2", "3", "4"})
+    int orderCount;
+
+    @Param({"1"})
+    long seed;
+
+    private List<DeliveryOrder> orders;
+    private List<Task> tasks;
+    private int[] stopIds;
+
+    @Setup
+    public void setUp() {
+        orders = BenchmarkScenarios.randomScenario(orderCount, seed).getOrders();
+        tasks = TaskSequenceGenerator.generateAllTasks(orders);
+        stopIds = CoLocatedStopMerger.assignStopIds(tasks, new HaversineDistanceCalculator(), 0.0);
+    }
+
+    @Benchmark
+    public List<Task> generateAllTasks() {
+        return TaskSequenceGenerator.generateAllTasks(orders);
+    }
+
+    @Benchmark
+    public List<List<Task>> generateValidTaskSequences() {
+        return TaskSequenceGenerator.generateValidTaskSequences(tasks);
+    }
+
+    @Benchmark
+    public List<List<Task>> generateCanonicalTaskSequences() {
+        return TaskSequenceGenerator.generateCanonicalTaskSequences(tasks, stopIds);
+    }
+}
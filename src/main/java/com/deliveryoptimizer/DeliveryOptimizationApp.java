@@ -1,5 +1,8 @@
 package com.deliveryoptimizer;
 
+import java.util.Arrays;
+
+import com.deliveryoptimizer.batchrunner.BatchOptimizationRunner;
 import com.deliveryoptimizer.optimizationstrategy.ExhaustiveSearchOptimizationStrategy;
 import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
 import com.deliveryoptimizer.core.RouteResult;
@@ -14,7 +17,13 @@ import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
  */
 public class DeliveryOptimizationApp {
     
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // Headless mode: --batch <dir|glob> <outputDir> [strategy] [workers] [windowMinutes] [maxOrdersPerScenario]
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchOptimizationRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
         System.out.println("🚗 Advanced Delivery Route Optimization System 🚗");
         System.out.println("================================================\n");
         
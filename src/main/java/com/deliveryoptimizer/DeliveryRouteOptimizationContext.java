@@ -1,15 +1,23 @@
 package com.deliveryoptimizer;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.deliveryoptimizer.optimizationstrategy.RouteOptimizationStrategy;
 import com.deliveryoptimizer.optimizationstrategy.ExhaustiveSearchOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.WarmStartStrategy;
 import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
 import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
 import com.deliveryoptimizer.core.DeliveryOrder;
 import com.deliveryoptimizer.core.Location;
 import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.core.SearchStatistics;
 import com.deliveryoptimizer.loggingobserver.RouteOptimizationObserver;
+import com.deliveryoptimizer.lowerbound.RouteLowerBound;
+import com.deliveryoptimizer.metrics.OptimizationEvent;
+import com.deliveryoptimizer.metrics.OptimizationPhaseEvent;
+import com.deliveryoptimizer.resultcache.RouteRequestFingerprint;
+import com.deliveryoptimizer.resultcache.RouteResultCache;
 
 /**
  * Controller class that orchestrates delivery route optimization
@@ -18,17 +26,21 @@ import com.deliveryoptimizer.loggingobserver.RouteOptimizationObserver;
  */
 public class DeliveryRouteOptimizationContext {
     
+    // Beyond this many orders the exhaustive search stops being interactive
+    private static final int EXHAUSTIVE_SEARCH_MAX_ORDERS = 6;
+    
     private RouteOptimizationStrategy optimizationStrategy;
     private DistanceCalculator distanceCalculator;
     private double averageSpeedKmh;
-    private List<RouteOptimizationObserver> observers;
+    private final List<RouteOptimizationObserver> observers = new CopyOnWriteArrayList<>();
+    private RouteResultCache resultCache;
+    private boolean lowerBoundEnabled = true;
     
     // Default constructor with reasonable defaults
     public DeliveryRouteOptimizationContext() {
     this.optimizationStrategy = new ExhaustiveSearchOptimizationStrategy();
         this.distanceCalculator = new HaversineDistanceCalculator();
         this.averageSpeedKmh = 20.0; // As mentioned in problem statement
-        this.observers = new ArrayList<>();
     }
     
     public DeliveryRouteOptimizationContext(RouteOptimizationStrategy optimizationStrategy,
@@ -37,7 +49,6 @@ public class DeliveryRouteOptimizationContext {
         this.optimizationStrategy = optimizationStrategy;
         this.distanceCalculator = distanceCalculator;
         this.averageSpeedKmh = averageSpeedKmh;
-        this.observers = new ArrayList<>();
     }
     
     /**
@@ -47,6 +58,10 @@ public class DeliveryRouteOptimizationContext {
         this.optimizationStrategy = optimizationStrategy;
     }
     
+    public RouteOptimizationStrategy getOptimizationStrategy() {
+        return optimizationStrategy;
+    }
+    
     /**
      * Set the distance calculator strategy
      */
@@ -54,6 +69,10 @@ public class DeliveryRouteOptimizationContext {
         this.distanceCalculator = distanceCalculator;
     }
     
+    public DistanceCalculator getDistanceCalculator() {
+        return distanceCalculator;
+    }
+    
     /**
      * Set the average speed for delivery
      */
@@ -61,8 +80,36 @@ public class DeliveryRouteOptimizationContext {
         this.averageSpeedKmh = averageSpeedKmh;
     }
     
+    public double getAverageSpeedKmh() {
+        return averageSpeedKmh;
+    }
+    
+    /**
+     * Set the result cache consulted before running the strategy (null disables memoization)
+     */
+    public void setResultCache(RouteResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+    
+    public RouteResultCache getResultCache() {
+        return resultCache;
+    }
+    
+    /**
+     * Attach a RouteLowerBound and so an optimality gap to every result (on by default)
+     * The bound costs O(n^2) distance calls, about as much as one travel-time matrix
+     */
+    public void setLowerBoundEnabled(boolean lowerBoundEnabled) {
+        this.lowerBoundEnabled = lowerBoundEnabled;
+    }
+    
+    public boolean isLowerBoundEnabled() {
+        return lowerBoundEnabled;
+    }
+    
     /**
      * Add observer for monitoring optimization progress
+     * Observers are called on the solving thread; wrap slow ones in an AsyncObserverBus
      */
     public void addObserver(RouteOptimizationObserver observer) {
         this.observers.add(observer);
@@ -79,24 +126,103 @@ public class DeliveryRouteOptimizationContext {
      * Find optimal route using current optimization strategy
      */
     public RouteResult optimizeRoute(Location startLocation, List<DeliveryOrder> orders) {
+        return optimizeRoute(startLocation, orders, null);
+    }
+    
+    /**
+     * Find a route starting from a known solution, e.g. one from a WarmStartStore
+     * The seed only reaches strategies implementing WarmStartStrategy; others ignore it. Seeded solves whose
+     * result can depend on the seed bypass the result cache.
+     */
+    public RouteResult optimizeRoute(Location startLocation, List<DeliveryOrder> orders, int[] seed) {
+        return optimizeRoute(startLocation, orders, seed, distanceCalculator);
+    }
+    
+    /**
+     * Find a route with another distance calculator than the context's, e.g. a time-dependent one moved to the
+     * route's own start time; strategy, speed, cache and observers are still the context's
+     */
+    public RouteResult optimizeRoute(Location startLocation, List<DeliveryOrder> orders, int[] seed,
+                                     DistanceCalculator calculator) {
+        OptimizationEvent event = new OptimizationEvent();
+        event.begin();
+        String strategyName = optimizationStrategy.getStrategyName();
+        
         // Notify observers that optimization is starting
-        notifyOptimizationStarted(optimizationStrategy.getStrategyName(), orders.size());
+        notifyOptimizationStarted(strategyName, orders.size());
         
         try {
-            RouteResult result = optimizationStrategy.optimizeRoute(startLocation, orders, 
-                                                                   distanceCalculator, averageSpeedKmh);
+            OptimizationPhaseEvent solvePhase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.SOLVE,
+                                                                             strategyName, orders.size());
+            long started = System.nanoTime();
+            RouteResult result = solve(startLocation, orders, seed, calculator);
+            result.getSearchStatistics().setSolveTimeNanos(System.nanoTime() - started);
+            solvePhase.commit();
             
             // Notify observers that optimization is completed
-            notifyOptimizationCompleted(result);
+            notifyOptimizationCompleted(result, orders.size());
             
+            commitOptimizationEvent(event, strategyName, orders.size(), result);
             return result;
         } catch (Exception e) {
             // Notify observers of error
-            notifyOptimizationError("Optimization failed: " + e.getMessage(), e);
+            notifyOptimizationError("Optimization failed: " + e.getMessage(), e, strategyName, orders.size());
+            commitOptimizationEvent(event, strategyName, orders.size(), null);
             throw e;
         }
     }
     
+    /**
+     * Run the current strategy, going through the result cache when one is configured
+     */
+    private RouteResult solve(Location startLocation, List<DeliveryOrder> orders, int[] seed,
+                              DistanceCalculator calculator) {
+        RouteOptimizationStrategy strategy = optimizationStrategy;
+        double speedKmh = averageSpeedKmh;
+        RouteResultCache cache = resultCache;
+        
+        // A seed that can change the route, not just how fast it is found, would poison the unseeded entry
+        if (cache == null || (seed != null && strategy instanceof WarmStartStrategy
+                              && ((WarmStartStrategy) strategy).seedAffectsResult())) {
+            return attachLowerBound(runStrategy(strategy, startLocation, orders, calculator, speedKmh, seed),
+                                    startLocation, orders, calculator, speedKmh);
+        }
+        RouteRequestFingerprint key = RouteRequestFingerprint.of(startLocation, orders, speedKmh,
+                                                                 strategy, calculator);
+        return cache.getOrCompute(key, () -> attachLowerBound(
+                runStrategy(strategy, startLocation, orders, calculator, speedKmh, seed),
+                startLocation, orders, calculator, speedKmh));
+    }
+    
+    private static RouteResult runStrategy(RouteOptimizationStrategy strategy, Location startLocation,
+                                           List<DeliveryOrder> orders, DistanceCalculator calculator,
+                                           double speedKmh, int[] seed) {
+        if (seed != null && strategy instanceof WarmStartStrategy) {
+            return ((WarmStartStrategy) strategy).optimizeRoute(startLocation, orders, calculator, speedKmh, seed);
+        }
+        return strategy.optimizeRoute(startLocation, orders, calculator, speedKmh);
+    }
+    
+    /**
+     * Fill in the lower bound unless disabled or the strategy already proved one
+     */
+    private RouteResult attachLowerBound(RouteResult result, Location startLocation, List<DeliveryOrder> orders,
+                                         DistanceCalculator calculator, double speedKmh) {
+        if (lowerBoundEnabled && Double.isNaN(result.getLowerBoundMinutes())) {
+            result.setLowerBoundMinutes(computeLowerBound(startLocation, orders, calculator, speedKmh, result.getStrategy()));
+        }
+        return result;
+    }
+    
+    private double computeLowerBound(Location startLocation, List<DeliveryOrder> orders,
+                                     DistanceCalculator calculator, double speedKmh, String strategyName) {
+        OptimizationPhaseEvent phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.LOWER_BOUND,
+                                                                    strategyName, orders.size());
+        double minutes = RouteLowerBound.compute(startLocation, orders, calculator, speedKmh).getMinutes();
+        phase.commit();
+        return minutes;
+    }
+    
     /**
      * Compare multiple strategies and return the best result
      * Currently only BruteForce strategy is available
@@ -109,15 +235,12 @@ public class DeliveryRouteOptimizationContext {
         );
         
         List<RouteResult> results = new ArrayList<>();
+        double lowerBound = lowerBoundEnabled
+                ? computeLowerBound(startLocation, orders, distanceCalculator, averageSpeedKmh, "comparison")
+                : Double.NaN;
         
         for (RouteOptimizationStrategy strategy : strategies) {
-            notifyOptimizationStarted(strategy.getStrategyName(), orders.size());
-            
-            RouteResult result = strategy.optimizeRoute(startLocation, orders, 
-                                                       distanceCalculator, averageSpeedKmh);
-            results.add(result);
-            
-            notifyOptimizationCompleted(result);
+            results.add(runForComparison(strategy, startLocation, orders, lowerBound));
         }
         
         // Sort by total time (best first)
@@ -134,6 +257,59 @@ public class DeliveryRouteOptimizationContext {
         return results.isEmpty() ? null : results.get(0);
     }
     
+    /**
+     * Run strategies from cheapest to most expensive and stop as soon as the best route so far is within
+     * acceptableGap of the lower bound (0.05 = at most 5% above optimal)
+     * Exhaustive search is only tried while it stays tractable
+     */
+    public RouteResult findBestRoute(Location startLocation, List<DeliveryOrder> orders, double acceptableGap) {
+        List<RouteOptimizationStrategy> strategies = new ArrayList<>(Arrays.asList(
+            new com.deliveryoptimizer.optimizationstrategy.GreedyNearestNeighborStrategy(),
+            new com.deliveryoptimizer.optimizationstrategy.BeamSearchOptimizationStrategy()
+        ));
+        if (orders.size() <= EXHAUSTIVE_SEARCH_MAX_ORDERS) {
+            strategies.add(new ExhaustiveSearchOptimizationStrategy());
+        }
+        double lowerBound = computeLowerBound(startLocation, orders, distanceCalculator, averageSpeedKmh,
+                                              "comparison");
+        RouteResult best = null;
+        for (RouteOptimizationStrategy strategy : strategies) {
+            RouteResult result = runForComparison(strategy, startLocation, orders, lowerBound);
+            if (best == null || result.getTotalTimeMinutes() < best.getTotalTimeMinutes()) {
+                best = result;
+            }
+            if (best.getOptimalityGap() <= acceptableGap) {
+                break;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * One strategy run outside the current strategy and cache, with observers and events
+     */
+    private RouteResult runForComparison(RouteOptimizationStrategy strategy, Location startLocation,
+                                         List<DeliveryOrder> orders, double lowerBound) {
+        OptimizationEvent event = new OptimizationEvent();
+        event.begin();
+        notifyOptimizationStarted(strategy.getStrategyName(), orders.size());
+        
+        OptimizationPhaseEvent solvePhase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.SOLVE,
+                                                                         strategy.getStrategyName(), orders.size());
+        long started = System.nanoTime();
+        RouteResult result = strategy.optimizeRoute(startLocation, orders, 
+                                                   distanceCalculator, averageSpeedKmh);
+        result.getSearchStatistics().setSolveTimeNanos(System.nanoTime() - started);
+        solvePhase.commit();
+        if (Double.isNaN(result.getLowerBoundMinutes())) {
+            result.setLowerBoundMinutes(lowerBound);
+        }
+        
+        notifyOptimizationCompleted(result, orders.size());
+        commitOptimizationEvent(event, strategy.getStrategyName(), orders.size(), result);
+        return result;
+    }
+    
     /**
      * Calculate total distance for a specific route
      */
@@ -171,22 +347,53 @@ public class DeliveryRouteOptimizationContext {
         return locationMap;
     }
     
+    /**
+     * Fill in and commit the Flight Recorder event of one optimization (result is null on failure)
+     */
+    private static void commitOptimizationEvent(OptimizationEvent event, String strategyName, int orderCount,
+                                                RouteResult result) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.strategy = strategyName;
+        event.orderCount = orderCount;
+        event.succeeded = result != null;
+        if (result != null) {
+            SearchStatistics statistics = result.getSearchStatistics();
+            event.cacheHit = statistics.isCacheHit();
+            event.routeTimeMinutes = result.getTotalTimeMinutes();
+            event.sequencesEvaluated = statistics.getSequencesEvaluated();
+            event.distanceCalls = statistics.getDistanceCalls();
+        }
+        event.commit();
+    }
+    
     // Observer notification methods
     private void notifyOptimizationStarted(String strategyName, int orderCount) {
+        OptimizationPhaseEvent phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.OBSERVER_CALLBACKS,
+                                                                    strategyName, orderCount);
         for (RouteOptimizationObserver observer : observers) {
             observer.onOptimizationStarted(strategyName, orderCount);
         }
+        phase.commit();
     }
     
-    private void notifyOptimizationCompleted(RouteResult result) {
+    private void notifyOptimizationCompleted(RouteResult result, int orderCount) {
+        OptimizationPhaseEvent phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.OBSERVER_CALLBACKS,
+                                                                    result.getStrategy(), orderCount);
         for (RouteOptimizationObserver observer : observers) {
             observer.onOptimizationCompleted(result);
         }
+        phase.commit();
     }
     
-    private void notifyOptimizationError(String errorMessage, Throwable cause) {
+    private void notifyOptimizationError(String errorMessage, Throwable cause, String strategyName, int orderCount) {
+        OptimizationPhaseEvent phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.OBSERVER_CALLBACKS,
+                                                                    strategyName, orderCount);
         for (RouteOptimizationObserver observer : observers) {
-            observer.onOptimizationError(errorMessage, cause);
+            observer.onOptimizationError(strategyName, errorMessage, cause);
         }
+        phase.commit();
     }
 }
@@ -0,0 +1,155 @@
+package com.deliveryoptimizer.batchrunner;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Line writer whose file I/O happens on its own thread
+ * Solver threads only hand lines to a bounded queue, blocking when the disk falls that far behind; the writer
+ * thread drains the queue in bulk into a large buffered writer. close() is asynchronous so the last solver of a
+ * file does not wait on the disk; await() waits for the file to be complete and reports any write failure,
+ * including one a producer hit and handed back through abort().
+ */
+final class AsyncResultWriter {
+
+    static final int DEFAULT_QUEUE_CAPACITY = 4096;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Sentinel compared by identity
+    private static final String END = new String("");
+
+    private final Path file;
+    private final BlockingQueue<String> lines;
+    private final Thread thread;
+    private volatile IOException failure;
+    private volatile boolean aborted;
+    private volatile long linesWritten;
+
+    AsyncResultWriter(Path file, int queueCapacity) throws IOException {
+        this.file = file;
+        this.lines = new ArrayBlockingQueue<>(queueCapacity);
+        Writer writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.thread = new Thread(() -> drain(writer), "batch-writer-" + file.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queue one line, without its line separator; blocks while the queue is full
+     */
+    void write(String line) throws InterruptedIOException {
+        if (aborted) {
+            return;
+        }
+        try {
+            lines.put(line);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted writing " + file);
+        }
+    }
+
+    /**
+     * Flush and close the file once every queued line is written; returns without waiting
+     */
+    void close() throws InterruptedIOException {
+        write(END);
+    }
+
+    /**
+     * Give up on the file because a producer failed, e.g. was interrupted while queueing a line
+     * The writer thread stops without waiting for close(), later lines are dropped and await() throws the first
+     * failure, this one unless the disk failed before.
+     */
+    void abort(IOException cause) {
+        recordFailure(cause);
+        aborted = true;
+        thread.interrupt();
+    }
+
+    /**
+     * Wait until the file is closed
+     * @throws IOException the first write failure, after which later lines were discarded
+     */
+    void await() throws IOException, InterruptedException {
+        thread.join();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    long getLinesWritten() {
+        return linesWritten;
+    }
+
+    private void drain(Writer writer) {
+        List<String> batch = new ArrayList<>(256);
+        boolean open = true;
+        try {
+            while (open) {
+                batch.add(lines.take());
+                lines.drainTo(batch);
+                for (String line : batch) {
+                    if (line == END) {
+                        open = false;
+                        break;
+                    }
+                    writer.write(line);
+                    writer.write('\n');
+                    linesWritten++;
+                }
+                batch.clear();
+            }
+        } catch (IOException e) {
+            recordFailure(e);
+            // Keep taking lines so producers never block on a dead writer
+            if (!aborted) {
+                discardUntilEnd(batch);
+            }
+        } catch (InterruptedException e) {
+            recordFailure(new InterruptedIOException("Interrupted writing " + file));
+        } finally {
+            // Free producers blocked on a full queue; an aborted writer drops their lines from now on
+            lines.clear();
+            try {
+                writer.close();
+            } catch (IOException e) {
+                recordFailure(e);
+            }
+        }
+    }
+
+    private synchronized void recordFailure(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private void discardUntilEnd(List<String> batch) {
+        for (String line : batch) {
+            if (line == END) {
+                return;
+            }
+        }
+        try {
+            while (lines.take() != END) {
+                // Discard
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
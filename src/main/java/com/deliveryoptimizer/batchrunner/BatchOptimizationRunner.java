@@ -0,0 +1,431 @@
+package com.deliveryoptimizer.batchrunner;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.deliveryoptimizer.DeliveryRouteOptimizationContext;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
+import com.deliveryoptimizer.metrics.LogHistogram;
+import com.deliveryoptimizer.optimizationservice.RouteResultJson;
+import com.deliveryoptimizer.optimizationstrategy.BeamSearchOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.ExhaustiveSearchOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.GreedyNearestNeighborStrategy;
+import com.deliveryoptimizer.optimizationstrategy.LocalSearchOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.PriorityBasedOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.RouteOptimizationStrategy;
+import com.deliveryoptimizer.orderingest.OrderLogLoader;
+import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
+
+/**
+ * Headless batch mode: solves every scenario of a set of order logs in parallel and writes the routes as JSON lines
+ * Loader threads stream each file through an OrderLogLoader and hand its courier/window scenarios to a fixed pool
+ * of solver threads; at most queuedPerWorker scenarios per worker wait at a time, so loaders block instead of
+ * filling the heap when solving is the bottleneck. Every input file gets one output file, <name>.routes.jsonl,
+ * written by its own AsyncResultWriter so solvers never wait on the disk. Lines appear in completion order and
+ * carry the scenario's index within its file. Beam search runs single-threaded here, as the solver pool already
+ * runs one scenario per worker. Exhaustive search is factorial in the order count, so scenarios above
+ * maxExhaustiveOrders get an error line instead of a solve when it is the strategy.
+ */
+public class BatchOptimizationRunner {
+
+    public static final String DEFAULT_STRATEGY = "beam";
+    public static final int DEFAULT_QUEUED_PER_WORKER = 32;
+    public static final int DEFAULT_MAX_ORDERS_PER_SCENARIO = 50;
+    // A quarter second per scenario at 7 orders on one core; 8 orders take seconds, some close to a minute
+    public static final int DEFAULT_MAX_EXHAUSTIVE_ORDERS = 7;
+    public static final String OUTPUT_SUFFIX = ".routes.jsonl";
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    // Parsing is far cheaper than solving, so one loader keeps several solvers fed
+    private static final int WORKERS_PER_LOADER = 4;
+
+    private final Map<String, Supplier<RouteOptimizationStrategy>> strategies = new LinkedHashMap<>();
+    private final DistanceCalculator distanceCalculator;
+    private final double averageSpeedKmh;
+    private String strategy = DEFAULT_STRATEGY;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int queuedPerWorker = DEFAULT_QUEUED_PER_WORKER;
+    private int windowMinutes = OrderLogLoader.DEFAULT_WINDOW_MINUTES;
+    private int maxOrdersPerScenario = DEFAULT_MAX_ORDERS_PER_SCENARIO;
+    private int maxExhaustiveOrders = DEFAULT_MAX_EXHAUSTIVE_ORDERS;
+
+    public BatchOptimizationRunner(DistanceCalculator distanceCalculator, double averageSpeedKmh) {
+        this.distanceCalculator = distanceCalculator;
+        this.averageSpeedKmh = averageSpeedKmh;
+        strategies.put("greedy", GreedyNearestNeighborStrategy::new);
+        strategies.put("exhaustive", ExhaustiveSearchOptimizationStrategy::new);
+        strategies.put("priority", PriorityBasedOptimizationStrategy::new);
+        strategies.put("beam", () -> new BeamSearchOptimizationStrategy(
+                BeamSearchOptimizationStrategy.DEFAULT_BEAM_WIDTH, null, 1));
+        strategies.put("local", LocalSearchOptimizationStrategy::new);
+    }
+
+    /**
+     * Strategy for every scenario: greedy, exhaustive, priority, beam or local
+     */
+    public BatchOptimizationRunner setStrategy(String strategy) {
+        if (!strategies.containsKey(strategy)) {
+            throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+        this.strategy = strategy;
+        return this;
+    }
+
+    public BatchOptimizationRunner setWorkers(int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("workers must be positive: " + workers);
+        }
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * Scenarios per worker that may be loaded but not yet solved
+     */
+    public BatchOptimizationRunner setQueuedPerWorker(int queuedPerWorker) {
+        if (queuedPerWorker <= 0) {
+            throw new IllegalArgumentException("queuedPerWorker must be positive: " + queuedPerWorker);
+        }
+        this.queuedPerWorker = queuedPerWorker;
+        return this;
+    }
+
+    /**
+     * Courier time window grouping orders into one scenario, as in OrderLogLoader
+     */
+    public BatchOptimizationRunner setWindowMinutes(int windowMinutes) {
+        if (windowMinutes <= 0) {
+            throw new IllegalArgumentException("windowMinutes must be positive: " + windowMinutes);
+        }
+        this.windowMinutes = windowMinutes;
+        return this;
+    }
+
+    public BatchOptimizationRunner setMaxOrdersPerScenario(int maxOrdersPerScenario) {
+        if (maxOrdersPerScenario <= 0) {
+            throw new IllegalArgumentException("maxOrdersPerScenario must be positive: " + maxOrdersPerScenario);
+        }
+        this.maxOrdersPerScenario = maxOrdersPerScenario;
+        return this;
+    }
+
+    /**
+     * Largest scenario solved with exhaustive search; larger ones are written as error lines
+     */
+    public BatchOptimizationRunner setMaxExhaustiveOrders(int maxExhaustiveOrders) {
+        if (maxExhaustiveOrders <= 0) {
+            throw new IllegalArgumentException("maxExhaustiveOrders must be positive: " + maxExhaustiveOrders);
+        }
+        this.maxExhaustiveOrders = maxExhaustiveOrders;
+        return this;
+    }
+
+    /**
+     * Order logs named by a directory (its .csv, .jsonl and .ndjson files), a single file or a glob such as
+     * logs/2024-05-*.csv, sorted by path
+     */
+    public static List<Path> resolveInputs(String directoryOrGlob) throws IOException {
+        Path path = Paths.get(directoryOrGlob);
+        int wildcard = indexOfWildcard(directoryOrGlob);
+        if (wildcard < 0 && Files.isRegularFile(path)) {
+            return Collections.singletonList(path);
+        }
+        if (wildcard < 0) {
+            try (Stream<Path> files = Files.list(path)) {
+                return files.filter(Files::isRegularFile).filter(BatchOptimizationRunner::isOrderLog).sorted()
+                            .collect(Collectors.toList());
+            }
+        }
+        // Walk the longest wildcard-free directory and match the glob against the paths as written
+        int slash = directoryOrGlob.lastIndexOf('/', wildcard);
+        Path base = slash < 0 ? Paths.get(".") : Paths.get(directoryOrGlob.substring(0, slash + 1));
+        PathMatcher glob = FileSystems.getDefault().getPathMatcher("glob:" + directoryOrGlob);
+        try (Stream<Path> files = Files.walk(base)) {
+            return files.filter(Files::isRegularFile)
+                        .filter(file -> glob.matches(slash < 0 ? base.relativize(file) : file))
+                        .sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static int indexOfWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if ("*?[{".indexOf(pattern.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isOrderLog(Path file) {
+        try {
+            OrderLogLoader.Format.forPath(file);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Solve every scenario of the input files, writing one result file per input into the output directory
+     */
+    public BatchReport run(List<Path> inputs, Path outputDirectory) throws IOException, InterruptedException {
+        Files.createDirectories(outputDirectory);
+        DeliveryRouteOptimizationContext context = new DeliveryRouteOptimizationContext(
+                strategies.get(strategy).get(), distanceCalculator, averageSpeedKmh);
+        Run run = new Run(context, workers * queuedPerWorker,
+                          strategy.equals("exhaustive") ? maxExhaustiveOrders : Integer.MAX_VALUE);
+
+        AtomicInteger solverIndex = new AtomicInteger();
+        ExecutorService solvers = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "batch-solver-" + solverIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger loaderIndex = new AtomicInteger();
+        int loaderCount = Math.max(1, Math.min(inputs.size(), (workers + WORKERS_PER_LOADER - 1) / WORKERS_PER_LOADER));
+        ExecutorService loaders = Executors.newFixedThreadPool(loaderCount, runnable -> {
+            Thread thread = new Thread(runnable, "batch-loader-" + loaderIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long started = System.nanoTime();
+        List<Future<AsyncResultWriter>> loads = new ArrayList<>(inputs.size());
+        Set<String> outputNames = new HashSet<>();
+        for (Path input : inputs) {
+            Path output = outputDirectory.resolve(outputName(input, outputNames));
+            loads.add(loaders.submit(() -> load(run, input, output, solvers)));
+        }
+        loaders.shutdown();
+
+        List<IOException> failures = new ArrayList<>();
+        List<AsyncResultWriter> writers = new ArrayList<>(inputs.size());
+        for (Future<AsyncResultWriter> load : loads) {
+            try {
+                writers.add(load.get());
+            } catch (ExecutionException e) {
+                failures.add(asIOException(e.getCause()));
+            }
+        }
+        for (AsyncResultWriter writer : writers) {
+            try {
+                writer.await();
+            } catch (IOException e) {
+                failures.add(e);
+            }
+        }
+        solvers.shutdown();
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+        if (!failures.isEmpty()) {
+            IOException failure = new IOException(failures.size() + " of " + inputs.size() + " files failed",
+                                                  failures.get(0));
+            failures.stream().skip(1).forEach(failure::addSuppressed);
+            throw failure;
+        }
+        return run.report(inputs.size(), elapsedSeconds, workers);
+    }
+
+    /**
+     * Stream one file into the solver pool; the returned writer closes once its last scenario is written
+     */
+    private AsyncResultWriter load(Run run, Path input, Path output, ExecutorService solvers)
+            throws IOException, InterruptedException {
+        AsyncResultWriter writer = new AsyncResultWriter(output, AsyncResultWriter.DEFAULT_QUEUE_CAPACITY);
+        // One count for the loader itself, so the file cannot close while scenarios are still being read
+        AtomicInteger pending = new AtomicInteger(1);
+        int[] index = new int[1];
+        try {
+            OrderLogLoader.LoadSummary summary = new OrderLogLoader(windowMinutes)
+                    .setMaxOrdersPerScenario(maxOrdersPerScenario)
+                    .setSkipMalformed(true)
+                    .load(input, scenario -> {
+                        int scenarioIndex = index[0]++;
+                        run.acquire();
+                        pending.incrementAndGet();
+                        solvers.execute(() -> {
+                            try {
+                                writer.write(run.solve(scenarioIndex, scenario));
+                            } catch (IOException e) {
+                                // Thrown here it would die with the pool thread; the writer reports it instead
+                                writer.abort(e);
+                            } finally {
+                                run.release();
+                                finish(writer, pending);
+                            }
+                        });
+                    });
+            run.malformedRecords.add(summary.getMalformedRecords());
+        } finally {
+            finish(writer, pending);
+        }
+        return writer;
+    }
+
+    private static void finish(AsyncResultWriter writer, AtomicInteger pending) {
+        if (pending.decrementAndGet() == 0) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                writer.abort(e);
+            }
+        }
+    }
+
+    private static String outputName(Path input, Set<String> taken) {
+        String name = input.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String stem = dot > 0 ? name.substring(0, dot) : name;
+        String candidate = stem;
+        // Equal file names from different directories of a glob get numbered
+        for (int n = 2; !taken.add(candidate); n++) {
+            candidate = stem + "-" + n;
+        }
+        return candidate + OUTPUT_SUFFIX;
+    }
+
+    private static IOException asIOException(Throwable cause) {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof UncheckedIOException) {
+            return ((UncheckedIOException) cause).getCause();
+        }
+        return new IOException(cause);
+    }
+
+    /**
+     * State shared by the loaders and solvers of one run
+     */
+    private static final class Run {
+        final DeliveryRouteOptimizationContext context;
+        final Semaphore queued;
+        final int maxOrdersSolved;
+        final LogHistogram latencyMicros = new LogHistogram();
+        final LongAdder scenarios = new LongAdder();
+        final LongAdder orders = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder malformedRecords = new LongAdder();
+        final LongAdder cpuNanos = new LongAdder();
+        volatile long maxLatencyNanos;
+
+        Run(DeliveryRouteOptimizationContext context, int maxQueued, int maxOrdersSolved) {
+            this.context = context;
+            this.queued = new Semaphore(maxQueued);
+            this.maxOrdersSolved = maxOrdersSolved;
+        }
+
+        void acquire() {
+            try {
+                queued.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Batch loading interrupted");
+            }
+        }
+
+        void release() {
+            queued.release();
+        }
+
+        /**
+         * Solve one scenario and encode it as a result line, or an error line if the strategy failed
+         */
+        String solve(int index, DeliveryScenario scenario) {
+            StringBuilder json = new StringBuilder(1024);
+            json.append("{\"scenario\":").append(index).append(",\"name\":");
+            RouteResultJson.appendString(json, scenario.getScenarioName());
+            json.append(",\"orders\":").append(scenario.getOrderCount());
+            scenarios.increment();
+            orders.add(scenario.getOrderCount());
+            if (scenario.getOrderCount() > maxOrdersSolved) {
+                failures.increment();
+                json.append(",\"error\":");
+                RouteResultJson.appendString(json, "Scenario has " + scenario.getOrderCount()
+                                                   + " orders, more than the " + maxOrdersSolved + " this strategy solves");
+                return json.append('}').toString();
+            }
+
+            long cpuStart = cpuTimeNanos();
+            long started = System.nanoTime();
+            try {
+                RouteResult result = context.optimizeRoute(scenario.getStartLocation(), scenario.getOrders());
+                json.append(",\"result\":");
+                RouteResultJson.append(json, result);
+            } catch (RuntimeException e) {
+                failures.increment();
+                json.append(",\"error\":");
+                RouteResultJson.appendString(json, String.valueOf(e.getMessage()));
+            }
+            long latency = System.nanoTime() - started;
+            cpuNanos.add(cpuTimeNanos() - cpuStart);
+            latencyMicros.record(latency / 1_000);
+            synchronized (this) {
+                if (latency > maxLatencyNanos) {
+                    maxLatencyNanos = latency;
+                }
+            }
+            return json.append('}').toString();
+        }
+
+        BatchReport report(int files, double elapsedSeconds, int workers) {
+            double maxMillis = maxLatencyNanos / 1e6;
+            return new BatchReport(files, scenarios.sum(), orders.sum(), failures.sum(), malformedRecords.sum(),
+                                   elapsedSeconds, workers, cpuNanos.sum() / 1e9, percentileMillis(0.50, maxMillis),
+                                   percentileMillis(0.90, maxMillis), percentileMillis(0.99, maxMillis), maxMillis);
+        }
+
+        /**
+         * Bucket upper bounds can exceed every recorded value, so they are capped at the true maximum
+         */
+        private double percentileMillis(double percentile, double maxMillis) {
+            return Math.min(latencyMicros.getPercentile(percentile) / 1e3, maxMillis);
+        }
+
+        private static long cpuTimeNanos() {
+            return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+        }
+    }
+
+    /**
+     * Solve a directory or glob of order logs:
+     * BatchOptimizationRunner dir|glob outputDir [strategy] [workers] [windowMinutes] [maxOrdersPerScenario]
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BatchOptimizationRunner <dir|glob> <outputDir> [greedy|exhaustive|priority|beam|local]"
+                               + " [workers] [windowMinutes] [maxOrdersPerScenario]");
+            System.exit(2);
+        }
+        BatchOptimizationRunner runner = new BatchOptimizationRunner(new HaversineDistanceCalculator(), 20.0);
+        if (args.length > 2) {
+            runner.setStrategy(args[2]);
+        }
+        if (args.length > 3) {
+            runner.setWorkers(Integer.parseInt(args[3]));
+        }
+        if (args.length > 4) {
+            runner.setWindowMinutes(Integer.parseInt(args[4]));
+        }
+        if (args.length > 5) {
+            runner.setMaxOrdersPerScenario(Integer.parseInt(args[5]));
+        }
+        List<Path> inputs = resolveInputs(args[0]);
+        if (inputs.isEmpty()) {
+            System.err.println("No order logs match " + args[0]);
+            System.exit(1);
+        }
+        System.out.println(runner.run(inputs, Paths.get(args[1])));
+    }
+}
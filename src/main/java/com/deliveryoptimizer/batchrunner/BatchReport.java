@@ -0,0 +1,107 @@
+package com.deliveryoptimizer.batchrunner;
+
+/**
+ * Throughput and latency summary of one batch run
+ */
+public class BatchReport {
+    private final int files;
+    private final long scenarios;
+    private final long orders;
+    private final long failures;
+    private final long malformedRecords;
+    private final double elapsedSeconds;
+    private final int workers;
+    private final double solverCpuSeconds;
+    private final double p50Millis;
+    private final double p90Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    BatchReport(int files, long scenarios, long orders, long failures, long malformedRecords, double elapsedSeconds,
+                int workers, double solverCpuSeconds, double p50Millis, double p90Millis, double p99Millis,
+                double maxMillis) {
+        this.files = files;
+        this.scenarios = scenarios;
+        this.orders = orders;
+        this.failures = failures;
+        this.malformedRecords = malformedRecords;
+        this.elapsedSeconds = elapsedSeconds;
+        this.workers = workers;
+        this.solverCpuSeconds = solverCpuSeconds;
+        this.p50Millis = p50Millis;
+        this.p90Millis = p90Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    public int getFiles() {
+        return files;
+    }
+
+    public long getScenarios() {
+        return scenarios;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    /**
+     * Scenarios whose solve threw; they are written as error lines
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getMalformedRecords() {
+        return malformedRecords;
+    }
+
+    public double getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    public double getScenariosPerSecond() {
+        return elapsedSeconds == 0 ? 0 : scenarios / elapsedSeconds;
+    }
+
+    public double getOrdersPerSecond() {
+        return elapsedSeconds == 0 ? 0 : orders / elapsedSeconds;
+    }
+
+    /**
+     * Solver thread CPU time over the CPU time the workers could have used in the run; 1.0 keeps every worker busy
+     */
+    public double getWorkerUtilization() {
+        return elapsedSeconds == 0 ? 0 : solverCpuSeconds / (elapsedSeconds * workers);
+    }
+
+    /**
+     * Per-scenario solve latency percentiles, as upper bounds of power-of-two microsecond buckets
+     */
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP90Millis() {
+        return p90Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d files, %d scenarios, %d orders (%d failed, %d malformed records) in %.2f s: "
+                             + "%.1f scenarios/s, %.1f orders/s, %d workers at %.0f%% utilization, "
+                             + "latency p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms",
+                files, scenarios, orders, failures, malformedRecords, elapsedSeconds, getScenariosPerSecond(),
+                getOrdersPerSecond(), workers, getWorkerUtilization() * 100, p50Millis, p90Millis, p99Millis,
+                maxMillis);
+    }
+}
@@ -0,0 +1,59 @@
+package com.deliveryoptimizer.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single visit to one physical location that serves several tasks back to back
+ * Pickups in the stop are released together once the slowest one is prepared
+ */
+public class CompositeStop {
+    private final Location location;
+    private final List<Task> tasks;
+
+    public CompositeStop(Location location, List<Task> tasks) {
+        this.location = location;
+        this.tasks = new ArrayList<>(tasks);
+    }
+
+    /**
+     * Representative location the courier travels to for this stop
+     */
+    public Location getLocation() {
+        return location;
+    }
+
+    public List<Task> getTasks() {
+        return Collections.unmodifiableList(tasks);
+    }
+
+    public int getTaskCount() {
+        return tasks.size();
+    }
+
+    public boolean hasPickup() {
+        for (Task task : tasks) {
+            if (task.isPickup()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Time at which every pickup in this stop is ready (0 when the stop has no pickups)
+     */
+    public double getReadyTime(List<DeliveryOrder> orders) {
+        double readyTime = 0;
+        for (Task task : tasks) {
+            if (task.isPickup()) {
+                readyTime = Math.max(readyTime, orders.get(task.getOrderIndex()).getPreparationTimeMinutes());
+            }
+        }
+        return readyTime;
+    }
+
+    @Override
+    public String toString() {
+        return location.getName() + tasks;
+    }
+}
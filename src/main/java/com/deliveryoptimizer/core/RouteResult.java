@@ -11,20 +11,26 @@ public class RouteResult {
     private final double totalTimeMinutes;
     private final String strategy;
     private final List<String> stepByStepActions;
+    private final SearchStatistics searchStatistics;
+    private double lowerBoundMinutes = Double.NaN;
     
     public RouteResult(List<String> route, double totalTimeMinutes, String strategy) {
-        this.route = new ArrayList<>(route);
-        this.totalTimeMinutes = totalTimeMinutes;
-        this.strategy = strategy;
-        this.stepByStepActions = new ArrayList<>();
+        this(route, totalTimeMinutes, strategy, new ArrayList<>(), new SearchStatistics());
     }
     
     public RouteResult(List<String> route, double totalTimeMinutes, String strategy, 
                       List<String> stepByStepActions) {
+        this(route, totalTimeMinutes, strategy, stepByStepActions, new SearchStatistics());
+    }
+    
+    public RouteResult(List<String> route, double totalTimeMinutes, String strategy,
+                      List<String> stepByStepActions, SearchStatistics searchStatistics) {
         this.route = new ArrayList<>(route);
         this.totalTimeMinutes = totalTimeMinutes;
         this.strategy = strategy;
         this.stepByStepActions = new ArrayList<>(stepByStepActions);
+        // Callers and observers read the statistics unconditionally
+        this.searchStatistics = searchStatistics != null ? searchStatistics : new SearchStatistics();
     }
     
     public List<String> getRoute() {
@@ -43,6 +49,39 @@ public class RouteResult {
         return new ArrayList<>(stepByStepActions);
     }
     
+    /**
+     * Counters recorded while this result was computed
+     */
+    public SearchStatistics getSearchStatistics() {
+        return searchStatistics;
+    }
+    
+    /**
+     * Proven lower bound on the total time of any route for the same request, NaN when not computed
+     */
+    public double getLowerBoundMinutes() {
+        return lowerBoundMinutes;
+    }
+    
+    public void setLowerBoundMinutes(double lowerBoundMinutes) {
+        this.lowerBoundMinutes = lowerBoundMinutes;
+    }
+    
+    /**
+     * Relative distance to the lower bound, (total - bound) / bound; the route is at most this much worse than
+     * optimal. 0 when the bound is met, NaN when no bound is attached
+     */
+    public double getOptimalityGap() {
+        if (Double.isNaN(lowerBoundMinutes)) {
+            return Double.NaN;
+        }
+        if (totalTimeMinutes <= lowerBoundMinutes) {
+            return 0.0;
+        }
+        return lowerBoundMinutes > 0 ? (totalTimeMinutes - lowerBoundMinutes) / lowerBoundMinutes
+                                     : Double.POSITIVE_INFINITY;
+    }
+    
     public String getRouteAsString() {
         return String.join(" -> ", route);
     }
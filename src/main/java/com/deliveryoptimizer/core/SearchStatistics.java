@@ -0,0 +1,97 @@
+package com.deliveryoptimizer.core;
+
+/**
+ * Internal counters of one optimization run
+ * Filled in by the strategy while it searches; the context adds the wall-clock solve time
+ */
+public class SearchStatistics {
+    private long sequencesEvaluated;
+    private long nodesExpanded;
+    private long nodesPruned;
+    private long distanceCalls;
+    private boolean cacheHit;
+    private long solveTimeNanos;
+
+    /**
+     * Complete routes whose total time was evaluated
+     */
+    public long getSequencesEvaluated() {
+        return sequencesEvaluated;
+    }
+
+    public void addSequencesEvaluated(long count) {
+        sequencesEvaluated += count;
+    }
+
+    /**
+     * Partial routes extended by one task
+     */
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    public void addNodesExpanded(long count) {
+        nodesExpanded += count;
+    }
+
+    /**
+     * Partial routes discarded without being extended (symmetry, bounds, filters)
+     */
+    public long getNodesPruned() {
+        return nodesPruned;
+    }
+
+    public void addNodesPruned(long count) {
+        nodesPruned += count;
+    }
+
+    /**
+     * Distance or travel-time calculator invocations
+     */
+    public long getDistanceCalls() {
+        return distanceCalls;
+    }
+
+    public void addDistanceCalls(long count) {
+        distanceCalls += count;
+    }
+
+    /**
+     * Whether the result was served from the result cache instead of running the strategy
+     */
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    public void setCacheHit(boolean cacheHit) {
+        this.cacheHit = cacheHit;
+    }
+
+    /**
+     * Wall-clock time of the optimizeRoute call that produced the result
+     */
+    public long getSolveTimeNanos() {
+        return solveTimeNanos;
+    }
+
+    public void setSolveTimeNanos(long solveTimeNanos) {
+        this.solveTimeNanos = solveTimeNanos;
+    }
+
+    public SearchStatistics copy() {
+        SearchStatistics copy = new SearchStatistics();
+        copy.sequencesEvaluated = sequencesEvaluated;
+        copy.nodesExpanded = nodesExpanded;
+        copy.nodesPruned = nodesPruned;
+        copy.distanceCalls = distanceCalls;
+        copy.cacheHit = cacheHit;
+        copy.solveTimeNanos = solveTimeNanos;
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("sequences=%d, expanded=%d, pruned=%d, distanceCalls=%d, cacheHit=%s, solve=%.3f ms",
+                sequencesEvaluated, nodesExpanded, nodesPruned, distanceCalls, cacheHit, solveTimeNanos / 1e6);
+    }
+}
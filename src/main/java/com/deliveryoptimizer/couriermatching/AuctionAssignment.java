@@ -0,0 +1,199 @@
+package com.deliveryoptimizer.couriermatching;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Capacitated auction algorithm over a sparse order-to-courier cost graph
+ * Orders bid for courier slots (a courier with capacity k offers k slots); an order's value for a slot is
+ * minus its cost minus the slot price, and staying unassigned is always an option worth minus the unassigned
+ * penalty, so the auction terminates even when there are more orders than slots. Bidding is Jacobi-style: every
+ * unassigned order computes its bid against the same prices, in parallel, and conflicts are then resolved in
+ * one sequential pass where the highest bid wins each slot. The final assignment is within orders * epsilon of
+ * the optimal total cost.
+ *
+ * The auction runs as a single phase from zero prices, without epsilon scaling: with more slots than orders, a
+ * slot priced up in an earlier phase and then left free breaks the optimality conditions, and the fixed-value
+ * unassigned option would win against it for good. From zero prices, every slot nobody bid on still has the
+ * lowest possible price, which the bound needs.
+ */
+final class AuctionAssignment {
+
+    static final int UNASSIGNED = -1;
+
+    private static final int PARALLEL_THRESHOLD = 512;
+
+    private final int orderCount;
+    private final int[] candidateStart;
+    private final int[] candidateCourier;
+    private final double[] candidateCost;
+    private final int[] slotStart;
+    private final double unassignedPenalty;
+
+    private final int[] slotCourier;
+    private final double[] prices;
+    private final int[] slotOwner;
+    private final int[] orderSlot;
+    private int rounds;
+
+    /**
+     * @param candidateStart Order o's candidates are at [candidateStart[o], candidateStart[o + 1])
+     * @param slotStart Courier c's slots are [slotStart[c], slotStart[c + 1])
+     */
+    AuctionAssignment(int orderCount, int[] candidateStart, int[] candidateCourier, double[] candidateCost,
+                      int[] slotStart, double unassignedPenalty) {
+        this.orderCount = orderCount;
+        this.candidateStart = candidateStart;
+        this.candidateCourier = candidateCourier;
+        this.candidateCost = candidateCost;
+        this.slotStart = slotStart;
+        this.unassignedPenalty = unassignedPenalty;
+        int slots = slotStart[slotStart.length - 1];
+        this.slotCourier = new int[slots];
+        for (int c = 0; c + 1 < slotStart.length; c++) {
+            Arrays.fill(slotCourier, slotStart[c], slotStart[c + 1], c);
+        }
+        this.prices = new double[slots];
+        this.slotOwner = new int[slots];
+        this.orderSlot = new int[orderCount];
+    }
+
+    /**
+     * Run the auction and return the assigned courier per order, or UNASSIGNED
+     */
+    int[] solve(double epsilon, ExecutorService executor, int parallelism) throws InterruptedException {
+        Arrays.fill(prices, 0.0);
+        runAuction(epsilon, executor, parallelism);
+
+        int[] courierOf = new int[orderCount];
+        for (int o = 0; o < orderCount; o++) {
+            courierOf[o] = orderSlot[o] < 0 ? UNASSIGNED : slotCourier[orderSlot[o]];
+        }
+        return courierOf;
+    }
+
+    int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * Bid until every order holds a slot or prefers staying unassigned
+     */
+    private void runAuction(double epsilon, ExecutorService executor, int parallelism) throws InterruptedException {
+        Arrays.fill(slotOwner, UNASSIGNED);
+        Arrays.fill(orderSlot, UNASSIGNED);
+        int[] bidders = new int[orderCount];
+        for (int o = 0; o < orderCount; o++) {
+            bidders[o] = o;
+        }
+        int bidderCount = orderCount;
+        int[] bidSlot = new int[orderCount];
+        double[] bidPrice = new double[orderCount];
+        double[] bestBid = new double[prices.length];
+        int[] bestBidder = new int[prices.length];
+        Arrays.fill(bestBidder, UNASSIGNED);
+        int[] touched = new int[prices.length];
+
+        while (bidderCount > 0) {
+            rounds++;
+            computeBids(bidders, bidderCount, bidSlot, bidPrice, epsilon, executor, parallelism);
+
+            // Resolve: the highest bid takes each slot
+            int touchedCount = 0;
+            for (int b = 0; b < bidderCount; b++) {
+                int slot = bidSlot[b];
+                if (slot < 0) {
+                    continue; // prefers staying unassigned
+                }
+                if (bestBidder[slot] == UNASSIGNED) {
+                    touched[touchedCount++] = slot;
+                    bestBid[slot] = bidPrice[b];
+                    bestBidder[slot] = bidders[b];
+                } else if (bidPrice[b] > bestBid[slot]) {
+                    bestBid[slot] = bidPrice[b];
+                    bestBidder[slot] = bidders[b];
+                }
+            }
+            int[] next = new int[bidderCount];
+            int nextCount = 0;
+            for (int b = 0; b < bidderCount; b++) {
+                if (bidSlot[b] >= 0 && bestBidder[bidSlot[b]] != bidders[b]) {
+                    next[nextCount++] = bidders[b]; // outbid in this round
+                }
+            }
+            for (int t = 0; t < touchedCount; t++) {
+                int slot = touched[t];
+                int previous = slotOwner[slot];
+                if (previous != UNASSIGNED) {
+                    orderSlot[previous] = UNASSIGNED;
+                    next[nextCount++] = previous;
+                }
+                slotOwner[slot] = bestBidder[slot];
+                orderSlot[bestBidder[slot]] = slot;
+                prices[slot] = bestBid[slot];
+                bestBidder[slot] = UNASSIGNED;
+            }
+            bidders = next;
+            bidderCount = nextCount;
+        }
+    }
+
+    private void computeBids(int[] bidders, int bidderCount, int[] bidSlot, double[] bidPrice, double epsilon,
+                             ExecutorService executor, int parallelism) throws InterruptedException {
+        if (executor == null || parallelism <= 1 || bidderCount < PARALLEL_THRESHOLD) {
+            computeBids(bidders, 0, bidderCount, bidSlot, bidPrice, epsilon);
+            return;
+        }
+        int chunks = Math.min(parallelism * 4, bidderCount / (PARALLEL_THRESHOLD / 4));
+        List<Callable<Void>> tasks = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            int from = (int) ((long) bidderCount * c / chunks);
+            int to = (int) ((long) bidderCount * (c + 1) / chunks);
+            tasks.add(() -> {
+                computeBids(bidders, from, to, bidSlot, bidPrice, epsilon);
+                return null;
+            });
+        }
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Bidding failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Bid of each bidder in the range: its best slot and the price that leaves it epsilon better off there
+     * than at its second-best option
+     */
+    private void computeBids(int[] bidders, int from, int to, int[] bidSlot, double[] bidPrice, double epsilon) {
+        for (int b = from; b < to; b++) {
+            int order = bidders[b];
+            double bestValue = -unassignedPenalty;
+            double secondValue = -unassignedPenalty;
+            int bestSlot = UNASSIGNED;
+            for (int k = candidateStart[order]; k < candidateStart[order + 1]; k++) {
+                int courier = candidateCourier[k];
+                double cost = candidateCost[k];
+                for (int slot = slotStart[courier]; slot < slotStart[courier + 1]; slot++) {
+                    double value = -cost - prices[slot];
+                    if (value > bestValue) {
+                        secondValue = bestValue;
+                        bestValue = value;
+                        bestSlot = slot;
+                    } else if (value > secondValue) {
+                        secondValue = value;
+                    }
+                }
+            }
+            bidSlot[b] = bestSlot;
+            if (bestSlot != UNASSIGNED) {
+                bidPrice[b] = prices[bestSlot] + bestValue - secondValue + epsilon;
+            }
+        }
+    }
+}
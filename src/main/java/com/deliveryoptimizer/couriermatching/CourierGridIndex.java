@@ -0,0 +1,144 @@
+package com.deliveryoptimizer.couriermatching;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Uniform grid over latitude/longitude holding courier slots by position
+ * Cells are square in degrees of latitude; a radius query widens its longitude span by 1/cos(latitude),
+ * so it visits every cell that can hold a point within the radius. Callers filter the visited slots by
+ * exact distance. Updates must not run concurrently with queries; concurrent queries are safe.
+ */
+public class CourierGridIndex {
+
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private final double cellDegrees;
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private double[] latitudes = new double[64];
+    private double[] longitudes = new double[64];
+    private long[] cellKeys = new long[64];
+    private boolean[] present = new boolean[64];
+    private int size;
+
+    /**
+     * @param cellKm Cell edge length; about the typical query radius works well
+     */
+    public CourierGridIndex(double cellKm) {
+        if (cellKm <= 0) {
+            throw new IllegalArgumentException("cellKm must be positive: " + cellKm);
+        }
+        this.cellDegrees = cellKm / KM_PER_DEGREE;
+    }
+
+    /**
+     * Insert or move the courier with the given slot
+     */
+    public void put(int slot, double latitude, double longitude) {
+        ensureCapacity(slot + 1);
+        long key = cellKey(latitude, longitude);
+        if (present[slot]) {
+            if (cellKeys[slot] == key) {
+                latitudes[slot] = latitude;
+                longitudes[slot] = longitude;
+                return;
+            }
+            cells.get(cellKeys[slot]).remove(slot);
+        } else {
+            present[slot] = true;
+            size++;
+        }
+        latitudes[slot] = latitude;
+        longitudes[slot] = longitude;
+        cellKeys[slot] = key;
+        cells.computeIfAbsent(key, k -> new Cell()).add(slot);
+    }
+
+    public void remove(int slot) {
+        if (slot >= present.length || !present[slot]) {
+            return;
+        }
+        Cell cell = cells.get(cellKeys[slot]);
+        cell.remove(slot);
+        if (cell.size == 0) {
+            cells.remove(cellKeys[slot]);
+        }
+        present[slot] = false;
+        size--;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getLatitude(int slot) {
+        return latitudes[slot];
+    }
+
+    public double getLongitude(int slot) {
+        return longitudes[slot];
+    }
+
+    /**
+     * Visit every slot in the cells overlapping the radius around the point
+     */
+    public void forEachNear(double latitude, double longitude, double radiusKm, IntConsumer visitor) {
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        double cos = Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+        double lngSpan = latSpan / cos;
+        long minRow = (long) Math.floor((latitude - latSpan) / cellDegrees);
+        long maxRow = (long) Math.floor((latitude + latSpan) / cellDegrees);
+        long minCol = (long) Math.floor((longitude - lngSpan) / cellDegrees);
+        long maxCol = (long) Math.floor((longitude + lngSpan) / cellDegrees);
+        for (long row = minRow; row <= maxRow; row++) {
+            for (long col = minCol; col <= maxCol; col++) {
+                Cell cell = cells.get(key(row, col));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size; i++) {
+                    visitor.accept(cell.slots[i]);
+                }
+            }
+        }
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return key((long) Math.floor(latitude / cellDegrees), (long) Math.floor(longitude / cellDegrees));
+    }
+
+    private static long key(long row, long col) {
+        return (row << 32) ^ (col & 0xFFFFFFFFL);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > present.length) {
+            int length = Math.max(capacity, present.length * 2);
+            latitudes = Arrays.copyOf(latitudes, length);
+            longitudes = Arrays.copyOf(longitudes, length);
+            cellKeys = Arrays.copyOf(cellKeys, length);
+            present = Arrays.copyOf(present, length);
+        }
+    }
+
+    private static final class Cell {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    slots[i] = slots[--size];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.deliveryoptimizer.couriermatching;
+
+import java.util.*;
+
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.streamingdispatch.CourierPlan;
+import com.deliveryoptimizer.streamingdispatch.PlannedStop;
+
+/**
+ * What the matcher needs to know about a courier: where it is, the stops it still has to drive,
+ * and how many more orders it can take
+ */
+public class CourierStatus {
+    private final String courierId;
+    private final Location position;
+    private final List<Location> remainingStops;
+    private final int freeCapacity;
+
+    public CourierStatus(String courierId, Location position, List<Location> remainingStops, int freeCapacity) {
+        this.courierId = courierId;
+        this.position = position;
+        this.remainingStops = new ArrayList<>(remainingStops);
+        this.freeCapacity = freeCapacity;
+    }
+
+    /**
+     * Status of a courier from its latest rolling-horizon plan
+     * @param maxOrders Most orders the courier may hold at once
+     */
+    public static CourierStatus of(CourierPlan plan, int maxOrders) {
+        List<Location> stops = new ArrayList<>();
+        Set<String> orders = new HashSet<>();
+        for (PlannedStop stop : plan.getCommittedStops()) {
+            stops.add(stop.getLocation());
+            orders.add(stop.getOrderId());
+        }
+        for (PlannedStop stop : plan.getFlexibleStops()) {
+            stops.add(stop.getLocation());
+            orders.add(stop.getOrderId());
+        }
+        int outstanding = orders.size() + plan.getUnplannedOrders();
+        return new CourierStatus(plan.getCourierId(), plan.getPosition(), stops, Math.max(0, maxOrders - outstanding));
+    }
+
+    public String getCourierId() {
+        return courierId;
+    }
+
+    public Location getPosition() {
+        return position;
+    }
+
+    public List<Location> getRemainingStops() {
+        return Collections.unmodifiableList(remainingStops);
+    }
+
+    public int getFreeCapacity() {
+        return freeCapacity;
+    }
+}
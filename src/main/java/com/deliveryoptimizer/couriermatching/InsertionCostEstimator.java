@@ -0,0 +1,58 @@
+package com.deliveryoptimizer.couriermatching;
+
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+
+/**
+ * Cheapest-insertion estimate of the extra driving an order adds to a courier's current route
+ * The route is the courier position followed by its remaining stops, and is not closed. The pickup goes
+ * between route nodes i and i+1 and the delivery between nodes j and j+1 with j >= i (or right after the
+ * pickup when j == i); keeping the best pickup detour seen so far makes the search linear in the route length.
+ * Preparation waits are ignored, so this is a ranking estimate rather than a schedule.
+ */
+final class InsertionCostEstimator {
+
+    private InsertionCostEstimator() {
+    }
+
+    /**
+     * @param route Courier position followed by its remaining stops
+     * @param legMinutes Travel time of leg k, from route[k] to route[k + 1]
+     * @return Added travel minutes of the best insertion
+     */
+    static double marginalMinutes(Location[] route, double[] legMinutes, Location pickup, Location delivery,
+                                  DistanceCalculator calculator, double speedKmh) {
+        int nodes = route.length;
+        double pickupToDelivery = calculator.calculateTravelTime(pickup, delivery, speedKmh);
+        double best = Double.POSITIVE_INFINITY;
+        double bestPickupDetour = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < nodes; j++) {
+            Location node = route[j];
+            boolean last = j == nodes - 1;
+            double toPickup = calculator.calculateTravelTime(node, pickup, speedKmh);
+            double toDelivery = calculator.calculateTravelTime(node, delivery, speedKmh);
+            double pickupNext = last ? 0 : calculator.calculateTravelTime(pickup, route[j + 1], speedKmh);
+            double deliveryNext = last ? 0 : calculator.calculateTravelTime(delivery, route[j + 1], speedKmh);
+            double leg = last ? 0 : legMinutes[j];
+
+            // Pickup and delivery back to back between node j and j + 1
+            best = Math.min(best, toPickup + pickupToDelivery + deliveryNext - leg);
+            // Delivery between node j and j + 1 after a pickup inserted at an earlier leg
+            if (bestPickupDetour < Double.POSITIVE_INFINITY) {
+                best = Math.min(best, bestPickupDetour + toDelivery + deliveryNext - leg);
+            }
+            if (!last) {
+                bestPickupDetour = Math.min(bestPickupDetour, toPickup + pickupNext - leg);
+            }
+        }
+        return best;
+    }
+
+    static double[] legMinutes(Location[] route, DistanceCalculator calculator, double speedKmh) {
+        double[] legs = new double[Math.max(0, route.length - 1)];
+        for (int k = 0; k < legs.length; k++) {
+            legs[k] = calculator.calculateTravelTime(route[k], route[k + 1], speedKmh);
+        }
+        return legs;
+    }
+}
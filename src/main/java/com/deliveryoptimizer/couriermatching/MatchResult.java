@@ -0,0 +1,86 @@
+package com.deliveryoptimizer.couriermatching;
+
+import java.util.*;
+
+import com.deliveryoptimizer.core.DeliveryOrder;
+
+/**
+ * Outcome of matching one wave of orders to couriers
+ */
+public class MatchResult {
+    private final Map<String, String> courierByOrder;
+    private final Map<String, Double> insertionMinutesByOrder;
+    private final List<DeliveryOrder> unassignedOrders;
+    private final long candidatePairs;
+    private final int auctionRounds;
+    private final long elapsedNanos;
+
+    MatchResult(Map<String, String> courierByOrder, Map<String, Double> insertionMinutesByOrder,
+                List<DeliveryOrder> unassignedOrders, long candidatePairs, int auctionRounds, long elapsedNanos) {
+        this.courierByOrder = courierByOrder;
+        this.insertionMinutesByOrder = insertionMinutesByOrder;
+        this.unassignedOrders = unassignedOrders;
+        this.candidatePairs = candidatePairs;
+        this.auctionRounds = auctionRounds;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Assigned courier id per order id, in the order the orders were given
+     */
+    public Map<String, String> getAssignments() {
+        return Collections.unmodifiableMap(courierByOrder);
+    }
+
+    /**
+     * Assigned courier of the order, or null if it was left unassigned
+     */
+    public String getCourierId(String orderId) {
+        return courierByOrder.get(orderId);
+    }
+
+    /**
+     * Estimated extra driving minutes of the order for its assigned courier
+     */
+    public double getInsertionMinutes(String orderId) {
+        Double minutes = insertionMinutesByOrder.get(orderId);
+        return minutes == null ? Double.NaN : minutes;
+    }
+
+    /**
+     * Orders with no courier in range, or whose best insertion cost exceeded the unassigned penalty
+     */
+    public List<DeliveryOrder> getUnassignedOrders() {
+        return Collections.unmodifiableList(unassignedOrders);
+    }
+
+    public double getTotalInsertionMinutes() {
+        double total = 0;
+        for (double minutes : insertionMinutesByOrder.values()) {
+            total += minutes;
+        }
+        return total;
+    }
+
+    /**
+     * Order-courier pairs whose insertion cost was estimated
+     */
+    public long getCandidatePairs() {
+        return candidatePairs;
+    }
+
+    public int getAuctionRounds() {
+        return auctionRounds;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MatchResult[assigned=%d, unassigned=%d, insertion=%.1f min, pairs=%d, rounds=%d, %.1f ms]",
+                courierByOrder.size(), unassignedOrders.size(), getTotalInsertionMinutes(), candidatePairs,
+                auctionRounds, elapsedNanos / 1e6);
+    }
+}
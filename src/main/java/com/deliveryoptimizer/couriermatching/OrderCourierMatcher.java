@@ -0,0 +1,384 @@
+package com.deliveryoptimizer.couriermatching;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
+import com.deliveryoptimizer.scenariofactory.SyntheticScenarioGenerator;
+
+/**
+ * Decides which courier takes which order of a wave, before any route optimization runs
+ * Courier positions live in a grid index. For each order only couriers within the search radius of its
+ * restaurant are considered, each is scored by the cheapest insertion of the order into its remaining stops,
+ * and the cheapest few are kept. A capacitated auction then assigns orders to couriers, minimizing total
+ * insertion time; orders whose best option costs more than the unassigned penalty are left for the next wave.
+ * Candidate scoring and auction bidding run on a fixed worker pool.
+ *
+ * Insertion costs are estimated against each courier's route before the wave, so two orders given to the
+ * same courier are costed independently. Courier updates must not run concurrently with match().
+ */
+public class OrderCourierMatcher implements AutoCloseable {
+
+    public static final double DEFAULT_SEARCH_RADIUS_KM = 3.0;
+    public static final int DEFAULT_MAX_CANDIDATES = 32;
+    public static final double DEFAULT_UNASSIGNED_PENALTY_MINUTES = 45.0;
+    public static final double DEFAULT_FINAL_EPSILON_MINUTES = 0.01;
+
+    private static final int ORDERS_PER_TASK = 128;
+
+    private final DistanceCalculator distanceCalculator;
+    private final double speedKmh;
+    private final int parallelism;
+    private final ExecutorService workers;
+
+    private final CourierGridIndex grid;
+    private final Map<String, Integer> slotByCourier = new HashMap<>();
+    private final List<CourierStatus> courierBySlot = new ArrayList<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+
+    private double searchRadiusKm = DEFAULT_SEARCH_RADIUS_KM;
+    private int maxCandidates = DEFAULT_MAX_CANDIDATES;
+    private double unassignedPenaltyMinutes = DEFAULT_UNASSIGNED_PENALTY_MINUTES;
+    private double finalEpsilonMinutes = DEFAULT_FINAL_EPSILON_MINUTES;
+
+    public OrderCourierMatcher(DistanceCalculator distanceCalculator, double speedKmh) {
+        this(distanceCalculator, speedKmh, Runtime.getRuntime().availableProcessors());
+    }
+
+    public OrderCourierMatcher(DistanceCalculator distanceCalculator, double speedKmh, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.distanceCalculator = distanceCalculator;
+        this.speedKmh = speedKmh;
+        this.parallelism = threads;
+        this.grid = new CourierGridIndex(DEFAULT_SEARCH_RADIUS_KM);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = threads == 1 ? null : Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "courier-matcher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Couriers farther than this from an order's restaurant are not considered for it
+     */
+    public OrderCourierMatcher setSearchRadiusKm(double searchRadiusKm) {
+        if (searchRadiusKm <= 0) {
+            throw new IllegalArgumentException("searchRadiusKm must be positive: " + searchRadiusKm);
+        }
+        this.searchRadiusKm = searchRadiusKm;
+        return this;
+    }
+
+    /**
+     * Cheapest couriers kept per order for the assignment
+     */
+    public OrderCourierMatcher setMaxCandidatesPerOrder(int maxCandidates) {
+        if (maxCandidates <= 0) {
+            throw new IllegalArgumentException("maxCandidates must be positive: " + maxCandidates);
+        }
+        this.maxCandidates = maxCandidates;
+        return this;
+    }
+
+    /**
+     * Cost of leaving an order unassigned; orders whose best insertion costs more stay unassigned
+     */
+    public OrderCourierMatcher setUnassignedPenaltyMinutes(double unassignedPenaltyMinutes) {
+        if (unassignedPenaltyMinutes <= 0) {
+            throw new IllegalArgumentException("unassignedPenaltyMinutes must be positive: " + unassignedPenaltyMinutes);
+        }
+        this.unassignedPenaltyMinutes = unassignedPenaltyMinutes;
+        return this;
+    }
+
+    /**
+     * Auction epsilon; the total cost is within orders * epsilon of optimal, and smaller values take more rounds
+     */
+    public OrderCourierMatcher setFinalEpsilonMinutes(double finalEpsilonMinutes) {
+        if (finalEpsilonMinutes <= 0) {
+            throw new IllegalArgumentException("finalEpsilonMinutes must be positive: " + finalEpsilonMinutes);
+        }
+        this.finalEpsilonMinutes = finalEpsilonMinutes;
+        return this;
+    }
+
+    /**
+     * Add a courier or replace its position, remaining stops and capacity
+     */
+    public void updateCourier(CourierStatus courier) {
+        Integer slot = slotByCourier.get(courier.getCourierId());
+        if (slot == null) {
+            slot = freeSlots.isEmpty() ? courierBySlot.size() : freeSlots.pop();
+            slotByCourier.put(courier.getCourierId(), slot);
+            if (slot == courierBySlot.size()) {
+                courierBySlot.add(courier);
+            }
+        }
+        courierBySlot.set(slot, courier);
+        grid.put(slot, courier.getPosition().getLatitude(), courier.getPosition().getLongitude());
+    }
+
+    public void removeCourier(String courierId) {
+        Integer slot = slotByCourier.remove(courierId);
+        if (slot != null) {
+            grid.remove(slot);
+            courierBySlot.set(slot, null);
+            freeSlots.push(slot);
+        }
+    }
+
+    public int getCourierCount() {
+        return slotByCourier.size();
+    }
+
+    /**
+     * Assign a wave of orders to the registered couriers
+     */
+    public MatchResult match(List<DeliveryOrder> orders) throws InterruptedException {
+        long started = System.nanoTime();
+        int orderCount = orders.size();
+
+        // Dense index over couriers that can take orders, with their routes prepared for insertion
+        int[] denseBySlot = new int[courierBySlot.size()];
+        Arrays.fill(denseBySlot, -1);
+        List<CourierStatus> active = new ArrayList<>();
+        for (int slot = 0; slot < courierBySlot.size(); slot++) {
+            CourierStatus courier = courierBySlot.get(slot);
+            if (courier != null && courier.getFreeCapacity() > 0) {
+                denseBySlot[slot] = active.size();
+                active.add(courier);
+            }
+        }
+        Location[][] routes = new Location[active.size()][];
+        double[][] legs = new double[active.size()][];
+        for (int c = 0; c < active.size(); c++) {
+            CourierStatus courier = active.get(c);
+            List<Location> stops = courier.getRemainingStops();
+            Location[] route = new Location[stops.size() + 1];
+            route[0] = courier.getPosition();
+            for (int s = 0; s < stops.size(); s++) {
+                route[s + 1] = stops.get(s);
+            }
+            routes[c] = route;
+            legs[c] = InsertionCostEstimator.legMinutes(route, distanceCalculator, speedKmh);
+        }
+
+        // Score nearby couriers per order, keeping the cheapest few
+        int[][] candidateCouriers = new int[orderCount][];
+        double[][] candidateCosts = new double[orderCount][];
+        long[] pairsPerTask = new long[(orderCount + ORDERS_PER_TASK - 1) / ORDERS_PER_TASK];
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < pairsPerTask.length; t++) {
+            int task = t;
+            tasks.add(() -> {
+                int from = task * ORDERS_PER_TASK;
+                int to = Math.min(orderCount, from + ORDERS_PER_TASK);
+                pairsPerTask[task] = scoreCandidates(orders, from, to, denseBySlot, routes, legs,
+                                                     candidateCouriers, candidateCosts);
+                return null;
+            });
+        }
+        runAll(tasks);
+        long pairs = 0;
+        for (long taskPairs : pairsPerTask) {
+            pairs += taskPairs;
+        }
+
+        // Flatten into the auction's sparse layout
+        int[] candidateStart = new int[orderCount + 1];
+        for (int o = 0; o < orderCount; o++) {
+            candidateStart[o + 1] = candidateStart[o] + candidateCouriers[o].length;
+        }
+        int[] candidateCourier = new int[candidateStart[orderCount]];
+        double[] candidateCost = new double[candidateStart[orderCount]];
+        for (int o = 0; o < orderCount; o++) {
+            System.arraycopy(candidateCouriers[o], 0, candidateCourier, candidateStart[o], candidateCouriers[o].length);
+            System.arraycopy(candidateCosts[o], 0, candidateCost, candidateStart[o], candidateCosts[o].length);
+        }
+        int[] slotStart = new int[active.size() + 1];
+        for (int c = 0; c < active.size(); c++) {
+            slotStart[c + 1] = slotStart[c] + active.get(c).getFreeCapacity();
+        }
+
+        AuctionAssignment auction = new AuctionAssignment(orderCount, candidateStart, candidateCourier,
+                                                          candidateCost, slotStart, unassignedPenaltyMinutes);
+        int[] assigned = auction.solve(finalEpsilonMinutes, workers, parallelism);
+
+        Map<String, String> courierByOrder = new LinkedHashMap<>();
+        Map<String, Double> minutesByOrder = new LinkedHashMap<>();
+        List<DeliveryOrder> unassigned = new ArrayList<>();
+        for (int o = 0; o < orderCount; o++) {
+            DeliveryOrder order = orders.get(o);
+            if (assigned[o] == AuctionAssignment.UNASSIGNED) {
+                unassigned.add(order);
+                continue;
+            }
+            courierByOrder.put(order.getOrderId(), active.get(assigned[o]).getCourierId());
+            for (int k = candidateStart[o]; k < candidateStart[o + 1]; k++) {
+                if (candidateCourier[k] == assigned[o]) {
+                    minutesByOrder.put(order.getOrderId(), candidateCost[k]);
+                    break;
+                }
+            }
+        }
+        return new MatchResult(courierByOrder, minutesByOrder, unassigned, pairs, auction.getRounds(),
+                               System.nanoTime() - started);
+    }
+
+    /**
+     * Stop the worker threads
+     */
+    @Override
+    public void close() {
+        if (workers != null) {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Fill the candidate lists of orders [from, to)
+     * @return number of order-courier pairs scored
+     */
+    private long scoreCandidates(List<DeliveryOrder> orders, int from, int to, int[] denseBySlot,
+                                 Location[][] routes, double[][] legs,
+                                 int[][] candidateCouriers, double[][] candidateCosts) {
+        long pairs = 0;
+        int[] bestCouriers = new int[maxCandidates];
+        double[] bestCosts = new double[maxCandidates];
+        NearbyCouriers nearby = new NearbyCouriers(denseBySlot);
+        for (int o = from; o < to; o++) {
+            DeliveryOrder order = orders.get(o);
+            Location restaurant = order.getRestaurantLocation();
+            nearby.size = 0;
+            grid.forEachNear(restaurant.getLatitude(), restaurant.getLongitude(), searchRadiusKm, nearby);
+
+            int kept = 0;
+            for (int n = 0; n < nearby.size; n++) {
+                int courier = nearby.couriers[n];
+                Location[] route = routes[courier];
+                if (distanceCalculator.calculateDistance(route[0], restaurant) > searchRadiusKm) {
+                    continue;
+                }
+                pairs++;
+                double cost = InsertionCostEstimator.marginalMinutes(route, legs[courier], restaurant,
+                        order.getConsumerLocation(), distanceCalculator, speedKmh);
+                if (kept == maxCandidates && cost >= bestCosts[kept - 1]) {
+                    continue;
+                }
+                // Insertion into the sorted top list
+                int position = kept == maxCandidates ? kept - 1 : kept++;
+                while (position > 0 && bestCosts[position - 1] > cost) {
+                    bestCosts[position] = bestCosts[position - 1];
+                    bestCouriers[position] = bestCouriers[position - 1];
+                    position--;
+                }
+                bestCosts[position] = cost;
+                bestCouriers[position] = courier;
+            }
+            candidateCouriers[o] = Arrays.copyOf(bestCouriers, kept);
+            candidateCosts[o] = Arrays.copyOf(bestCosts, kept);
+        }
+        return pairs;
+    }
+
+    /**
+     * Collects the dense indexes of available couriers visited by a grid query
+     */
+    private static final class NearbyCouriers implements IntConsumer {
+        private final int[] denseBySlot;
+        int[] couriers = new int[16];
+        int size;
+
+        NearbyCouriers(int[] denseBySlot) {
+            this.denseBySlot = denseBySlot;
+        }
+
+        @Override
+        public void accept(int slot) {
+            int courier = denseBySlot[slot];
+            if (courier < 0) {
+                return;
+            }
+            if (size == couriers.length) {
+                couriers = Arrays.copyOf(couriers, size * 2);
+            }
+            couriers[size++] = courier;
+        }
+    }
+
+    private void runAll(List<Callable<Void>> tasks) throws InterruptedException {
+        if (workers == null || tasks.size() == 1) {
+            for (Callable<Void> task : tasks) {
+                call(task);
+            }
+            return;
+        }
+        for (Future<Void> future : workers.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Candidate scoring failed", e.getCause());
+            }
+        }
+    }
+
+    private static void call(Callable<Void> task) {
+        try {
+            task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Match one synthetic wave and print timing:
+     * OrderCourierMatcher [orders] [couriers] [threads] [seed]
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int orderCount = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+        int courierCount = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+
+        // A 10 km city with 40 restaurant hotspots; couriers spread uniformly, each with one delivery left
+        double centerLat = 12.9716;
+        double centerLng = 77.5946;
+        List<DeliveryOrder> orders = new SyntheticScenarioGenerator(seed)
+                .setCity(centerLat, centerLng, 10.0)
+                .setHotspots(40, 6, 0.5)
+                .generate(orderCount).getOrders();
+        Random random = new Random(seed);
+        try (OrderCourierMatcher matcher = new OrderCourierMatcher(new HaversineDistanceCalculator(), 20.0, threads)) {
+            for (int c = 0; c < courierCount; c++) {
+                Location position = randomPoint(random, centerLat, centerLng, 10.0, "courier-" + c);
+                Location drop = randomPoint(random, centerLat, centerLng, 10.0, "drop-" + c);
+                matcher.updateCourier(new CourierStatus("courier-" + c, position, List.of(drop), 2));
+            }
+            for (int run = 1; run <= 5; run++) {
+                System.out.printf("Run %d: %s%n", run, matcher.match(orders));
+            }
+        }
+    }
+
+    private static Location randomPoint(Random random, double centerLat, double centerLng, double radiusKm, String name) {
+        double distanceKm = radiusKm * Math.sqrt(random.nextDouble());
+        double bearing = 2 * Math.PI * random.nextDouble();
+        double lat = centerLat + distanceKm * Math.cos(bearing) / 111.0;
+        double lng = centerLng + distanceKm * Math.sin(bearing) / (111.0 * Math.cos(Math.toRadians(centerLat)));
+        return new Location(name, "", lat, lng);
+    }
+}
@@ -27,4 +27,39 @@ public interface DistanceCalculator {
         double distanceKm = calculateDistance(from, to);
         return (distanceKm / speedKmh) * 60; // Convert to minutes
     }
+    
+    /**
+     * Calculate travel time for a departure at a given point of the route
+     * @param from Starting location
+     * @param to Destination location
+     * @param speedKmh Nominal travel speed in km/h
+     * @param departureTimeMinutes Minutes since the route started
+     * @return Travel time in minutes
+     */
+    default double calculateTravelTime(Location from, Location to, double speedKmh, double departureTimeMinutes) {
+        return calculateTravelTime(from, to, speedKmh) / getSpeedFactor(from, departureTimeMinutes);
+    }
+    
+    /**
+     * Multiplier on the nominal speed when departing from a location at a given route time
+     * @return 1.0 for time-independent calculators
+     */
+    default double getSpeedFactor(Location from, double departureTimeMinutes) {
+        return 1.0;
+    }
+    
+    /**
+     * Upper bound of getSpeedFactor over all locations and times; lower bounds divide nominal times by it
+     */
+    default double getMaxSpeedFactor() {
+        return 1.0;
+    }
+    
+    /**
+     * Whether travel times depend on the departure time; strategies use this to keep
+     * precomputed static travel tables on the fast path
+     */
+    default boolean isTimeDependent() {
+        return false;
+    }
 }
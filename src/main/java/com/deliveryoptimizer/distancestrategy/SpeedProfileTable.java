@@ -0,0 +1,248 @@
+package com.deliveryoptimizer.distancestrategy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import com.deliveryoptimizer.core.Location;
+
+/**
+ * Per-zone, time-of-day speed profiles precomputed into per-minute lookup tables
+ * Each profile is piecewise linear between its breakpoints and wraps around midnight
+ *
+ * File format, one entry per line ('#' starts a comment):
+ * <pre>
+ * zone    &lt;name&gt; &lt;minLat&gt; &lt;minLng&gt; &lt;maxLat&gt; &lt;maxLng&gt; HH:MM=factor ...
+ * default HH:MM=factor ...
+ * </pre>
+ * A factor scales the nominal speed (0.5 = half speed). Zones are matched in file order;
+ * locations outside every zone use the default profile, or factor 1.0 when none is given
+ */
+public class SpeedProfileTable {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final String[] zoneNames;
+    private final double[] zoneBounds; // minLat, minLng, maxLat, maxLng per zone
+    private final double[][] zoneFactors;
+    private final double[] defaultFactors;
+    private final long contentHash;
+
+    private SpeedProfileTable(List<String> zoneNames, List<double[]> zoneBounds, List<double[]> zoneFactors,
+                              double[] defaultFactors) {
+        this.zoneNames = zoneNames.toArray(new String[0]);
+        this.zoneBounds = new double[zoneBounds.size() * 4];
+        for (int z = 0; z < zoneBounds.size(); z++) {
+            System.arraycopy(zoneBounds.get(z), 0, this.zoneBounds, z * 4, 4);
+        }
+        this.zoneFactors = zoneFactors.toArray(new double[0][]);
+        this.defaultFactors = defaultFactors;
+        this.contentHash = hashContent();
+    }
+
+    /**
+     * Load speed profiles from a local file
+     */
+    public static SpeedProfileTable load(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * Parse speed profiles in the file format described on this class
+     * @throws IllegalArgumentException on a malformed line
+     */
+    public static SpeedProfileTable parse(BufferedReader reader) throws IOException {
+        List<String> names = new ArrayList<>();
+        List<double[]> bounds = new ArrayList<>();
+        List<double[]> factors = new ArrayList<>();
+        double[] defaultFactors = null;
+
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            String content = (comment >= 0 ? line.substring(0, comment) : line).trim();
+            if (content.isEmpty()) continue;
+
+            String[] fields = content.split("\\s+");
+            try {
+                if (fields[0].equals("zone")) {
+                    if (fields.length < 7) {
+                        throw new IllegalArgumentException("zone needs a name, four bounds and at least one breakpoint");
+                    }
+                    names.add(fields[1]);
+                    bounds.add(new double[] {
+                        Double.parseDouble(fields[2]), Double.parseDouble(fields[3]),
+                        Double.parseDouble(fields[4]), Double.parseDouble(fields[5])
+                    });
+                    factors.add(buildMinuteTable(fields, 6));
+                } else if (fields[0].equals("default")) {
+                    if (fields.length < 2) {
+                        throw new IllegalArgumentException("default needs at least one breakpoint");
+                    }
+                    defaultFactors = buildMinuteTable(fields, 1);
+                } else {
+                    throw new IllegalArgumentException("unknown entry '" + fields[0] + "'");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid speed profile at line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+
+        if (defaultFactors == null) {
+            defaultFactors = new double[MINUTES_PER_DAY];
+            Arrays.fill(defaultFactors, 1.0);
+        }
+        return new SpeedProfileTable(names, bounds, factors, defaultFactors);
+    }
+
+    /**
+     * Speed factor for departing from a location at a minute of the day; O(1) after zone matching
+     */
+    public double getSpeedFactor(Location location, double minuteOfDay) {
+        return getSpeedFactor(zoneOf(location), minuteOfDay);
+    }
+
+    /**
+     * Speed factor for a zone index from zoneOf (-1 selects the default profile)
+     */
+    public double getSpeedFactor(int zone, double minuteOfDay) {
+        double[] table = zone < 0 ? defaultFactors : zoneFactors[zone];
+        int minute = (int) Math.floor(minuteOfDay) % MINUTES_PER_DAY;
+        return table[minute < 0 ? minute + MINUTES_PER_DAY : minute];
+    }
+
+    /**
+     * Index of the first zone containing the location, or -1 when none does
+     */
+    public int zoneOf(Location location) {
+        double lat = location.getLatitude();
+        double lng = location.getLongitude();
+        for (int z = 0; z < zoneNames.length; z++) {
+            int b = z * 4;
+            if (lat >= zoneBounds[b] && lng >= zoneBounds[b + 1] && lat <= zoneBounds[b + 2] && lng <= zoneBounds[b + 3]) {
+                return z;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Fastest factor of any zone at any minute
+     */
+    public double getMaxSpeedFactor() {
+        double max = 0;
+        for (double factor : defaultFactors) {
+            max = Math.max(max, factor);
+        }
+        for (double[] table : zoneFactors) {
+            for (double factor : table) {
+                max = Math.max(max, factor);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 64-bit hash of the zones and every per-minute factor; tables with equal hashes give equal travel times
+     * with overwhelming probability, so caches can key on it instead of on the table instance
+     */
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    public int getZoneCount() {
+        return zoneNames.length;
+    }
+
+    public String getZoneName(int zone) {
+        return zone < 0 ? "default" : zoneNames[zone];
+    }
+
+    private long hashContent() {
+        long h = mix(zoneNames.length);
+        for (String name : zoneNames) {
+            h = mix(h ^ name.hashCode());
+        }
+        for (double bound : zoneBounds) {
+            h = mix(h ^ Double.doubleToLongBits(bound));
+        }
+        for (double[] table : zoneFactors) {
+            for (double factor : table) {
+                h = mix(h ^ Double.doubleToLongBits(factor));
+            }
+        }
+        for (double factor : defaultFactors) {
+            h = mix(h ^ Double.doubleToLongBits(factor));
+        }
+        return h;
+    }
+
+    private static long mix(long h) {
+        h = (h + 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ h >>> 27) * 0x94D049BB133111EBL;
+        return h ^ h >>> 31;
+    }
+
+    /**
+     * Interpolate HH:MM=factor breakpoints into one factor per minute of the day
+     */
+    private static double[] buildMinuteTable(String[] fields, int firstBreakpoint) {
+        int count = fields.length - firstBreakpoint;
+        int[] minutes = new int[count];
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            String field = fields[firstBreakpoint + i];
+            int eq = field.indexOf('=');
+            int colon = field.indexOf(':');
+            if (eq < 0 || colon < 0 || colon > eq) {
+                throw new IllegalArgumentException("breakpoint '" + field + "' is not HH:MM=factor");
+            }
+            int minute = Integer.parseInt(field.substring(0, colon)) * 60
+                       + Integer.parseInt(field.substring(colon + 1, eq));
+            double factor = Double.parseDouble(field.substring(eq + 1));
+            if (minute < 0 || minute >= MINUTES_PER_DAY) {
+                throw new IllegalArgumentException("breakpoint time out of range in '" + field + "'");
+            }
+            if (!(factor > 0)) {
+                throw new IllegalArgumentException("speed factor must be positive in '" + field + "'");
+            }
+            if (i > 0 && minute <= minutes[i - 1]) {
+                throw new IllegalArgumentException("breakpoints must be in increasing time order");
+            }
+            minutes[i] = minute;
+            values[i] = factor;
+        }
+
+        double[] table = new double[MINUTES_PER_DAY];
+        for (int m = 0; m < MINUTES_PER_DAY; m++) {
+            // Segment [minutes[i], minutes[i+1]) with wrap-around from the last breakpoint to the first
+            int next = 0;
+            while (next < count && minutes[next] <= m) next++;
+            int prev = next - 1;
+            int prevMinute, nextMinute;
+            if (prev < 0) {
+                prev = count - 1;
+                prevMinute = minutes[prev] - MINUTES_PER_DAY;
+            } else {
+                prevMinute = minutes[prev];
+            }
+            if (next >= count) {
+                next = 0;
+                nextMinute = minutes[0] + MINUTES_PER_DAY;
+            } else {
+                nextMinute = minutes[next];
+            }
+            double span = nextMinute - prevMinute;
+            double t = span == 0 ? 0 : (m - prevMinute) / span;
+            table[m] = values[prev] + (values[next] - values[prev]) * t;
+        }
+        return table;
+    }
+}
@@ -0,0 +1,82 @@
+package com.deliveryoptimizer.distancestrategy;
+
+import com.deliveryoptimizer.core.Location;
+
+/**
+ * Time-dependent travel model layered over a distance calculator
+ * Implements Decorator over the Strategy: distances come from the wrapped calculator and the
+ * nominal speed is scaled by the departure zone's speed profile at the time of departure
+ */
+public class TimeDependentDistanceCalculator implements DistanceCalculator {
+
+    private final DistanceCalculator baseCalculator;
+    private final SpeedProfileTable speedProfiles;
+    private final double routeStartMinuteOfDay;
+
+    /**
+     * @param baseCalculator Calculator supplying distances
+     * @param speedProfiles Precomputed per-zone speed profiles
+     * @param routeStartMinuteOfDay Clock time at which route time 0 falls, in minutes after midnight
+     */
+    public TimeDependentDistanceCalculator(DistanceCalculator baseCalculator, SpeedProfileTable speedProfiles,
+                                           double routeStartMinuteOfDay) {
+        this.baseCalculator = baseCalculator;
+        this.speedProfiles = speedProfiles;
+        this.routeStartMinuteOfDay = routeStartMinuteOfDay;
+    }
+
+    public TimeDependentDistanceCalculator(SpeedProfileTable speedProfiles, double routeStartMinuteOfDay) {
+        this(new HaversineDistanceCalculator(), speedProfiles, routeStartMinuteOfDay);
+    }
+
+    @Override
+    public double calculateDistance(Location from, Location to) {
+        return baseCalculator.calculateDistance(from, to);
+    }
+
+    /**
+     * Free-flow travel time at the nominal speed; use the departure-time overload for planning
+     */
+    @Override
+    public double calculateTravelTime(Location from, Location to, double speedKmh) {
+        return baseCalculator.calculateTravelTime(from, to, speedKmh);
+    }
+
+    @Override
+    public double getSpeedFactor(Location from, double departureTimeMinutes) {
+        return speedProfiles.getSpeedFactor(from, routeStartMinuteOfDay + departureTimeMinutes);
+    }
+
+    @Override
+    public double getMaxSpeedFactor() {
+        return speedProfiles.getMaxSpeedFactor();
+    }
+
+    @Override
+    public boolean isTimeDependent() {
+        return true;
+    }
+
+    /**
+     * The same model with route time 0 at another clock time, e.g. the start of a re-planned route tail
+     */
+    public TimeDependentDistanceCalculator startingAt(double routeStartMinuteOfDay) {
+        double minuteOfDay = routeStartMinuteOfDay % SpeedProfileTable.MINUTES_PER_DAY;
+        if (minuteOfDay < 0) {
+            minuteOfDay += SpeedProfileTable.MINUTES_PER_DAY;
+        }
+        return new TimeDependentDistanceCalculator(baseCalculator, speedProfiles, minuteOfDay);
+    }
+
+    public DistanceCalculator getBaseCalculator() {
+        return baseCalculator;
+    }
+
+    public SpeedProfileTable getSpeedProfiles() {
+        return speedProfiles;
+    }
+
+    public double getRouteStartMinuteOfDay() {
+        return routeStartMinuteOfDay;
+    }
+}
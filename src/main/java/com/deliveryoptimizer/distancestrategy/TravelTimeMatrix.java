@@ -0,0 +1,105 @@
+package com.deliveryoptimizer.distancestrategy;
+
+import java.util.List;
+
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+
+/**
+ * Precomputed travel times between every location slot of one optimization request
+ * Slot 0 is the start location; order i has its restaurant at slot 2i+1 and its consumer at slot 2i+2,
+ * which is the generateAllTasks task index shifted by one
+ */
+public class TravelTimeMatrix {
+
+    public static final int START_SLOT = 0;
+
+    private final Location[] locations;
+    private final double[] travelTimes;
+    private final int slotCount;
+    private final DistanceCalculator distanceCalculator;
+    private final boolean timeDependent;
+
+    private TravelTimeMatrix(Location[] locations, double[] travelTimes, DistanceCalculator distanceCalculator) {
+        this.locations = locations;
+        this.travelTimes = travelTimes;
+        this.slotCount = locations.length;
+        this.distanceCalculator = distanceCalculator;
+        this.timeDependent = distanceCalculator.isTimeDependent();
+    }
+
+    /**
+     * Build the matrix for a start location and its orders
+     */
+    public static TravelTimeMatrix build(Location startLocation, List<DeliveryOrder> orders,
+                                         DistanceCalculator distanceCalculator, double speedKmh) {
+        int slotCount = orders.size() * 2 + 1;
+        Location[] locations = new Location[slotCount];
+        locations[START_SLOT] = startLocation;
+        for (int i = 0; i < orders.size(); i++) {
+            locations[pickupSlot(i)] = orders.get(i).getRestaurantLocation();
+            locations[deliverySlot(i)] = orders.get(i).getConsumerLocation();
+        }
+
+        double[] travelTimes = new double[slotCount * slotCount];
+        for (int from = 0; from < slotCount; from++) {
+            for (int to = 0; to < slotCount; to++) {
+                travelTimes[from * slotCount + to] = from == to ? 0.0
+                        : distanceCalculator.calculateTravelTime(locations[from], locations[to], speedKmh);
+            }
+        }
+        return new TravelTimeMatrix(locations, travelTimes, distanceCalculator);
+    }
+
+    public static int pickupSlot(int orderIndex) {
+        return orderIndex * 2 + 1;
+    }
+
+    public static int deliverySlot(int orderIndex) {
+        return orderIndex * 2 + 2;
+    }
+
+    /**
+     * Order index served at a non-start slot
+     */
+    public static int orderIndexOf(int slot) {
+        return (slot - 1) >> 1;
+    }
+
+    public static boolean isPickupSlot(int slot) {
+        return slot != START_SLOT && (slot & 1) == 1;
+    }
+
+    /**
+     * Nominal travel time in minutes between two slots
+     */
+    public double getTravelTime(int fromSlot, int toSlot) {
+        return travelTimes[fromSlot * slotCount + toSlot];
+    }
+
+    /**
+     * Travel time in minutes between two slots when departing at the given route time
+     */
+    public double getTravelTime(int fromSlot, int toSlot, double departureTimeMinutes) {
+        double nominal = travelTimes[fromSlot * slotCount + toSlot];
+        if (!timeDependent) {
+            return nominal;
+        }
+        return nominal / distanceCalculator.getSpeedFactor(locations[fromSlot], departureTimeMinutes);
+    }
+
+    public Location getLocation(int slot) {
+        return locations[slot];
+    }
+
+    /**
+     * Calculator invocations spent building the matrix
+     */
+    public long getBuildDistanceCalls() {
+        return (long) slotCount * (slotCount - 1);
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+}
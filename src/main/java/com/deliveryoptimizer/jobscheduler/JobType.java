@@ -0,0 +1,23 @@
+package com.deliveryoptimizer.jobscheduler;
+
+/**
+ * Why an optimization was requested; together with the orders' priorities it decides the job's PriorityClass
+ */
+public enum JobType {
+    /** A courier already on the road needs a new route */
+    REPLAN(3),
+    /** A route asked for interactively, e.g. by a dispatcher */
+    ON_DEMAND(2),
+    /** What-if runs nobody is waiting on */
+    SIMULATION(0);
+
+    private final int weight;
+
+    JobType(int weight) {
+        this.weight = weight;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+}
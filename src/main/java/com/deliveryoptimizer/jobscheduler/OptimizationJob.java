@@ -0,0 +1,145 @@
+package com.deliveryoptimizer.jobscheduler;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.optimizationstrategy.RouteOptimizationStrategy;
+
+/**
+ * Handle of a job submitted to an OptimizationJobScheduler
+ * The result future completes with the route, or exceptionally with a CancellationException when the job was
+ * cancelled or preempted under PreemptionPolicy.CANCEL.
+ */
+public final class OptimizationJob {
+    private final long sequence;
+    private final JobType type;
+    private final PriorityClass priorityClass;
+    private final Location startLocation;
+    private final List<DeliveryOrder> orders;
+    private final long submittedNanos;
+    private final long deadlineNanos;
+    private final CompletableFuture<RouteResult> result = new CompletableFuture<>();
+
+    private volatile RouteOptimizationStrategy strategy;
+    private volatile boolean downgraded;
+    private volatile long startedNanos;
+
+    // Guarded by this: the worker running the job, and whether it was told to stop
+    private Thread runner;
+    private boolean preempted;
+
+    OptimizationJob(long sequence, JobType type, PriorityClass priorityClass, Location startLocation,
+                    List<DeliveryOrder> orders, RouteOptimizationStrategy strategy, long submittedNanos,
+                    long deadlineNanos) {
+        this.sequence = sequence;
+        this.type = type;
+        this.priorityClass = priorityClass;
+        this.startLocation = startLocation;
+        this.orders = orders;
+        this.strategy = strategy;
+        this.submittedNanos = submittedNanos;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public CompletableFuture<RouteResult> getResult() {
+        return result;
+    }
+
+    public JobType getType() {
+        return type;
+    }
+
+    public PriorityClass getPriorityClass() {
+        return priorityClass;
+    }
+
+    /**
+     * Strategy the job runs, or ran, with; the fallback strategy once downgraded
+     */
+    public RouteOptimizationStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * True when the job was stopped and re-run with the scheduler's fallback strategy
+     */
+    public boolean isDowngraded() {
+        return downgraded;
+    }
+
+    /**
+     * Cancel the job; a running job is interrupted and its strategy abandons the search at its next check
+     */
+    public boolean cancel() {
+        boolean cancelled = result.cancel(false);
+        if (cancelled) {
+            interrupt();
+        }
+        return cancelled;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    Location getStartLocation() {
+        return startLocation;
+    }
+
+    List<DeliveryOrder> getOrders() {
+        return orders;
+    }
+
+    long getSubmittedNanos() {
+        return submittedNanos;
+    }
+
+    long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    long getStartedNanos() {
+        return startedNanos;
+    }
+
+    void downgrade(RouteOptimizationStrategy fallback) {
+        strategy = fallback;
+        downgraded = true;
+    }
+
+    synchronized void attach(Thread worker, long now) {
+        runner = worker;
+        preempted = false;
+        startedNanos = now;
+    }
+
+    /**
+     * Detach from the worker and clear any interrupt meant for this job, so it cannot hit the worker's next one
+     */
+    synchronized boolean detach() {
+        runner = null;
+        Thread.interrupted();
+        return preempted;
+    }
+
+    /**
+     * Interrupt the running job once; false when it is not running or was already told to stop
+     */
+    synchronized boolean preempt() {
+        if (runner == null || preempted) {
+            return false;
+        }
+        preempted = true;
+        runner.interrupt();
+        return true;
+    }
+
+    private synchronized void interrupt() {
+        if (runner != null) {
+            runner.interrupt();
+        }
+    }
+}
@@ -0,0 +1,486 @@
+package com.deliveryoptimizer.jobscheduler;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import com.deliveryoptimizer.DeliveryRouteOptimizationContext;
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.metrics.MetricsRegistry;
+import com.deliveryoptimizer.optimizationstrategy.GreedyNearestNeighborStrategy;
+import com.deliveryoptimizer.optimizationstrategy.RouteOptimizationStrategy;
+
+/**
+ * Runs optimization jobs on a fixed set of workers, ahead of one another by PriorityClass
+ * Each class has its own queue ordered by deadline (submission plus the class SLO). Every worker has a home class,
+ * spread over the workers in proportion to the class weights, and takes from its home queue first; when that is
+ * empty it steals from the other queues, highest class first. A worker that just gave up a preempted job serves
+ * the highest waiting class next. Each worker owns the DeliveryRouteOptimizationContext the factory made for it.
+ *
+ * A monitor thread stops running jobs under their class's PreemptionPolicy when a higher-class job has waited
+ * for a tenth of its SLO with no worker free, taking the lowest-class, longest-running job first, and when a job
+ * runs past its own deadline. Stopping interrupts the worker; exhaustive and beam search notice within a few
+ * thousand nodes, and a downgraded job re-runs with the fallback strategy (greedy by default) at the front of its
+ * queue. Queue depth, running jobs, waits, latencies, SLO misses, steals and preemptions are kept per class in a
+ * MetricsRegistry under the label "class".
+ */
+public class OptimizationJobScheduler implements AutoCloseable {
+
+    static final String SUBMITTED = "scheduler_jobs_submitted_total";
+    static final String COMPLETED = "scheduler_jobs_completed_total";
+    static final String FAILED = "scheduler_jobs_failed_total";
+    static final String SLO_MISSES = "scheduler_slo_misses_total";
+    static final String STEALS = "scheduler_steals_total";
+    static final String PREEMPTIONS = "scheduler_preemptions_total";
+    static final String DOWNGRADES = "scheduler_downgrades_total";
+    static final String CANCELLATIONS = "scheduler_cancellations_total";
+    static final String QUEUE_WAIT = "scheduler_queue_wait_micros";
+    static final String LATENCY = "scheduler_job_latency_micros";
+    static final String QUEUE_DEPTH = "scheduler_queue_depth";
+    static final String RUNNING = "scheduler_running_jobs";
+
+    private static final PriorityClass[] CLASSES = PriorityClass.values();
+    private static final long MONITOR_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    // A waiting job may preempt once it has used this fraction of its SLO
+    private static final int PREEMPT_AFTER_SLO_DIVISOR = 10;
+
+    private final Supplier<DeliveryRouteOptimizationContext> contextFactory;
+    private final MetricsRegistry registry;
+    private final String[] labels = new String[CLASSES.length];
+    private final long[] sloNanos = new long[CLASSES.length];
+    private final PreemptionPolicy[] policies = new PreemptionPolicy[CLASSES.length];
+    private volatile boolean preemptionEnabled = true;
+    private volatile RouteOptimizationStrategy fallbackStrategy = new GreedyNearestNeighborStrategy();
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    // Guarded by lock
+    private final List<PriorityQueue<OptimizationJob>> queues = new ArrayList<>();
+    private final List<OptimizationJob> running = new ArrayList<>();
+    private final int[] runningPerClass = new int[CLASSES.length];
+    private int idleWorkers;
+    private boolean closed;
+
+    private final Thread[] workers;
+    private final Thread monitor;
+
+    public OptimizationJobScheduler(int workerCount, Supplier<DeliveryRouteOptimizationContext> contextFactory) {
+        this(workerCount, contextFactory, new MetricsRegistry());
+    }
+
+    public OptimizationJobScheduler(int workerCount, Supplier<DeliveryRouteOptimizationContext> contextFactory,
+                                    MetricsRegistry registry) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("workerCount must be positive: " + workerCount);
+        }
+        this.contextFactory = contextFactory;
+        this.registry = registry;
+        Comparator<OptimizationJob> byDeadline = Comparator.comparingLong(OptimizationJob::getDeadlineNanos)
+                                                           .thenComparingLong(OptimizationJob::getSequence);
+        for (PriorityClass priorityClass : CLASSES) {
+            int c = priorityClass.ordinal();
+            labels[c] = priorityClass.name().toLowerCase(Locale.ROOT);
+            sloNanos[c] = TimeUnit.MILLISECONDS.toNanos(priorityClass.getDefaultSloMillis());
+            policies[c] = PreemptionPolicy.DOWNGRADE;
+            queues.add(new PriorityQueue<>(byDeadline));
+        }
+        describeMetrics();
+
+        int[] homes = homeClasses(workerCount);
+        workers = new Thread[workerCount];
+        for (int w = 0; w < workerCount; w++) {
+            int home = homes[w];
+            workers[w] = new Thread(() -> work(home), "optimization-worker-" + w);
+            workers[w].setDaemon(true);
+            workers[w].start();
+        }
+        monitor = new Thread(this::monitor, "optimization-scheduler-monitor");
+        monitor.setDaemon(true);
+        monitor.start();
+    }
+
+    /**
+     * Submit-to-completion latency target of a class; also the job's deadline for EDF ordering and overruns
+     */
+    public OptimizationJobScheduler setSloMillis(PriorityClass priorityClass, long sloMillis) {
+        if (sloMillis <= 0) {
+            throw new IllegalArgumentException("sloMillis must be positive: " + sloMillis);
+        }
+        sloNanos[priorityClass.ordinal()] = TimeUnit.MILLISECONDS.toNanos(sloMillis);
+        return this;
+    }
+
+    public long getSloMillis(PriorityClass priorityClass) {
+        return TimeUnit.NANOSECONDS.toMillis(sloNanos[priorityClass.ordinal()]);
+    }
+
+    /**
+     * What happens to a running job of the class when it is preempted or overruns its deadline (DOWNGRADE by default)
+     */
+    public OptimizationJobScheduler setPreemptionPolicy(PriorityClass priorityClass, PreemptionPolicy policy) {
+        policies[priorityClass.ordinal()] = policy;
+        return this;
+    }
+
+    public PreemptionPolicy getPreemptionPolicy(PriorityClass priorityClass) {
+        return policies[priorityClass.ordinal()];
+    }
+
+    /**
+     * Turn preemption and deadline overrun handling on or off altogether (on by default)
+     */
+    public OptimizationJobScheduler setPreemptionEnabled(boolean preemptionEnabled) {
+        this.preemptionEnabled = preemptionEnabled;
+        return this;
+    }
+
+    public boolean isPreemptionEnabled() {
+        return preemptionEnabled;
+    }
+
+    /**
+     * Strategy a downgraded job re-runs with; should be fast and ignore interrupts
+     */
+    public OptimizationJobScheduler setFallbackStrategy(RouteOptimizationStrategy fallbackStrategy) {
+        this.fallbackStrategy = Objects.requireNonNull(fallbackStrategy, "fallbackStrategy");
+        return this;
+    }
+
+    public RouteOptimizationStrategy getFallbackStrategy() {
+        return fallbackStrategy;
+    }
+
+    public MetricsRegistry getMetrics() {
+        return registry;
+    }
+
+    /**
+     * Queue a job, classified from its type and the priorities of its orders
+     */
+    public OptimizationJob submit(JobType type, Location startLocation, List<DeliveryOrder> orders,
+                                  RouteOptimizationStrategy strategy) {
+        return submit(PriorityClass.classify(type, orders), type, startLocation, orders, strategy);
+    }
+
+    /**
+     * Queue a job in an explicitly chosen class
+     */
+    public OptimizationJob submit(PriorityClass priorityClass, JobType type, Location startLocation,
+                                  List<DeliveryOrder> orders, RouteOptimizationStrategy strategy) {
+        long now = System.nanoTime();
+        OptimizationJob job = new OptimizationJob(sequence.incrementAndGet(), type, priorityClass, startLocation,
+                                                  orders, strategy, now, now + sloNanos[priorityClass.ordinal()]);
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Scheduler closed");
+            }
+            enqueue(job);
+        } finally {
+            lock.unlock();
+        }
+        registry.counter(SUBMITTED, labels[priorityClass.ordinal()]).increment();
+        return job;
+    }
+
+    /**
+     * Jobs of the class waiting for a worker
+     */
+    public int getQueueDepth(PriorityClass priorityClass) {
+        lock.lock();
+        try {
+            return queues.get(priorityClass.ordinal()).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getRunningCount(PriorityClass priorityClass) {
+        lock.lock();
+        try {
+            return runningPerClass[priorityClass.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop the workers, interrupting running jobs, and fail the jobs still queued
+     * Waits for the threads to exit unless the caller is interrupted, which returns with the flag restored.
+     */
+    @Override
+    public void close() {
+        List<OptimizationJob> abandoned = new ArrayList<>();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (PriorityQueue<OptimizationJob> queue : queues) {
+                abandoned.addAll(queue);
+                queue.clear();
+            }
+            for (OptimizationJob job : running) {
+                job.preempt();
+            }
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (OptimizationJob job : abandoned) {
+            job.getResult().completeExceptionally(new IllegalStateException("Scheduler closed"));
+        }
+        monitor.interrupt();
+        try {
+            monitor.join();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Home class of each worker by smooth weighted round-robin over the class weights
+     */
+    private static int[] homeClasses(int workerCount) {
+        int totalWeight = 0;
+        for (PriorityClass priorityClass : CLASSES) {
+            totalWeight += priorityClass.getWeight();
+        }
+        int[] current = new int[CLASSES.length];
+        int[] homes = new int[workerCount];
+        for (int w = 0; w < workerCount; w++) {
+            int best = 0;
+            for (int c = 0; c < CLASSES.length; c++) {
+                current[c] += CLASSES[c].getWeight();
+                if (current[c] > current[best]) {
+                    best = c;
+                }
+            }
+            current[best] -= totalWeight;
+            homes[w] = best;
+        }
+        return homes;
+    }
+
+    private void work(int home) {
+        DeliveryRouteOptimizationContext context = contextFactory.get();
+        boolean highestFirst = false;
+        while (true) {
+            OptimizationJob job;
+            try {
+                job = take(home, highestFirst);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (job == null) {
+                return;
+            }
+            highestFirst = execute(context, job);
+        }
+    }
+
+    /**
+     * Next job for a worker, or null once the scheduler is closed
+     */
+    private OptimizationJob take(int home, boolean highestFirst) throws InterruptedException {
+        lock.lock();
+        try {
+            while (!closed) {
+                OptimizationJob job = highestFirst ? null : poll(home);
+                for (int c = 0; job == null && c < CLASSES.length; c++) {
+                    job = poll(c);
+                    if (job != null && c != home) {
+                        registry.counter(STEALS, labels[c]).increment();
+                    }
+                }
+                if (job != null) {
+                    running.add(job);
+                    runningPerClass[job.getPriorityClass().ordinal()]++;
+                    return job;
+                }
+                highestFirst = false;
+                idleWorkers++;
+                try {
+                    workAvailable.await();
+                } finally {
+                    idleWorkers--;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Head of a class queue, dropping jobs cancelled while they waited
+     */
+    private OptimizationJob poll(int c) {
+        PriorityQueue<OptimizationJob> queue = queues.get(c);
+        OptimizationJob job;
+        while ((job = queue.poll()) != null && job.getResult().isDone()) {
+            // cancelled before it ran
+        }
+        return job;
+    }
+
+    private void enqueue(OptimizationJob job) {
+        queues.get(job.getPriorityClass().ordinal()).add(job);
+        workAvailable.signal();
+    }
+
+    /**
+     * Run one job; true when it was preempted, so the worker should serve the highest class next
+     */
+    private boolean execute(DeliveryRouteOptimizationContext context, OptimizationJob job) {
+        long started = System.nanoTime();
+        int c = job.getPriorityClass().ordinal();
+        if (!job.isDowngraded()) {
+            registry.histogram(QUEUE_WAIT, labels[c]).record((started - job.getSubmittedNanos()) / 1_000);
+        }
+        job.attach(Thread.currentThread(), started);
+        RouteResult result = null;
+        RuntimeException failure = null;
+        try {
+            context.setOptimizationStrategy(job.getStrategy());
+            result = context.optimizeRoute(job.getStartLocation(), job.getOrders());
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        boolean preempted = job.detach();
+
+        lock.lock();
+        try {
+            running.remove(job);
+            runningPerClass[c]--;
+            if (result == null && preempted && !closed && policies[c] == PreemptionPolicy.DOWNGRADE
+                && job.getStrategy() != fallbackStrategy && !job.getResult().isDone()) {
+                job.downgrade(fallbackStrategy);
+                enqueue(job);
+                registry.counter(DOWNGRADES, labels[c]).increment();
+                return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (result != null) {
+            if (job.getResult().complete(result)) {
+                long latencyNanos = System.nanoTime() - job.getSubmittedNanos();
+                registry.counter(COMPLETED, labels[c]).increment();
+                registry.histogram(LATENCY, labels[c]).record(latencyNanos / 1_000);
+                if (latencyNanos > sloNanos[c]) {
+                    registry.counter(SLO_MISSES, labels[c]).increment();
+                }
+            }
+        } else if (preempted) {
+            if (job.getResult().completeExceptionally(new CancellationException(
+                    "Preempted " + labels[c] + " job after " + (System.nanoTime() - started) / 1_000_000 + " ms"))) {
+                registry.counter(CANCELLATIONS, labels[c]).increment();
+            }
+        } else if (job.getResult().completeExceptionally(failure)) {
+            registry.counter(FAILED, labels[c]).increment();
+        }
+        return preempted;
+    }
+
+    private void monitor() {
+        while (true) {
+            LockSupport.parkNanos(MONITOR_INTERVAL_NANOS);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            if (!preemptionEnabled) {
+                continue;
+            }
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                long now = System.nanoTime();
+                stopOverruns(now);
+                preemptForWaiting(now);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Stop running jobs past their deadline, unless they already run the fallback strategy
+     */
+    private void stopOverruns(long now) {
+        for (OptimizationJob job : running) {
+            int c = job.getPriorityClass().ordinal();
+            if (now - job.getDeadlineNanos() > 0 && policies[c] != PreemptionPolicy.NEVER
+                && job.getStrategy() != fallbackStrategy && job.preempt()) {
+                registry.counter(PREEMPTIONS, labels[c]).increment();
+            }
+        }
+    }
+
+    /**
+     * With every worker busy, stop one lower-class job for each class whose oldest job waited too long
+     */
+    private void preemptForWaiting(long now) {
+        if (idleWorkers > 0) {
+            return;
+        }
+        for (int c = 0; c < CLASSES.length - 1; c++) {
+            OptimizationJob waiting = queues.get(c).peek();
+            if (waiting == null || now - waiting.getSubmittedNanos() < sloNanos[c] / PREEMPT_AFTER_SLO_DIVISOR) {
+                continue;
+            }
+            OptimizationJob victim = null;
+            for (OptimizationJob job : running) {
+                int v = job.getPriorityClass().ordinal();
+                if (v <= c || policies[v] == PreemptionPolicy.NEVER) {
+                    continue;
+                }
+                if (victim == null || v > victim.getPriorityClass().ordinal()
+                    || v == victim.getPriorityClass().ordinal() && job.getStartedNanos() < victim.getStartedNanos()) {
+                    victim = job;
+                }
+            }
+            if (victim != null && victim.preempt()) {
+                registry.counter(PREEMPTIONS, labels[victim.getPriorityClass().ordinal()]).increment();
+            }
+        }
+    }
+
+    private void describeMetrics() {
+        registry.describe(SUBMITTED, "Optimization jobs submitted to the scheduler");
+        registry.describe(COMPLETED, "Scheduled jobs that produced a route");
+        registry.describe(FAILED, "Scheduled jobs whose strategy failed");
+        registry.describe(SLO_MISSES, "Scheduled jobs that completed after their class SLO");
+        registry.describe(STEALS, "Jobs taken by a worker whose home is another class");
+        registry.describe(PREEMPTIONS, "Running jobs stopped for a waiting higher-class job or past their deadline");
+        registry.describe(DOWNGRADES, "Stopped jobs re-queued with the fallback strategy");
+        registry.describe(CANCELLATIONS, "Stopped jobs failed with a CancellationException");
+        registry.describe(QUEUE_WAIT, "Time from submission to a worker picking the job up in microseconds");
+        registry.describe(LATENCY, "Time from submission to completion in microseconds");
+        registry.describe(QUEUE_DEPTH, "Jobs waiting for a worker");
+        registry.describe(RUNNING, "Jobs running on a worker");
+        for (String name : Arrays.asList(SUBMITTED, COMPLETED, FAILED, SLO_MISSES, STEALS, PREEMPTIONS, DOWNGRADES,
+                                         CANCELLATIONS, QUEUE_WAIT, LATENCY, QUEUE_DEPTH, RUNNING)) {
+            registry.labelName(name, "class");
+        }
+        for (PriorityClass priorityClass : CLASSES) {
+            registry.gauge(QUEUE_DEPTH, labels[priorityClass.ordinal()], () -> getQueueDepth(priorityClass));
+            registry.gauge(RUNNING, labels[priorityClass.ordinal()], () -> getRunningCount(priorityClass));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.deliveryoptimizer.jobscheduler;
+
+/**
+ * What the scheduler does with a running job it stops, either to free a worker for a higher class or because
+ * the job ran past its deadline
+ */
+public enum PreemptionPolicy {
+    /** Let the job run to completion */
+    NEVER,
+    /** Re-queue the job with the scheduler's fallback strategy; the handle reports it as downgraded */
+    DOWNGRADE,
+    /** Fail the job's future with a CancellationException */
+    CANCEL
+}
@@ -0,0 +1,56 @@
+package com.deliveryoptimizer.jobscheduler;
+
+import java.util.List;
+
+import com.deliveryoptimizer.constants.PriorityEnum;
+import com.deliveryoptimizer.core.DeliveryOrder;
+
+/**
+ * Scheduling classes of optimization jobs, highest first, with their share of the workers and default latency SLO
+ * A job's score is its JobType weight times the highest PriorityEnum weight among its orders: a re-plan carrying
+ * a HIGH order (3 x 3) is CRITICAL, any other scored job STANDARD, and simulations (weight 0) are BULK.
+ */
+public enum PriorityClass {
+    CRITICAL(8, 200),
+    STANDARD(3, 2_000),
+    BULK(1, 60_000);
+
+    private static final int CRITICAL_SCORE = JobType.REPLAN.getWeight() * PriorityEnum.HIGH.getWeight();
+
+    private final int weight;
+    private final long defaultSloMillis;
+
+    PriorityClass(int weight, long defaultSloMillis) {
+        this.weight = weight;
+        this.defaultSloMillis = defaultSloMillis;
+    }
+
+    /**
+     * Relative number of workers that take this class's jobs first
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Submit-to-completion latency the class aims for unless the scheduler was configured otherwise
+     */
+    public long getDefaultSloMillis() {
+        return defaultSloMillis;
+    }
+
+    /**
+     * Class of a job of the given type over the given orders
+     */
+    public static PriorityClass classify(JobType type, List<DeliveryOrder> orders) {
+        int highest = PriorityEnum.LOW.getWeight();
+        for (DeliveryOrder order : orders) {
+            highest = Math.max(highest, order.getPriority().getWeight());
+        }
+        int score = type.getWeight() * highest;
+        if (score >= CRITICAL_SCORE) {
+            return CRITICAL;
+        }
+        return score > 0 ? STANDARD : BULK;
+    }
+}
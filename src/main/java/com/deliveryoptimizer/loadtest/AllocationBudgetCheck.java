@@ -0,0 +1,216 @@
+package com.deliveryoptimizer.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.BufferedReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Supplier;
+
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.SpeedProfileTable;
+import com.deliveryoptimizer.distancestrategy.TimeDependentDistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.TravelTimeMatrix;
+import com.deliveryoptimizer.optimizationstrategy.ExhaustiveSearchOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.GreedyNearestNeighborStrategy;
+import com.deliveryoptimizer.optimizationstrategy.PriorityBasedOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.RouteOptimizationStrategy;
+import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
+import com.deliveryoptimizer.scenariofactory.SyntheticScenarioGenerator;
+import com.deliveryoptimizer.util.CandidateNeighborList;
+import com.deliveryoptimizer.util.PriorityCandidateIndex;
+
+/**
+ * Allocation budget check for the optimization hot path
+ * Measures bytes allocated per optimizeRoute call with the JVM's per-thread allocation counter for every
+ * strategy and scenario size, and fails when a strategy exceeds its declared budget. The evaluation
+ * primitives the searches call in their inner loops are held to zero bytes.
+ * Run with: mvn -P allocation-check verify
+ */
+public class AllocationBudgetCheck {
+
+    private static final long SEED = 42;
+    private static final double SPEED_KMH = 20.0;
+    private static final String SPEED_PROFILES = "/speedprofiles/bangalore-speed-profiles.txt";
+
+    private final com.sun.management.ThreadMXBean threads;
+    private final List<String> failures = new ArrayList<>();
+    private final StringBuilder report = new StringBuilder();
+
+    public AllocationBudgetCheck() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            throw new IllegalStateException("Per-thread allocation counters are not available on this JVM");
+        }
+        this.threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            throw new IllegalStateException("Per-thread allocation counters are not supported on this JVM");
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /**
+     * Bytes allocated per optimizeRoute call may not exceed maxBytesPerCall
+     */
+    public void checkStrategy(Supplier<RouteOptimizationStrategy> strategyFactory, int orderCount,
+                              long maxBytesPerCall, int iterations) {
+        RouteOptimizationStrategy strategy = strategyFactory.get();
+        DeliveryScenario scenario = new SyntheticScenarioGenerator(SEED).generate(orderCount);
+        Location start = scenario.getStartLocation();
+        List<DeliveryOrder> orders = scenario.getOrders();
+        DistanceCalculator calculator = new HaversineDistanceCalculator();
+
+        long bytes = measure(() -> strategy.optimizeRoute(start, orders, calculator, SPEED_KMH), iterations);
+        record(strategy.getStrategyName() + " [" + orderCount + " orders]", bytes, maxBytesPerCall);
+    }
+
+    /**
+     * The operation may not allocate at all once compiled
+     */
+    public void checkZeroAllocation(String name, Runnable operation, int iterations) {
+        record(name, measure(operation, iterations), 0);
+    }
+
+    public List<String> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    public String getReport() {
+        return report.toString();
+    }
+
+    /**
+     * Declared budgets; raise one only together with the change that justifies it
+     * Each strategy budget is the measured allocation plus 30%, rounded up, so JIT and GC differences between
+     * JVMs stay inside it while a new per-call allocation of any size does not.
+     */
+    public void runAll() throws IOException {
+        // Fixed per-call cost only: the enumeration allocates nothing per sequence evaluated
+        checkStrategy(ExhaustiveSearchOptimizationStrategy::new, 3, 19_200, 200);         // measured 14,768
+        checkStrategy(ExhaustiveSearchOptimizationStrategy::new, 5, 32_400, 10);          // measured 24,888
+        checkStrategy(GreedyNearestNeighborStrategy::new, 10, 44_600, 2_000);             // measured 34,272
+        // Dominated by the (2n+1)^2 travel-time matrix
+        checkStrategy(GreedyNearestNeighborStrategy::new, 100, 812_000, 200);             // measured 624,096
+        checkStrategy(GreedyNearestNeighborStrategy::new, 1_000, 45_600_000, 5);          // measured 35,030,184
+        checkStrategy(PriorityBasedOptimizationStrategy::new, 10, 40_900, 2_000);         // measured 31,392
+        checkStrategy(PriorityBasedOptimizationStrategy::new, 100, 396_100, 200);         // measured 304,616
+        checkStrategy(PriorityBasedOptimizationStrategy::new, 1_000, 3_955_000, 20);      // measured 3,042,176
+
+        DeliveryScenario scenario = new SyntheticScenarioGenerator(SEED).generate(200);
+        Location start = scenario.getStartLocation();
+        List<DeliveryOrder> orders = scenario.getOrders();
+        Location restaurant = orders.get(0).getRestaurantLocation();
+        Location consumer = orders.get(0).getConsumerLocation();
+        DistanceCalculator haversine = new HaversineDistanceCalculator();
+        SpeedProfileTable profiles = loadSpeedProfiles();
+        DistanceCalculator timeDependent = new TimeDependentDistanceCalculator(haversine, profiles, 8 * 60);
+
+        double[] sink = new double[1];
+        checkZeroAllocation("HaversineDistanceCalculator.calculateTravelTime",
+                () -> sink[0] += haversine.calculateTravelTime(restaurant, consumer, SPEED_KMH), 100_000);
+        checkZeroAllocation("TimeDependentDistanceCalculator.calculateTravelTime",
+                () -> sink[0] += timeDependent.calculateTravelTime(restaurant, consumer, SPEED_KMH, sink[0] % 600), 100_000);
+
+        TravelTimeMatrix matrix = TravelTimeMatrix.build(start, orders, timeDependent, SPEED_KMH);
+        int slots = matrix.getSlotCount();
+        int[] cursor = new int[1];
+        checkZeroAllocation("TravelTimeMatrix.getTravelTime", () -> {
+            int from = cursor[0]++ % slots;
+            sink[0] += matrix.getTravelTime(from, (from * 7 + 3) % slots, from);
+        }, 100_000);
+
+        CandidateNeighborList candidates = CandidateNeighborList.build(matrix, GreedyNearestNeighborStrategy.DEFAULT_CANDIDATE_COUNT);
+        checkZeroAllocation("CandidateNeighborList scan", () -> {
+            int slot = cursor[0]++ % slots;
+            for (int rank = 0; rank < candidates.getNeighborCount(slot); rank++) {
+                sink[0] += candidates.getNeighbor(slot, rank);
+            }
+        }, 100_000);
+
+        PriorityCandidateIndex index = buildPriorityIndex(start, orders, haversine);
+        checkZeroAllocation("PriorityCandidateIndex.findBest", () -> {
+            sink[0] += index.findBest(matrix.getLocation(cursor[0]++ % slots));
+        }, 20_000);
+
+        report.append(String.format("(checksum %.1f)%n", sink[0]));
+    }
+
+    /**
+     * Command-line entry point; throws when any budget is exceeded so the Maven build fails
+     */
+    public static void main(String[] args) throws IOException {
+        AllocationBudgetCheck check = new AllocationBudgetCheck();
+        check.runAll();
+        System.out.print(check.getReport());
+        if (!check.getFailures().isEmpty()) {
+            throw new IllegalStateException("Allocation budget exceeded:\n  " + String.join("\n  ", check.getFailures()));
+        }
+        System.out.println("All allocation budgets met");
+    }
+
+    /**
+     * Average bytes allocated by one call, measured after a warm-up of the same length
+     */
+    private long measure(Runnable operation, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        // Reading the counter allocates nothing, but measure the empty window anyway and subtract it
+        long before = threads.getThreadAllocatedBytes(threadId);
+        long overhead = threads.getThreadAllocatedBytes(threadId) - before;
+        before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before - overhead;
+        return Math.max(0, allocated) / iterations;
+    }
+
+    private void record(String name, long bytesPerCall, long budget) {
+        boolean ok = bytesPerCall <= budget;
+        report.append(String.format("%-4s %-55s %,12d B/call (budget %,d)%n",
+                                    ok ? "ok" : "FAIL", name, bytesPerCall, budget));
+        if (!ok) {
+            failures.add(String.format("%s: %,d B/call exceeds budget of %,d", name, bytesPerCall, budget));
+        }
+    }
+
+    private static SpeedProfileTable loadSpeedProfiles() throws IOException {
+        InputStream in = AllocationBudgetCheck.class.getResourceAsStream(SPEED_PROFILES);
+        if (in == null) {
+            throw new IOException("Missing resource " + SPEED_PROFILES);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return SpeedProfileTable.parse(reader);
+        }
+    }
+
+    private static PriorityCandidateIndex buildPriorityIndex(Location start, List<DeliveryOrder> orders,
+                                                             DistanceCalculator calculator) {
+        int n = orders.size();
+        Location[] slotLocations = new Location[n * 2 + 1];
+        int[] slotWeights = new int[n * 2 + 1];
+        double[] slotReadyTimes = new double[n * 2 + 1];
+        slotLocations[TravelTimeMatrix.START_SLOT] = start;
+        for (int i = 0; i < n; i++) {
+            DeliveryOrder order = orders.get(i);
+            slotLocations[TravelTimeMatrix.pickupSlot(i)] = order.getRestaurantLocation();
+            slotLocations[TravelTimeMatrix.deliverySlot(i)] = order.getConsumerLocation();
+            slotWeights[TravelTimeMatrix.pickupSlot(i)] = order.getPriority().getWeight();
+            slotWeights[TravelTimeMatrix.deliverySlot(i)] = order.getPriority().getWeight();
+            slotReadyTimes[TravelTimeMatrix.pickupSlot(i)] = order.getPreparationTimeMinutes();
+        }
+        PriorityCandidateIndex index = new PriorityCandidateIndex(slotLocations, slotWeights, slotReadyTimes,
+                                                                  calculator, SPEED_KMH);
+        for (int i = 0; i < n; i++) {
+            index.add(TravelTimeMatrix.pickupSlot(i));
+        }
+        return index;
+    }
+}
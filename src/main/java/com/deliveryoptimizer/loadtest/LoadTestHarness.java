@@ -0,0 +1,200 @@
+package com.deliveryoptimizer.loadtest;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.deliveryoptimizer.DeliveryRouteOptimizationContext;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
+import com.deliveryoptimizer.optimizationstrategy.ExhaustiveSearchOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.GreedyNearestNeighborStrategy;
+import com.deliveryoptimizer.optimizationstrategy.PriorityBasedOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.RouteOptimizationStrategy;
+import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
+import com.deliveryoptimizer.scenariofactory.SyntheticScenarioGenerator;
+
+/**
+ * Macro load-test harness driving DeliveryRouteOptimizationContext with an open-loop request stream
+ * Requests are issued at a fixed target rate regardless of completions and spread over the strategies
+ * and scenarios round-robin; latency is measured from each request's scheduled send time,
+ * so queueing under overload shows up in the percentiles
+ */
+public class LoadTestHarness {
+
+    private final List<RouteOptimizationStrategy> strategies;
+    private final DistanceCalculator distanceCalculator;
+    private final double averageSpeedKmh;
+
+    public LoadTestHarness(List<RouteOptimizationStrategy> strategies, DistanceCalculator distanceCalculator,
+                           double averageSpeedKmh) {
+        if (strategies.isEmpty()) {
+            throw new IllegalArgumentException("At least one strategy is required");
+        }
+        this.strategies = new ArrayList<>(strategies);
+        this.distanceCalculator = distanceCalculator;
+        this.averageSpeedKmh = averageSpeedKmh;
+    }
+
+    /**
+     * Run the load test
+     * @param scenarios Scenarios cycled through by the request stream
+     * @param targetRatePerSecond Requests issued per second across all strategies
+     * @param workerThreads Threads solving requests concurrently
+     * @param durationMillis How long requests are issued
+     */
+    public LoadTestReport run(List<DeliveryScenario> scenarios, double targetRatePerSecond, int workerThreads,
+                              long durationMillis) throws InterruptedException {
+        if (scenarios.isEmpty()) {
+            throw new IllegalArgumentException("At least one scenario is required");
+        }
+        if (!(targetRatePerSecond > 0) || Double.isInfinite(targetRatePerSecond)) {
+            throw new IllegalArgumentException("targetRatePerSecond must be positive and finite: "
+                                               + targetRatePerSecond);
+        }
+        int strategyCount = strategies.size();
+        List<DeliveryRouteOptimizationContext> contexts = new ArrayList<>(strategyCount);
+        for (RouteOptimizationStrategy strategy : strategies) {
+            contexts.add(new DeliveryRouteOptimizationContext(strategy, distanceCalculator, averageSpeedKmh));
+        }
+
+        // Solve every scenario once per strategy: warms up the JIT and gives the quality reference
+        double[][] routeTimes = new double[strategyCount][scenarios.size()];
+        for (int sc = 0; sc < scenarios.size(); sc++) {
+            DeliveryScenario scenario = scenarios.get(sc);
+            for (int st = 0; st < strategyCount; st++) {
+                RouteResult result = contexts.get(st).optimizeRoute(scenario.getStartLocation(), scenario.getOrders());
+                routeTimes[st][sc] = result.getTotalTimeMinutes();
+            }
+        }
+
+        LatencyRecorder[] recorders = new LatencyRecorder[strategyCount];
+        AtomicLong[] errors = new AtomicLong[strategyCount];
+        for (int st = 0; st < strategyCount; st++) {
+            recorders[st] = new LatencyRecorder();
+            errors[st] = new AtomicLong();
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(workerThreads);
+        // Rates above 1e9/s issue back to back rather than all at the same instant
+        long intervalNanos = Math.max(1, (long) (1_000_000_000L / targetRatePerSecond));
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + durationMillis * 1_000_000L;
+        try {
+            for (long request = 0; ; request++) {
+                long scheduledNanos = startNanos + request * intervalNanos;
+                if (scheduledNanos >= endNanos) break;
+                long waitNanos = scheduledNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+
+                int st = (int) (request % strategyCount);
+                DeliveryScenario scenario = scenarios.get((int) ((request / strategyCount) % scenarios.size()));
+                DeliveryRouteOptimizationContext context = contexts.get(st);
+                workers.execute(() -> {
+                    try {
+                        context.optimizeRoute(scenario.getStartLocation(), scenario.getOrders());
+                        recorders[st].record(System.nanoTime() - scheduledNanos);
+                    } catch (RuntimeException e) {
+                        errors[st].incrementAndGet();
+                    }
+                });
+            }
+        } finally {
+            workers.shutdown();
+        }
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        List<LoadTestReport.StrategyStats> stats = new ArrayList<>(strategyCount);
+        for (int st = 0; st < strategyCount; st++) {
+            double gapSum = 0;
+            double gapMax = 0;
+            for (int sc = 0; sc < scenarios.size(); sc++) {
+                double best = Double.MAX_VALUE;
+                for (int other = 0; other < strategyCount; other++) {
+                    best = Math.min(best, routeTimes[other][sc]);
+                }
+                double gap = best > 0 ? (routeTimes[st][sc] - best) / best * 100 : 0;
+                gapSum += gap;
+                gapMax = Math.max(gapMax, gap);
+            }
+            long[] latencies = recorders[st].snapshotSorted();
+            stats.add(new LoadTestReport.StrategyStats(
+                    strategies.get(st).getStrategyName(), latencies.length, errors[st].get(),
+                    latencies.length / elapsedSeconds,
+                    percentileMillis(latencies, 0.50), percentileMillis(latencies, 0.99),
+                    percentileMillis(latencies, 0.999),
+                    gapSum / scenarios.size(), gapMax));
+        }
+        return new LoadTestReport(targetRatePerSecond, elapsedSeconds, stats);
+    }
+
+    /**
+     * Strategies suitable for the given scenario size: exhaustive search only while it stays tractable
+     */
+    public static List<RouteOptimizationStrategy> defaultStrategies(int ordersPerScenario) {
+        List<RouteOptimizationStrategy> strategies = new ArrayList<>();
+        if (ordersPerScenario <= 6) {
+            strategies.add(new ExhaustiveSearchOptimizationStrategy());
+        }
+        strategies.add(new GreedyNearestNeighborStrategy());
+        strategies.add(new PriorityBasedOptimizationStrategy());
+        return strategies;
+    }
+
+    /**
+     * Command-line entry point:
+     * LoadTestHarness [ordersPerScenario] [scenarioCount] [ratePerSecond] [workerThreads] [durationSeconds] [seed]
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int ordersPerScenario = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int scenarioCount = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        double ratePerSecond = args.length > 2 ? Double.parseDouble(args[2]) : 200;
+        int workerThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long durationSeconds = args.length > 4 ? Long.parseLong(args[4]) : 10;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 42;
+
+        List<DeliveryScenario> scenarios = new SyntheticScenarioGenerator(seed)
+                .generateBatch(scenarioCount, ordersPerScenario);
+        LoadTestHarness harness = new LoadTestHarness(defaultStrategies(ordersPerScenario),
+                                                      new HaversineDistanceCalculator(), 20.0);
+        System.out.printf("Running %d scenarios x %d orders at %.1f req/s on %d workers for %d s...%n",
+                          scenarioCount, ordersPerScenario, ratePerSecond, workerThreads, durationSeconds);
+        System.out.println(harness.run(scenarios, ratePerSecond, workerThreads, durationSeconds * 1000));
+    }
+
+    private static double percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(sortedNanos.length - 1, index))] / 1_000_000.0;
+    }
+
+    /**
+     * Append-only store of latency samples in nanoseconds
+     */
+    private static final class LatencyRecorder {
+        private long[] samples = new long[1024];
+        private int size;
+
+        synchronized void record(long nanos) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+        }
+
+        synchronized long[] snapshotSorted() {
+            long[] copy = Arrays.copyOf(samples, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
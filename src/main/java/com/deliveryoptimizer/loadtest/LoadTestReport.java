@@ -0,0 +1,127 @@
+package com.deliveryoptimizer.loadtest;
+
+import java.util.*;
+
+/**
+ * Results of one load test run: throughput, latency percentiles and route-quality gap per strategy
+ */
+public class LoadTestReport {
+
+    private final double targetRatePerSecond;
+    private final double elapsedSeconds;
+    private final List<StrategyStats> strategyStats;
+
+    LoadTestReport(double targetRatePerSecond, double elapsedSeconds, List<StrategyStats> strategyStats) {
+        this.targetRatePerSecond = targetRatePerSecond;
+        this.elapsedSeconds = elapsedSeconds;
+        this.strategyStats = new ArrayList<>(strategyStats);
+    }
+
+    public double getTargetRatePerSecond() {
+        return targetRatePerSecond;
+    }
+
+    public double getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    public List<StrategyStats> getStrategyStats() {
+        return Collections.unmodifiableList(strategyStats);
+    }
+
+    public long getTotalRequests() {
+        long total = 0;
+        for (StrategyStats stats : strategyStats) {
+            total += stats.getCompletedRequests();
+        }
+        return total;
+    }
+
+    public double getTotalThroughputPerSecond() {
+        return elapsedSeconds == 0 ? 0 : getTotalRequests() / elapsedSeconds;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Load test: target %.1f req/s, achieved %.1f req/s over %.1f s (%d requests)%n",
+                                targetRatePerSecond, getTotalThroughputPerSecond(), elapsedSeconds, getTotalRequests()));
+        sb.append(String.format("%-32s %9s %7s %10s %10s %10s %10s %10s%n",
+                                "Strategy", "Requests", "Errors", "Req/s", "p50 ms", "p99 ms", "p999 ms", "Gap avg%"));
+        for (StrategyStats stats : strategyStats) {
+            sb.append(String.format("%-32s %9d %7d %10.1f %10.3f %10.3f %10.3f %10.2f%n",
+                                    stats.getStrategyName(), stats.getCompletedRequests(), stats.getErrors(),
+                                    stats.getThroughputPerSecond(), stats.getP50Millis(), stats.getP99Millis(),
+                                    stats.getP999Millis(), stats.getMeanQualityGapPercent()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Per-strategy figures of a load test
+     */
+    public static class StrategyStats {
+        private final String strategyName;
+        private final long completedRequests;
+        private final long errors;
+        private final double throughputPerSecond;
+        private final double p50Millis;
+        private final double p99Millis;
+        private final double p999Millis;
+        private final double meanQualityGapPercent;
+        private final double maxQualityGapPercent;
+
+        StrategyStats(String strategyName, long completedRequests, long errors, double throughputPerSecond,
+                      double p50Millis, double p99Millis, double p999Millis,
+                      double meanQualityGapPercent, double maxQualityGapPercent) {
+            this.strategyName = strategyName;
+            this.completedRequests = completedRequests;
+            this.errors = errors;
+            this.throughputPerSecond = throughputPerSecond;
+            this.p50Millis = p50Millis;
+            this.p99Millis = p99Millis;
+            this.p999Millis = p999Millis;
+            this.meanQualityGapPercent = meanQualityGapPercent;
+            this.maxQualityGapPercent = maxQualityGapPercent;
+        }
+
+        public String getStrategyName() {
+            return strategyName;
+        }
+
+        public long getCompletedRequests() {
+            return completedRequests;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getThroughputPerSecond() {
+            return throughputPerSecond;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        public double getP999Millis() {
+            return p999Millis;
+        }
+
+        /**
+         * Mean excess route time over the best strategy on the same scenarios
+         */
+        public double getMeanQualityGapPercent() {
+            return meanQualityGapPercent;
+        }
+
+        public double getMaxQualityGapPercent() {
+            return maxQualityGapPercent;
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.deliveryoptimizer.loggingobserver;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.deliveryoptimizer.core.RouteResult;
+
+/**
+ * Asynchronous RouteOptimizationObserver that forwards events to its own observers on a dispatcher thread
+ * Events are copied into a preallocated bounded ring buffer, so the solving thread only pays for a short
+ * critical section; what happens when the buffer is full is decided by the OverflowPolicy.
+ * Register it with the context in place of slow observers such as a verbose ConsoleOptimizationLogger.
+ */
+public class AsyncObserverBus implements RouteOptimizationObserver, AutoCloseable {
+
+    /**
+     * What publishing does when the dispatcher falls behind
+     */
+    public enum OverflowPolicy {
+        /** Drop the new event when the buffer is full */
+        DROP,
+        /** Above half capacity keep only one in every sampleRate events (errors are never sampled); drop when full */
+        SAMPLE,
+        /** Wait for space; the solving thread is throttled to the observers' pace */
+        BLOCK
+    }
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_SAMPLE_RATE = 10;
+
+    private static final int STARTED = 1;
+    private static final int COMPLETED = 2;
+    private static final int PROGRESS = 3;
+    private static final int ERROR = 4;
+
+    private final List<RouteOptimizationObserver> observers = new CopyOnWriteArrayList<>();
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+
+    private final EventSlot[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private int head;
+    private int size;
+    private long sampleCounter;
+    private boolean closed;
+
+    private final Thread dispatcher;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sampledOut = new AtomicLong();
+    private final AtomicLong observerFailures = new AtomicLong();
+
+    public AsyncObserverBus() {
+        this(DEFAULT_CAPACITY, OverflowPolicy.DROP);
+    }
+
+    public AsyncObserverBus(int capacity, OverflowPolicy overflowPolicy) {
+        this(capacity, overflowPolicy, DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * @param capacity Number of events the ring buffer holds
+     * @param overflowPolicy Behaviour when the buffer is full
+     * @param sampleRate One in this many events is kept under pressure with OverflowPolicy.SAMPLE
+     */
+    public AsyncObserverBus(int capacity, OverflowPolicy overflowPolicy, int sampleRate) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate must be positive: " + sampleRate);
+        }
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = sampleRate;
+        this.ring = new EventSlot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new EventSlot();
+        }
+        this.dispatcher = new Thread(this::dispatchLoop, "observer-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Add an observer called on the dispatcher thread; safe while events are flowing
+     */
+    public void addObserver(RouteOptimizationObserver observer) {
+        observers.add(observer);
+    }
+
+    public void removeObserver(RouteOptimizationObserver observer) {
+        observers.remove(observer);
+    }
+
+    @Override
+    public void onOptimizationStarted(String strategyName, int orderCount) {
+        EventSlot slot = claim(STARTED);
+        if (slot != null) {
+            slot.strategyName = strategyName;
+            slot.orderCount = orderCount;
+            publish();
+        }
+    }
+
+    @Override
+    public void onOptimizationCompleted(RouteResult result) {
+        EventSlot slot = claim(COMPLETED);
+        if (slot != null) {
+            slot.result = result;
+            publish();
+        }
+    }
+
+    @Override
+    public void onProgressUpdate(String message, double progressPercentage) {
+        EventSlot slot = claim(PROGRESS);
+        if (slot != null) {
+            slot.message = message;
+            slot.progressPercentage = progressPercentage;
+            publish();
+        }
+    }
+
+    @Override
+    public void onOptimizationError(String errorMessage, Throwable cause) {
+        onOptimizationError(null, errorMessage, cause);
+    }
+
+    @Override
+    public void onOptimizationError(String strategyName, String errorMessage, Throwable cause) {
+        EventSlot slot = claim(ERROR);
+        if (slot != null) {
+            slot.strategyName = strategyName;
+            slot.message = errorMessage;
+            slot.cause = cause;
+            publish();
+        }
+    }
+
+    /**
+     * Wait until every event published so far has been delivered
+     * @return false if the timeout elapsed first
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        long target = published.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (dispatched.get() < target) {
+            if (System.nanoTime() - deadline >= 0 || !dispatcher.isAlive()) {
+                return dispatched.get() >= target;
+            }
+            LockSupport.parkNanos(100_000L);
+        }
+        return true;
+    }
+
+    /**
+     * Stop accepting events, deliver the ones already buffered and stop the dispatcher thread
+     * An interrupted caller stops waiting with its interrupt flag set; the dispatcher still drains the buffer.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * Events currently waiting in the ring buffer
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    public long getDispatchedCount() {
+        return dispatched.get();
+    }
+
+    /**
+     * Events lost because the buffer was full or the bus was closed
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Events skipped by OverflowPolicy.SAMPLE while the buffer was under pressure
+     */
+    public long getSampledOutCount() {
+        return sampledOut.get();
+    }
+
+    /**
+     * Observer calls that threw; the exception is swallowed so one observer cannot stop the others
+     */
+    public long getObserverFailureCount() {
+        return observerFailures.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AsyncObserverBus[policy=%s, capacity=%d, depth=%d, published=%d, dispatched=%d, dropped=%d, sampledOut=%d]",
+                overflowPolicy, ring.length, getQueueDepth(), getPublishedCount(), getDispatchedCount(),
+                getDroppedCount(), getSampledOutCount());
+    }
+
+    /**
+     * Reserve the next free slot and return it with the lock held, or null (lock released) if the event is discarded
+     */
+    private EventSlot claim(int type) {
+        lock.lock();
+        boolean claimed = false;
+        try {
+            if (closed) {
+                dropped.incrementAndGet();
+                return null;
+            }
+            if (overflowPolicy == OverflowPolicy.SAMPLE && type != ERROR && size * 2 >= ring.length
+                    && sampleCounter++ % sampleRate != 0) {
+                sampledOut.incrementAndGet();
+                return null;
+            }
+            while (size == ring.length) {
+                if (overflowPolicy != OverflowPolicy.BLOCK) {
+                    dropped.incrementAndGet();
+                    return null;
+                }
+                notFull.awaitUninterruptibly();
+                if (closed) {
+                    dropped.incrementAndGet();
+                    return null;
+                }
+            }
+            EventSlot slot = ring[(head + size) % ring.length];
+            slot.type = type;
+            claimed = true;
+            return slot;
+        } finally {
+            if (!claimed) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Make the claimed slot visible to the dispatcher and release the lock taken by claim()
+     */
+    private void publish() {
+        try {
+            size++;
+            published.incrementAndGet();
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatchLoop() {
+        EventSlot event = new EventSlot();
+        while (true) {
+            lock.lock();
+            try {
+                while (size == 0) {
+                    if (closed) {
+                        return;
+                    }
+                    notEmpty.awaitUninterruptibly();
+                }
+                EventSlot slot = ring[head];
+                event.copyFrom(slot);
+                slot.clear();
+                head = (head + 1) % ring.length;
+                size--;
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+            deliver(event);
+            event.clear();
+            dispatched.incrementAndGet();
+        }
+    }
+
+    private void deliver(EventSlot event) {
+        for (RouteOptimizationObserver observer : observers) {
+            try {
+                switch (event.type) {
+                    case STARTED:
+                        observer.onOptimizationStarted(event.strategyName, event.orderCount);
+                        break;
+                    case COMPLETED:
+                        observer.onOptimizationCompleted(event.result);
+                        break;
+                    case PROGRESS:
+                        observer.onProgressUpdate(event.message, event.progressPercentage);
+                        break;
+                    case ERROR:
+                        observer.onOptimizationError(event.strategyName, event.message, event.cause);
+                        break;
+                    default:
+                        break;
+                }
+            } catch (RuntimeException e) {
+                observerFailures.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Reusable event record; one per ring position plus one owned by the dispatcher
+     */
+    private static final class EventSlot {
+        int type;
+        String strategyName;
+        int orderCount;
+        RouteResult result;
+        String message;
+        double progressPercentage;
+        Throwable cause;
+
+        void copyFrom(EventSlot other) {
+            type = other.type;
+            strategyName = other.strategyName;
+            orderCount = other.orderCount;
+            result = other.result;
+            message = other.message;
+            progressPercentage = other.progressPercentage;
+            cause = other.cause;
+        }
+
+        void clear() {
+            type = 0;
+            strategyName = null;
+            result = null;
+            message = null;
+            cause = null;
+        }
+    }
+}
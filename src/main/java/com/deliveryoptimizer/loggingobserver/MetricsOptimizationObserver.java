@@ -0,0 +1,180 @@
+package com.deliveryoptimizer.loggingobserver;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.core.SearchStatistics;
+import com.deliveryoptimizer.metrics.LogHistogram;
+import com.deliveryoptimizer.metrics.MetricsRegistry;
+import com.deliveryoptimizer.metrics.OptimizationMetricsMXBean;
+
+/**
+ * Metrics implementation of RouteOptimizationObserver
+ * Records per-strategy latency and order-count histograms, error counts and the solver's search counters
+ * into a MetricsRegistry, and exposes them over JMX
+ */
+public class MetricsOptimizationObserver implements RouteOptimizationObserver, OptimizationMetricsMXBean {
+
+    public static final String DEFAULT_OBJECT_NAME = "com.deliveryoptimizer:type=OptimizationMetrics";
+
+    static final String STARTED = "route_optimizations_started_total";
+    static final String COMPLETED = "route_optimizations_completed_total";
+    static final String ERRORS = "route_optimization_errors_total";
+    static final String CACHE_HITS = "route_optimization_cache_hits_total";
+    static final String SEQUENCES = "route_search_sequences_evaluated_total";
+    static final String EXPANDED = "route_search_nodes_expanded_total";
+    static final String PRUNED = "route_search_nodes_pruned_total";
+    static final String DISTANCE_CALLS = "route_search_distance_calls_total";
+    static final String LATENCY = "route_optimization_latency_micros";
+    static final String ORDER_COUNT = "route_optimization_orders";
+
+    private static final String UNKNOWN_STRATEGY = "unknown";
+
+    private final MetricsRegistry registry;
+
+    public MetricsOptimizationObserver() {
+        this(new MetricsRegistry());
+    }
+
+    public MetricsOptimizationObserver(MetricsRegistry registry) {
+        this.registry = registry;
+        registry.describe(STARTED, "Optimization runs started");
+        registry.describe(COMPLETED, "Optimization runs completed");
+        registry.describe(ERRORS, "Optimization runs that failed");
+        registry.describe(CACHE_HITS, "Results served from the result cache");
+        registry.describe(SEQUENCES, "Complete routes evaluated by the strategy");
+        registry.describe(EXPANDED, "Partial routes extended by the strategy");
+        registry.describe(PRUNED, "Partial routes discarded without being extended");
+        registry.describe(DISTANCE_CALLS, "Distance calculator invocations");
+        registry.describe(LATENCY, "Wall-clock solve time in microseconds");
+        registry.describe(ORDER_COUNT, "Orders per optimization request");
+    }
+
+    @Override
+    public void onOptimizationStarted(String strategyName, int orderCount) {
+        registry.counter(STARTED, strategyName).increment();
+        registry.histogram(ORDER_COUNT, strategyName).record(orderCount);
+    }
+
+    @Override
+    public void onOptimizationCompleted(RouteResult result) {
+        String strategy = result.getStrategy();
+        SearchStatistics statistics = result.getSearchStatistics();
+        registry.counter(COMPLETED, strategy).increment();
+        registry.histogram(LATENCY, strategy).record(statistics.getSolveTimeNanos() / 1_000);
+        if (statistics.isCacheHit()) {
+            // A cached result repeats the counters of the run that produced it
+            registry.counter(CACHE_HITS, strategy).increment();
+            return;
+        }
+        registry.counter(SEQUENCES, strategy).add(statistics.getSequencesEvaluated());
+        registry.counter(EXPANDED, strategy).add(statistics.getNodesExpanded());
+        registry.counter(PRUNED, strategy).add(statistics.getNodesPruned());
+        registry.counter(DISTANCE_CALLS, strategy).add(statistics.getDistanceCalls());
+    }
+
+    @Override
+    public void onProgressUpdate(String message, double progressPercentage) {
+        // Progress messages are not aggregated
+    }
+
+    @Override
+    public void onOptimizationError(String errorMessage, Throwable cause) {
+        registry.counter(ERRORS, UNKNOWN_STRATEGY).increment();
+    }
+
+    @Override
+    public void onOptimizationError(String strategyName, String errorMessage, Throwable cause) {
+        registry.counter(ERRORS, strategyName != null ? strategyName : UNKNOWN_STRATEGY).increment();
+    }
+
+    public MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Register this observer with the platform MBean server under DEFAULT_OBJECT_NAME
+     */
+    public ObjectName registerMBean() throws JMException {
+        return registerMBean(new ObjectName(DEFAULT_OBJECT_NAME));
+    }
+
+    public ObjectName registerMBean(ObjectName name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        return server.registerMBean(this, name).getObjectName();
+    }
+
+    @Override
+    public long getOptimizationsStarted() {
+        return registry.counterTotal(STARTED);
+    }
+
+    @Override
+    public long getOptimizationsCompleted() {
+        return registry.counterTotal(COMPLETED);
+    }
+
+    @Override
+    public long getErrorCount() {
+        return registry.counterTotal(ERRORS);
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return registry.counterTotal(CACHE_HITS);
+    }
+
+    @Override
+    public Map<String, Long> getCompletedByStrategy() {
+        return registry.counterValues(COMPLETED);
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByStrategy() {
+        return registry.counterValues(ERRORS);
+    }
+
+    @Override
+    public Map<String, Long> getLatencyP50MicrosByStrategy() {
+        return latencyPercentiles(0.50);
+    }
+
+    @Override
+    public Map<String, Long> getLatencyP99MicrosByStrategy() {
+        return latencyPercentiles(0.99);
+    }
+
+    @Override
+    public Map<String, Long> getSequencesEvaluatedByStrategy() {
+        return registry.counterValues(SEQUENCES);
+    }
+
+    @Override
+    public Map<String, Long> getNodesPrunedByStrategy() {
+        return registry.counterValues(PRUNED);
+    }
+
+    @Override
+    public Map<String, Long> getDistanceCallsByStrategy() {
+        return registry.counterValues(DISTANCE_CALLS);
+    }
+
+    @Override
+    public String getScrapeText() {
+        return registry.scrape();
+    }
+
+    private Map<String, Long> latencyPercentiles(double percentile) {
+        Map<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, LogHistogram> entry : registry.histogramsNamed(LATENCY).entrySet()) {
+            values.put(entry.getKey(), entry.getValue().getPercentile(percentile));
+        }
+        return values;
+    }
+}
@@ -27,4 +27,12 @@ public interface RouteOptimizationObserver {
      * Called when an error occurs during optimization
      */
     void onOptimizationError(String errorMessage, Throwable cause);
+    
+    /**
+     * Called when an error occurs during optimization, with the strategy that failed
+     * Observers that aggregate per strategy override this; by default the strategy is ignored
+     */
+    default void onOptimizationError(String strategyName, String errorMessage, Throwable cause) {
+        onOptimizationError(errorMessage, cause);
+    }
 }
@@ -0,0 +1,155 @@
+package com.deliveryoptimizer.lowerbound;
+
+import java.util.Arrays;
+
+/**
+ * Held-Karp 1-tree bound on the shortest Hamiltonian cycle over a small dense symmetric cost matrix
+ * A 1-tree is a spanning tree over every node but one special node, plus the special node's two cheapest
+ * edges; every cycle is one, so the cheapest 1-tree is a bound. Node penalties added to every edge cost push
+ * the tree towards degree two everywhere and are tuned by subgradient steps, with Polyak step sizes aimed 5%
+ * above the best bound so far and capped by a nearest-neighbour cycle.
+ */
+final class HeldKarpBound {
+
+    private HeldKarpBound() {
+    }
+
+    /**
+     * @param cost Row-major nodeCount x nodeCount symmetric costs
+     * @param special Node left out of the spanning tree
+     * @param iterations Subgradient steps; 0 gives the plain 1-tree bound
+     */
+    static double compute(double[] cost, int nodeCount, int special, int iterations) {
+        if (nodeCount < 3) {
+            double total = 0;
+            for (int i = 0; i < nodeCount; i++) {
+                for (int j = i + 1; j < nodeCount; j++) {
+                    total += cost[i * nodeCount + j];
+                }
+            }
+            // Two nodes: the cycle runs the single edge twice
+            return nodeCount == 2 ? 2 * total : 0.0;
+        }
+        double upperBound = nearestNeighbourCycle(cost, nodeCount, special);
+        double[] penalty = new double[nodeCount];
+        int[] degree = new int[nodeCount];
+        double[] key = new double[nodeCount];
+        int[] parent = new int[nodeCount];
+        boolean[] inTree = new boolean[nodeCount];
+
+        double best = Double.NEGATIVE_INFINITY;
+        double stepScale = 2.0;
+        int sinceImprovement = 0;
+        for (int iteration = 0; iteration <= iterations; iteration++) {
+            double value = oneTree(cost, nodeCount, special, penalty, degree, key, parent, inTree);
+            if (value > best + 1e-9) {
+                best = value;
+                sinceImprovement = 0;
+            } else if (++sinceImprovement >= 5) {
+                stepScale /= 2;
+                sinceImprovement = 0;
+            }
+            long squaredNorm = 0;
+            for (int i = 0; i < nodeCount; i++) {
+                int g = degree[i] - 2;
+                squaredNorm += (long) g * g;
+            }
+            if (squaredNorm == 0 || best >= upperBound - 1e-9 || stepScale < 1e-4) {
+                // Every degree is two: the 1-tree is a cycle and the bound is exact
+                break;
+            }
+            double target = Math.min(upperBound, best * 1.05);
+            double step = stepScale * (target - value) / squaredNorm;
+            for (int i = 0; i < nodeCount; i++) {
+                penalty[i] += step * (degree[i] - 2);
+            }
+        }
+        return Math.min(best, upperBound);
+    }
+
+    /**
+     * Cost of the cheapest 1-tree under penalized costs, minus twice the penalty sum; fills in node degrees
+     */
+    private static double oneTree(double[] cost, int n, int special, double[] penalty, int[] degree,
+                                  double[] key, int[] parent, boolean[] inTree) {
+        Arrays.fill(degree, 0);
+        Arrays.fill(inTree, false);
+        Arrays.fill(key, Double.MAX_VALUE);
+        int root = special == 0 ? 1 : 0;
+        key[root] = 0;
+        parent[root] = -1;
+        inTree[special] = true;
+        double total = 0;
+        for (int added = 0; added < n - 1; added++) {
+            int next = -1;
+            for (int i = 0; i < n; i++) {
+                if (!inTree[i] && (next < 0 || key[i] < key[next])) {
+                    next = i;
+                }
+            }
+            inTree[next] = true;
+            total += key[next];
+            if (parent[next] >= 0) {
+                degree[next]++;
+                degree[parent[next]]++;
+            }
+            int row = next * n;
+            for (int i = 0; i < n; i++) {
+                if (!inTree[i]) {
+                    double c = cost[row + i] + penalty[next] + penalty[i];
+                    if (c < key[i]) {
+                        key[i] = c;
+                        parent[i] = next;
+                    }
+                }
+            }
+        }
+        // Two cheapest edges of the special node
+        double first = Double.MAX_VALUE;
+        double second = Double.MAX_VALUE;
+        int firstNode = -1;
+        int secondNode = -1;
+        int row = special * n;
+        for (int i = 0; i < n; i++) {
+            if (i == special) continue;
+            double c = cost[row + i] + penalty[special] + penalty[i];
+            if (c < first) {
+                second = first;
+                secondNode = firstNode;
+                first = c;
+                firstNode = i;
+            } else if (c < second) {
+                second = c;
+                secondNode = i;
+            }
+        }
+        total += first + second;
+        degree[special] = 2;
+        degree[firstNode]++;
+        degree[secondNode]++;
+        double penaltySum = 0;
+        for (double p : penalty) {
+            penaltySum += p;
+        }
+        return total - 2 * penaltySum;
+    }
+
+    private static double nearestNeighbourCycle(double[] cost, int n, int special) {
+        boolean[] visited = new boolean[n];
+        visited[special] = true;
+        int current = special;
+        double total = 0;
+        for (int step = 1; step < n; step++) {
+            int next = -1;
+            for (int i = 0; i < n; i++) {
+                if (!visited[i] && (next < 0 || cost[current * n + i] < cost[current * n + next])) {
+                    next = i;
+                }
+            }
+            visited[next] = true;
+            total += cost[current * n + next];
+            current = next;
+        }
+        return total + cost[current * n + special];
+    }
+}
@@ -0,0 +1,267 @@
+package com.deliveryoptimizer.lowerbound;
+
+import java.util.*;
+
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+
+/**
+ * Polynomial-time lower bound on the total time of any valid route for one request
+ * The bound is the largest of three relaxations, each valid for every pickup-before-delivery sequence:
+ * <ul>
+ *   <li>order bound: each order alone, max(travel to its restaurant, ready time) + restaurant to consumer</li>
+ *   <li>tour bound: a route from the start visits every stop, so it is at least the shortest such path,
+ *       bounded by a Held-Karp 1-tree (a plain spanning tree above DENSE_MAX_ORDERS orders)</li>
+ *   <li>release bound: no stop of an order ready at r or later is served before r, so the route ends no
+ *       earlier than r plus the shortest path through those stops, bounded the same way</li>
+ * </ul>
+ * Travel times are nominal times divided by the calculator's maximum speed factor, with each pair taken in
+ * its cheaper direction, so the bound holds for time-dependent and asymmetric calculators as long as direct
+ * travel is never slower than a detour. Release levels are evaluated from the latest ready time down until
+ * they would cost more than the tour bound, which keeps the total at O(n^2) distance calls.
+ */
+public final class RouteLowerBound {
+
+    /** Up to this many orders travel times are kept in a dense matrix and tightened with Held-Karp */
+    public static final int DENSE_MAX_ORDERS = 200;
+
+    private static final int TOUR_ITERATIONS = 50;
+    private static final int RELEASE_ITERATIONS = 20;
+
+    /**
+     * Names the relaxation that gave the bound
+     */
+    public enum Kind {
+        NONE, ORDER, TOUR, RELEASE
+    }
+
+    private final double minutes;
+    private final Kind kind;
+    private final double releaseMinutes;
+    private final long distanceCalls;
+
+    private RouteLowerBound(double minutes, Kind kind, double releaseMinutes, long distanceCalls) {
+        this.minutes = minutes;
+        this.kind = kind;
+        this.releaseMinutes = releaseMinutes;
+        this.distanceCalls = distanceCalls;
+    }
+
+    /**
+     * Compute the bound for a start location and its orders
+     */
+    public static RouteLowerBound compute(Location startLocation, List<DeliveryOrder> orders,
+                                          DistanceCalculator distanceCalculator, double speedKmh) {
+        if (orders.isEmpty()) {
+            return new RouteLowerBound(0.0, Kind.NONE, 0.0, 0);
+        }
+        return new Computation(startLocation, orders, distanceCalculator, speedKmh).run();
+    }
+
+    /**
+     * Lower bound on the total route time in minutes
+     */
+    public double getMinutes() {
+        return minutes;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Release time of the binding release bound, 0 for the other kinds
+     */
+    public double getReleaseMinutes() {
+        return releaseMinutes;
+    }
+
+    public long getDistanceCalls() {
+        return distanceCalls;
+    }
+
+    @Override
+    public String toString() {
+        return kind == Kind.RELEASE
+                ? String.format("%.2f minutes (release bound at %.0f min)", minutes, releaseMinutes)
+                : String.format("%.2f minutes (%s bound)", minutes, kind.name().toLowerCase(Locale.ROOT));
+    }
+
+    private static final class Computation {
+        private final Location startLocation;
+        private final List<DeliveryOrder> orders;
+        private final DistanceCalculator distanceCalculator;
+        private final double speedKmh;
+        private final double scale;
+        // Stop 2i is the restaurant of order i, 2i+1 its consumer; the start is addressed as -1
+        private final Location[] stops;
+        // Symmetric travel times with the start at index 0 and stop s at s + 1, or null above DENSE_MAX_ORDERS
+        private double[] symmetric;
+        // Cost matrix of the path bound being computed, sized for the largest one
+        private double[] scratch;
+        private long distanceCalls;
+
+        private double best;
+        private Kind bestKind = Kind.NONE;
+        private double bestRelease;
+
+        Computation(Location startLocation, List<DeliveryOrder> orders, DistanceCalculator distanceCalculator,
+                    double speedKmh) {
+            this.startLocation = startLocation;
+            this.orders = orders;
+            this.distanceCalculator = distanceCalculator;
+            this.speedKmh = speedKmh;
+            this.scale = 1.0 / Math.max(1.0, distanceCalculator.getMaxSpeedFactor());
+            this.stops = new Location[orders.size() * 2];
+            for (int i = 0; i < orders.size(); i++) {
+                stops[2 * i] = orders.get(i).getRestaurantLocation();
+                stops[2 * i + 1] = orders.get(i).getConsumerLocation();
+            }
+        }
+
+        RouteLowerBound run() {
+            int n = orders.size();
+            for (int i = 0; i < n; i++) {
+                double atRestaurant = Math.max(travel(-1, 2 * i), orders.get(i).getPreparationTimeMinutes());
+                offer(atRestaurant + travel(2 * i, 2 * i + 1), Kind.ORDER, 0.0);
+            }
+
+            int[] all = new int[2 * n];
+            for (int s = 0; s < all.length; s++) {
+                all[s] = s;
+            }
+            int nodes = all.length + 1;
+            long budget;
+            if (n <= DENSE_MAX_ORDERS) {
+                symmetric = new double[nodes * nodes];
+                for (int a = 0; a < nodes; a++) {
+                    for (int b = a + 1; b < nodes; b++) {
+                        double t = symmetricTravel(a - 1, b - 1);
+                        symmetric[a * nodes + b] = t;
+                        symmetric[b * nodes + a] = t;
+                    }
+                }
+                budget = (long) (TOUR_ITERATIONS + 1) * nodes * nodes;
+            } else {
+                budget = (long) nodes * nodes;
+            }
+            offer(pathBound(all, all.length, true, TOUR_ITERATIONS), Kind.TOUR, 0.0);
+
+            // Orders by ready time, latest first, so each release level adds the next orders to the set
+            long[] byReady = new long[n];
+            for (int i = 0; i < n; i++) {
+                byReady[i] = ((long) -orders.get(i).getPreparationTimeMinutes() << 32) | i;
+            }
+            Arrays.sort(byReady);
+            int[] released = new int[2 * n];
+            int size = 0;
+            long spent = 0;
+            for (int k = 0; k < n; k++) {
+                int order = (int) byReady[k];
+                int ready = orders.get(order).getPreparationTimeMinutes();
+                released[size++] = 2 * order;
+                released[size++] = 2 * order + 1;
+                boolean levelComplete = k + 1 == n || (byReady[k + 1] >> 32) != -ready;
+                if (!levelComplete || ready <= 0) {
+                    continue;
+                }
+                spent += (long) (symmetric == null ? 1 : RELEASE_ITERATIONS + 1) * size * size;
+                if (spent > budget) {
+                    break;
+                }
+                offer(ready + pathBound(released, size, false, RELEASE_ITERATIONS), Kind.RELEASE, ready);
+            }
+            return new RouteLowerBound(best, bestKind, bestRelease, distanceCalls);
+        }
+
+        private void offer(double bound, Kind kind, double release) {
+            if (bound > best) {
+                best = bound;
+                bestKind = kind;
+                bestRelease = release;
+            }
+        }
+
+        /**
+         * Bound on the shortest path through the first count stops of the set, starting at the start location
+         * or anywhere
+         * A dummy node joined to every node at zero cost turns the path into a cycle for the 1-tree bound
+         */
+        private double pathBound(int[] set, int count, boolean withStart, int iterations) {
+            if (symmetric == null) {
+                return spanningTree(set, count, withStart);
+            }
+            int nodes = 2 * orders.size() + 1;
+            int offset = withStart ? 1 : 0;
+            int m = count + offset + 1;
+            int[] index = new int[m - 1];
+            for (int i = 0; i < count; i++) {
+                index[offset + i] = set[i] + 1;
+            }
+            if (scratch == null) {
+                scratch = new double[(nodes + 1) * (nodes + 1)];
+            }
+            double[] cost = scratch;
+            for (int i = 0; i < m - 1; i++) {
+                for (int j = 0; j < m - 1; j++) {
+                    cost[i * m + j] = symmetric[index[i] * nodes + index[j]];
+                }
+                cost[i * m + m - 1] = 0.0;
+                cost[(m - 1) * m + i] = 0.0;
+            }
+            cost[m * m - 1] = 0.0;
+            return HeldKarpBound.compute(cost, m, m - 1, iterations);
+        }
+
+        /**
+         * Prim's algorithm over the first count stops of the set, optionally rooted at the start
+         */
+        private double spanningTree(int[] set, int count, boolean withStart) {
+            double[] key = new double[count];
+            boolean[] inTree = new boolean[count];
+            int remaining = count;
+            if (withStart) {
+                for (int i = 0; i < count; i++) {
+                    key[i] = symmetricTravel(-1, set[i]);
+                }
+            } else {
+                Arrays.fill(key, Double.MAX_VALUE);
+                inTree[0] = true;
+                remaining--;
+                for (int i = 1; i < count; i++) {
+                    key[i] = symmetricTravel(set[0], set[i]);
+                }
+            }
+            double total = 0;
+            while (remaining > 0) {
+                int next = -1;
+                for (int i = 0; i < count; i++) {
+                    if (!inTree[i] && (next < 0 || key[i] < key[next])) {
+                        next = i;
+                    }
+                }
+                inTree[next] = true;
+                remaining--;
+                total += key[next];
+                for (int i = 0; i < count; i++) {
+                    if (!inTree[i]) {
+                        key[i] = Math.min(key[i], symmetricTravel(set[next], set[i]));
+                    }
+                }
+            }
+            return total;
+        }
+
+        private double symmetricTravel(int from, int to) {
+            return Math.min(travel(from, to), travel(to, from));
+        }
+
+        private double travel(int from, int to) {
+            distanceCalls++;
+            Location a = from < 0 ? startLocation : stops[from];
+            Location b = to < 0 ? startLocation : stops[to];
+            return distanceCalculator.calculateTravelTime(a, b, speedKmh) * scale;
+        }
+    }
+}
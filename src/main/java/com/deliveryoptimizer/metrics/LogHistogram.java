@@ -0,0 +1,76 @@
+package com.deliveryoptimizer.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative long values with power-of-two buckets
+ * Bucket b holds values in [2^(b-1), 2^b), bucket 0 holds zero; recording is two atomic adds,
+ * and percentiles are reported as the upper bound of the bucket they fall in
+ */
+public class LogHistogram {
+
+    private static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    public void record(long value) {
+        long clamped = Math.max(0, value);
+        buckets.incrementAndGet(bucketOf(clamped));
+        count.increment();
+        sum.add(clamped);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Upper bound of the bucket containing the given percentile (0..1), or 0 when empty
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int b = 0; b < BUCKET_COUNT; b++) {
+            snapshot[b] = buckets.get(b);
+            total += snapshot[b];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long cumulative = 0;
+        for (int b = 0; b < BUCKET_COUNT; b++) {
+            cumulative += snapshot[b];
+            if (cumulative >= rank) {
+                return getBucketUpperBound(b);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public int getBucketCount() {
+        return BUCKET_COUNT;
+    }
+
+    public long getBucketValue(int bucket) {
+        return buckets.get(bucket);
+    }
+
+    /**
+     * Largest value recorded into the bucket
+     */
+    public static long getBucketUpperBound(int bucket) {
+        return bucket == 0 ? 0 : bucket >= 63 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    private static int bucketOf(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+}
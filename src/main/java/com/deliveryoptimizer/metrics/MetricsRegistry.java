@@ -0,0 +1,161 @@
+package com.deliveryoptimizer.metrics;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Low-overhead registry of counters, histograms and gauges labelled by strategy
+ * Metrics are created on first use; updates are lock-free adds on LongAdder and atomic arrays, and gauges are
+ * read when scraped. The label is named "strategy" unless a metric was given another label name.
+ * Renders everything in the Prometheus plain-text exposition format.
+ */
+public class MetricsRegistry {
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, LogHistogram>> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, LongSupplier>> gauges = new ConcurrentHashMap<>();
+    private final Map<String, String> help = new ConcurrentHashMap<>();
+    private final Map<String, String> labelNames = new ConcurrentHashMap<>();
+
+    /**
+     * Counter with the given name and strategy label
+     */
+    public LongAdder counter(String name, String strategy) {
+        return counters.computeIfAbsent(name, n -> new ConcurrentHashMap<>())
+                       .computeIfAbsent(strategy, s -> new LongAdder());
+    }
+
+    /**
+     * Histogram with the given name and strategy label
+     */
+    public LogHistogram histogram(String name, String strategy) {
+        return histograms.computeIfAbsent(name, n -> new ConcurrentHashMap<>())
+                         .computeIfAbsent(strategy, s -> new LogHistogram());
+    }
+
+    /**
+     * Gauge with the given name and label, read from the supplier on every scrape; replaces an earlier one
+     */
+    public void gauge(String name, String strategy, LongSupplier value) {
+        gauges.computeIfAbsent(name, n -> new ConcurrentHashMap<>()).put(strategy, value);
+    }
+
+    /**
+     * Name the label of a metric something other than "strategy"
+     */
+    public void labelName(String name, String labelName) {
+        labelNames.put(name, labelName);
+    }
+
+    /**
+     * Attach a HELP description to a metric name
+     */
+    public void describe(String name, String description) {
+        help.put(name, description);
+    }
+
+    /**
+     * Current value of a counter per strategy label
+     */
+    public Map<String, Long> counterValues(String name) {
+        Map<String, Long> values = new TreeMap<>();
+        ConcurrentHashMap<String, LongAdder> byStrategy = counters.get(name);
+        if (byStrategy != null) {
+            byStrategy.forEach((strategy, adder) -> values.put(strategy, adder.sum()));
+        }
+        return values;
+    }
+
+    /**
+     * Sum of a counter over all strategy labels
+     */
+    public long counterTotal(String name) {
+        long total = 0;
+        for (long value : counterValues(name).values()) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * Current value of a gauge per label
+     */
+    public Map<String, Long> gaugeValues(String name) {
+        Map<String, Long> values = new TreeMap<>();
+        ConcurrentHashMap<String, LongSupplier> byLabel = gauges.get(name);
+        if (byLabel != null) {
+            byLabel.forEach((label, supplier) -> values.put(label, supplier.getAsLong()));
+        }
+        return values;
+    }
+
+    /**
+     * Histograms of one name per strategy label
+     */
+    public Map<String, LogHistogram> histogramsNamed(String name) {
+        ConcurrentHashMap<String, LogHistogram> byStrategy = histograms.get(name);
+        return byStrategy == null ? Collections.emptyMap() : new TreeMap<>(byStrategy);
+    }
+
+    /**
+     * Render all metrics in the Prometheus text format
+     */
+    public String scrape() {
+        StringBuilder sb = new StringBuilder();
+        for (String name : new TreeSet<>(counters.keySet())) {
+            appendHeader(sb, name, "counter");
+            for (Map.Entry<String, Long> entry : counterValues(name).entrySet()) {
+                sb.append(name).append(labels(name, entry.getKey(), null)).append(' ').append(entry.getValue()).append('\n');
+            }
+        }
+        for (String name : new TreeSet<>(gauges.keySet())) {
+            appendHeader(sb, name, "gauge");
+            for (Map.Entry<String, Long> entry : gaugeValues(name).entrySet()) {
+                sb.append(name).append(labels(name, entry.getKey(), null)).append(' ').append(entry.getValue()).append('\n');
+            }
+        }
+        for (String name : new TreeSet<>(histograms.keySet())) {
+            appendHeader(sb, name, "histogram");
+            for (Map.Entry<String, LogHistogram> entry : histogramsNamed(name).entrySet()) {
+                LogHistogram histogram = entry.getValue();
+                long cumulative = 0;
+                int lastBucket = 0;
+                for (int b = 0; b < histogram.getBucketCount(); b++) {
+                    if (histogram.getBucketValue(b) > 0) lastBucket = b;
+                }
+                for (int b = 0; b <= lastBucket; b++) {
+                    cumulative += histogram.getBucketValue(b);
+                    sb.append(name).append("_bucket")
+                      .append(labels(name, entry.getKey(), String.valueOf(LogHistogram.getBucketUpperBound(b))))
+                      .append(' ').append(cumulative).append('\n');
+                }
+                sb.append(name).append("_bucket").append(labels(name, entry.getKey(), "+Inf"))
+                  .append(' ').append(histogram.getCount()).append('\n');
+                sb.append(name).append("_sum").append(labels(name, entry.getKey(), null))
+                  .append(' ').append(histogram.getSum()).append('\n');
+                sb.append(name).append("_count").append(labels(name, entry.getKey(), null))
+                  .append(' ').append(histogram.getCount()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private void appendHeader(StringBuilder sb, String name, String type) {
+        String description = help.get(name);
+        if (description != null) {
+            sb.append("# HELP ").append(name).append(' ').append(description).append('\n');
+        }
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private String labels(String name, String strategy, String le) {
+        StringBuilder sb = new StringBuilder("{").append(labelNames.getOrDefault(name, "strategy")).append("=\"");
+        sb.append(strategy.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        if (le != null) {
+            sb.append(",le=\"").append(le).append('"');
+        }
+        return sb.append('}').toString();
+    }
+}
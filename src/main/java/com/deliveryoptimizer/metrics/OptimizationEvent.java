@@ -0,0 +1,41 @@
+package com.deliveryoptimizer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning one strategy run requested through DeliveryRouteOptimizationContext
+ * OptimizationPhaseEvents recorded on the same thread during this event break its duration down
+ */
+@Name("com.deliveryoptimizer.Optimization")
+@Label("Route Optimization")
+@Category({"Delivery Optimizer", "Optimization"})
+@Description("One route optimization request, from observer start notification to completion")
+@StackTrace(false)
+public class OptimizationEvent extends Event {
+
+    @Label("Strategy")
+    public String strategy;
+
+    @Label("Order Count")
+    public int orderCount;
+
+    @Label("Cache Hit")
+    public boolean cacheHit;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+
+    @Label("Route Time (minutes)")
+    public double routeTimeMinutes;
+
+    @Label("Sequences Evaluated")
+    public long sequencesEvaluated;
+
+    @Label("Distance Calls")
+    public long distanceCalls;
+}
@@ -0,0 +1,37 @@
+package com.deliveryoptimizer.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the optimization metrics
+ * Latencies are in microseconds and reported as histogram bucket upper bounds
+ */
+public interface OptimizationMetricsMXBean {
+
+    long getOptimizationsStarted();
+
+    long getOptimizationsCompleted();
+
+    long getErrorCount();
+
+    long getCacheHitCount();
+
+    Map<String, Long> getCompletedByStrategy();
+
+    Map<String, Long> getErrorsByStrategy();
+
+    Map<String, Long> getLatencyP50MicrosByStrategy();
+
+    Map<String, Long> getLatencyP99MicrosByStrategy();
+
+    Map<String, Long> getSequencesEvaluatedByStrategy();
+
+    Map<String, Long> getNodesPrunedByStrategy();
+
+    Map<String, Long> getDistanceCallsByStrategy();
+
+    /**
+     * All metrics in the Prometheus plain-text format
+     */
+    String getScrapeText();
+}
@@ -0,0 +1,58 @@
+package com.deliveryoptimizer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event timing one phase of an optimization run
+ * Created with start() and closed with commit(); while recording is off the JIT removes both
+ */
+@Name("com.deliveryoptimizer.OptimizationPhase")
+@Label("Optimization Phase")
+@Category({"Delivery Optimizer", "Optimization"})
+@Description("Duration of one phase of a route optimization")
+@StackTrace(false)
+public class OptimizationPhaseEvent extends Event {
+
+    /** Travel-time matrix, stop grouping or candidate index construction */
+    public static final String MATRIX_BUILD = "matrixBuild";
+    /** Enumeration of candidate task sequences */
+    public static final String ENUMERATION = "enumeration";
+    /** Picking the route; for constructive strategies this includes timing each leg */
+    public static final String SELECTION = "selection";
+    /** Building the route and step-by-step actions of the chosen sequence */
+    public static final String NARRATIVE = "narrative";
+    /** Lower bound computed by the context for the optimality gap */
+    public static final String LOWER_BOUND = "lowerBound";
+    /** Strategy run as seen by the context, including any result cache lookup */
+    public static final String SOLVE = "solve";
+    /** Observer notifications sent by the context */
+    public static final String OBSERVER_CALLBACKS = "observerCallbacks";
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Strategy")
+    public String strategy;
+
+    @Label("Order Count")
+    public int orderCount;
+
+    /**
+     * Begin timing a phase; fields are only filled in when the event is enabled
+     */
+    public static OptimizationPhaseEvent start(String phase, String strategy, int orderCount) {
+        OptimizationPhaseEvent event = new OptimizationPhaseEvent();
+        if (event.isEnabled()) {
+            event.phase = phase;
+            event.strategy = strategy;
+            event.orderCount = orderCount;
+            event.begin();
+        }
+        return event;
+    }
+}
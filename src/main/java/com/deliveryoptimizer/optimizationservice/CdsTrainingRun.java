@@ -0,0 +1,34 @@
+package com.deliveryoptimizer.optimizationservice;
+
+import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
+import com.deliveryoptimizer.resultcache.RouteResultCache;
+import com.deliveryoptimizer.warmup.WarmupRunner;
+
+/**
+ * Training run for an application class-data-sharing archive of the optimization service
+ * Starts the service with warm-up on a free port, waits until it is ready and stops, so the archive holds every
+ * class the service loads up to its first requests. Produced by mvn -P cds-archive package as
+ * target/delivery-route-optimizer.jsa; start the service with -XX:SharedArchiveFile pointing at it, on the
+ * same JDK and with the same jar on the class path.
+ */
+public class CdsTrainingRun {
+
+    /**
+     * CdsTrainingRun [solverThreads] [maxWarmupMillis]
+     */
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long warmupMillis = args.length > 1 ? Long.parseLong(args[1]) : WarmupRunner.DEFAULT_MAX_DURATION_MILLIS;
+        OptimizationHttpService service = new OptimizationHttpService(new HaversineDistanceCalculator(), 20.0)
+                .setSolverThreads(threads)
+                .setResultCache(new RouteResultCache(10_000, 60_000))
+                .setWarmup(new WarmupRunner().setMaxDurationMillis(warmupMillis));
+        service.start(0);
+        while (!service.isReady()) {
+            Thread.sleep(50);
+        }
+        System.out.println("Ready after " + service.getTimeToReadyMillis() + " ms; warm-up: "
+                           + service.getWarmupReport());
+        service.stop();
+    }
+}
@@ -0,0 +1,233 @@
+package com.deliveryoptimizer.optimizationservice;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.deliveryoptimizer.DeliveryRouteOptimizationContext;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.resultcache.RouteRequestFingerprint;
+
+/**
+ * Collects requests arriving close together into batches and hands them to the solver workers
+ * A batch closes when the batch window has passed since its first request or it is full. Requests in a batch
+ * with the same fingerprint (same start, orders, speed, strategy and distance calculator) are solved once and
+ * share the result, matrix build included. Each solver worker owns its optimization context.
+ *
+ * Batching only deduplicates: requests that differ in any order are solved separately and each builds its
+ * own matrix, even when they share a start and calculator. Requests still waiting when the solvers stop, or
+ * whose solve the stopped pool refuses, fail with ServiceStoppedException. Once every request of a group has
+ * been abandoned, its solve is skipped or, when already running, interrupted; the strategies turn that into a
+ * CancellationException.
+ */
+final class MicroBatcher {
+
+    private final LinkedBlockingQueue<OptimizationRequest> queue = new LinkedBlockingQueue<>();
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+    private final ExecutorService solvers;
+    private final ThreadLocal<DeliveryRouteOptimizationContext> contexts;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder sharedRequests = new LongAdder();
+    private volatile int largestBatch;
+
+    MicroBatcher(long batchWindowNanos, int maxBatchSize, ExecutorService solvers,
+                 Supplier<DeliveryRouteOptimizationContext> contextFactory) {
+        this.batchWindowNanos = batchWindowNanos;
+        this.maxBatchSize = maxBatchSize;
+        this.solvers = solvers;
+        this.contexts = ThreadLocal.withInitial(contextFactory);
+        this.thread = new Thread(this::run, "optimization-batcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    void submit(OptimizationRequest request) {
+        queue.add(request);
+    }
+
+    void shutdown() throws InterruptedException {
+        running = false;
+        thread.interrupt();
+        thread.join();
+        OptimizationRequest request;
+        while ((request = queue.poll()) != null) {
+            request.result.completeExceptionally(new ServiceStoppedException());
+        }
+    }
+
+    /**
+     * Fail the requests of solves the pool accepted but never started, as returned by its shutdownNow
+     */
+    static void failUnstarted(List<Runnable> unstarted) {
+        for (Runnable task : unstarted) {
+            if (task instanceof SolveTask) {
+                ((SolveTask) task).fail(new ServiceStoppedException());
+            }
+        }
+    }
+
+    long getBatchCount() {
+        return batches.sum();
+    }
+
+    long getSolveCount() {
+        return solves.sum();
+    }
+
+    /**
+     * Requests answered with the result of an identical request in the same batch
+     */
+    long getSharedRequestCount() {
+        return sharedRequests.sum();
+    }
+
+    int getLargestBatch() {
+        return largestBatch;
+    }
+
+    private void run() {
+        List<OptimizationRequest> batch = new ArrayList<>();
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + batchWindowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    OptimizationRequest next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                for (OptimizationRequest request : batch) {
+                    request.result.completeExceptionally(new ServiceStoppedException());
+                }
+                break;
+            }
+            dispatch(batch);
+            batch = new ArrayList<>();
+        }
+    }
+
+    private void dispatch(List<OptimizationRequest> batch) {
+        batches.increment();
+        if (batch.size() > largestBatch) {
+            largestBatch = batch.size();
+        }
+        Map<RouteRequestFingerprint, List<OptimizationRequest>> groups = new LinkedHashMap<>();
+        for (OptimizationRequest request : batch) {
+            request.batchSize = batch.size();
+            groups.computeIfAbsent(request.fingerprint, key -> new ArrayList<>()).add(request);
+        }
+        boolean stopped = false;
+        for (List<OptimizationRequest> group : groups.values()) {
+            SolveTask task = new SolveTask(group);
+            for (OptimizationRequest request : group) {
+                request.attach(task);
+            }
+            if (!stopped) {
+                try {
+                    solvers.execute(task);
+                    sharedRequests.add(group.size() - 1);
+                    continue;
+                } catch (RejectedExecutionException e) {
+                    stopped = true;
+                }
+            }
+            task.fail(new ServiceStoppedException());
+        }
+    }
+
+    /**
+     * Solves one group of identical requests and completes each of them with the result
+     */
+    final class SolveTask implements Runnable {
+        private final List<OptimizationRequest> group;
+        private final AtomicInteger waiting;
+        private volatile boolean cancelled;
+        private Thread runner;
+
+        SolveTask(List<OptimizationRequest> group) {
+            this.group = group;
+            this.waiting = new AtomicInteger(group.size());
+        }
+
+        /**
+         * One request of the group stopped waiting; the last one cancels the solve
+         */
+        void waiterGone() {
+            if (waiting.decrementAndGet() == 0) {
+                cancelled = true;
+                synchronized (this) {
+                    if (runner != null) {
+                        runner.interrupt();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                runner = Thread.currentThread();
+            }
+            try {
+                if (cancelled) {
+                    fail(new CancellationException("Abandoned before solving"));
+                } else {
+                    solve();
+                }
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    // A cancel arriving as the solve finished must not interrupt the worker's next task
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        private void solve() {
+            OptimizationRequest first = group.get(0);
+            try {
+                DeliveryRouteOptimizationContext context = contexts.get();
+                context.setOptimizationStrategy(first.strategy);
+                RouteResult result = context.optimizeRoute(first.scenario.getStartLocation(), first.scenario.getOrders());
+                solves.increment();
+                for (OptimizationRequest request : group) {
+                    request.result.complete(result);
+                }
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        void fail(RuntimeException cause) {
+            for (OptimizationRequest request : group) {
+                request.result.completeExceptionally(cause);
+            }
+        }
+    }
+
+    /**
+     * The request was admitted but the service stopped before solving it; answered with 503
+     */
+    static final class ServiceStoppedException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        ServiceStoppedException() {
+            super("Service stopped");
+        }
+    }
+}
@@ -0,0 +1,695 @@
+package com.deliveryoptimizer.optimizationservice;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.deliveryoptimizer.DeliveryRouteOptimizationContext;
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
+import com.deliveryoptimizer.loggingobserver.MetricsOptimizationObserver;
+import com.deliveryoptimizer.loggingobserver.RouteOptimizationObserver;
+import com.deliveryoptimizer.optimizationstrategy.BeamSearchOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.ExhaustiveSearchOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.GreedyNearestNeighborStrategy;
+import com.deliveryoptimizer.optimizationstrategy.PriorityBasedOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.RouteOptimizationStrategy;
+import com.deliveryoptimizer.orderingest.OrderLogField;
+import com.deliveryoptimizer.orderingest.OrderLogLoader;
+import com.deliveryoptimizer.resultcache.RouteRequestFingerprint;
+import com.deliveryoptimizer.resultcache.RouteResultCache;
+import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
+import com.deliveryoptimizer.scenariofactory.SyntheticScenarioGenerator;
+import com.deliveryoptimizer.warmup.WarmupReport;
+import com.deliveryoptimizer.warmup.WarmupRunner;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded HTTP endpoint solving one courier's orders per request at POST /optimize
+ * The body is an order log fragment in the OrderLogLoader CSV format (or JSON lines when the Content-Type
+ * mentions json) whose records all belong to one courier; the courier position of the first record is the
+ * route start. The strategy is picked with ?strategy=greedy|exhaustive|priority|beam.
+ *
+ * Connections are handled on virtual threads when the runtime provides them, otherwise on a bounded pool of
+ * daemon threads. Handlers only parse and wait: solving happens on a fixed pool of solver threads fed by a
+ * micro-batcher, which also lets identical requests arriving together share one solve (batching is
+ * deduplication only; distinct requests are solved separately). At most
+ * maxPendingRequests requests may be admitted at a time; beyond that the service answers 429 right away.
+ * Admission runs on a handler thread, so with the bounded pool the limit is also capped at the pool size less
+ * a few threads that admitted requests never hold: those keep answering 429 while every other handler waits
+ * on a solve, instead of leaving new connections queued in the pool.
+ *
+ * GET /ready answers 200 once the service is ready and 503 before. With a WarmupRunner set, start() binds the
+ * port and warms up in the background, first through every strategy and calculator, then by replaying
+ * generated requests through its own /optimize, and only then reports ready.
+ */
+public class OptimizationHttpService {
+
+    public static final String PATH = "/optimize";
+    public static final String READY_PATH = "/ready";
+    public static final int DEFAULT_MAX_PENDING_REQUESTS = 256;
+    public static final long DEFAULT_BATCH_WINDOW_MICROS = 2_000;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    public static final int DEFAULT_MAX_ORDERS_PER_REQUEST = 12;
+    // Same limit as batch mode: a quarter second at 7 orders, seconds to most of a minute at 8
+    public static final int DEFAULT_MAX_EXHAUSTIVE_ORDERS = 7;
+    public static final long DEFAULT_REQUEST_TIMEOUT_MILLIS = 10_000;
+    public static final int DEFAULT_MAX_HANDLER_THREADS = 64;
+
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    // Bounded-pool handler threads left for answering 429 once the admitted requests hold all the others
+    private static final int REJECTION_HANDLER_THREADS = 4;
+    // Connections beyond the backlog are reset by the kernel before admission control can answer 429
+    private static final int CONNECTION_BACKLOG = 1024;
+    // Requests per strategy and size replayed over HTTP once the solvers are warm
+    private static final int WARMUP_REPLAY_ROUNDS = 20;
+    private static final int[] WARMUP_REPLAY_ORDER_COUNTS = {3, 4, 8};
+    private static final int WARMUP_REPLAY_EXHAUSTIVE_MAX_ORDERS = 4;
+    // Strategy name under which a failed warm-up is reported to the observers
+    private static final String WARMUP_STRATEGY_NAME = "warm-up";
+
+    private final DistanceCalculator distanceCalculator;
+    private final double averageSpeedKmh;
+    private final Map<String, RouteOptimizationStrategy> strategies = new LinkedHashMap<>();
+    private final List<RouteOptimizationObserver> observers = new CopyOnWriteArrayList<>();
+    private String defaultStrategy = "greedy";
+    private int solverThreads = Runtime.getRuntime().availableProcessors();
+    private int maxPendingRequests = DEFAULT_MAX_PENDING_REQUESTS;
+    private int maxHandlerThreads = DEFAULT_MAX_HANDLER_THREADS;
+    private volatile int admissionLimit = DEFAULT_MAX_PENDING_REQUESTS;
+    private long batchWindowMicros = DEFAULT_BATCH_WINDOW_MICROS;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private int maxOrdersPerRequest = DEFAULT_MAX_ORDERS_PER_REQUEST;
+    private int maxExhaustiveOrders = DEFAULT_MAX_EXHAUSTIVE_ORDERS;
+    private long requestTimeoutMillis = DEFAULT_REQUEST_TIMEOUT_MILLIS;
+    private RouteResultCache resultCache;
+    private WarmupRunner warmup;
+
+    private final OrderLogLoader loader = new OrderLogLoader().setBufferSize(16 * 1024).setInternCapacity(4096);
+    private final AtomicInteger pendingRequests = new AtomicInteger();
+    private final LongAdder acceptedRequests = new LongAdder();
+    private final LongAdder rejectedRequests = new LongAdder();
+    private final LongAdder failedRequests = new LongAdder();
+
+    private HttpServer server;
+    private ExecutorService handlers;
+    private ExecutorService solvers;
+    private MicroBatcher batcher;
+    private volatile boolean ready;
+    private volatile WarmupReport warmupReport;
+    private volatile long readyMillis = -1;
+
+    public OptimizationHttpService(DistanceCalculator distanceCalculator, double averageSpeedKmh) {
+        this.distanceCalculator = distanceCalculator;
+        this.averageSpeedKmh = averageSpeedKmh;
+        strategies.put("greedy", new GreedyNearestNeighborStrategy());
+        strategies.put("exhaustive", new ExhaustiveSearchOptimizationStrategy());
+        strategies.put("priority", new PriorityBasedOptimizationStrategy());
+        strategies.put("beam", new BeamSearchOptimizationStrategy());
+    }
+
+    /**
+     * Strategy used when the request names none: greedy, exhaustive, priority or beam
+     */
+    public OptimizationHttpService setDefaultStrategy(String defaultStrategy) {
+        if (!strategies.containsKey(defaultStrategy)) {
+            throw new IllegalArgumentException("Unknown strategy: " + defaultStrategy);
+        }
+        this.defaultStrategy = defaultStrategy;
+        return this;
+    }
+
+    public OptimizationHttpService setSolverThreads(int solverThreads) {
+        if (solverThreads <= 0) {
+            throw new IllegalArgumentException("solverThreads must be positive: " + solverThreads);
+        }
+        this.solverThreads = solverThreads;
+        return this;
+    }
+
+    /**
+     * Requests admitted whose solve has not ended yet, answered or not; further requests get 429
+     */
+    public OptimizationHttpService setMaxPendingRequests(int maxPendingRequests) {
+        if (maxPendingRequests <= 0) {
+            throw new IllegalArgumentException("maxPendingRequests must be positive: " + maxPendingRequests);
+        }
+        this.maxPendingRequests = maxPendingRequests;
+        return this;
+    }
+
+    /**
+     * Size of the handler pool used when the runtime has no virtual threads
+     * Admitted requests hold a handler while they wait, so this also caps the requests admitted at a time.
+     */
+    public OptimizationHttpService setMaxHandlerThreads(int maxHandlerThreads) {
+        if (maxHandlerThreads <= REJECTION_HANDLER_THREADS) {
+            throw new IllegalArgumentException("maxHandlerThreads must exceed " + REJECTION_HANDLER_THREADS + ": "
+                                               + maxHandlerThreads);
+        }
+        this.maxHandlerThreads = maxHandlerThreads;
+        return this;
+    }
+
+    /**
+     * How long a batch stays open after its first request
+     */
+    public OptimizationHttpService setBatchWindowMicros(long batchWindowMicros) {
+        if (batchWindowMicros < 0) {
+            throw new IllegalArgumentException("batchWindowMicros must not be negative: " + batchWindowMicros);
+        }
+        this.batchWindowMicros = batchWindowMicros;
+        return this;
+    }
+
+    public OptimizationHttpService setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * Larger requests get 413, whatever the strategy
+     */
+    public OptimizationHttpService setMaxOrdersPerRequest(int maxOrdersPerRequest) {
+        if (maxOrdersPerRequest <= 0) {
+            throw new IllegalArgumentException("maxOrdersPerRequest must be positive: " + maxOrdersPerRequest);
+        }
+        this.maxOrdersPerRequest = maxOrdersPerRequest;
+        return this;
+    }
+
+    /**
+     * Larger exhaustive requests get 413; keeps one request from occupying a solver with a factorial search
+     */
+    public OptimizationHttpService setMaxExhaustiveOrders(int maxExhaustiveOrders) {
+        if (maxExhaustiveOrders <= 0) {
+            throw new IllegalArgumentException("maxExhaustiveOrders must be positive: " + maxExhaustiveOrders);
+        }
+        this.maxExhaustiveOrders = maxExhaustiveOrders;
+        return this;
+    }
+
+    /**
+     * Requests not solved in time get 503, and their solve is cancelled unless an identical request still waits
+     */
+    public OptimizationHttpService setRequestTimeoutMillis(long requestTimeoutMillis) {
+        if (requestTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("requestTimeoutMillis must be positive: " + requestTimeoutMillis);
+        }
+        this.requestTimeoutMillis = requestTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Optional cache shared by all solver threads, so repeats across batches are served without solving
+     */
+    public OptimizationHttpService setResultCache(RouteResultCache resultCache) {
+        this.resultCache = resultCache;
+        return this;
+    }
+
+    /**
+     * Observe every solve, and a failed warm-up as an error of strategy "warm-up"; add before start()
+     * Observers are called on the solver threads; wrap slow ones in an AsyncObserverBus
+     */
+    public OptimizationHttpService addObserver(RouteOptimizationObserver observer) {
+        observers.add(observer);
+        return this;
+    }
+
+    /**
+     * Warm up before reporting ready (null, the default, is ready as soon as started)
+     */
+    public OptimizationHttpService setWarmup(WarmupRunner warmup) {
+        this.warmup = warmup;
+        return this;
+    }
+
+    /**
+     * Start serving on the given port (0 picks a free port)
+     */
+    public synchronized void start(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Optimization service already started on port " + getPort());
+        }
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(port), CONNECTION_BACKLOG);
+        httpServer.createContext(PATH, this::handle);
+        httpServer.createContext(READY_PATH, this::handleReady);
+        AtomicInteger solverIndex = new AtomicInteger();
+        solvers = Executors.newFixedThreadPool(solverThreads, runnable -> {
+            Thread thread = new Thread(runnable, "optimization-solver-" + solverIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        batcher = new MicroBatcher(TimeUnit.MICROSECONDS.toNanos(batchWindowMicros), maxBatchSize, solvers, () -> {
+            DeliveryRouteOptimizationContext context = new DeliveryRouteOptimizationContext(
+                    strategies.get(defaultStrategy), distanceCalculator, averageSpeedKmh);
+            context.setResultCache(resultCache);
+            for (RouteOptimizationObserver observer : observers) {
+                context.addObserver(observer);
+            }
+            return context;
+        });
+        handlers = newHandlerExecutor();
+        httpServer.setExecutor(handlers);
+        long started = System.nanoTime();
+        ready = false;
+        httpServer.start();
+        server = httpServer;
+        if (warmup == null) {
+            markReady(started);
+        } else {
+            WarmupRunner runner = warmup;
+            Thread thread = new Thread(() -> warmUp(runner, started), "optimization-warmup");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public synchronized void stop() throws InterruptedException {
+        if (server != null) {
+            server.stop(0);
+            batcher.shutdown();
+            MicroBatcher.failUnstarted(solvers.shutdownNow());
+            handlers.shutdownNow();
+            server = null;
+            batcher = null;
+            solvers = null;
+            handlers = null;
+        }
+    }
+
+    /**
+     * True once started and, when a warm-up is set, warmed up
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Time from start() to ready, or -1 while not ready
+     */
+    public long getTimeToReadyMillis() {
+        return readyMillis;
+    }
+
+    /**
+     * Report of the solver warm-up, or null without one or while it runs
+     */
+    public WarmupReport getWarmupReport() {
+        return warmupReport;
+    }
+
+    public synchronized int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    /**
+     * Admitted requests whose solve is queued or running, including ones already answered 503 on timeout
+     */
+    public int getPendingRequests() {
+        return pendingRequests.get();
+    }
+
+    /**
+     * Requests admitted at a time: maxPendingRequests, capped by the handler pool when there are no virtual threads
+     */
+    public int getAdmissionLimit() {
+        return admissionLimit;
+    }
+
+    public long getAcceptedRequests() {
+        return acceptedRequests.sum();
+    }
+
+    /**
+     * Requests answered 429 because the solver queue was saturated
+     */
+    public long getRejectedRequests() {
+        return rejectedRequests.sum();
+    }
+
+    /**
+     * Admitted requests answered with 500 or 503
+     */
+    public long getFailedRequests() {
+        return failedRequests.sum();
+    }
+
+    public synchronized long getBatchCount() {
+        return batcher == null ? 0 : batcher.getBatchCount();
+    }
+
+    public synchronized long getSolveCount() {
+        return batcher == null ? 0 : batcher.getSolveCount();
+    }
+
+    /**
+     * Requests answered with the solve of an identical request in the same batch
+     */
+    public synchronized long getSharedRequestCount() {
+        return batcher == null ? 0 : batcher.getSharedRequestCount();
+    }
+
+    public synchronized int getLargestBatch() {
+        return batcher == null ? 0 : batcher.getLargestBatch();
+    }
+
+    /**
+     * Virtual thread per connection on runtimes that have them (looked up reflectively, the build targets
+     * Java 17), otherwise a bounded pool of daemon threads; sets the admission limit to match
+     */
+    private ExecutorService newHandlerExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService executor = (ExecutorService) factory.invoke(null);
+            admissionLimit = maxPendingRequests;
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.min(maxHandlerThreads, maxPendingRequests + REJECTION_HANDLER_THREADS);
+            admissionLimit = threads - REJECTION_HANDLER_THREADS;
+            AtomicInteger handlerIndex = new AtomicInteger();
+            return Executors.newFixedThreadPool(threads,
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "optimization-http-" + handlerIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    private void markReady(long started) {
+        readyMillis = (System.nanoTime() - started) / 1_000_000;
+        ready = true;
+    }
+
+    private void warmUp(WarmupRunner runner, long started) {
+        try {
+            warmupReport = runner.run(result -> RouteResultJson.encode(result, 1));
+            replayOverHttp();
+        } catch (IOException | RuntimeException e) {
+            // A failed warm-up only costs latency; serve anyway rather than never becoming ready
+            for (RouteOptimizationObserver observer : observers) {
+                observer.onOptimizationError(WARMUP_STRATEGY_NAME, "Optimization service warm-up failed: " + e, e);
+            }
+        }
+        markReady(started);
+    }
+
+    /**
+     * Send generated requests for every strategy through the service's own HTTP path: parsing, batching, JSON
+     */
+    private void replayOverHttp() throws IOException {
+        SyntheticScenarioGenerator generator = new SyntheticScenarioGenerator(getPort());
+        for (int round = 0; round < WARMUP_REPLAY_ROUNDS; round++) {
+            for (int orderCount : WARMUP_REPLAY_ORDER_COUNTS) {
+                byte[] body = toOrderLogCsv(generator.generate(Math.min(orderCount, maxOrdersPerRequest), round))
+                        .getBytes(StandardCharsets.UTF_8);
+                for (String strategyName : strategies.keySet()) {
+                    if (strategyName.equals("exhaustive") && orderCount > WARMUP_REPLAY_EXHAUSTIVE_MAX_ORDERS) {
+                        continue;
+                    }
+                    URL url = new URL("http://127.0.0.1:" + getPort() + PATH + "?strategy=" + strategyName);
+                    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                    connection.setRequestMethod("POST");
+                    connection.setDoOutput(true);
+                    connection.setRequestProperty("Content-Type", "text/csv");
+                    try (OutputStream out = connection.getOutputStream()) {
+                        out.write(body);
+                    }
+                    try (InputStream in = connection.getResponseCode() < 400
+                            ? connection.getInputStream() : connection.getErrorStream()) {
+                        if (in != null) {
+                            in.readAllBytes();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static String toOrderLogCsv(DeliveryScenario scenario) {
+        StringBuilder csv = new StringBuilder();
+        for (OrderLogField field : OrderLogField.values()) {
+            csv.append(field.ordinal() == 0 ? "" : ",").append(field.getColumnName());
+        }
+        Location start = scenario.getStartLocation();
+        for (DeliveryOrder order : scenario.getOrders()) {
+            Location restaurant = order.getRestaurant();
+            Location consumer = order.getConsumer();
+            csv.append('\n').append(scenario.getScenarioName()).append(',').append(start.getLatitude())
+               .append(',').append(start.getLongitude()).append(",0,").append(order.getOrderId())
+               .append(',').append(restaurant.getId()).append(',').append(restaurant.getLatitude())
+               .append(',').append(restaurant.getLongitude()).append(',').append(consumer.getId())
+               .append(',').append(consumer.getLatitude()).append(',').append(consumer.getLongitude())
+               .append(',').append(order.getPreparationTimeMinutes()).append(',').append(order.getPriority());
+        }
+        return csv.append('\n').toString();
+    }
+
+    private void handleReady(HttpExchange exchange) throws IOException {
+        try {
+            respond(exchange, ready ? 200 : 503, ready ? "{\"ready\":true}" : "{\"ready\":false}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            if (pendingRequests.incrementAndGet() > admissionLimit) {
+                pendingRequests.decrementAndGet();
+                rejectedRequests.increment();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 429, RouteResultJson.error("Solver queue is full"));
+                return;
+            }
+            OptimizationRequest request = null;
+            try {
+                request = parseRequest(exchange);
+                if (request != null) {
+                    // The slot stays taken until the solve ends, not just until this handler answers
+                    request.result.whenComplete((result, failure) -> pendingRequests.decrementAndGet());
+                    awaitSolve(exchange, request);
+                }
+            } finally {
+                if (request == null) {
+                    pendingRequests.decrementAndGet();
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * The request to solve, or null after answering 400 or 413
+     */
+    private OptimizationRequest parseRequest(HttpExchange exchange) throws IOException {
+        String strategyName = queryParameter(exchange.getRequestURI(), "strategy");
+        RouteOptimizationStrategy strategy = strategies.get(strategyName == null ? defaultStrategy : strategyName);
+        if (strategy == null) {
+            respond(exchange, 400, RouteResultJson.error("Unknown strategy: " + strategyName));
+            return null;
+        }
+        DeliveryScenario scenario;
+        try {
+            scenario = readScenario(exchange);
+        } catch (PayloadTooLargeException e) {
+            respond(exchange, 413, RouteResultJson.error(e.getMessage()));
+            return null;
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, RouteResultJson.error(e.getMessage()));
+            return null;
+        }
+        if (strategy instanceof ExhaustiveSearchOptimizationStrategy && scenario.getOrderCount() > maxExhaustiveOrders) {
+            respond(exchange, 413, RouteResultJson.error("At most " + maxExhaustiveOrders
+                                                         + " orders per exhaustive request"));
+            return null;
+        }
+        return new OptimizationRequest(scenario, strategy, RouteRequestFingerprint.of(
+                scenario.getStartLocation(), scenario.getOrders(), averageSpeedKmh, strategy, distanceCalculator));
+    }
+
+    /**
+     * Hand the request to the batcher and answer with its result; a request not solved in time is abandoned
+     * so its solve stops occupying a solver
+     */
+    private void awaitSolve(HttpExchange exchange, OptimizationRequest request) throws IOException {
+        acceptedRequests.increment();
+        MicroBatcher currentBatcher;
+        synchronized (this) {
+            currentBatcher = batcher;
+        }
+        if (currentBatcher == null) {
+            request.result.completeExceptionally(new MicroBatcher.ServiceStoppedException());
+            failedRequests.increment();
+            respond(exchange, 503, RouteResultJson.error("Service stopped"));
+            return;
+        }
+        currentBatcher.submit(request);
+        try {
+            RouteResult result = request.result.get(requestTimeoutMillis, TimeUnit.MILLISECONDS);
+            respond(exchange, 200, RouteResultJson.encode(result, request.batchSize));
+        } catch (TimeoutException e) {
+            request.abandon();
+            failedRequests.increment();
+            respond(exchange, 503, RouteResultJson.error("Not solved within " + requestTimeoutMillis + " ms"));
+        } catch (ExecutionException e) {
+            failedRequests.increment();
+            respond(exchange, e.getCause() instanceof MicroBatcher.ServiceStoppedException ? 503 : 500,
+                    RouteResultJson.error(String.valueOf(e.getCause().getMessage())));
+        } catch (InterruptedException e) {
+            request.abandon();
+            Thread.currentThread().interrupt();
+            failedRequests.increment();
+            respond(exchange, 503, RouteResultJson.error("Service stopped"));
+        }
+    }
+
+    private DeliveryScenario readScenario(HttpExchange exchange) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        OrderLogLoader.Format format = contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json")
+                ? OrderLogLoader.Format.JSON_LINES : OrderLogLoader.Format.CSV;
+        List<DeliveryOrder> orders = new ArrayList<>();
+        String[] courierId = new String[1];
+        Location[] start = new Location[1];
+        try (InputStream body = new BoundedInputStream(exchange.getRequestBody(), MAX_BODY_BYTES)) {
+            loader.loadRecords(Channels.newChannel(body), format, (courier, courierLocation, orderMinute, order) -> {
+                if (courierId[0] == null) {
+                    courierId[0] = courier;
+                    start[0] = courierLocation;
+                } else if (!courierId[0].equals(courier)) {
+                    throw new IllegalArgumentException("All orders must belong to courier " + courierId[0]
+                                                       + ", got " + courier);
+                }
+                if (orders.size() == maxOrdersPerRequest) {
+                    throw new PayloadTooLargeException("At most " + maxOrdersPerRequest + " orders per request");
+                }
+                orders.add(order);
+            });
+        }
+        if (orders.isEmpty()) {
+            throw new IllegalArgumentException("Request contains no orders");
+        }
+        return new DeliveryScenario(courierId[0], start[0], orders);
+    }
+
+    private static String queryParameter(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0 && parameter.substring(0, equals).equals(name)) {
+                return parameter.substring(equals + 1);
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static final class PayloadTooLargeException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        PayloadTooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Fails with PayloadTooLargeException once more than the limit has been read
+     */
+    private static final class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            this.in = in;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                consumed(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = in.read(buffer, offset, length);
+            if (read > 0) {
+                consumed(read);
+            }
+            return read;
+        }
+
+        private void consumed(int bytes) {
+            remaining -= bytes;
+            if (remaining < 0) {
+                throw new PayloadTooLargeException("Request body exceeds " + MAX_BODY_BYTES + " bytes");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Serve on a port until interrupted: OptimizationHttpService [port] [solverThreads] [maxWarmupMillis]
+     * Without maxWarmupMillis, or with 0, the service is ready right away.
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long warmupMillis = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        MetricsOptimizationObserver metrics = new MetricsOptimizationObserver();
+        metrics.registerMBean();
+        OptimizationHttpService service = new OptimizationHttpService(new HaversineDistanceCalculator(), 20.0)
+                .addObserver(metrics)
+                .setSolverThreads(threads)
+                .setResultCache(new RouteResultCache(10_000, 60_000))
+                .setWarmup(warmupMillis > 0 ? new WarmupRunner().setMaxDurationMillis(warmupMillis) : null);
+        service.start(port);
+        System.out.println("Optimization service listening on http://localhost:" + service.getPort() + PATH);
+        Thread.currentThread().join();
+    }
+
+}
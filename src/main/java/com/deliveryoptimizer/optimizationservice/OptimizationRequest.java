@@ -0,0 +1,58 @@
+package com.deliveryoptimizer.optimizationservice;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.optimizationstrategy.RouteOptimizationStrategy;
+import com.deliveryoptimizer.resultcache.RouteRequestFingerprint;
+import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
+
+/**
+ * One admitted request waiting for its batch to be solved
+ */
+final class OptimizationRequest {
+    final DeliveryScenario scenario;
+    final RouteOptimizationStrategy strategy;
+    final RouteRequestFingerprint fingerprint;
+    final CompletableFuture<RouteResult> result = new CompletableFuture<>();
+    volatile int batchSize;
+    private volatile boolean abandoned;
+    private volatile MicroBatcher.SolveTask task;
+    private final AtomicBoolean left = new AtomicBoolean();
+
+    OptimizationRequest(DeliveryScenario scenario, RouteOptimizationStrategy strategy,
+                        RouteRequestFingerprint fingerprint) {
+        this.scenario = scenario;
+        this.strategy = strategy;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * The caller stopped waiting; the solve is cancelled once no identical request of its batch waits either
+     */
+    void abandon() {
+        abandoned = true;
+        MicroBatcher.SolveTask current = task;
+        if (current != null) {
+            leave(current);
+        }
+    }
+
+    /**
+     * Called by the batcher once the request is grouped into a solve
+     */
+    void attach(MicroBatcher.SolveTask solveTask) {
+        task = solveTask;
+        if (abandoned) {
+            leave(solveTask);
+        }
+    }
+
+    private void leave(MicroBatcher.SolveTask solveTask) {
+        // abandon() and attach() can race to see each other; only one of them may count the request as gone
+        if (left.compareAndSet(false, true)) {
+            solveTask.waiterGone();
+        }
+    }
+}
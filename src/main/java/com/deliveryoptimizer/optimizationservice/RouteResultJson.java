@@ -0,0 +1,113 @@
+package com.deliveryoptimizer.optimizationservice;
+
+import java.util.List;
+
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.core.SearchStatistics;
+
+/**
+ * Hand-written JSON encoding of service responses and batch results
+ */
+public final class RouteResultJson {
+
+    private RouteResultJson() {
+    }
+
+    static String encode(RouteResult result, int batchSize) {
+        StringBuilder json = new StringBuilder(256);
+        fields(json, result);
+        json.append(",\"batchSize\":").append(batchSize);
+        return json.append('}').toString();
+    }
+
+    /**
+     * Append the result as a JSON object
+     */
+    public static void append(StringBuilder json, RouteResult result) {
+        fields(json, result);
+        json.append('}');
+    }
+
+    /**
+     * Append the value as a JSON string, or null
+     */
+    public static void appendString(StringBuilder json, String value) {
+        string(json, value);
+    }
+
+    static String error(String message) {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        string(json, message);
+        return json.append('}').toString();
+    }
+
+    /**
+     * Opening brace and every field of the result, leaving the object open for more fields
+     */
+    private static void fields(StringBuilder json, RouteResult result) {
+        SearchStatistics statistics = result.getSearchStatistics();
+        json.append("{\"strategy\":");
+        string(json, result.getStrategy());
+        json.append(",\"totalTimeMinutes\":").append(result.getTotalTimeMinutes());
+        json.append(",\"lowerBoundMinutes\":");
+        number(json, result.getLowerBoundMinutes());
+        json.append(",\"optimalityGap\":");
+        number(json, result.getOptimalityGap());
+        json.append(",\"route\":");
+        strings(json, result.getRoute());
+        json.append(",\"actions\":");
+        strings(json, result.getStepByStepActions());
+        json.append(",\"statistics\":{\"sequencesEvaluated\":").append(statistics.getSequencesEvaluated())
+            .append(",\"nodesExpanded\":").append(statistics.getNodesExpanded())
+            .append(",\"nodesPruned\":").append(statistics.getNodesPruned())
+            .append(",\"distanceCalls\":").append(statistics.getDistanceCalls())
+            .append(",\"cacheHit\":").append(statistics.isCacheHit())
+            .append(",\"solveTimeNanos\":").append(statistics.getSolveTimeNanos())
+            .append('}');
+    }
+
+    /**
+     * JSON has no NaN or infinity, so unknown values become null
+     */
+    private static void number(StringBuilder json, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            json.append("null");
+        } else {
+            json.append(value);
+        }
+    }
+
+    private static void strings(StringBuilder json, List<String> values) {
+        json.append('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) json.append(',');
+            string(json, values.get(i));
+        }
+        json.append(']');
+    }
+
+    private static void string(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,396 @@
+package com.deliveryoptimizer.optimizationstrategy;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.deliveryoptimizer.core.*;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.TravelTimeMatrix;
+import com.deliveryoptimizer.metrics.OptimizationPhaseEvent;
+
+/**
+ * Beam search over pickup/delivery sequences
+ * Keeps the best beamWidth partial sequences at each depth, scored by a completion estimate: the larger of the
+ * latest finish of any unserved order if it were served next on its own, and the elapsed time plus the cheapest
+ * incoming leg of every unserved stop. Partial sequences that served the same tasks and stand at the same slot
+ * are merged, keeping the better-ranked one. Width 1 is a look-ahead greedy; cost grows linearly with the width,
+ * so it trades latency for route quality smoothly.
+ *
+ * Expanding a depth is split into chunks run on the executor, with the calling thread taking chunks too, so a
+ * saturated executor only costs parallelism. Results do not depend on the thread count. Interrupting the calling
+ * thread stops the search at the next depth with a CancellationException.
+ */
+public class BeamSearchOptimizationStrategy implements RouteOptimizationStrategy {
+
+    public static final int DEFAULT_BEAM_WIDTH = 64;
+
+    // Below this many beam entries per chunk the hand-off costs more than the expansion
+    private static final int MIN_NODES_PER_CHUNK = 16;
+
+    private final int beamWidth;
+    private final Executor executor;
+    private final int parallelism;
+
+    public BeamSearchOptimizationStrategy() {
+        this(DEFAULT_BEAM_WIDTH);
+    }
+
+    /**
+     * Expands on the common fork-join pool
+     */
+    public BeamSearchOptimizationStrategy(int beamWidth) {
+        this(beamWidth, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism() + 1);
+    }
+
+    /**
+     * @param beamWidth Partial sequences kept per depth
+     * @param executor Runs expansion chunks, or null to expand on the calling thread only
+     * @param parallelism Chunks per depth, counting the calling thread
+     */
+    public BeamSearchOptimizationStrategy(int beamWidth, Executor executor, int parallelism) {
+        if (beamWidth <= 0) {
+            throw new IllegalArgumentException("beamWidth must be positive: " + beamWidth);
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.beamWidth = beamWidth;
+        this.executor = executor;
+        this.parallelism = executor == null ? 1 : parallelism;
+    }
+
+    public int getBeamWidth() {
+        return beamWidth;
+    }
+
+    @Override
+    public RouteResult optimizeRoute(Location startLocation, List<DeliveryOrder> orders,
+                                     DistanceCalculator distanceCalculator, double speedKmh) {
+        int n = orders.size();
+        OptimizationPhaseEvent phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.MATRIX_BUILD,
+                                                                    getStrategyName(), n);
+        TravelTimeMatrix matrix = TravelTimeMatrix.build(startLocation, orders, distanceCalculator, speedKmh);
+        phase.commit();
+
+        phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.ENUMERATION, getStrategyName(), n);
+        Search search = new Search(matrix, orders);
+        int[] sequence = search.run();
+        phase.commit();
+
+        SearchStatistics statistics = new SearchStatistics();
+        statistics.addDistanceCalls(matrix.getBuildDistanceCalls());
+        statistics.addNodesExpanded(search.nodesExpanded);
+        statistics.addNodesPruned(search.nodesPruned);
+        statistics.addSequencesEvaluated(search.sequencesEvaluated);
+        phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.NARRATIVE, getStrategyName(), n);
+        RouteResult result = narrate(matrix, orders, sequence, statistics);
+        phase.commit();
+        return result;
+    }
+
+    @Override
+    public String getStrategyName() {
+        return "Beam Search (width " + beamWidth + ")";
+    }
+
+    private RouteResult narrate(TravelTimeMatrix matrix, List<DeliveryOrder> orders, int[] sequence,
+                                SearchStatistics statistics) {
+        List<String> route = new ArrayList<>(sequence.length + 1);
+        List<String> actions = new ArrayList<>(sequence.length * 2 + 1);
+        Location start = matrix.getLocation(TravelTimeMatrix.START_SLOT);
+        route.add(start.getName());
+        actions.add("Start at " + start.getName());
+        int currentSlot = TravelTimeMatrix.START_SLOT;
+        double currentTime = 0;
+        for (int slot : sequence) {
+            Location location = matrix.getLocation(slot);
+            double travelTime = matrix.getTravelTime(currentSlot, slot, currentTime);
+            currentTime += travelTime;
+            route.add(location.getName());
+            actions.add(String.format("Travel to %s (%.2f minutes)", location.getName(), travelTime));
+            DeliveryOrder order = orders.get(TravelTimeMatrix.orderIndexOf(slot));
+            if (TravelTimeMatrix.isPickupSlot(slot)) {
+                double foodReadyTime = order.getPreparationTimeMinutes();
+                if (currentTime < foodReadyTime) {
+                    actions.add(String.format("Wait for food preparation (%.1f minutes)", foodReadyTime - currentTime));
+                    currentTime = foodReadyTime;
+                } else {
+                    actions.add("Food is ready - no waiting needed");
+                }
+                actions.add(String.format("Pick up order %s from %s", order.getOrderId(), location.getName()));
+            } else {
+                actions.add(String.format("Deliver order %s to %s", order.getOrderId(), location.getName()));
+            }
+            currentSlot = slot;
+        }
+        return new RouteResult(route, currentTime, getStrategyName(), actions, statistics);
+    }
+
+    /**
+     * One beam search run over primitive arrays
+     * Each beam entry holds its current slot, elapsed time, a bitset of served slots and a back-pointer into the
+     * previous depth; children of entry i are written to their own region of the candidate arrays so chunks
+     * never share writes.
+     */
+    private final class Search {
+        private final TravelTimeMatrix matrix;
+        private final int orderCount;
+        private final int depthCount;
+        private final int words;
+        private final double[] readyTimes;
+        private final double[] pickupToDelivery;
+        private final double[] cheapestIncoming;
+        private final long[] slotKeys;
+
+        // Current beam
+        private int beamSize;
+        private int[] beamSlot;
+        private double[] beamTime;
+        private double[] beamRemaining;
+        private long[] beamServed;
+        private long[] beamKey;
+
+        // Candidates of the depth being expanded, orderCount per beam entry
+        private final int[] candidateSlot;
+        private final double[] candidateTime;
+        private final double[] candidateScore;
+        private final int[] candidateCount;
+
+        // Back-pointers per depth for rebuilding the best sequence
+        private final int[][] parents;
+        private final int[][] slots;
+
+        long nodesExpanded;
+        long nodesPruned;
+        long sequencesEvaluated;
+
+        Search(TravelTimeMatrix matrix, List<DeliveryOrder> orders) {
+            this.matrix = matrix;
+            this.orderCount = orders.size();
+            this.depthCount = orderCount * 2;
+            this.words = (matrix.getSlotCount() + 63) >>> 6;
+            this.readyTimes = new double[orderCount];
+            this.pickupToDelivery = new double[orderCount];
+            for (int i = 0; i < orderCount; i++) {
+                readyTimes[i] = orders.get(i).getPreparationTimeMinutes();
+                pickupToDelivery[i] = matrix.getTravelTime(TravelTimeMatrix.pickupSlot(i),
+                                                           TravelTimeMatrix.deliverySlot(i));
+            }
+            // Any route reaches each unserved stop over at least its cheapest incoming leg
+            int slotCount = matrix.getSlotCount();
+            this.cheapestIncoming = new double[slotCount];
+            double remaining = 0;
+            for (int to = 1; to < slotCount; to++) {
+                double cheapest = Double.MAX_VALUE;
+                for (int from = 0; from < slotCount; from++) {
+                    if (from != to) {
+                        cheapest = Math.min(cheapest, matrix.getTravelTime(from, to));
+                    }
+                }
+                cheapestIncoming[to] = cheapest;
+                remaining += cheapest;
+            }
+            // Zobrist keys identify a served set and current slot without comparing bitsets
+            Random random = new Random(orderCount);
+            this.slotKeys = new long[matrix.getSlotCount() * 2];
+            for (int i = 0; i < slotKeys.length; i++) {
+                slotKeys[i] = random.nextLong();
+            }
+
+            int capacity = Math.max(1, beamWidth * Math.max(1, orderCount));
+            this.candidateSlot = new int[capacity];
+            this.candidateTime = new double[capacity];
+            this.candidateScore = new double[capacity];
+            this.candidateCount = new int[beamWidth];
+            this.parents = new int[depthCount][];
+            this.slots = new int[depthCount][];
+
+            this.beamSize = 1;
+            this.beamSlot = new int[] {TravelTimeMatrix.START_SLOT};
+            this.beamTime = new double[1];
+            this.beamRemaining = new double[] {remaining};
+            this.beamServed = new long[words];
+            this.beamKey = new long[1];
+        }
+
+        int[] run() {
+            for (int depth = 0; depth < depthCount; depth++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Beam search interrupted at depth " + depth);
+                }
+                expandAll();
+                select(depth);
+            }
+            sequencesEvaluated = beamSize;
+            int best = 0;
+            for (int i = 1; i < beamSize; i++) {
+                if (beamTime[i] < beamTime[best]) {
+                    best = i;
+                }
+            }
+            int[] sequence = new int[depthCount];
+            for (int depth = depthCount - 1; depth >= 0; depth--) {
+                sequence[depth] = slots[depth][best];
+                best = parents[depth][best];
+            }
+            return sequence;
+        }
+
+        private void expandAll() {
+            int chunks = Math.min(parallelism, beamSize / MIN_NODES_PER_CHUNK);
+            if (chunks <= 1) {
+                expand(0, beamSize);
+                return;
+            }
+            int chunkSize = (beamSize + chunks - 1) / chunks;
+            AtomicInteger nextChunk = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(chunks);
+            Runnable worker = () -> {
+                int chunk;
+                while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                    try {
+                        expand(chunk * chunkSize, Math.min(beamSize, (chunk + 1) * chunkSize));
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            };
+            for (int i = 1; i < chunks; i++) {
+                executor.execute(worker);
+            }
+            worker.run();
+            // Helpers that start late find no chunk left, so waiting on chunks rather than helpers cannot hang
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void expand(int from, int to) {
+            for (int entry = from; entry < to; entry++) {
+                int base = entry * orderCount;
+                int count = 0;
+                int currentSlot = beamSlot[entry];
+                double currentTime = beamTime[entry];
+                int servedOffset = entry * words;
+                for (int order = 0; order < orderCount; order++) {
+                    int pickup = TravelTimeMatrix.pickupSlot(order);
+                    int delivery = TravelTimeMatrix.deliverySlot(order);
+                    int slot;
+                    if (!isServed(servedOffset, pickup)) {
+                        slot = pickup;
+                    } else if (!isServed(servedOffset, delivery)) {
+                        slot = delivery;
+                    } else {
+                        continue;
+                    }
+                    double arrival = currentTime + matrix.getTravelTime(currentSlot, slot, currentTime);
+                    if (slot == pickup) {
+                        arrival = Math.max(arrival, readyTimes[order]);
+                    }
+                    candidateSlot[base + count] = slot;
+                    candidateTime[base + count] = arrival;
+                    candidateScore[base + count] = Math.max(completionEstimate(servedOffset, slot, arrival),
+                            arrival + beamRemaining[entry] - cheapestIncoming[slot]);
+                    count++;
+                }
+                candidateCount[entry] = count;
+            }
+        }
+
+        /**
+         * Latest finish over unserved orders if each were served straight after this step, never below arrival
+         */
+        private double completionEstimate(int servedOffset, int slot, double arrival) {
+            double estimate = arrival;
+            for (int order = 0; order < orderCount; order++) {
+                int pickup = TravelTimeMatrix.pickupSlot(order);
+                int delivery = TravelTimeMatrix.deliverySlot(order);
+                double finish;
+                if (pickup != slot && !isServed(servedOffset, pickup)) {
+                    double atPickup = Math.max(arrival + matrix.getTravelTime(slot, pickup), readyTimes[order]);
+                    finish = atPickup + pickupToDelivery[order];
+                } else if (delivery != slot && !isServed(servedOffset, delivery)) {
+                    finish = arrival + matrix.getTravelTime(slot, delivery);
+                } else {
+                    continue;
+                }
+                if (finish > estimate) {
+                    estimate = finish;
+                }
+            }
+            return estimate;
+        }
+
+        private void select(int depth) {
+            int total = 0;
+            for (int entry = 0; entry < beamSize; entry++) {
+                total += candidateCount[entry];
+            }
+            nodesExpanded += total;
+            // Score in the high half, candidate index in the low half: one primitive sort ranks and breaks ties
+            long[] ranked = new long[total];
+            int r = 0;
+            for (int entry = 0; entry < beamSize; entry++) {
+                int base = entry * orderCount;
+                for (int c = 0; c < candidateCount[entry]; c++) {
+                    ranked[r++] = ((long) Float.floatToIntBits((float) candidateScore[base + c]) << 32) | (base + c);
+                }
+            }
+            Arrays.sort(ranked);
+
+            int width = Math.min(beamWidth, total);
+            int[] nextSlot = new int[width];
+            double[] nextTime = new double[width];
+            double[] nextRemaining = new double[width];
+            long[] nextServed = new long[width * words];
+            long[] nextKey = new long[width];
+            int[] parent = new int[width];
+            Set<Long> seen = new HashSet<>(width * 2);
+            int size = 0;
+            for (int i = 0; i < total && size < width; i++) {
+                int candidate = (int) ranked[i];
+                int entry = candidate / orderCount;
+                int slot = candidateSlot[candidate];
+                long served = beamKey[entry] ^ slotKeys[slot];
+                if (!seen.add(served ^ slotKeys[matrix.getSlotCount() + slot])) {
+                    // Same tasks served and same position as a better-ranked entry
+                    continue;
+                }
+                System.arraycopy(beamServed, entry * words, nextServed, size * words, words);
+                nextServed[size * words + (slot >>> 6)] |= 1L << slot;
+                nextSlot[size] = slot;
+                nextTime[size] = candidateTime[candidate];
+                nextRemaining[size] = beamRemaining[entry] - cheapestIncoming[slot];
+                nextKey[size] = served;
+                parent[size] = entry;
+                size++;
+            }
+            nodesPruned += total - size;
+            parents[depth] = size == width ? parent : Arrays.copyOf(parent, size);
+            slots[depth] = size == width ? nextSlot : Arrays.copyOf(nextSlot, size);
+            beamSize = size;
+            beamSlot = nextSlot;
+            beamTime = nextTime;
+            beamRemaining = nextRemaining;
+            beamServed = nextServed;
+            beamKey = nextKey;
+        }
+
+        private boolean isServed(int servedOffset, int slot) {
+            return (beamServed[servedOffset + (slot >>> 6)] & (1L << slot)) != 0;
+        }
+    }
+}
@@ -1,39 +1,101 @@
 package com.deliveryoptimizer.optimizationstrategy;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.core.CompositeStop;
 import com.deliveryoptimizer.core.DeliveryOrder;
 import com.deliveryoptimizer.core.Location;
 import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.core.SearchStatistics;
 import com.deliveryoptimizer.core.Task;
+import com.deliveryoptimizer.lowerbound.RouteLowerBound;
+import com.deliveryoptimizer.metrics.OptimizationPhaseEvent;
+import com.deliveryoptimizer.util.CoLocatedStopMerger;
 import com.deliveryoptimizer.util.TaskSequenceGenerator;
 
 /**
  * Exhaustive Search optimization strategy that tests all possible permutations
  * Guarantees optimal solution for small order sets
+ * Co-located tasks are merged into composite stops so equivalent orderings are searched only once
+ * The search stops early once a sequence meets the RouteLowerBound, since nothing can beat it, and drops every
+ * branch whose partial time already reaches the best complete sequence; a warm-start seed is that incumbent from
+ * the first node on
+ * Interrupting the calling thread abandons the search with a CancellationException
  */
-public class ExhaustiveSearchOptimizationStrategy implements RouteOptimizationStrategy {
+public class ExhaustiveSearchOptimizationStrategy implements WarmStartStrategy {
+
+    // Rounding slack when comparing a sequence time with the lower bound
+    private static final double LOWER_BOUND_TOLERANCE_MINUTES = 1e-9;
+    // The interrupt flag is polled once per this many expanded nodes
+    private static final long INTERRUPT_CHECK_MASK = (1 << 12) - 1;
+
+    private final double stopToleranceKm;
+
+    public ExhaustiveSearchOptimizationStrategy() {
+        this(0.0);
+    }
+
+    /**
+     * @param stopToleranceKm Locations closer than this are treated as one stop (0 merges identical coordinates only)
+     */
+    public ExhaustiveSearchOptimizationStrategy(double stopToleranceKm) {
+        this.stopToleranceKm = stopToleranceKm;
+    }
+
     @Override
     public RouteResult optimizeRoute(Location startLocation, List<DeliveryOrder> orders,
                                    DistanceCalculator distanceCalculator, double speedKmh) {
+        return optimizeRoute(startLocation, orders, distanceCalculator, speedKmh, null);
+    }
+
+    @Override
+    public RouteResult optimizeRoute(Location startLocation, List<DeliveryOrder> orders,
+                                     DistanceCalculator distanceCalculator, double speedKmh, int[] seed) {
         if (orders.isEmpty()) {
             return new RouteResult(Arrays.asList(startLocation.getId()), 0.0, getStrategyName());
         }
-        List<RouteResult> allPossibleRoutes = new ArrayList<>();
+        OptimizationPhaseEvent phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.MATRIX_BUILD,
+                                                                    getStrategyName(), orders.size());
         // Generate all possible task sequences (pickup and delivery tasks)
         List<Task> allTasks = TaskSequenceGenerator.generateAllTasks(orders);
-        // Generate all valid permutations of tasks (pickup before delivery constraint)
-        List<List<Task>> validSequences = TaskSequenceGenerator.generateValidTaskSequences(allTasks);
-        for (List<Task> sequence : validSequences) {
-            RouteResult result = calculateRouteTimeForTasks(startLocation, orders, sequence,
-                                                          distanceCalculator, speedKmh);
-            allPossibleRoutes.add(result);
+        SearchStatistics statistics = new SearchStatistics();
+        // Group co-located tasks into stops
+        int[] stopIds = CoLocatedStopMerger.assignStopIds(allTasks, distanceCalculator, stopToleranceKm, statistics);
+        Location[] stopLocations = CoLocatedStopMerger.stopLocations(allTasks, stopIds);
+        SequenceSearch search = new SequenceSearch(startLocation, orders, stopIds, stopLocations,
+                                                   distanceCalculator, speedKmh);
+        RouteLowerBound lowerBound = RouteLowerBound.compute(startLocation, orders, distanceCalculator, speedKmh);
+        search.stopTime = lowerBound.getMinutes() + LOWER_BOUND_TOLERANCE_MINUTES;
+        if (seed != null && TaskSequenceGenerator.isValidSequence(seed, orders.size())) {
+            search.seed(seed);
+        }
+        phase.commit();
+
+        // Search every valid permutation of tasks (pickup before delivery constraint)
+        phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.ENUMERATION, getStrategyName(), orders.size());
+        search.run();
+        phase.commit();
+
+        phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.SELECTION, getStrategyName(), orders.size());
+        List<Task> bestSequence = new ArrayList<>(search.bestSequence.length);
+        for (int taskIndex : search.bestSequence) {
+            bestSequence.add(allTasks.get(taskIndex));
         }
-        // Find the route with minimum total time
-        return allPossibleRoutes.stream()
-                .min(Comparator.comparingDouble(RouteResult::getTotalTimeMinutes))
-                .orElse(null);
+        List<CompositeStop> stops = CoLocatedStopMerger.mergeSequence(bestSequence, stopIds, stopLocations);
+        phase.commit();
+
+        statistics.addSequencesEvaluated(search.sequencesEvaluated);
+        statistics.addNodesExpanded(search.nodesExpanded);
+        statistics.addNodesPruned(search.nodesPruned);
+        statistics.addDistanceCalls(search.distanceCalls + lowerBound.getDistanceCalls());
+        phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.NARRATIVE, getStrategyName(), orders.size());
+        RouteResult result = calculateRouteTimeForStops(startLocation, orders, stops, distanceCalculator, speedKmh,
+                                                        statistics);
+        result.setLowerBoundMinutes(lowerBound.getMinutes());
+        phase.commit();
+        return result;
     }
 
     @Override
@@ -41,12 +103,22 @@ public class ExhaustiveSearchOptimizationStrategy implements RouteOptimizationSt
         return "Exhaustive Search Optimization";
     }
 
+    @Override
+    public boolean seedAffectsResult() {
+        return false;
+    }
+
+    @Override
+    public String cacheKey() {
+        return getStrategyName() + " (stop tolerance " + stopToleranceKm + " km)";
+    }
+
     /**
-     * Calculate total time for a specific task sequence
+     * Calculate total time and step-by-step actions for a sequence of composite stops
      */
-    private RouteResult calculateRouteTimeForTasks(Location startLocation, List<DeliveryOrder> orders,
-                                                 List<Task> sequence, DistanceCalculator distanceCalculator,
-                                                 double speedKmh) {
+    private RouteResult calculateRouteTimeForStops(Location startLocation, List<DeliveryOrder> orders,
+                                                 List<CompositeStop> stops, DistanceCalculator distanceCalculator,
+                                                 double speedKmh, SearchStatistics statistics) {
         List<String> route = new ArrayList<>();
         List<String> actions = new ArrayList<>();
         route.add(startLocation.getName());
@@ -55,22 +127,19 @@ public class ExhaustiveSearchOptimizationStrategy implements RouteOptimizationSt
         double currentTime = 0; // Current time since start
         Location currentLocation = startLocation;
 
-        for (Task task : sequence) {
-            DeliveryOrder order = orders.get(task.getOrderIndex());
-
-            // Travel to task location
-            double travelTime = distanceCalculator.calculateTravelTime(currentLocation, task.getLocation(), speedKmh);
+        for (CompositeStop stop : stops) {
+            // Travel to stop location
+            double travelTime = distanceCalculator.calculateTravelTime(currentLocation, stop.getLocation(), speedKmh, currentTime);
+            statistics.addDistanceCalls(1);
             currentTime += travelTime;
+            actions.add(String.format("Travel to %s (%.2f minutes)", stop.getLocation().getName(), travelTime));
 
-            route.add(task.getLocation().getName());
-            actions.add(String.format("Travel to %s (%.2f minutes)", task.getLocation().getName(), travelTime));
-
-            if (task.isPickup()) {
+            if (stop.hasPickup()) {
                 // Pickup at restaurant - food preparation started when order was placed (time 0)
-                double foodReadyTime = order.getPreparationTimeMinutes();
+                double foodReadyTime = stop.getReadyTime(orders);
 
                 if (currentTime < foodReadyTime) {
-                    // We arrived early, need to wait for food to be ready
+                    // We arrived early, need to wait for all food at this stop to be ready
                     double waitTime = foodReadyTime - currentTime;
                     currentTime = foodReadyTime;
                     actions.add(String.format("Wait for food preparation (%.1f minutes)", waitTime));
@@ -78,16 +147,168 @@ public class ExhaustiveSearchOptimizationStrategy implements RouteOptimizationSt
                     // Food is already ready when we arrive
                     actions.add("Food is ready - no waiting needed");
                 }
+            }
+
+            // Expand the stop back into its per-order tasks
+            for (Task task : stop.getTasks()) {
+                route.add(task.getLocation().getName());
+                if (task.isPickup()) {
+                    actions.add(String.format("Pick up order %d from %s", task.getOrderIndex() + 1, task.getLocation().getName()));
+                } else {
+                    // Delivery to customer
+                    actions.add(String.format("Deliver order %d to %s", task.getOrderIndex() + 1, task.getLocation().getName()));
+                }
+            }
+
+            currentLocation = stop.getLocation();
+        }
+
+        return new RouteResult(route, currentTime, getStrategyName(), actions, statistics);
+    }
+
+    /**
+     * Depth-first enumeration of task permutations over primitive state
+     * Tracks elapsed time incrementally and keeps only the best complete sequence
+     */
+    private static final class SequenceSearch {
+        private final int taskCount;
+        private final int[] stopIds;
+        private final Location startLocation;
+        private final Location[] stopLocations;
+        private final DistanceCalculator distanceCalculator;
+        private final boolean timeDependent;
+        private final double[] readyTimes;
+        private final double[] startTravel;
+        private final double[][] stopTravel;
+
+        private final boolean[] used;
+        private final int[] sequence;
+        private final int[] bestSequence;
+        private double bestTime = Double.MAX_VALUE;
+        // A sequence this fast is optimal, so the search ends once one is found
+        private double stopTime = Double.NEGATIVE_INFINITY;
+
+        private long sequencesEvaluated;
+        private long nodesExpanded;
+        private long nodesPruned;
+        private long distanceCalls;
+
+        SequenceSearch(Location startLocation, List<DeliveryOrder> orders, int[] stopIds, Location[] stopLocations,
+                       DistanceCalculator distanceCalculator, double speedKmh) {
+            this.taskCount = orders.size() * 2;
+            this.stopIds = stopIds;
+            this.startLocation = startLocation;
+            this.stopLocations = stopLocations;
+            this.distanceCalculator = distanceCalculator;
+            this.timeDependent = distanceCalculator.isTimeDependent();
+            this.readyTimes = new double[orders.size()];
+            for (int i = 0; i < orders.size(); i++) {
+                readyTimes[i] = orders.get(i).getPreparationTimeMinutes();
+            }
+
+            int stopCount = stopLocations.length;
+            this.startTravel = new double[stopCount];
+            this.stopTravel = new double[stopCount][stopCount];
+            for (int a = 0; a < stopCount; a++) {
+                startTravel[a] = distanceCalculator.calculateTravelTime(startLocation, stopLocations[a], speedKmh);
+                distanceCalls++;
+                for (int b = 0; b < stopCount; b++) {
+                    if (a != b) {
+                        stopTravel[a][b] = distanceCalculator.calculateTravelTime(stopLocations[a], stopLocations[b],
+                                                                                  speedKmh);
+                        distanceCalls++;
+                    }
+                    // Tasks in the same stop are served without travelling; the diagonal stays 0
+                }
+            }
+
+            this.used = new boolean[taskCount];
+            this.sequence = new int[taskCount];
+            this.bestSequence = new int[taskCount];
+        }
+
+        void run() {
+            search(0, -1, 0.0);
+        }
+
+        /**
+         * Start from a known sequence as the incumbent, so branches no better than it are never expanded
+         */
+        void seed(int[] seedSequence) {
+            double time = 0.0;
+            int lastStop = -1;
+            for (int t : seedSequence) {
+                int stop = stopIds[t];
+                time += travelTime(lastStop, stop, time);
+                if ((t & 1) == 0) {
+                    time = Math.max(time, readyTimes[t >> 1]);
+                }
+                lastStop = stop;
+            }
+            sequencesEvaluated++;
+            bestTime = time;
+            System.arraycopy(seedSequence, 0, bestSequence, 0, taskCount);
+        }
 
-                actions.add(String.format("Pick up order %d from %s", task.getOrderIndex() + 1, task.getLocation().getName()));
-            } else {
-                // Delivery to customer
-                actions.add(String.format("Deliver order %d to %s", task.getOrderIndex() + 1, task.getLocation().getName()));
+        private void search(int depth, int lastTask, double currentTime) {
+            if (bestTime <= stopTime) {
+                return;
             }
+            if (depth == taskCount) {
+                sequencesEvaluated++;
+                if (currentTime < bestTime) {
+                    bestTime = currentTime;
+                    System.arraycopy(sequence, 0, bestSequence, 0, taskCount);
+                }
+                return;
+            }
+
+            int lastStop = lastTask < 0 ? -1 : stopIds[lastTask];
+            for (int t = 0; t < taskCount; t++) {
+                if (used[t]) continue;
+                boolean pickup = (t & 1) == 0;
+                // Delivery only after its pickup (pickup of order i sits at index 2i)
+                if (!pickup && !used[t - 1]) continue;
+
+                int stop = stopIds[t];
+                // Tasks in one composite stop are interchangeable; keep only ascending order
+                if (stop == lastStop && t < lastTask) {
+                    nodesPruned++;
+                    continue;
+                }
+
+                double arrival = currentTime + travelTime(lastStop, stop, currentTime);
+                if (pickup) {
+                    arrival = Math.max(arrival, readyTimes[t >> 1]);
+                }
+                // Times only grow along a sequence, so this branch cannot beat the incumbent
+                if (arrival >= bestTime) {
+                    nodesPruned++;
+                    continue;
+                }
 
-            currentLocation = task.getLocation();
+                used[t] = true;
+                sequence[depth] = t;
+                if ((++nodesExpanded & INTERRUPT_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Exhaustive search interrupted after "
+                                                    + nodesExpanded + " nodes");
+                }
+                search(depth + 1, t, arrival);
+                used[t] = false;
+            }
         }
 
-        return new RouteResult(route, currentTime, getStrategyName(), actions);
+        /**
+         * Travel time between stops (-1 is the start), scaled by the speed profile when time-dependent
+         */
+        private double travelTime(int fromStop, int toStop, double departureTime) {
+            double nominal = fromStop < 0 ? startTravel[toStop] : stopTravel[fromStop][toStop];
+            if (!timeDependent || nominal == 0.0) {
+                return nominal;
+            }
+            Location from = fromStop < 0 ? startLocation : stopLocations[fromStop];
+            distanceCalls++;
+            return nominal / distanceCalculator.getSpeedFactor(from, departureTime);
+        }
     }
 }
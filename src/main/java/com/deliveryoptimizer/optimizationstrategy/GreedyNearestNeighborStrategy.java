@@ -3,61 +3,76 @@ package com.deliveryoptimizer.optimizationstrategy;
 import java.util.*;
 import com.deliveryoptimizer.core.*;
 import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.TravelTimeMatrix;
+import com.deliveryoptimizer.metrics.OptimizationPhaseEvent;
+import com.deliveryoptimizer.util.CandidateNeighborList;
 
 /**
  * Greedy Nearest Neighbor optimization strategy
  * Selects the next closest pickup or delivery at each step
+ * Only the k nearest candidates of the current stop are checked, with a full scan
+ * as fallback once all of them are served
  */
 public class GreedyNearestNeighborStrategy implements RouteOptimizationStrategy {
+
+    public static final int DEFAULT_CANDIDATE_COUNT = 8;
+
+    private final int candidateCount;
+
+    public GreedyNearestNeighborStrategy() {
+        this(DEFAULT_CANDIDATE_COUNT);
+    }
+
+    /**
+     * @param candidateCount Number of nearest neighbors considered per stop before falling back to a full scan
+     */
+    public GreedyNearestNeighborStrategy(int candidateCount) {
+        this.candidateCount = candidateCount;
+    }
+
     @Override
     public RouteResult optimizeRoute(Location startLocation, List<DeliveryOrder> orders, DistanceCalculator distanceCalculator, double speedKmh) {
         List<String> route = new ArrayList<>();
         List<String> actions = new ArrayList<>();
-        Set<String> pickedUp = new HashSet<>();
-        Set<String> delivered = new HashSet<>();
-        Location current = startLocation;
-        route.add(current.getName());
-        actions.add("Start at " + current.getName());
-        double currentTime = 0;
         int n = orders.size();
-        while (delivered.size() < n) {
-            double minDist = Double.MAX_VALUE;
-            int nextIdx = -1;
-            boolean isPickup = false;
-            Location nextLoc = null;
-            // Find nearest available pickup
-            for (int i = 0; i < n; i++) {
-                DeliveryOrder order = orders.get(i);
-                if (!pickedUp.contains(order.getOrderId())) {
-                    double dist = distanceCalculator.calculateDistance(current, order.getRestaurantLocation());
-                    if (dist < minDist) {
-                        minDist = dist;
-                        nextIdx = i;
-                        isPickup = true;
-                        nextLoc = order.getRestaurantLocation();
-                    }
+        boolean[] pickedUp = new boolean[n];
+        boolean[] delivered = new boolean[n];
+        int deliveredCount = 0;
+        OptimizationPhaseEvent phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.MATRIX_BUILD,
+                                                                    getStrategyName(), n);
+        TravelTimeMatrix matrix = TravelTimeMatrix.build(startLocation, orders, distanceCalculator, speedKmh);
+        CandidateNeighborList candidates = CandidateNeighborList.build(matrix, candidateCount);
+        phase.commit();
+        phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.SELECTION, getStrategyName(), n);
+        int currentSlot = TravelTimeMatrix.START_SLOT;
+        route.add(startLocation.getName());
+        actions.add("Start at " + startLocation.getName());
+        double currentTime = 0;
+        SearchStatistics statistics = new SearchStatistics();
+        statistics.addDistanceCalls(matrix.getBuildDistanceCalls());
+        while (deliveredCount < n) {
+            // Candidate lists are sorted nearest first, so the first available one is the nearest overall
+            int nextSlot = -1;
+            for (int rank = 0; rank < candidates.getNeighborCount(currentSlot); rank++) {
+                int slot = candidates.getNeighbor(currentSlot, rank);
+                if (isAvailable(slot, pickedUp, delivered)) {
+                    nextSlot = slot;
+                    break;
                 }
             }
-            // Find nearest available delivery
-            for (int i = 0; i < n; i++) {
-                DeliveryOrder order = orders.get(i);
-                if (pickedUp.contains(order.getOrderId()) && !delivered.contains(order.getOrderId())) {
-                    double dist = distanceCalculator.calculateDistance(current, order.getConsumerLocation());
-                    if (dist < minDist) {
-                        minDist = dist;
-                        nextIdx = i;
-                        isPickup = false;
-                        nextLoc = order.getConsumerLocation();
-                    }
-                }
+            if (nextSlot == -1) {
+                nextSlot = findNearestAvailableSlot(matrix, currentSlot, pickedUp, delivered);
             }
-            if (nextIdx == -1) break; // Should not happen
-            double travelTime = distanceCalculator.calculateTravelTime(current, nextLoc, speedKmh);
+            statistics.addNodesExpanded(1);
+            if (nextSlot == -1) break; // Should not happen
+            int nextIdx = TravelTimeMatrix.orderIndexOf(nextSlot);
+            Location nextLoc = matrix.getLocation(nextSlot);
+            double travelTime = matrix.getTravelTime(currentSlot, nextSlot, currentTime);
             currentTime += travelTime;
             route.add(nextLoc.getName());
             actions.add(String.format("Travel to %s (%.2f minutes)", nextLoc.getName(), travelTime));
             DeliveryOrder order = orders.get(nextIdx);
-            if (isPickup) {
+            if (TravelTimeMatrix.isPickupSlot(nextSlot)) {
                 double foodReadyTime = order.getPreparationTimeMinutes();
                 if (currentTime < foodReadyTime) {
                     double waitTime = foodReadyTime - currentTime;
@@ -67,18 +82,62 @@ public class GreedyNearestNeighborStrategy implements RouteOptimizationStrategy
                     actions.add("Food is ready - no waiting needed");
                 }
                 actions.add(String.format("Pick up order %s from %s", order.getOrderId(), nextLoc.getName()));
-                pickedUp.add(order.getOrderId());
+                pickedUp[nextIdx] = true;
             } else {
                 actions.add(String.format("Deliver order %s to %s", order.getOrderId(), nextLoc.getName()));
-                delivered.add(order.getOrderId());
+                delivered[nextIdx] = true;
+                deliveredCount++;
             }
-            current = nextLoc;
+            currentSlot = nextSlot;
         }
-        return new RouteResult(route, currentTime, getStrategyName(), actions);
+        phase.commit();
+        statistics.addSequencesEvaluated(1);
+        return new RouteResult(route, currentTime, getStrategyName(), actions, statistics);
     }
 
     @Override
     public String getStrategyName() {
         return "Greedy Nearest Neighbor";
     }
+
+    @Override
+    public String cacheKey() {
+        return getStrategyName() + " (candidates " + candidateCount + ")";
+    }
+
+    /**
+     * Full scan over all slots: nearest pickup first, a delivery only if strictly nearer
+     */
+    private int findNearestAvailableSlot(TravelTimeMatrix matrix, int currentSlot,
+                                         boolean[] pickedUp, boolean[] delivered) {
+        double minTime = Double.MAX_VALUE;
+        int nextSlot = -1;
+        // Find nearest available pickup
+        for (int i = 0; i < pickedUp.length; i++) {
+            if (!pickedUp[i]) {
+                double time = matrix.getTravelTime(currentSlot, TravelTimeMatrix.pickupSlot(i));
+                if (time < minTime) {
+                    minTime = time;
+                    nextSlot = TravelTimeMatrix.pickupSlot(i);
+                }
+            }
+        }
+        // Find nearest available delivery
+        for (int i = 0; i < pickedUp.length; i++) {
+            if (pickedUp[i] && !delivered[i]) {
+                double time = matrix.getTravelTime(currentSlot, TravelTimeMatrix.deliverySlot(i));
+                if (time < minTime) {
+                    minTime = time;
+                    nextSlot = TravelTimeMatrix.deliverySlot(i);
+                }
+            }
+        }
+        return nextSlot;
+    }
+
+    private static boolean isAvailable(int slot, boolean[] pickedUp, boolean[] delivered) {
+        int orderIndex = TravelTimeMatrix.orderIndexOf(slot);
+        return TravelTimeMatrix.isPickupSlot(slot) ? !pickedUp[orderIndex]
+                                                    : pickedUp[orderIndex] && !delivered[orderIndex];
+    }
 }
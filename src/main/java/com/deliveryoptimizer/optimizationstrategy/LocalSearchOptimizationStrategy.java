@@ -0,0 +1,233 @@
+package com.deliveryoptimizer.optimizationstrategy;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+import com.deliveryoptimizer.core.*;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.TravelTimeMatrix;
+import com.deliveryoptimizer.metrics.OptimizationPhaseEvent;
+import com.deliveryoptimizer.util.TaskSequenceGenerator;
+
+/**
+ * Relocate local search over pickup/delivery sequences
+ * Starts from the warm-start seed when one is given, otherwise from an earliest-arrival construction, and moves
+ * single tasks to the position that shortens the route most, keeping every pickup before its delivery, until no
+ * move improves it or maxPasses passes over the sequence are done. A seed that is already close to a local
+ * optimum, such as the previous tick's route, settles in a pass or two. The interrupt flag is polled once per pass.
+ */
+public class LocalSearchOptimizationStrategy implements WarmStartStrategy {
+
+    public static final int DEFAULT_MAX_PASSES = 50;
+
+    // Smaller gains are rounding noise and would let the search cycle
+    private static final double MIN_IMPROVEMENT_MINUTES = 1e-9;
+
+    private final int maxPasses;
+
+    public LocalSearchOptimizationStrategy() {
+        this(DEFAULT_MAX_PASSES);
+    }
+
+    /**
+     * @param maxPasses Upper bound on improvement passes, each trying every task at every position
+     */
+    public LocalSearchOptimizationStrategy(int maxPasses) {
+        if (maxPasses <= 0) {
+            throw new IllegalArgumentException("maxPasses must be positive: " + maxPasses);
+        }
+        this.maxPasses = maxPasses;
+    }
+
+    @Override
+    public RouteResult optimizeRoute(Location startLocation, List<DeliveryOrder> orders,
+                                     DistanceCalculator distanceCalculator, double speedKmh) {
+        return optimizeRoute(startLocation, orders, distanceCalculator, speedKmh, null);
+    }
+
+    @Override
+    public RouteResult optimizeRoute(Location startLocation, List<DeliveryOrder> orders,
+                                     DistanceCalculator distanceCalculator, double speedKmh, int[] seed) {
+        int n = orders.size();
+        OptimizationPhaseEvent phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.MATRIX_BUILD,
+                                                                    getStrategyName(), n);
+        TravelTimeMatrix matrix = TravelTimeMatrix.build(startLocation, orders, distanceCalculator, speedKmh);
+        double[] readyTimes = new double[n];
+        for (int i = 0; i < n; i++) {
+            readyTimes[i] = orders.get(i).getPreparationTimeMinutes();
+        }
+        phase.commit();
+
+        SearchStatistics statistics = new SearchStatistics();
+        statistics.addDistanceCalls(matrix.getBuildDistanceCalls());
+        phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.ENUMERATION, getStrategyName(), n);
+        int[] sequence = seed != null && TaskSequenceGenerator.isValidSequence(seed, n)
+                ? seed.clone() : construct(matrix, readyTimes, statistics);
+        improve(matrix, readyTimes, sequence, statistics);
+        phase.commit();
+
+        phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.NARRATIVE, getStrategyName(), n);
+        RouteResult result = narrate(matrix, orders, sequence, statistics);
+        phase.commit();
+        return result;
+    }
+
+    @Override
+    public String getStrategyName() {
+        return "Local Search (relocate)";
+    }
+
+    @Override
+    public String cacheKey() {
+        return getStrategyName() + " (passes " + maxPasses + ")";
+    }
+
+    /**
+     * Earliest-arrival construction: repeatedly serve the available task reached first
+     */
+    private static int[] construct(TravelTimeMatrix matrix, double[] readyTimes, SearchStatistics statistics) {
+        int taskCount = readyTimes.length * 2;
+        int[] sequence = new int[taskCount];
+        boolean[] used = new boolean[taskCount];
+        int current = TravelTimeMatrix.START_SLOT;
+        double time = 0;
+        for (int position = 0; position < taskCount; position++) {
+            int best = -1;
+            double bestArrival = Double.MAX_VALUE;
+            for (int t = 0; t < taskCount; t++) {
+                if (used[t] || (t & 1) == 1 && !used[t - 1]) {
+                    continue;
+                }
+                double arrival = arrival(matrix, readyTimes, current, t, time);
+                if (arrival < bestArrival) {
+                    bestArrival = arrival;
+                    best = t;
+                }
+            }
+            used[best] = true;
+            sequence[position] = best;
+            current = best + 1;
+            time = bestArrival;
+        }
+        statistics.addNodesExpanded(taskCount);
+        return sequence;
+    }
+
+    /**
+     * Apply the best relocation of each task in turn until a pass finds none
+     */
+    private void improve(TravelTimeMatrix matrix, double[] readyTimes, int[] sequence, SearchStatistics statistics) {
+        int taskCount = sequence.length;
+        int[] candidate = new int[taskCount];
+        int[] position = new int[taskCount];
+        double bestTime = routeTime(matrix, readyTimes, sequence);
+        statistics.addSequencesEvaluated(1);
+        for (int pass = 0; pass < maxPasses; pass++) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Local search interrupted at pass " + pass);
+            }
+            boolean improved = false;
+            for (int from = 0; from < taskCount; from++) {
+                for (int p = 0; p < taskCount; p++) {
+                    position[sequence[p]] = p;
+                }
+                int task = sequence[from];
+                // A pickup may not pass its delivery, a delivery may not pass its pickup
+                int low = (task & 1) == 1 ? position[task - 1] + 1 : 0;
+                int high = (task & 1) == 0 ? position[task + 1] - 1 : taskCount - 1;
+                int bestTo = -1;
+                for (int to = low; to <= high; to++) {
+                    if (to == from) {
+                        continue;
+                    }
+                    relocate(sequence, from, to, candidate);
+                    statistics.addSequencesEvaluated(1);
+                    double time = routeTime(matrix, readyTimes, candidate);
+                    if (time < bestTime - MIN_IMPROVEMENT_MINUTES) {
+                        bestTime = time;
+                        bestTo = to;
+                    }
+                }
+                if (bestTo >= 0) {
+                    relocate(sequence, from, bestTo, candidate);
+                    System.arraycopy(candidate, 0, sequence, 0, taskCount);
+                    statistics.addNodesExpanded(1);
+                    improved = true;
+                }
+            }
+            if (!improved) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Copy of the sequence with the task at from moved to index to
+     */
+    private static void relocate(int[] sequence, int from, int to, int[] target) {
+        int task = sequence[from];
+        if (from < to) {
+            System.arraycopy(sequence, 0, target, 0, from);
+            System.arraycopy(sequence, from + 1, target, from, to - from);
+            target[to] = task;
+            System.arraycopy(sequence, to + 1, target, to + 1, sequence.length - to - 1);
+        } else {
+            System.arraycopy(sequence, 0, target, 0, to);
+            target[to] = task;
+            System.arraycopy(sequence, to, target, to + 1, from - to);
+            System.arraycopy(sequence, from + 1, target, from + 1, sequence.length - from - 1);
+        }
+    }
+
+    private static double routeTime(TravelTimeMatrix matrix, double[] readyTimes, int[] sequence) {
+        int current = TravelTimeMatrix.START_SLOT;
+        double time = 0;
+        for (int task : sequence) {
+            time = arrival(matrix, readyTimes, current, task, time);
+            current = task + 1;
+        }
+        return time;
+    }
+
+    /**
+     * Time at which the task is done when leaving the slot at the given time; tasks map to slot task + 1
+     */
+    private static double arrival(TravelTimeMatrix matrix, double[] readyTimes, int fromSlot, int task, double time) {
+        double arrival = time + matrix.getTravelTime(fromSlot, task + 1, time);
+        return (task & 1) == 0 ? Math.max(arrival, readyTimes[task >> 1]) : arrival;
+    }
+
+    private RouteResult narrate(TravelTimeMatrix matrix, List<DeliveryOrder> orders, int[] sequence,
+                                SearchStatistics statistics) {
+        List<String> route = new ArrayList<>(sequence.length + 1);
+        List<String> actions = new ArrayList<>(sequence.length * 2 + 1);
+        Location start = matrix.getLocation(TravelTimeMatrix.START_SLOT);
+        route.add(start.getName());
+        actions.add("Start at " + start.getName());
+        int currentSlot = TravelTimeMatrix.START_SLOT;
+        double currentTime = 0;
+        for (int task : sequence) {
+            int slot = task + 1;
+            Location location = matrix.getLocation(slot);
+            double travelTime = matrix.getTravelTime(currentSlot, slot, currentTime);
+            currentTime += travelTime;
+            route.add(location.getName());
+            actions.add(String.format("Travel to %s (%.2f minutes)", location.getName(), travelTime));
+            DeliveryOrder order = orders.get(TravelTimeMatrix.orderIndexOf(slot));
+            if (TravelTimeMatrix.isPickupSlot(slot)) {
+                double foodReadyTime = order.getPreparationTimeMinutes();
+                if (currentTime < foodReadyTime) {
+                    actions.add(String.format("Wait for food preparation (%.1f minutes)", foodReadyTime - currentTime));
+                    currentTime = foodReadyTime;
+                } else {
+                    actions.add("Food is ready - no waiting needed");
+                }
+                actions.add(String.format("Pick up order %s from %s", order.getOrderId(), location.getName()));
+            } else {
+                actions.add(String.format("Deliver order %s to %s", order.getOrderId(), location.getName()));
+            }
+            currentSlot = slot;
+        }
+        return new RouteResult(route, currentTime, getStrategyName(), actions, statistics);
+    }
+}
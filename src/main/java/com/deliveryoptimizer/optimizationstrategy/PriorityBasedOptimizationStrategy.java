@@ -3,61 +3,72 @@ package com.deliveryoptimizer.optimizationstrategy;
 import java.util.*;
 import com.deliveryoptimizer.core.*;
 import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.TravelTimeMatrix;
+import com.deliveryoptimizer.metrics.OptimizationPhaseEvent;
+import com.deliveryoptimizer.util.PriorityCandidateIndex;
 
 /**
  * Priority-based optimization strategy
- * Always delivers the highest priority order available
+ * Always serves the highest priority task available, nearest first among equal priorities
+ * Open pickups and deliveries live in a PriorityCandidateIndex that is updated as tasks complete:
+ * a pickup removes its slot and releases the order's delivery slot
  */
 public class PriorityBasedOptimizationStrategy implements RouteOptimizationStrategy {
     @Override
     public RouteResult optimizeRoute(Location startLocation, List<DeliveryOrder> orders, DistanceCalculator distanceCalculator, double speedKmh) {
         List<String> route = new ArrayList<>();
         List<String> actions = new ArrayList<>();
-        Set<String> pickedUp = new HashSet<>();
-        Set<String> delivered = new HashSet<>();
+        int n = orders.size();
+        OptimizationPhaseEvent phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.MATRIX_BUILD,
+                                                                    getStrategyName(), n);
+
+        // Slot layout follows TravelTimeMatrix: start, then pickup/delivery per order
+        Location[] slotLocations = new Location[n * 2 + 1];
+        int[] slotWeights = new int[n * 2 + 1];
+        double[] slotReadyTimes = new double[n * 2 + 1];
+        slotLocations[TravelTimeMatrix.START_SLOT] = startLocation;
+        for (int i = 0; i < n; i++) {
+            DeliveryOrder order = orders.get(i);
+            int weight = order.getPriority().getWeight();
+            int pickupSlot = TravelTimeMatrix.pickupSlot(i);
+            int deliverySlot = TravelTimeMatrix.deliverySlot(i);
+            slotLocations[pickupSlot] = order.getRestaurantLocation();
+            slotLocations[deliverySlot] = order.getConsumerLocation();
+            slotWeights[pickupSlot] = weight;
+            slotWeights[deliverySlot] = weight;
+            slotReadyTimes[pickupSlot] = order.getPreparationTimeMinutes();
+        }
+
+        PriorityCandidateIndex candidates = new PriorityCandidateIndex(slotLocations, slotWeights, slotReadyTimes,
+                                                                       distanceCalculator, speedKmh);
+        for (int i = 0; i < n; i++) {
+            candidates.add(TravelTimeMatrix.pickupSlot(i));
+        }
+        phase.commit();
+        phase = OptimizationPhaseEvent.start(OptimizationPhaseEvent.SELECTION, getStrategyName(), n);
+
         Location current = startLocation;
         route.add(current.getName());
         actions.add("Start at " + current.getName());
         double currentTime = 0;
-        int n = orders.size();
-        while (delivered.size() < n) {
-            int nextIdx = -1;
-            boolean isPickup = false;
-            Location nextLoc = null;
-            int maxPriority = -1;
-            // Find highest priority available pickup
-            for (int i = 0; i < n; i++) {
-                DeliveryOrder order = orders.get(i);
-                if (!pickedUp.contains(order.getOrderId())) {
-                    int priority = order.getPriority().getWeight();
-                    if (priority > maxPriority) {
-                        maxPriority = priority;
-                        nextIdx = i;
-                        isPickup = true;
-                        nextLoc = order.getRestaurantLocation();
-                    }
-                }
-            }
-            // Find highest priority available delivery
-            for (int i = 0; i < n; i++) {
-                DeliveryOrder order = orders.get(i);
-                if (pickedUp.contains(order.getOrderId()) && !delivered.contains(order.getOrderId())) {
-                    int priority = order.getPriority().getWeight();
-                    if (priority > maxPriority) {
-                        maxPriority = priority;
-                        nextIdx = i;
-                        isPickup = false;
-                        nextLoc = order.getConsumerLocation();
-                    }
-                }
+        SearchStatistics statistics = new SearchStatistics();
+        while (!candidates.isEmpty()) {
+            int nextSlot = candidates.findBest(current);
+            int nextIdx = TravelTimeMatrix.orderIndexOf(nextSlot);
+            Location nextLoc = slotLocations[nextSlot];
+            // Candidates are ranked on nominal times; the leg itself is timed at the current route time
+            double travelTime = candidates.getLastTravelTime();
+            if (distanceCalculator.isTimeDependent()) {
+                travelTime = distanceCalculator.calculateTravelTime(current, nextLoc, speedKmh, currentTime);
+                statistics.addDistanceCalls(1);
             }
-            if (nextIdx == -1) break; // Should not happen
-            double travelTime = distanceCalculator.calculateTravelTime(current, nextLoc, speedKmh);
+            statistics.addNodesExpanded(1);
+            candidates.remove(nextSlot);
             currentTime += travelTime;
             route.add(nextLoc.getName());
             actions.add(String.format("Travel to %s (%.2f minutes)", nextLoc.getName(), travelTime));
             DeliveryOrder order = orders.get(nextIdx);
-            if (isPickup) {
+            if (TravelTimeMatrix.isPickupSlot(nextSlot)) {
                 double foodReadyTime = order.getPreparationTimeMinutes();
                 if (currentTime < foodReadyTime) {
                     double waitTime = foodReadyTime - currentTime;
@@ -67,14 +78,17 @@ public class PriorityBasedOptimizationStrategy implements RouteOptimizationStrat
                     actions.add("Food is ready - no waiting needed");
                 }
                 actions.add(String.format("Pick up order %s from %s", order.getOrderId(), nextLoc.getName()));
-                pickedUp.add(order.getOrderId());
+                // Picking up releases the delivery
+                candidates.add(TravelTimeMatrix.deliverySlot(nextIdx));
             } else {
                 actions.add(String.format("Deliver order %s to %s", order.getOrderId(), nextLoc.getName()));
-                delivered.add(order.getOrderId());
             }
             current = nextLoc;
         }
-        return new RouteResult(route, currentTime, getStrategyName(), actions);
+        phase.commit();
+        statistics.addSequencesEvaluated(1);
+        statistics.addDistanceCalls(candidates.getDistanceCalls());
+        return new RouteResult(route, currentTime, getStrategyName(), actions, statistics);
     }
 
     @Override
@@ -10,6 +10,8 @@ import com.deliveryoptimizer.core.RouteResult;
 /**
  * Strategy interface for route optimization algorithms
  * Implements Strategy Pattern for different optimization approaches
+ * Strategies whose runs can be long poll the calling thread's interrupt flag and give up with a
+ * CancellationException, which lets a scheduler preempt them
  */
 public interface RouteOptimizationStrategy {
     
@@ -29,4 +31,14 @@ public interface RouteOptimizationStrategy {
      * @return Strategy name
      */
     String getStrategyName();
+
+    /**
+     * Key identifying this strategy and every setting that can change its routes, used by the result cache
+     * Strategies with settings outside their name override it so differently configured instances never share
+     * cached routes.
+     * @return Cache key, the strategy name by default
+     */
+    default String cacheKey() {
+        return getStrategyName();
+    }
 }
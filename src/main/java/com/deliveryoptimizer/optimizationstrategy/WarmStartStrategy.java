@@ -0,0 +1,33 @@
+package com.deliveryoptimizer.optimizationstrategy;
+
+import java.util.List;
+
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+
+/**
+ * Strategy that can start from a known solution, typically the previous dispatch tick's route for the same
+ * courier as projected by a WarmStartStore
+ * Exact searches use the seed as their incumbent bound; improvement heuristics use it as the initial solution.
+ */
+public interface WarmStartStrategy extends RouteOptimizationStrategy {
+
+    /**
+     * Find a route starting from the seed
+     * @param seed Task indexes over the orders, 2i the pickup and 2i + 1 the delivery of orders.get(i); a null
+     *             or invalid seed (see TaskSequenceGenerator.isValidSequence) is ignored
+     */
+    RouteResult optimizeRoute(Location startLocation, List<DeliveryOrder> orders,
+                              DistanceCalculator distanceCalculator, double speedKmh, int[] seed);
+
+    /**
+     * Whether the route found can depend on the seed, as with improvement heuristics that stop in the first
+     * local optimum reached from it; exact searches only get faster and return false
+     * Seeded results of strategies that return true are not memoized under the unseeded request.
+     */
+    default boolean seedAffectsResult() {
+        return true;
+    }
+}
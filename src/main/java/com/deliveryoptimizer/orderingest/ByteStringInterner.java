@@ -0,0 +1,105 @@
+package com.deliveryoptimizer.orderingest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Maps UTF-8 byte ranges to canonical String instances without decoding repeated values
+ * Open addressing over the raw bytes; a lookup of a value seen before allocates nothing.
+ * The table is cleared when it reaches maxEntries, so memory stays bounded on unbounded streams.
+ */
+final class ByteStringInterner {
+
+    private final int maxEntries;
+    private byte[][] keys;
+    private String[] values;
+    private int[] hashes;
+    private int size;
+    private long hits;
+    private long misses;
+
+    ByteStringInterner(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        allocate(64);
+    }
+
+    String intern(byte[] data, int start, int end) {
+        int hash = hash(data, start, end);
+        int mask = keys.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            byte[] key = keys[slot];
+            if (key == null) {
+                break;
+            }
+            if (hashes[slot] == hash && Arrays.equals(key, 0, key.length, data, start, end)) {
+                hits++;
+                return values[slot];
+            }
+        }
+
+        misses++;
+        if (size >= maxEntries) {
+            allocate(64);
+        } else if ((size + 1) * 2 > keys.length) {
+            rehash();
+        }
+        String value = new String(data, start, end - start, StandardCharsets.UTF_8);
+        insert(Arrays.copyOfRange(data, start, end), value, hash);
+        return value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getHitCount() {
+        return hits;
+    }
+
+    long getMissCount() {
+        return misses;
+    }
+
+    private void insert(byte[] key, String value, int hash) {
+        int mask = keys.length - 1;
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        hashes[slot] = hash;
+        size++;
+    }
+
+    private void rehash() {
+        byte[][] oldKeys = keys;
+        String[] oldValues = values;
+        int[] oldHashes = hashes;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                insert(oldKeys[i], oldValues[i], oldHashes[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new byte[capacity][];
+        values = new String[capacity];
+        hashes = new int[capacity];
+        size = 0;
+    }
+
+    private static int hash(byte[] data, int start, int end) {
+        int h = 1;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + data[i];
+        }
+        // Spread the bits so the low-order mask sees the whole hash
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,99 @@
+package com.deliveryoptimizer.orderingest;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
+
+/**
+ * Groups a time-ordered stream of orders into one DeliveryScenario per courier and time window
+ * A window is emitted as soon as an order from a later window arrives, so only the open windows are held
+ * in memory. Late orders for an already emitted window form a new group that is emitted with the next window.
+ */
+final class CourierWindowGrouper {
+
+    private final int windowMinutes;
+    private final int maxOrdersPerScenario;
+    private final Consumer<DeliveryScenario> sink;
+    private final TreeMap<Long, Map<String, Group>> openWindows = new TreeMap<>();
+
+    private long latestWindow = Long.MIN_VALUE;
+    private long scenariosEmitted;
+    private long lateOrders;
+
+    CourierWindowGrouper(int windowMinutes, int maxOrdersPerScenario, Consumer<DeliveryScenario> sink) {
+        this.windowMinutes = windowMinutes;
+        this.maxOrdersPerScenario = maxOrdersPerScenario;
+        this.sink = sink;
+    }
+
+    void add(String courierId, Location courierLocation, int orderMinute, DeliveryOrder order) {
+        long window = Math.floorDiv(orderMinute, windowMinutes);
+        if (window > latestWindow) {
+            latestWindow = window;
+            // Every earlier window is complete
+            emitBefore(window);
+        } else if (window < latestWindow) {
+            lateOrders++;
+        }
+
+        Map<String, Group> couriers = openWindows.computeIfAbsent(window, w -> new LinkedHashMap<>());
+        Group group = couriers.get(courierId);
+        if (group == null) {
+            group = new Group(courierId, courierLocation, window);
+            couriers.put(courierId, group);
+        }
+        group.orders.add(order);
+        if (group.orders.size() >= maxOrdersPerScenario) {
+            couriers.remove(courierId);
+            emit(group);
+        }
+    }
+
+    /**
+     * Emit every group still open, oldest window first
+     */
+    void finish() {
+        emitBefore(Long.MAX_VALUE);
+    }
+
+    long getScenariosEmitted() {
+        return scenariosEmitted;
+    }
+
+    long getLateOrders() {
+        return lateOrders;
+    }
+
+    private void emitBefore(long window) {
+        Iterator<Map<String, Group>> windows = openWindows.headMap(window, false).values().iterator();
+        while (windows.hasNext()) {
+            for (Group group : windows.next().values()) {
+                emit(group);
+            }
+            windows.remove();
+        }
+    }
+
+    private void emit(Group group) {
+        long startMinute = group.window * windowMinutes;
+        String name = String.format("%s %02d:%02d", group.courierId, startMinute / 60, startMinute % 60);
+        scenariosEmitted++;
+        sink.accept(new DeliveryScenario(name, group.startLocation, group.orders));
+    }
+
+    private static final class Group {
+        final String courierId;
+        final Location startLocation;
+        final long window;
+        final List<DeliveryOrder> orders = new ArrayList<>();
+
+        Group(String courierId, Location startLocation, long window) {
+            this.courierId = courierId;
+            this.startLocation = startLocation;
+            this.window = window;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.deliveryoptimizer.orderingest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Columns of an order log, named as in the CSV header or the JSON-lines keys
+ */
+public enum OrderLogField {
+    COURIER_ID("courier_id", true),
+    COURIER_LAT("courier_lat", true),
+    COURIER_LNG("courier_lng", true),
+    ORDER_TIME("order_time", true),
+    ORDER_ID("order_id", true),
+    RESTAURANT_ID("restaurant_id", true),
+    RESTAURANT_LAT("restaurant_lat", true),
+    RESTAURANT_LNG("restaurant_lng", true),
+    CONSUMER_ID("consumer_id", true),
+    CONSUMER_LAT("consumer_lat", true),
+    CONSUMER_LNG("consumer_lng", true),
+    PREP_MINUTES("prep_minutes", true),
+    PRIORITY("priority", false);
+
+    private static final OrderLogField[] FIELDS = values();
+
+    private final String columnName;
+    private final byte[] columnBytes;
+    private final boolean required;
+
+    OrderLogField(String columnName, boolean required) {
+        this.columnName = columnName;
+        this.columnBytes = columnName.getBytes(StandardCharsets.US_ASCII);
+        this.required = required;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public boolean isRequired() {
+        return required;
+    }
+
+    /**
+     * Field whose column name equals the given bytes, or null; compares in place without decoding
+     */
+    static OrderLogField forName(byte[] data, int start, int end) {
+        int length = end - start;
+        for (OrderLogField field : FIELDS) {
+            byte[] name = field.columnBytes;
+            if (name.length == length && Arrays.equals(name, 0, length, data, start, end)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
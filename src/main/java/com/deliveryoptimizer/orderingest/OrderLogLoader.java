@@ -0,0 +1,539 @@
+package com.deliveryoptimizer.orderingest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+
+import com.deliveryoptimizer.DeliveryRouteOptimizationContext;
+import com.deliveryoptimizer.constants.PriorityEnum;
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
+import com.deliveryoptimizer.optimizationstrategy.GreedyNearestNeighborStrategy;
+import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
+
+/**
+ * Streaming loader for order logs in CSV or JSON-lines format
+ * The file is read through a reusable NIO buffer and each record is tokenized in place: fields are byte
+ * offsets into the buffer, numbers are parsed from the bytes, and repeated ids and locations are interned.
+ * Orders are grouped into DeliveryScenarios per courier and time window and handed to the sink as soon as
+ * their window closes, so logs far larger than the heap can be replayed.
+ *
+ * CSV files need a header row naming the OrderLogField columns (any order, extra columns ignored); quoted
+ * fields may contain commas but not escaped quotes. JSON lines are flat objects with the same keys and
+ * string or number values without escape sequences.
+ */
+public class OrderLogLoader {
+
+    public enum Format {
+        CSV, JSON_LINES;
+
+        /**
+         * Format implied by the file extension (.csv, .jsonl, .ndjson)
+         */
+        public static Format forPath(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) return CSV;
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) return JSON_LINES;
+            throw new IllegalArgumentException("Cannot infer order log format from " + file);
+        }
+    }
+
+    /**
+     * Receives each parsed record in file order
+     */
+    @FunctionalInterface
+    public interface OrderRecordSink {
+        void accept(String courierId, Location courierLocation, int orderMinute, DeliveryOrder order);
+    }
+
+    public static final int DEFAULT_WINDOW_MINUTES = 30;
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    public static final int DEFAULT_INTERN_CAPACITY = 1 << 20;
+
+    private final int windowMinutes;
+    private int maxOrdersPerScenario = Integer.MAX_VALUE;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private int internCapacity = DEFAULT_INTERN_CAPACITY;
+    private boolean skipMalformed;
+
+    public OrderLogLoader() {
+        this(DEFAULT_WINDOW_MINUTES);
+    }
+
+    /**
+     * @param windowMinutes Length of the time window orders of one courier are grouped by
+     */
+    public OrderLogLoader(int windowMinutes) {
+        if (windowMinutes <= 0) {
+            throw new IllegalArgumentException("windowMinutes must be positive: " + windowMinutes);
+        }
+        this.windowMinutes = windowMinutes;
+    }
+
+    /**
+     * Split a courier's window into several scenarios once it holds this many orders
+     */
+    public OrderLogLoader setMaxOrdersPerScenario(int maxOrdersPerScenario) {
+        if (maxOrdersPerScenario <= 0) {
+            throw new IllegalArgumentException("maxOrdersPerScenario must be positive: " + maxOrdersPerScenario);
+        }
+        this.maxOrdersPerScenario = maxOrdersPerScenario;
+        return this;
+    }
+
+    /**
+     * Initial read buffer size; it grows if a single record is longer
+     */
+    public OrderLogLoader setBufferSize(int bufferSize) {
+        if (bufferSize < 64) {
+            throw new IllegalArgumentException("bufferSize must be at least 64 bytes: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * Maximum number of distinct ids and locations remembered before the intern tables are reset
+     */
+    public OrderLogLoader setInternCapacity(int internCapacity) {
+        if (internCapacity <= 0) {
+            throw new IllegalArgumentException("internCapacity must be positive: " + internCapacity);
+        }
+        this.internCapacity = internCapacity;
+        return this;
+    }
+
+    /**
+     * Count and skip malformed records instead of failing on the first one
+     */
+    public OrderLogLoader setSkipMalformed(boolean skipMalformed) {
+        this.skipMalformed = skipMalformed;
+        return this;
+    }
+
+    public LoadSummary load(Path file, Consumer<DeliveryScenario> sink) throws IOException {
+        return load(file, Format.forPath(file), sink);
+    }
+
+    public LoadSummary load(Path file, Format format, Consumer<DeliveryScenario> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return load(channel, format, sink);
+        }
+    }
+
+    /**
+     * Stream every record of the channel into scenarios; the channel is not closed
+     */
+    public LoadSummary load(ReadableByteChannel channel, Format format, Consumer<DeliveryScenario> sink)
+            throws IOException {
+        CourierWindowGrouper grouper = new CourierWindowGrouper(windowMinutes, maxOrdersPerScenario, sink);
+        LogReader reader = new LogReader(format, grouper::add);
+        read(channel, reader);
+        grouper.finish();
+        return reader.summary(grouper);
+    }
+
+    /**
+     * Stream every record to the sink as it is parsed, without grouping into scenarios
+     */
+    public LoadSummary loadRecords(Path file, OrderRecordSink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return loadRecords(channel, Format.forPath(file), sink);
+        }
+    }
+
+    public LoadSummary loadRecords(ReadableByteChannel channel, Format format, OrderRecordSink sink)
+            throws IOException {
+        LogReader reader = new LogReader(format, sink);
+        read(channel, reader);
+        return reader.summary(null);
+    }
+
+    private void read(ReadableByteChannel channel, LogReader reader) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            endOfInput = channel.read(buffer) < 0;
+            buffer.flip();
+            byte[] data = buffer.array();
+            int limit = buffer.limit();
+            int lineStart = reader.acceptLines(data, buffer.position(), limit);
+            if (endOfInput) {
+                if (lineStart < limit) {
+                    reader.acceptLine(data, lineStart, limit);
+                }
+                break;
+            }
+            buffer.position(lineStart);
+            if (lineStart == 0 && limit == buffer.capacity()) {
+                // One record fills the whole buffer: grow it
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                larger.put(buffer);
+                buffer = larger;
+            } else {
+                buffer.compact();
+            }
+        }
+    }
+
+    /**
+     * Replay an order log through the optimizer:
+     * OrderLogLoader file [windowMinutes] [maxOrdersPerScenario]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: OrderLogLoader <orders.csv|orders.jsonl> [windowMinutes] [maxOrdersPerScenario]");
+            return;
+        }
+        Path file = Paths.get(args[0]);
+        int windowMinutes = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_WINDOW_MINUTES;
+        int maxOrders = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        DeliveryRouteOptimizationContext context = new DeliveryRouteOptimizationContext(
+                new GreedyNearestNeighborStrategy(), new HaversineDistanceCalculator(), 20.0);
+        long[] ordersSolved = new long[1];
+        double[] totalRouteMinutes = new double[1];
+        long started = System.nanoTime();
+        LoadSummary summary = new OrderLogLoader(windowMinutes)
+                .setMaxOrdersPerScenario(maxOrders)
+                .setSkipMalformed(true)
+                .load(file, scenario -> {
+                    RouteResult result = context.optimizeRoute(scenario.getStartLocation(), scenario.getOrders());
+                    ordersSolved[0] += scenario.getOrderCount();
+                    totalRouteMinutes[0] += result.getTotalTimeMinutes();
+                });
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.println(summary);
+        System.out.printf("Replayed %d orders in %.1f s (%.0f orders/s), total route time %.0f minutes%n",
+                          ordersSolved[0], seconds, ordersSolved[0] / seconds, totalRouteMinutes[0]);
+    }
+
+    /**
+     * Counters of one load
+     */
+    public static final class LoadSummary {
+        private final long records;
+        private final long malformedRecords;
+        private final long lateOrders;
+        private final long scenarios;
+        private final long internedValues;
+        private final long internHits;
+
+        LoadSummary(long records, long malformedRecords, long lateOrders, long scenarios,
+                    long internedValues, long internHits) {
+            this.records = records;
+            this.malformedRecords = malformedRecords;
+            this.lateOrders = lateOrders;
+            this.scenarios = scenarios;
+            this.internedValues = internedValues;
+            this.internHits = internHits;
+        }
+
+        /**
+         * Orders read successfully
+         */
+        public long getRecords() {
+            return records;
+        }
+
+        public long getMalformedRecords() {
+            return malformedRecords;
+        }
+
+        /**
+         * Orders that arrived after a later window had started
+         */
+        public long getLateOrders() {
+            return lateOrders;
+        }
+
+        public long getScenarios() {
+            return scenarios;
+        }
+
+        /**
+         * Distinct id strings decoded
+         */
+        public long getInternedValues() {
+            return internedValues;
+        }
+
+        /**
+         * Id lookups answered from the intern table without decoding
+         */
+        public long getInternHits() {
+            return internHits;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("LoadSummary[records=%d, scenarios=%d, malformed=%d, late=%d, interned=%d, internHits=%d]",
+                    records, scenarios, malformedRecords, lateOrders, internedValues, internHits);
+        }
+    }
+
+    /**
+     * Per-load state: tokenizer, intern tables and record sink
+     */
+    private final class LogReader {
+        private final Format format;
+        private final OrderRecordSink sink;
+        private final RecordFields fields = new RecordFields();
+        private final ByteStringInterner ids = new ByteStringInterner(internCapacity);
+        private final Map<String, Location> locations = new HashMap<>();
+        private OrderLogField[] columns;
+        private long lineNumber;
+        private long records;
+        private long malformed;
+
+        LogReader(Format format, OrderRecordSink sink) {
+            this.format = format;
+            this.sink = sink;
+        }
+
+        /**
+         * Process every complete line in the range and return the start of the trailing partial line
+         */
+        int acceptLines(byte[] data, int start, int end) {
+            int lineStart = start;
+            for (int i = start; i < end; i++) {
+                if (data[i] == '\n') {
+                    acceptLine(data, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            return lineStart;
+        }
+
+        void acceptLine(byte[] data, int start, int end) {
+            lineNumber++;
+            if (end > start && data[end - 1] == '\r') {
+                end--;
+            }
+            if (isBlank(data, start, end)) {
+                return;
+            }
+            try {
+                if (format == Format.CSV && columns == null) {
+                    columns = parseHeader(data, start, end);
+                    return;
+                }
+                fields.reset(data);
+                if (format == Format.CSV) {
+                    tokenizeCsv(data, start, end);
+                } else {
+                    tokenizeJson(data, start, end);
+                }
+                OrderLogField missing = fields.firstMissing();
+                if (missing != null) {
+                    throw new IllegalArgumentException("Missing " + missing.getColumnName());
+                }
+                addRecord();
+                records++;
+            } catch (IllegalArgumentException e) {
+                if (!skipMalformed || columns == null && format == Format.CSV) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+                }
+                malformed++;
+            }
+        }
+
+        LoadSummary summary(CourierWindowGrouper grouper) {
+            return new LoadSummary(records, malformed, grouper == null ? 0 : grouper.getLateOrders(),
+                                   grouper == null ? 0 : grouper.getScenariosEmitted(),
+                                   ids.getMissCount(), ids.getHitCount());
+        }
+
+        private void addRecord() {
+            String courierId = fields.intern(OrderLogField.COURIER_ID, ids);
+            Location courier = location(courierId, OrderLogField.COURIER_LAT, OrderLogField.COURIER_LNG);
+            Location restaurant = location(fields.intern(OrderLogField.RESTAURANT_ID, ids),
+                                           OrderLogField.RESTAURANT_LAT, OrderLogField.RESTAURANT_LNG);
+            Location consumer = location(fields.intern(OrderLogField.CONSUMER_ID, ids),
+                                         OrderLogField.CONSUMER_LAT, OrderLogField.CONSUMER_LNG);
+            int prepMinutes = fields.parseInt(OrderLogField.PREP_MINUTES);
+            int orderMinute = fields.parseMinutes(OrderLogField.ORDER_TIME);
+            // Order ids are unique, so they are decoded directly rather than interned
+            DeliveryOrder order = new DeliveryOrder(fields.string(OrderLogField.ORDER_ID), restaurant, consumer,
+                                                    prepMinutes, priority());
+            sink.accept(courierId, courier, orderMinute, order);
+        }
+
+        private PriorityEnum priority() {
+            if (!fields.isPresent(OrderLogField.PRIORITY)) {
+                return PriorityEnum.MEDIUM;
+            }
+            for (PriorityEnum priority : PriorityEnum.values()) {
+                if (fields.equalsIgnoreCase(OrderLogField.PRIORITY, priority.name())) {
+                    return priority;
+                }
+            }
+            throw new IllegalArgumentException("Unknown priority '" + fields.string(OrderLogField.PRIORITY) + "'");
+        }
+
+        /**
+         * Interned Location for an id; a new instance only when the id is new or its coordinates changed
+         */
+        private Location location(String id, OrderLogField latField, OrderLogField lngField) {
+            double latitude = fields.parseDouble(latField);
+            double longitude = fields.parseDouble(lngField);
+            Location location = locations.get(id);
+            if (location == null || location.getLatitude() != latitude || location.getLongitude() != longitude) {
+                if (locations.size() >= internCapacity) {
+                    locations.clear();
+                }
+                location = new Location(id, "", latitude, longitude);
+                locations.put(id, location);
+            }
+            return location;
+        }
+
+        private OrderLogField[] parseHeader(byte[] data, int start, int end) {
+            List<OrderLogField> header = new ArrayList<>();
+            Set<OrderLogField> seen = EnumSet.noneOf(OrderLogField.class);
+            int fieldStart = start;
+            for (int i = start; i <= end; i++) {
+                if (i == end || data[i] == ',') {
+                    int s = fieldStart;
+                    int e = i;
+                    while (s < e && data[s] == ' ') s++;
+                    while (e > s && data[e - 1] == ' ') e--;
+                    if (e - s >= 2 && data[s] == '"' && data[e - 1] == '"') {
+                        s++;
+                        e--;
+                    }
+                    OrderLogField field = OrderLogField.forName(data, s, e);
+                    header.add(field);
+                    if (field != null) seen.add(field);
+                    fieldStart = i + 1;
+                }
+            }
+            for (OrderLogField field : OrderLogField.values()) {
+                if (field.isRequired() && !seen.contains(field)) {
+                    throw new IllegalArgumentException("CSV header lacks column " + field.getColumnName());
+                }
+            }
+            return header.toArray(new OrderLogField[0]);
+        }
+
+        private void tokenizeCsv(byte[] data, int start, int end) {
+            int column = 0;
+            int pos = start;
+            while (pos <= end && column < columns.length) {
+                int fieldStart;
+                int fieldEnd;
+                if (pos < end && data[pos] == '"') {
+                    fieldStart = pos + 1;
+                    fieldEnd = indexOf(data, fieldStart, end, (byte) '"');
+                    if (fieldEnd < 0) {
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    pos = fieldEnd + 1;
+                    if (pos < end && data[pos] != ',') {
+                        throw new IllegalArgumentException("Unexpected text after quoted field");
+                    }
+                } else {
+                    fieldStart = pos;
+                    int comma = indexOf(data, pos, end, (byte) ',');
+                    fieldEnd = comma < 0 ? end : comma;
+                    pos = fieldEnd;
+                }
+                if (columns[column] != null) {
+                    fields.set(columns[column], fieldStart, fieldEnd);
+                }
+                column++;
+                pos++;
+            }
+        }
+
+        private void tokenizeJson(byte[] data, int start, int end) {
+            int pos = skipWhitespace(data, start, end);
+            if (pos == end || data[pos] != '{') {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            pos = skipWhitespace(data, pos + 1, end);
+            if (pos < end && data[pos] == '}') {
+                return;
+            }
+            while (true) {
+                if (pos == end || data[pos] != '"') {
+                    throw new IllegalArgumentException("Expected a quoted key");
+                }
+                int keyEnd = stringEnd(data, pos + 1, end);
+                OrderLogField field = OrderLogField.forName(data, pos + 1, keyEnd);
+                pos = skipWhitespace(data, keyEnd + 1, end);
+                if (pos == end || data[pos] != ':') {
+                    throw new IllegalArgumentException("Expected ':' after key");
+                }
+                pos = skipWhitespace(data, pos + 1, end);
+
+                int valueStart;
+                int valueEnd;
+                if (pos < end && data[pos] == '"') {
+                    valueStart = pos + 1;
+                    valueEnd = stringEnd(data, valueStart, end);
+                    pos = valueEnd + 1;
+                } else {
+                    valueStart = pos;
+                    while (pos < end && data[pos] != ',' && data[pos] != '}') pos++;
+                    valueEnd = pos;
+                    while (valueEnd > valueStart && isWhitespace(data[valueEnd - 1])) valueEnd--;
+                    if (valueEnd - valueStart == 4 && data[valueStart] == 'n' && data[valueStart + 1] == 'u'
+                            && data[valueStart + 2] == 'l' && data[valueStart + 3] == 'l') {
+                        valueEnd = valueStart;
+                    }
+                }
+                if (field != null) {
+                    fields.set(field, valueStart, valueEnd);
+                }
+
+                pos = skipWhitespace(data, pos, end);
+                if (pos < end && data[pos] == ',') {
+                    pos = skipWhitespace(data, pos + 1, end);
+                } else if (pos < end && data[pos] == '}') {
+                    return;
+                } else {
+                    throw new IllegalArgumentException("Expected ',' or '}'");
+                }
+            }
+        }
+
+        private int stringEnd(byte[] data, int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (data[i] == '"') return i;
+                if (data[i] == '\\') {
+                    throw new IllegalArgumentException("Escape sequences are not supported");
+                }
+            }
+            throw new IllegalArgumentException("Unterminated string");
+        }
+    }
+
+    private static int indexOf(byte[] data, int start, int end, byte value) {
+        for (int i = start; i < end; i++) {
+            if (data[i] == value) return i;
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] data, int start, int end) {
+        while (start < end && isWhitespace(data[start])) start++;
+        return start;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static boolean isBlank(byte[] data, int start, int end) {
+        return skipWhitespace(data, start, end) == end;
+    }
+}
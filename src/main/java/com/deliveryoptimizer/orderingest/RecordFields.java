@@ -0,0 +1,177 @@
+package com.deliveryoptimizer.orderingest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Field boundaries of the current record as offsets into the read buffer
+ * Numbers are parsed straight from the bytes; nothing is decoded until a value is actually needed
+ */
+final class RecordFields {
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private final int[] starts = new int[OrderLogField.values().length];
+    private final int[] ends = new int[OrderLogField.values().length];
+    private byte[] data;
+
+    void reset(byte[] data) {
+        this.data = data;
+        Arrays.fill(starts, -1);
+    }
+
+    void set(OrderLogField field, int start, int end) {
+        starts[field.ordinal()] = start;
+        ends[field.ordinal()] = end;
+    }
+
+    boolean isPresent(OrderLogField field) {
+        int i = field.ordinal();
+        return starts[i] >= 0 && ends[i] > starts[i];
+    }
+
+    /**
+     * First required field that is missing or empty, or null
+     */
+    OrderLogField firstMissing() {
+        for (OrderLogField field : OrderLogField.values()) {
+            if (field.isRequired() && !isPresent(field)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    String intern(OrderLogField field, ByteStringInterner interner) {
+        return interner.intern(data, starts[field.ordinal()], ends[field.ordinal()]);
+    }
+
+    String string(OrderLogField field) {
+        int i = field.ordinal();
+        return new String(data, starts[i], ends[i] - starts[i], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * True if the field equals the given ASCII text, ignoring case
+     */
+    boolean equalsIgnoreCase(OrderLogField field, String text) {
+        int i = field.ordinal();
+        int length = ends[i] - starts[i];
+        if (length != text.length()) {
+            return false;
+        }
+        for (int k = 0; k < length; k++) {
+            if (Character.toUpperCase((char) data[starts[i] + k]) != Character.toUpperCase(text.charAt(k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int parseInt(OrderLogField field) {
+        int i = field.ordinal();
+        int pos = starts[i];
+        int end = ends[i];
+        boolean negative = pos < end && data[pos] == '-';
+        if (negative || (pos < end && data[pos] == '+')) {
+            pos++;
+        }
+        if (pos == end) {
+            throw malformed(field);
+        }
+        long value = 0;
+        for (; pos < end; pos++) {
+            int digit = data[pos] - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+                throw malformed(field);
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+            throw malformed(field);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decimal number; plain decimals of up to 15 significant digits take an exact fast path
+     * (mantissa and power of ten are both exact doubles, so one division rounds correctly)
+     */
+    double parseDouble(OrderLogField field) {
+        int i = field.ordinal();
+        int pos = starts[i];
+        int end = ends[i];
+        boolean negative = pos < end && data[pos] == '-';
+        if (negative || (pos < end && data[pos] == '+')) {
+            pos++;
+        }
+        long mantissa = 0;
+        int fractionDigits = 0;
+        int digits = 0;
+        boolean seenPoint = false;
+        for (; pos < end; pos++) {
+            byte b = data[pos];
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (seenPoint) fractionDigits++;
+                if (mantissa >= MAX_EXACT_MANTISSA) break;
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (pos == end && digits > 0 && fractionDigits < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        // Exponents, very long mantissas and the like go through the JDK parser
+        try {
+            return Double.parseDouble(string(field));
+        } catch (NumberFormatException e) {
+            throw malformed(field);
+        }
+    }
+
+    /**
+     * Minutes since the start of the log day: either an integer or HH:MM
+     */
+    int parseMinutes(OrderLogField field) {
+        int i = field.ordinal();
+        for (int pos = starts[i]; pos < ends[i]; pos++) {
+            if (data[pos] == ':') {
+                int hours = parseDigits(field, starts[i], pos);
+                int minutes = parseDigits(field, pos + 1, ends[i]);
+                if (minutes >= 60) {
+                    throw malformed(field);
+                }
+                return hours * 60 + minutes;
+            }
+        }
+        return parseInt(field);
+    }
+
+    private int parseDigits(OrderLogField field, int start, int end) {
+        if (start == end || end - start > 6) {
+            throw malformed(field);
+        }
+        int value = 0;
+        for (int pos = start; pos < end; pos++) {
+            int digit = data[pos] - '0';
+            if (digit < 0 || digit > 9) {
+                throw malformed(field);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private IllegalArgumentException malformed(OrderLogField field) {
+        return new IllegalArgumentException("Malformed " + field.getColumnName() + ": '" + string(field) + "'");
+    }
+}
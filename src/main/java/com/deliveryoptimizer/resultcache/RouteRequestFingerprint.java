@@ -0,0 +1,93 @@
+package com.deliveryoptimizer.resultcache;
+
+import java.util.*;
+
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.TimeDependentDistanceCalculator;
+import com.deliveryoptimizer.optimizationstrategy.RouteOptimizationStrategy;
+
+/**
+ * Canonical fingerprint of a route optimization request
+ * Two requests with the same start, order set, speed and strategy configuration produce equal fingerprints
+ * regardless of the order in which the orders were listed
+ */
+public final class RouteRequestFingerprint {
+    private final String canonicalForm;
+    private final int hash;
+
+    private RouteRequestFingerprint(String canonicalForm) {
+        this.canonicalForm = canonicalForm;
+        this.hash = canonicalForm.hashCode();
+    }
+
+    /**
+     * Build the fingerprint for one optimizeRoute request
+     */
+    public static RouteRequestFingerprint of(Location startLocation, List<DeliveryOrder> orders, double speedKmh,
+                                             RouteOptimizationStrategy strategy,
+                                             DistanceCalculator distanceCalculator) {
+        List<String> orderKeys = new ArrayList<>(orders.size());
+        StringBuilder sb = new StringBuilder();
+        for (DeliveryOrder order : orders) {
+            sb.setLength(0);
+            sb.append(order.getOrderId()).append('|');
+            appendLocation(sb, order.getRestaurantLocation());
+            sb.append('|');
+            appendLocation(sb, order.getConsumerLocation());
+            sb.append('|').append(order.getPreparationTimeMinutes())
+              .append('|').append(order.getPriority().name());
+            orderKeys.add(sb.toString());
+        }
+        // Sorting makes the key independent of the order list's ordering
+        Collections.sort(orderKeys);
+
+        sb.setLength(0);
+        sb.append(strategy.getClass().getName()).append('#').append(strategy.cacheKey())
+          .append(';');
+        appendCalculator(sb, distanceCalculator);
+        sb.append(';').append(speedKmh)
+          .append(';');
+        appendLocation(sb, startLocation);
+        for (String orderKey : orderKeys) {
+            sb.append(';').append(orderKey);
+        }
+        return new RouteRequestFingerprint(sb.toString());
+    }
+
+    private static void appendCalculator(StringBuilder sb, DistanceCalculator distanceCalculator) {
+        sb.append(distanceCalculator.getClass().getName());
+        if (distanceCalculator instanceof TimeDependentDistanceCalculator) {
+            // Same orders at a different clock time, with other profiles or over other distances give different routes
+            TimeDependentDistanceCalculator timeDependent = (TimeDependentDistanceCalculator) distanceCalculator;
+            sb.append('[').append(timeDependent.getRouteStartMinuteOfDay()).append('/')
+              .append(Long.toHexString(timeDependent.getSpeedProfiles().getContentHash())).append('/');
+            appendCalculator(sb, timeDependent.getBaseCalculator());
+            sb.append(']');
+        }
+    }
+
+    private static void appendLocation(StringBuilder sb, Location location) {
+        sb.append(location.getId()).append('@')
+          .append(location.getLatitude()).append(',').append(location.getLongitude());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        RouteRequestFingerprint that = (RouteRequestFingerprint) obj;
+        return hash == that.hash && canonicalForm.equals(that.canonicalForm);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return canonicalForm;
+    }
+}
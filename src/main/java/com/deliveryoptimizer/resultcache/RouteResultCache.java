@@ -0,0 +1,209 @@
+package com.deliveryoptimizer.resultcache;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.core.SearchStatistics;
+
+/**
+ * Memoizing cache for route optimization results
+ * Evicts by size (least recently used) and by time-to-live, and lets concurrent
+ * identical requests share one in-flight solver run instead of each computing it
+ */
+public class RouteResultCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<RouteRequestFingerprint, CacheEntry> entries;
+    private final ConcurrentHashMap<RouteRequestFingerprint, CompletableFuture<CacheEntry>> inFlight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong sharedInFlight = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong savedSolverNanos = new AtomicLong();
+
+    public RouteResultCache(int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("ttlMillis must be positive: " + ttlMillis);
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        // Access-ordered map gives LRU iteration order for size eviction
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.inFlight = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Return the cached result for the key, or run the solver once and cache its result.
+     * Callers arriving while the same key is being solved wait for that run instead of starting another.
+     */
+    public RouteResult getOrCompute(RouteRequestFingerprint key, Supplier<RouteResult> solver) {
+        CacheEntry cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            savedSolverNanos.addAndGet(cached.solveNanos);
+            return copyOf(cached.result, true);
+        }
+
+        CompletableFuture<CacheEntry> pending = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            CacheEntry shared = await(existing);
+            sharedInFlight.incrementAndGet();
+            savedSolverNanos.addAndGet(shared.solveNanos);
+            return copyOf(shared.result, true);
+        }
+
+        try {
+            // Another leader may have stored the entry between our lookup and registration
+            cached = lookup(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                savedSolverNanos.addAndGet(cached.solveNanos);
+                pending.complete(cached);
+                return copyOf(cached.result, true);
+            }
+
+            misses.incrementAndGet();
+            long started = System.nanoTime();
+            RouteResult result = solver.get();
+            long finished = System.nanoTime();
+            CacheEntry entry = new CacheEntry(result, finished - started, finished + ttlNanos);
+            store(key, entry);
+            pending.complete(entry);
+            return copyOf(result, false);
+        } catch (RuntimeException | Error e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    /**
+     * Drop every cached entry; in-flight computations are unaffected
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Number of requests that joined an identical in-flight computation
+     */
+    public long getSharedInFlightCount() {
+        return sharedInFlight.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Fraction of requests answered without running the solver (cache hits and shared computations)
+     */
+    public double getHitRate() {
+        long served = hits.get() + sharedInFlight.get();
+        long total = served + misses.get();
+        return total == 0 ? 0.0 : (double) served / total;
+    }
+
+    /**
+     * Total solver time avoided, measured from the original computation of each reused result
+     */
+    public double getSavedSolverTimeMillis() {
+        return savedSolverNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RouteResultCache[size=%d, hits=%d, shared=%d, misses=%d, hitRate=%.1f%%, saved=%.1f ms]",
+                size(), getHitCount(), getSharedInFlightCount(), getMissCount(),
+                getHitRate() * 100, getSavedSolverTimeMillis());
+    }
+
+    private synchronized CacheEntry lookup(RouteRequestFingerprint key) {
+        CacheEntry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtNanos - System.nanoTime() <= 0) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+            return null;
+        }
+        return entry;
+    }
+
+    private synchronized void store(RouteRequestFingerprint key, CacheEntry entry) {
+        entries.put(key, entry);
+        Iterator<CacheEntry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static CacheEntry await(CompletableFuture<CacheEntry> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * RouteResult exposes addAction, so every caller gets its own instance
+     */
+    private static RouteResult copyOf(RouteResult result, boolean cacheHit) {
+        if (result == null) {
+            return null;
+        }
+        SearchStatistics statistics = result.getSearchStatistics().copy();
+        statistics.setCacheHit(cacheHit);
+        RouteResult copy = new RouteResult(result.getRoute(), result.getTotalTimeMinutes(), result.getStrategy(),
+                                           result.getStepByStepActions(), statistics);
+        copy.setLowerBoundMinutes(result.getLowerBoundMinutes());
+        return copy;
+    }
+
+    private static final class CacheEntry {
+        final RouteResult result;
+        final long solveNanos;
+        final long expiresAtNanos;
+
+        CacheEntry(RouteResult result, long solveNanos, long expiresAtNanos) {
+            this.result = result;
+            this.solveNanos = solveNanos;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.deliveryoptimizer.routedelta;
+
+/**
+ * Splits action strings into literal text and decimal numbers, so an action whose times changed can be sent as
+ * its new numbers against the previous action's text
+ * A number is a maximal run of digits, optionally followed by a dot and more digits, without a leading zero,
+ * with at most 7 fraction digits and 18 digits in total; anything else is literal text. Numbers are packed as
+ * (unscaled value << 3) | scale, so "12.50" packs as 1250 with scale 2 and formats back to the same text.
+ */
+final class NumericTemplate {
+
+    private static final int MAX_SCALE = 7;
+    private static final int MAX_DIGITS = 18;
+
+    private NumericTemplate() {
+    }
+
+    /**
+     * True when both texts have numbers and differ only in them
+     */
+    static boolean sameTemplate(String a, String b) {
+        boolean hasNumbers = false;
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            char c = a.charAt(i);
+            char d = b.charAt(j);
+            if (isDigit(c) && isDigit(d)) {
+                int endA = numberEnd(a, i);
+                int endB = numberEnd(b, j);
+                boolean numberA = parse(a, i, endA) >= 0;
+                boolean numberB = parse(b, j, endB) >= 0;
+                if (numberA && numberB) {
+                    hasNumbers = true;
+                } else if (numberA || numberB || !a.regionMatches(i, b, j, endA - i) || endA - i != endB - j) {
+                    return false;
+                }
+                i = endA;
+                j = endB;
+            } else if (c != d) {
+                return false;
+            } else {
+                i++;
+                j++;
+            }
+        }
+        return hasNumbers && i == a.length() && j == b.length();
+    }
+
+    /**
+     * Packed numbers of the text, in order; returns how many were written
+     */
+    static int numbers(String text, long[] packed) {
+        int count = 0;
+        for (int i = 0; i < text.length(); ) {
+            if (!isDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int end = numberEnd(text, i);
+            long value = parse(text, i, end);
+            if (value >= 0) {
+                packed[count++] = value;
+            }
+            i = end;
+        }
+        return count;
+    }
+
+    /**
+     * Number of numbers in the text, the size numbers() needs
+     */
+    static int count(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); ) {
+            if (!isDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int end = numberEnd(text, i);
+            if (parse(text, i, end) >= 0) {
+                count++;
+            }
+            i = end;
+        }
+        return count;
+    }
+
+    /**
+     * The template's literal text with its numbers replaced by the given packed numbers
+     */
+    static String rebuild(String template, long[] packed) {
+        StringBuilder text = new StringBuilder(template.length() + 8);
+        int next = 0;
+        int copied = 0;
+        for (int i = 0; i < template.length(); ) {
+            if (!isDigit(template.charAt(i))) {
+                i++;
+                continue;
+            }
+            int end = numberEnd(template, i);
+            if (parse(template, i, end) >= 0) {
+                text.append(template, copied, i);
+                format(text, packed[next++]);
+                copied = end;
+            }
+            i = end;
+        }
+        return text.append(template, copied, template.length()).toString();
+    }
+
+    private static void format(StringBuilder text, long packed) {
+        int scale = (int) (packed & MAX_SCALE);
+        String digits = Long.toString(packed >>> 3);
+        if (scale == 0) {
+            text.append(digits);
+            return;
+        }
+        if (digits.length() <= scale) {
+            digits = "0".repeat(scale + 1 - digits.length()) + digits;
+        }
+        int point = digits.length() - scale;
+        text.append(digits, 0, point).append('.').append(digits, point, digits.length());
+    }
+
+    private static int numberEnd(String text, int start) {
+        int end = start;
+        while (end < text.length() && isDigit(text.charAt(end))) {
+            end++;
+        }
+        if (end + 1 < text.length() && text.charAt(end) == '.' && isDigit(text.charAt(end + 1))) {
+            end++;
+            while (end < text.length() && isDigit(text.charAt(end))) {
+                end++;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Packed value of the number text[start, end), or -1 when it does not round-trip and stays literal
+     */
+    private static long parse(String text, int start, int end) {
+        int integerEnd = start;
+        while (integerEnd < end && text.charAt(integerEnd) != '.') {
+            integerEnd++;
+        }
+        int scale = integerEnd == end ? 0 : end - integerEnd - 1;
+        int digits = end - start - (integerEnd == end ? 0 : 1);
+        if (scale > MAX_SCALE || digits > MAX_DIGITS || (integerEnd - start > 1 && text.charAt(start) == '0')) {
+            return -1;
+        }
+        long unscaled = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c != '.') {
+                unscaled = unscaled * 10 + (c - '0');
+            }
+        }
+        return unscaled << 3 | scale;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
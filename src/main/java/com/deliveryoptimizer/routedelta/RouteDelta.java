@@ -0,0 +1,94 @@
+package com.deliveryoptimizer.routedelta;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Encoded edit script turning a previous route result into a new one, with a summary of what changed
+ * Produced by RouteDeltaEncoder and applied by RouteDeltaDecoder.
+ */
+public final class RouteDelta {
+    private final byte[] payload;
+    private final boolean full;
+    private final int unchangedPrefix;
+    private final int insertedStops;
+    private final int removedStops;
+    private final int movedStops;
+    private final int retimedActions;
+    private final int insertedActions;
+
+    RouteDelta(byte[] payload, boolean full, int unchangedPrefix, int insertedStops, int removedStops,
+               int movedStops, int retimedActions, int insertedActions) {
+        this.payload = payload;
+        this.full = full;
+        this.unchangedPrefix = unchangedPrefix;
+        this.insertedStops = insertedStops;
+        this.removedStops = removedStops;
+        this.movedStops = movedStops;
+        this.retimedActions = retimedActions;
+        this.insertedActions = insertedActions;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(payload, payload.length);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(payload);
+    }
+
+    /**
+     * Encoded size in bytes
+     */
+    public int size() {
+        return payload.length;
+    }
+
+    /**
+     * True when the delta was encoded without a previous result and carries the whole route
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    /**
+     * Leading stops shared with the previous route
+     */
+    public int getUnchangedPrefix() {
+        return unchangedPrefix;
+    }
+
+    public int getInsertedStops() {
+        return insertedStops;
+    }
+
+    public int getRemovedStops() {
+        return removedStops;
+    }
+
+    /**
+     * Kept stops that changed their order relative to the other kept stops
+     */
+    public int getMovedStops() {
+        return movedStops;
+    }
+
+    /**
+     * Actions sent as new numbers for a previous action's text
+     */
+    public int getRetimedActions() {
+        return retimedActions;
+    }
+
+    public int getInsertedActions() {
+        return insertedActions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d bytes (prefix %d, +%d -%d ~%d stops, %d retimed, %d new actions)",
+                payload.length, unchangedPrefix, insertedStops, removedStops, movedStops, retimedActions,
+                insertedActions);
+    }
+}
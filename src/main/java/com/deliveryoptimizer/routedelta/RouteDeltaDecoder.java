@@ -0,0 +1,132 @@
+package com.deliveryoptimizer.routedelta;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import com.deliveryoptimizer.core.RouteResult;
+
+/**
+ * Applies route deltas; the counterpart of RouteDeltaEncoder, as run on the courier's device
+ */
+public final class RouteDeltaDecoder {
+
+    private RouteDeltaDecoder() {
+    }
+
+    /**
+     * Rebuild the new result from a full delta
+     */
+    public static RouteResult apply(byte[] payload) {
+        return apply(null, payload);
+    }
+
+    /**
+     * Rebuild the new result from the previous one and a delta computed against it
+     * Search statistics are not part of a delta and come back empty.
+     *
+     * @throws IllegalArgumentException if the payload is malformed or was computed against a different
+     *                                  previous result; the caller should then ask for a full delta
+     */
+    public static RouteResult apply(RouteResult previous, byte[] payload) {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        try {
+            byte version = in.get();
+            if (version != RouteDeltaFormat.VERSION) {
+                throw new IllegalArgumentException("Unsupported route delta version " + version);
+            }
+            int flags = in.get();
+            if ((flags & (RouteDeltaFormat.FLAG_BASE | RouteDeltaFormat.FLAG_STRATEGY)) == 0) {
+                throw new IllegalArgumentException("Route delta has neither a base nor a strategy");
+            }
+            List<String> previousRoute = Collections.emptyList();
+            List<String> previousActions = Collections.emptyList();
+            if ((flags & RouteDeltaFormat.FLAG_BASE) != 0) {
+                if (previous == null) {
+                    throw new IllegalArgumentException("Route delta needs the previous route");
+                }
+                previousRoute = previous.getRoute();
+                previousActions = previous.getStepByStepActions();
+                if (in.getInt() != RouteDeltaFormat.checksum(previousRoute, previousActions)) {
+                    throw new IllegalArgumentException("Route delta was computed against a different route");
+                }
+            }
+            double totalTimeMinutes = in.getDouble();
+            String strategy = (flags & RouteDeltaFormat.FLAG_STRATEGY) != 0 ? readString(in) : previous.getStrategy();
+            double lowerBoundMinutes = (flags & RouteDeltaFormat.FLAG_LOWER_BOUND) != 0 ? in.getDouble() : Double.NaN;
+
+            List<String> route = decodeList(in, previousRoute);
+            List<String> actions = decodeList(in, previousActions);
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException("Trailing bytes after route delta");
+            }
+            RouteResult result = new RouteResult(route, totalTimeMinutes, strategy, actions);
+            result.setLowerBoundMinutes(lowerBoundMinutes);
+            return result;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated or corrupt route delta", e);
+        }
+    }
+
+    private static List<String> decodeList(ByteBuffer in, List<String> previous) {
+        List<String> entries = new ArrayList<>(previous.size() + 4);
+        int cursor = 0;
+        while (true) {
+            long header = readVarint(in);
+            switch ((int) (header & 3)) {
+                case RouteDeltaFormat.COPY: {
+                    int run = (int) (header >>> 2);
+                    int source = cursor + unzigzag(readVarint(in));
+                    entries.addAll(previous.subList(source, source + run));
+                    cursor = source + run;
+                    break;
+                }
+                case RouteDeltaFormat.LITERAL: {
+                    int bytes = (int) (header >>> 2);
+                    entries.add(readUtf8(in, bytes));
+                    break;
+                }
+                case RouteDeltaFormat.RETIME: {
+                    int source = cursor + unzigzag(header >>> 2);
+                    String template = previous.get(source);
+                    long[] numbers = new long[NumericTemplate.count(template)];
+                    for (int k = 0; k < numbers.length; k++) {
+                        numbers[k] = readVarint(in);
+                    }
+                    entries.add(NumericTemplate.rebuild(template, numbers));
+                    cursor = source + 1;
+                    break;
+                }
+                default:
+                    return entries;
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        return readUtf8(in, (int) readVarint(in));
+    }
+
+    private static String readUtf8(ByteBuffer in, int bytes) {
+        String value = new String(in.array(), in.arrayOffset() + in.position(), bytes, StandardCharsets.UTF_8);
+        in.position(in.position() + bytes);
+        return value;
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in route delta");
+    }
+
+    private static int unzigzag(long value) {
+        return (int) ((value >>> 1) ^ -(value & 1));
+    }
+}
@@ -0,0 +1,319 @@
+package com.deliveryoptimizer.routedelta;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import com.deliveryoptimizer.core.RouteResult;
+
+/**
+ * Computes the edit script between a previous and a new route result and encodes it in the route delta format
+ * Each new entry is taken, in order of preference, from the run continuing at the cursor, from any equal
+ * previous entry (a moved stop, or a skip over removed ones), from the action at the cursor when the two differ
+ * only in their numbers (a retimed action), or sent literally. The hash index of the previous list is only
+ * built once an entry misses the cursor, so encoding stays linear in the route length and an unchanged prefix
+ * is a single two-byte op costing one string comparison per stop.
+ *
+ * An encoder reuses its buffers between calls and is not thread-safe; keep one per thread.
+ */
+public final class RouteDeltaEncoder {
+
+    private byte[] buffer = new byte[256];
+    private int length;
+
+    // Open-addressing table from String.hashCode to the lowest previous index + 1 with that hash
+    private int[] table = new int[128];
+    private int[] nextEqual = new int[64];
+    private boolean[] used = new boolean[64];
+    private int[] sources = new int[64];
+    private int[] tails = new int[64];
+    private long[] numbers = new long[16];
+
+    // Summary of the list last encoded
+    private int prefix;
+    private int literals;
+    private int retimed;
+    private int removed;
+    private int moved;
+
+    /**
+     * Full encoding of a result, for a courier without a previous route
+     */
+    public RouteDelta encode(RouteResult next) {
+        return encode(null, next);
+    }
+
+    /**
+     * Delta turning previous into next; a null previous gives the full encoding
+     */
+    public RouteDelta encode(RouteResult previous, RouteResult next) {
+        List<String> previousRoute = previous == null ? Collections.emptyList() : previous.getRoute();
+        List<String> previousActions = previous == null ? Collections.emptyList() : previous.getStepByStepActions();
+        boolean strategyChanged = previous == null || !previous.getStrategy().equals(next.getStrategy());
+        boolean hasLowerBound = !Double.isNaN(next.getLowerBoundMinutes());
+
+        length = 0;
+        writeByte(RouteDeltaFormat.VERSION);
+        writeByte((previous != null ? RouteDeltaFormat.FLAG_BASE : 0)
+                  | (strategyChanged ? RouteDeltaFormat.FLAG_STRATEGY : 0)
+                  | (hasLowerBound ? RouteDeltaFormat.FLAG_LOWER_BOUND : 0));
+        if (previous != null) {
+            writeInt(RouteDeltaFormat.checksum(previousRoute, previousActions));
+        }
+        writeLong(Double.doubleToLongBits(next.getTotalTimeMinutes()));
+        if (strategyChanged) {
+            writeString(next.getStrategy());
+        }
+        if (hasLowerBound) {
+            writeLong(Double.doubleToLongBits(next.getLowerBoundMinutes()));
+        }
+
+        encodeList(previousRoute, next.getRoute(), false);
+        int unchangedPrefix = prefix;
+        int insertedStops = literals;
+        int removedStops = removed;
+        int movedStops = moved;
+        encodeList(previousActions, next.getStepByStepActions(), true);
+        return new RouteDelta(Arrays.copyOf(buffer, length), previous == null, unchangedPrefix, insertedStops,
+                              removedStops, movedStops, retimed, literals);
+    }
+
+    private void encodeList(List<String> previous, List<String> next, boolean allowRetime) {
+        int n = previous.size();
+        prepare(n, next.size());
+        boolean indexed = false;
+        prefix = 0;
+        literals = 0;
+        retimed = 0;
+        int copied = 0;
+        int usedCount = 0;
+        int cursor = 0;
+        for (int j = 0; j < next.size(); ) {
+            String entry = next.get(j);
+            int source;
+            if (cursor < n && same(previous.get(cursor), entry)) {
+                source = cursor;
+            } else {
+                if (!indexed) {
+                    index(previous);
+                    indexed = true;
+                }
+                source = equalEntry(previous, entry);
+            }
+            if (source >= 0) {
+                int run = 1;
+                while (j + run < next.size() && source + run < n
+                       && same(previous.get(source + run), next.get(j + run))) {
+                    run++;
+                }
+                writeVarint((long) run << 2 | RouteDeltaFormat.COPY);
+                writeVarint(zigzag(source - cursor));
+                if (j == 0 && source == 0) {
+                    prefix = run;
+                }
+                for (int k = 0; k < run; k++) {
+                    if (!used[source + k]) {
+                        used[source + k] = true;
+                        usedCount++;
+                    }
+                    sources[copied++] = source + k;
+                }
+                cursor = source + run;
+                j += run;
+                continue;
+            }
+            if (allowRetime && cursor < n && NumericTemplate.sameTemplate(previous.get(cursor), entry)) {
+                source = cursor;
+            }
+            if (source >= 0) {
+                writeVarint(zigzag(source - cursor) << 2 | RouteDeltaFormat.RETIME);
+                if (numbers.length < entry.length()) {
+                    // Every number takes at least one character
+                    numbers = new long[entry.length()];
+                }
+                int count = NumericTemplate.numbers(entry, numbers);
+                for (int k = 0; k < count; k++) {
+                    writeVarint(numbers[k]);
+                }
+                if (!used[source]) {
+                    used[source] = true;
+                    usedCount++;
+                }
+                retimed++;
+                cursor = source + 1;
+            } else {
+                writeLiteral(entry);
+                literals++;
+            }
+            j++;
+        }
+        writeVarint(RouteDeltaFormat.END);
+        removed = n - usedCount;
+        // Moves are only reported for stops; actions follow their stops
+        moved = allowRetime ? 0 : copied - longestIncreasing(copied);
+    }
+
+    private void prepare(int previousSize, int nextSize) {
+        if (nextEqual.length < previousSize) {
+            int capacity = Math.max(previousSize, nextEqual.length * 2);
+            nextEqual = new int[capacity];
+            used = new boolean[capacity];
+        }
+        Arrays.fill(used, 0, previousSize, false);
+        if (sources.length < nextSize) {
+            sources = new int[Math.max(nextSize, sources.length * 2)];
+            tails = new int[sources.length];
+        }
+    }
+
+    /**
+     * Hash index of the previous list, built on the first entry that does not continue the current run;
+     * entries with equal hashes share a slot and are chained from the lowest index up
+     */
+    private void index(List<String> previous) {
+        int n = previous.size();
+        int capacity = Integer.highestOneBit(Math.max(4, n) * 2 - 1) << 1;
+        if (table.length < capacity) {
+            table = new int[capacity];
+        } else {
+            Arrays.fill(table, 0);
+        }
+        int mask = table.length - 1;
+        for (int i = n - 1; i >= 0; i--) {
+            int hash = previous.get(i).hashCode();
+            int slot = slot(previous, hash, mask);
+            nextEqual[i] = table[slot] - 1;
+            table[slot] = i + 1;
+        }
+    }
+
+    /**
+     * First previous entry equal to the given one that was not taken yet, else the first equal one, else -1
+     */
+    private int equalEntry(List<String> previous, String entry) {
+        int fallback = -1;
+        for (int i = table[slot(previous, entry.hashCode(), table.length - 1)] - 1; i >= 0; i = nextEqual[i]) {
+            // Chains hold equal hashes, so taken entries are skipped before comparing characters
+            if (used[i] && fallback >= 0) {
+                continue;
+            }
+            if (previous.get(i).equals(entry)) {
+                if (!used[i]) {
+                    return i;
+                }
+                fallback = i;
+            }
+        }
+        return fallback;
+    }
+
+    private int slot(List<String> previous, int hash, int mask) {
+        int slot = (hash ^ hash >>> 16) * 0x9E3779B9 & mask;
+        while (table[slot] != 0 && previous.get(table[slot] - 1).hashCode() != hash) {
+            slot = slot + 1 & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Strings cache their hash, so comparing hashes first rejects most unequal entries without touching
+     * their characters
+     */
+    private static boolean same(String a, String b) {
+        return a == b || a.hashCode() == b.hashCode() && a.equals(b);
+    }
+
+    /**
+     * Length of the longest increasing run of copied source indexes; the other copied entries moved
+     */
+    private int longestIncreasing(int count) {
+        int size = 0;
+        for (int k = 0; k < count; k++) {
+            int value = sources[k];
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (tails[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            tails[low] = value;
+            if (low == size) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    private static long zigzag(int value) {
+        return ((long) value << 1) ^ ((long) value >> 63);
+    }
+
+    private void writeVarint(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[length++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    private void writeLiteral(String value) {
+        int chars = value.length();
+        int ascii = 0;
+        while (ascii < chars && value.charAt(ascii) < 0x80) {
+            ascii++;
+        }
+        if (ascii < chars) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint((long) bytes.length << 2 | RouteDeltaFormat.LITERAL);
+            writeBytes(bytes);
+            return;
+        }
+        // ASCII is its own UTF-8, written without an intermediate array
+        writeVarint((long) chars << 2 | RouteDeltaFormat.LITERAL);
+        ensure(chars);
+        for (int i = 0; i < chars; i++) {
+            buffer[length++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        writeBytes(bytes);
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void writeByte(int value) {
+        ensure(1);
+        buffer[length++] = (byte) value;
+    }
+
+    private void writeInt(int value) {
+        ensure(4);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            buffer[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void writeLong(long value) {
+        ensure(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void ensure(int bytes) {
+        if (length + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + bytes));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.deliveryoptimizer.routedelta;
+
+import java.util.List;
+
+/**
+ * Layout constants of the route delta format
+ *
+ * <pre>
+ * header    byte version, byte flags, [int baseChecksum], double totalTimeMinutes,
+ *           [string strategy], [double lowerBoundMinutes]
+ * route     ops rebuilding the stop names, then END
+ * actions   ops rebuilding the step-by-step actions, then END
+ * </pre>
+ *
+ * Every op starts with a varint whose low two bits are its tag:
+ * <pre>
+ * COPY      (length << 2), zigzag varint (source - cursor)          copy length entries of the previous list
+ * LITERAL   (byteLength << 2) | 1, UTF-8 bytes                      a new entry
+ * RETIME    (zigzag (source - cursor) << 2) | 2, varint per number  a previous entry with new numbers
+ * END       3
+ * </pre>
+ *
+ * The cursor starts at 0 and moves past every entry taken from the previous list, so an unchanged prefix is a
+ * single two-byte COPY and a removed stop costs one byte in the next COPY's offset. Numbers of a RETIME are
+ * packed as described in NumericTemplate, one per number of the source entry. Strings are a varint byte length
+ * and UTF-8 bytes. Without a base the delta holds the whole result as LITERAL ops. Doubles are big-endian.
+ */
+final class RouteDeltaFormat {
+
+    static final byte VERSION = 1;
+
+    static final int FLAG_BASE = 1;
+    static final int FLAG_STRATEGY = 1 << 1;
+    static final int FLAG_LOWER_BOUND = 1 << 2;
+
+    static final int COPY = 0;
+    static final int LITERAL = 1;
+    static final int RETIME = 2;
+    static final int END = 3;
+
+    private RouteDeltaFormat() {
+    }
+
+    /**
+     * Identifies the previous result a delta applies to; uses String.hashCode so any decoder can recompute it
+     */
+    static int checksum(List<String> route, List<String> actions) {
+        int hash = route.size() * 31 + actions.size();
+        for (String stop : route) {
+            hash = hash * 31 + stop.hashCode();
+        }
+        for (String action : actions) {
+            hash = hash * 31 + action.hashCode();
+        }
+        return hash;
+    }
+}
@@ -103,4 +103,12 @@ public class DeliveryScenarioFactory {
         
         return new DeliveryScenario("Performance Test - 6 Orders", aman, Arrays.asList(orders));
     }
+    
+    /**
+     * Create a reproducible city-like scenario of any size
+     * Uses SyntheticScenarioGenerator with its default Bangalore layout
+     */
+    public static DeliveryScenario createSyntheticScenario(int orderCount, long seed) {
+        return new SyntheticScenarioGenerator(seed).generate(orderCount);
+    }
 }
@@ -0,0 +1,188 @@
+package com.deliveryoptimizer.scenariofactory;
+
+import java.util.*;
+
+import com.deliveryoptimizer.constants.PriorityEnum;
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+
+/**
+ * Seeded generator for city-like delivery scenarios of any size
+ * Restaurants cluster around a few food hotspots (so several orders share one kitchen),
+ * consumers spread over residential clusters plus a uniform background,
+ * and prep times and priorities follow configurable mixes.
+ * The same seed and settings always produce the same scenarios.
+ */
+public class SyntheticScenarioGenerator {
+
+    private static final double KM_PER_DEGREE = 111.0;
+
+    private final long seed;
+
+    private double centerLatitude = 12.9716;
+    private double centerLongitude = 77.5946;
+    private double cityRadiusKm = 6.0;
+    private int hotspotCount = 5;
+    private int restaurantsPerHotspot = 6;
+    private double hotspotSpreadKm = 0.4;
+    private int residentialClusterCount = 8;
+    private double residentialSpreadKm = 1.0;
+    private double backgroundConsumerShare = 0.2;
+    private int minPrepMinutes = 5;
+    private int typicalPrepMinutes = 15;
+    private int maxPrepMinutes = 45;
+    private double highPriorityShare = 0.1;
+    private double mediumPriorityShare = 0.3;
+
+    public SyntheticScenarioGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Set the city center and the radius within which everything is generated
+     */
+    public SyntheticScenarioGenerator setCity(double centerLatitude, double centerLongitude, double cityRadiusKm) {
+        this.centerLatitude = centerLatitude;
+        this.centerLongitude = centerLongitude;
+        this.cityRadiusKm = cityRadiusKm;
+        return this;
+    }
+
+    /**
+     * Set the number of food hotspots, restaurants per hotspot and hotspot spread
+     */
+    public SyntheticScenarioGenerator setHotspots(int hotspotCount, int restaurantsPerHotspot, double hotspotSpreadKm) {
+        this.hotspotCount = Math.max(1, hotspotCount);
+        this.restaurantsPerHotspot = Math.max(1, restaurantsPerHotspot);
+        this.hotspotSpreadKm = hotspotSpreadKm;
+        return this;
+    }
+
+    /**
+     * Set residential clusters and the share of consumers placed uniformly across the city
+     */
+    public SyntheticScenarioGenerator setResidential(int clusterCount, double clusterSpreadKm,
+                                                     double backgroundConsumerShare) {
+        this.residentialClusterCount = Math.max(1, clusterCount);
+        this.residentialSpreadKm = clusterSpreadKm;
+        this.backgroundConsumerShare = backgroundConsumerShare;
+        return this;
+    }
+
+    /**
+     * Set the prep-time range; most orders fall near the typical value, a tail reaches the maximum
+     */
+    public SyntheticScenarioGenerator setPrepTimes(int minMinutes, int typicalMinutes, int maxMinutes) {
+        if (minMinutes > typicalMinutes || typicalMinutes > maxMinutes) {
+            throw new IllegalArgumentException("Expected min <= typical <= max prep minutes");
+        }
+        this.minPrepMinutes = minMinutes;
+        this.typicalPrepMinutes = typicalMinutes;
+        this.maxPrepMinutes = maxMinutes;
+        return this;
+    }
+
+    /**
+     * Set the share of HIGH and MEDIUM orders; the rest are LOW
+     */
+    public SyntheticScenarioGenerator setPriorityMix(double highShare, double mediumShare) {
+        if (highShare < 0 || mediumShare < 0 || highShare + mediumShare > 1) {
+            throw new IllegalArgumentException("Priority shares must be non-negative and sum to at most 1");
+        }
+        this.highPriorityShare = highShare;
+        this.mediumPriorityShare = mediumShare;
+        return this;
+    }
+
+    /**
+     * Generate one scenario
+     */
+    public DeliveryScenario generate(int orderCount) {
+        return generate(orderCount, 0);
+    }
+
+    /**
+     * Generate the scenario with the given index; scenarios differ by index but share the city layout
+     */
+    public DeliveryScenario generate(int orderCount, int scenarioIndex) {
+        // City layout depends only on the seed so every scenario draws from the same restaurants
+        Random layoutRandom = new Random(seed);
+        List<Location> restaurants = new ArrayList<>();
+        for (int h = 0; h < hotspotCount; h++) {
+            double[] hotspot = pointInCity(layoutRandom);
+            for (int r = 0; r < restaurantsPerHotspot; r++) {
+                double[] point = gaussianAround(layoutRandom, hotspot, hotspotSpreadKm);
+                String id = String.format("R%d_%d", h + 1, r + 1);
+                restaurants.add(new Location(id, "Restaurant " + id, point[0], point[1]));
+            }
+        }
+        double[][] residentialClusters = new double[residentialClusterCount][];
+        for (int c = 0; c < residentialClusterCount; c++) {
+            residentialClusters[c] = pointInCity(layoutRandom);
+        }
+
+        Random random = new Random(seed * 31 + scenarioIndex);
+        double[] courier = pointInCity(random);
+        Location start = new Location("COURIER", "Courier start", courier[0], courier[1]);
+
+        List<DeliveryOrder> orders = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+            // Popular kitchens get more orders: bias toward the front of the restaurant list
+            int restaurantIndex = (int) (restaurants.size() * Math.pow(random.nextDouble(), 1.5));
+            Location restaurant = restaurants.get(restaurantIndex);
+
+            double[] point = random.nextDouble() < backgroundConsumerShare
+                    ? pointInCity(random)
+                    : gaussianAround(random, residentialClusters[random.nextInt(residentialClusterCount)],
+                                     residentialSpreadKm);
+            String consumerId = String.format("C%d", i + 1);
+            Location consumer = new Location(consumerId, "Consumer " + consumerId, point[0], point[1]);
+
+            orders.add(new DeliveryOrder(String.format("ORD%06d", i + 1), restaurant, consumer,
+                                         nextPrepMinutes(random), nextPriority(random)));
+        }
+        return new DeliveryScenario(String.format("Synthetic %d orders (seed %d #%d)", orderCount, seed, scenarioIndex),
+                                    start, orders);
+    }
+
+    /**
+     * Generate several scenarios of the same size
+     */
+    public List<DeliveryScenario> generateBatch(int scenarioCount, int ordersPerScenario) {
+        List<DeliveryScenario> scenarios = new ArrayList<>(scenarioCount);
+        for (int s = 0; s < scenarioCount; s++) {
+            scenarios.add(generate(ordersPerScenario, s));
+        }
+        return scenarios;
+    }
+
+    private int nextPrepMinutes(Random random) {
+        // Log-normal around the typical value gives a long tail of slow kitchens
+        double minutes = typicalPrepMinutes * Math.exp(random.nextGaussian() * 0.35);
+        return (int) Math.round(Math.max(minPrepMinutes, Math.min(maxPrepMinutes, minutes)));
+    }
+
+    private PriorityEnum nextPriority(Random random) {
+        double draw = random.nextDouble();
+        if (draw < highPriorityShare) return PriorityEnum.HIGH;
+        if (draw < highPriorityShare + mediumPriorityShare) return PriorityEnum.MEDIUM;
+        return PriorityEnum.LOW;
+    }
+
+    private double[] pointInCity(Random random) {
+        // Uniform over the disc
+        double radius = cityRadiusKm * Math.sqrt(random.nextDouble());
+        double angle = random.nextDouble() * 2 * Math.PI;
+        return offset(centerLatitude, centerLongitude, radius * Math.sin(angle), radius * Math.cos(angle));
+    }
+
+    private double[] gaussianAround(Random random, double[] center, double spreadKm) {
+        return offset(center[0], center[1], random.nextGaussian() * spreadKm, random.nextGaussian() * spreadKm);
+    }
+
+    private static double[] offset(double latitude, double longitude, double northKm, double eastKm) {
+        double lat = latitude + northKm / KM_PER_DEGREE;
+        double lng = longitude + eastKm / (KM_PER_DEGREE * Math.cos(Math.toRadians(latitude)));
+        return new double[] { lat, lng };
+    }
+}
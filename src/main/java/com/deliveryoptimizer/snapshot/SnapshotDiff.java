@@ -0,0 +1,152 @@
+package com.deliveryoptimizer.snapshot;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.*;
+
+import com.deliveryoptimizer.core.RouteResult;
+
+/**
+ * Compares the route results of two snapshots of the same scenarios, e.g. written by two solver versions
+ * Results are matched by scenario index and strategy name. A result counts as changed when its total time
+ * differs by more than the tolerance or its stop sequence differs.
+ */
+public class SnapshotDiff {
+
+    private static final double DEFAULT_TOLERANCE_MINUTES = 1e-6;
+
+    private final double toleranceMinutes;
+
+    private int matched;
+    private int improved;
+    private int regressed;
+    private int routeChanged;
+    private int unmatched;
+    private double totalDeltaMinutes;
+    private final List<String> changes = new ArrayList<>();
+
+    public SnapshotDiff() {
+        this(DEFAULT_TOLERANCE_MINUTES);
+    }
+
+    public SnapshotDiff(double toleranceMinutes) {
+        this.toleranceMinutes = toleranceMinutes;
+    }
+
+    /**
+     * Compare every result of the candidate snapshot against the baseline
+     */
+    public SnapshotDiff compare(SnapshotReader baseline, SnapshotReader candidate) throws IOException {
+        if (baseline.getScenarioCount() != candidate.getScenarioCount()) {
+            throw new IllegalArgumentException("Snapshots hold different scenario sets: "
+                                               + baseline.getScenarioCount() + " vs "
+                                               + candidate.getScenarioCount() + " scenarios");
+        }
+        for (int scenario = 0; scenario < baseline.getScenarioCount(); scenario++) {
+            Map<String, RouteResult> before = byStrategy(baseline.readResults(scenario));
+            Map<String, RouteResult> after = byStrategy(candidate.readResults(scenario));
+            for (Map.Entry<String, RouteResult> entry : after.entrySet()) {
+                RouteResult old = before.remove(entry.getKey());
+                if (old == null) {
+                    unmatched++;
+                    continue;
+                }
+                compare(scenario, entry.getKey(), old, entry.getValue());
+            }
+            unmatched += before.size();
+        }
+        return this;
+    }
+
+    public int getMatched() {
+        return matched;
+    }
+
+    public int getImproved() {
+        return improved;
+    }
+
+    public int getRegressed() {
+        return regressed;
+    }
+
+    public int getRouteChanged() {
+        return routeChanged;
+    }
+
+    public int getUnmatched() {
+        return unmatched;
+    }
+
+    /**
+     * Sum of candidate minus baseline total time over all matched results
+     */
+    public double getTotalDeltaMinutes() {
+        return totalDeltaMinutes;
+    }
+
+    public List<String> getChanges() {
+        return new ArrayList<>(changes);
+    }
+
+    public boolean hasDifferences() {
+        return improved > 0 || regressed > 0 || routeChanged > 0 || unmatched > 0;
+    }
+
+    public void print(PrintStream out, int maxChanges) {
+        out.printf("Matched %d results: %d improved, %d regressed, %d route changes, %d unmatched%n",
+                   matched, improved, regressed, routeChanged, unmatched);
+        out.printf("Total time delta: %+.2f minutes%n", totalDeltaMinutes);
+        for (int i = 0; i < Math.min(maxChanges, changes.size()); i++) {
+            out.println("  " + changes.get(i));
+        }
+        if (changes.size() > maxChanges) {
+            out.println("  ... " + (changes.size() - maxChanges) + " more");
+        }
+    }
+
+    private void compare(int scenario, String strategy, RouteResult old, RouteResult current) {
+        matched++;
+        double delta = current.getTotalTimeMinutes() - old.getTotalTimeMinutes();
+        totalDeltaMinutes += delta;
+        boolean sameRoute = old.getRoute().equals(current.getRoute());
+        if (delta < -toleranceMinutes) {
+            improved++;
+        } else if (delta > toleranceMinutes) {
+            regressed++;
+        } else if (sameRoute) {
+            return;
+        }
+        if (!sameRoute) {
+            routeChanged++;
+        }
+        changes.add(String.format("scenario %d %s: %.2f -> %.2f min (%+.2f)%s", scenario, strategy,
+                                  old.getTotalTimeMinutes(), current.getTotalTimeMinutes(), delta,
+                                  sameRoute ? "" : ", route changed"));
+    }
+
+    private static Map<String, RouteResult> byStrategy(List<RouteResult> results) {
+        Map<String, RouteResult> byStrategy = new LinkedHashMap<>();
+        for (RouteResult result : results) {
+            byStrategy.put(result.getStrategy(), result);
+        }
+        return byStrategy;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SnapshotDiff <baseline.snap> <candidate.snap> [maxChangesShown]");
+            return;
+        }
+        int maxChanges = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        try (SnapshotReader baseline = SnapshotReader.open(Paths.get(args[0]));
+             SnapshotReader candidate = SnapshotReader.open(Paths.get(args[1]))) {
+            SnapshotDiff diff = new SnapshotDiff().compare(baseline, candidate);
+            diff.print(System.out, maxChanges);
+            if (diff.hasDifferences()) {
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.deliveryoptimizer.snapshot;
+
+/**
+ * Layout constants of the binary snapshot format
+ *
+ * <pre>
+ * header    int magic, short version, short flags
+ * records   byte type, int payloadLength, payload          (scenarios and results, in write order)
+ * tables    string table:   int count, then per string int byteLength + UTF-8 bytes
+ *           location table: int count, int[] nameIds, int[] addressIds, double[] latitudes, double[] longitudes
+ *           scenario index: int count, long[] recordOffsets
+ *           result index:   int count, long[] recordOffsets, int[] scenarioIndexes
+ * footer    long tablesOffset, int version, int magic
+ * </pre>
+ *
+ * Records reference strings and locations by table index, so every distinct value is stored once.
+ * Tables follow the records, which lets a writer stream records without knowing them in advance;
+ * readers start from the fixed-size footer. All values are big-endian.
+ *
+ * Version 2 added the lower bound to result records; readers still accept version 1 files, whose results
+ * read back without a bound.
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x44524F53; // "DROS"
+    static final short VERSION = 2;
+    static final short OLDEST_READABLE_VERSION = 1;
+
+    static final int HEADER_BYTES = 8;
+    static final int FOOTER_BYTES = 16;
+    static final int RECORD_HEADER_BYTES = 5;
+
+    static final byte SCENARIO_RECORD = 1;
+    static final byte RESULT_RECORD = 2;
+
+    /** Scenario: int nameId, int startLocationId, int orderCount, then per order below */
+    static final int SCENARIO_FIXED_BYTES = 12;
+    /** Order: int orderIdId, int restaurantId, int consumerId, int prepMinutes, byte priority */
+    static final int ORDER_BYTES = 17;
+    /**
+     * Result: int scenarioIndex, int strategyId, double totalTimeMinutes, double lowerBoundMinutes (NaN if none),
+     * long sequencesEvaluated, long nodesExpanded, long nodesPruned, long distanceCalls, byte cacheHit,
+     * long solveTimeNanos, int routeLength, int[] route stringIds, int actionCount, int[] action stringIds
+     */
+    static final int RESULT_FIXED_BYTES = 4 + 4 + 8 + 8 + 8 * 4 + 1 + 8 + 4 + 4;
+
+    private SnapshotFormat() {
+    }
+}
@@ -0,0 +1,283 @@
+package com.deliveryoptimizer.snapshot;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import com.deliveryoptimizer.constants.PriorityEnum;
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.core.SearchStatistics;
+import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
+
+/**
+ * Random-access reader for binary snapshots
+ * Opening reads only the footer, the primitive location columns and the record index; strings are decoded
+ * and records parsed on demand. Files up to 2 GB are memory-mapped, larger ones are read with positional
+ * channel reads. Locations are materialized once, so orders that share a location share the instance.
+ * Instances cache decoded values and are not thread-safe.
+ */
+public class SnapshotReader implements Closeable {
+
+    private static final PriorityEnum[] PRIORITIES = PriorityEnum.values();
+
+    private final FileChannel channel;
+    private final ByteBuffer mapped;
+
+    private final ByteBuffer stringData;
+    private final int[] stringOffsets;
+    private final String[] stringCache;
+
+    private final int[] locationNameIds;
+    private final int[] locationAddressIds;
+    private final int version;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final Location[] locationCache;
+
+    private final long[] scenarioOffsets;
+    private final long[] resultOffsets;
+    private final int[] resultScenarios;
+    private int[][] resultsByScenario;
+
+    private SnapshotReader(FileChannel channel, ByteBuffer mapped, long size) throws IOException {
+        this.channel = channel;
+        this.mapped = mapped;
+        if (size < SnapshotFormat.HEADER_BYTES + SnapshotFormat.FOOTER_BYTES) {
+            throw new IllegalArgumentException("Not a route snapshot: file too small");
+        }
+        ByteBuffer header = read(0, SnapshotFormat.HEADER_BYTES);
+        ByteBuffer footer = read(size - SnapshotFormat.FOOTER_BYTES, SnapshotFormat.FOOTER_BYTES);
+        long tablesOffset = footer.getLong();
+        int footerVersion = footer.getInt();
+        if (header.getInt() != SnapshotFormat.MAGIC || footer.getInt() != SnapshotFormat.MAGIC) {
+            throw new IllegalArgumentException("Not a route snapshot: bad magic number");
+        }
+        int version = header.getShort();
+        if (version < SnapshotFormat.OLDEST_READABLE_VERSION || version > SnapshotFormat.VERSION
+                || footerVersion != version) {
+            throw new IllegalArgumentException("Unsupported snapshot version " + version + " (this reader handles "
+                                               + SnapshotFormat.OLDEST_READABLE_VERSION + " to "
+                                               + SnapshotFormat.VERSION + ")");
+        }
+        this.version = version;
+        long tablesLength = size - SnapshotFormat.FOOTER_BYTES - tablesOffset;
+        if (tablesOffset < SnapshotFormat.HEADER_BYTES || tablesLength > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Corrupt snapshot: tables offset " + tablesOffset);
+        }
+        ByteBuffer tables = read(tablesOffset, (int) tablesLength);
+
+        int stringCount = tables.getInt();
+        this.stringOffsets = new int[stringCount + 1];
+        int tablesStart = tables.position();
+        for (int i = 0; i < stringCount; i++) {
+            stringOffsets[i] = tables.position() - tablesStart;
+            int length = tables.getInt();
+            tables.position(tables.position() + length);
+        }
+        stringOffsets[stringCount] = tables.position() - tablesStart;
+        this.stringData = tables.duplicate().position(tablesStart).limit(tables.position()).slice();
+        this.stringCache = new String[stringCount];
+
+        int locationCount = tables.getInt();
+        this.locationNameIds = new int[locationCount];
+        this.locationAddressIds = new int[locationCount];
+        this.latitudes = new double[locationCount];
+        this.longitudes = new double[locationCount];
+        tables.asIntBuffer().get(locationNameIds);
+        tables.position(tables.position() + locationCount * 4);
+        tables.asIntBuffer().get(locationAddressIds);
+        tables.position(tables.position() + locationCount * 4);
+        tables.asDoubleBuffer().get(latitudes);
+        tables.position(tables.position() + locationCount * 8);
+        tables.asDoubleBuffer().get(longitudes);
+        tables.position(tables.position() + locationCount * 8);
+        this.locationCache = new Location[locationCount];
+
+        this.scenarioOffsets = new long[tables.getInt()];
+        tables.asLongBuffer().get(scenarioOffsets);
+        tables.position(tables.position() + scenarioOffsets.length * 8);
+        int resultCount = tables.getInt();
+        this.resultOffsets = new long[resultCount];
+        this.resultScenarios = new int[resultCount];
+        tables.asLongBuffer().get(resultOffsets);
+        tables.position(tables.position() + resultCount * 8);
+        tables.asIntBuffer().get(resultScenarios);
+    }
+
+    public static SnapshotReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer mapped = size <= Integer.MAX_VALUE
+                    ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+            return new SnapshotReader(channel, mapped, size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Read a snapshot held in memory, e.g. received over the network
+     */
+    public static SnapshotReader fromBuffer(ByteBuffer snapshot) throws IOException {
+        ByteBuffer buffer = snapshot.slice();
+        return new SnapshotReader(null, buffer, buffer.remaining());
+    }
+
+    public int getScenarioCount() {
+        return scenarioOffsets.length;
+    }
+
+    public int getResultCount() {
+        return resultOffsets.length;
+    }
+
+    public int getLocationCount() {
+        return latitudes.length;
+    }
+
+    /**
+     * Decode the scenario with the given index without touching any other record
+     */
+    public DeliveryScenario readScenario(int index) throws IOException {
+        ByteBuffer record = record(scenarioOffsets[index], SnapshotFormat.SCENARIO_RECORD);
+        String name = string(record.getInt());
+        Location start = location(record.getInt());
+        int orderCount = record.getInt();
+        List<DeliveryOrder> orders = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+            String orderId = string(record.getInt());
+            Location restaurant = location(record.getInt());
+            Location consumer = location(record.getInt());
+            int prepMinutes = record.getInt();
+            PriorityEnum priority = PRIORITIES[record.get()];
+            orders.add(new DeliveryOrder(orderId, restaurant, consumer, prepMinutes, priority));
+        }
+        return new DeliveryScenario(name, start, orders);
+    }
+
+    /**
+     * Scenario index the result with the given index belongs to
+     */
+    public int getResultScenarioIndex(int resultIndex) {
+        return resultScenarios[resultIndex];
+    }
+
+    public RouteResult readResult(int resultIndex) throws IOException {
+        ByteBuffer record = record(resultOffsets[resultIndex], SnapshotFormat.RESULT_RECORD);
+        record.getInt(); // scenario index, also held in the result index
+        String strategy = string(record.getInt());
+        double totalTimeMinutes = record.getDouble();
+        double lowerBoundMinutes = version >= 2 ? record.getDouble() : Double.NaN;
+        SearchStatistics statistics = new SearchStatistics();
+        statistics.addSequencesEvaluated(record.getLong());
+        statistics.addNodesExpanded(record.getLong());
+        statistics.addNodesPruned(record.getLong());
+        statistics.addDistanceCalls(record.getLong());
+        statistics.setCacheHit(record.get() != 0);
+        statistics.setSolveTimeNanos(record.getLong());
+        List<String> route = strings(record);
+        List<String> actions = strings(record);
+        RouteResult result = new RouteResult(route, totalTimeMinutes, strategy, actions, statistics);
+        result.setLowerBoundMinutes(lowerBoundMinutes);
+        return result;
+    }
+
+    /**
+     * Every result stored for the given scenario, in write order
+     */
+    public List<RouteResult> readResults(int scenarioIndex) throws IOException {
+        if (resultsByScenario == null) {
+            int[] counts = new int[scenarioOffsets.length];
+            for (int scenario : resultScenarios) {
+                counts[scenario]++;
+            }
+            int[][] byScenario = new int[scenarioOffsets.length][];
+            for (int i = 0; i < byScenario.length; i++) {
+                byScenario[i] = new int[counts[i]];
+                counts[i] = 0;
+            }
+            for (int i = 0; i < resultScenarios.length; i++) {
+                int scenario = resultScenarios[i];
+                byScenario[scenario][counts[scenario]++] = i;
+            }
+            resultsByScenario = byScenario;
+        }
+        int[] indexes = resultsByScenario[scenarioIndex];
+        List<RouteResult> results = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            results.add(readResult(index));
+        }
+        return results;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private ByteBuffer record(long offset, byte expectedType) throws IOException {
+        ByteBuffer header = read(offset, SnapshotFormat.RECORD_HEADER_BYTES);
+        byte type = header.get();
+        if (type != expectedType) {
+            throw new IllegalArgumentException("Corrupt snapshot: record at " + offset + " has type " + type);
+        }
+        return read(offset + SnapshotFormat.RECORD_HEADER_BYTES, header.getInt());
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        if (mapped != null) {
+            return mapped.duplicate().position((int) offset).limit((int) offset + length).slice();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Snapshot truncated at " + (offset + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    private List<String> strings(ByteBuffer record) {
+        int count = record.getInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(string(record.getInt()));
+        }
+        return values;
+    }
+
+    private String string(int id) {
+        String value = stringCache[id];
+        if (value == null) {
+            int offset = stringOffsets[id];
+            int length = stringData.getInt(offset);
+            byte[] bytes = new byte[length];
+            stringData.get(offset + 4, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            stringCache[id] = value;
+        }
+        return value;
+    }
+
+    private Location location(int id) {
+        Location location = locationCache[id];
+        if (location == null) {
+            location = new Location(string(locationNameIds[id]), string(locationAddressIds[id]),
+                                    latitudes[id], longitudes[id]);
+            locationCache[id] = location;
+        }
+        return location;
+    }
+}
@@ -0,0 +1,286 @@
+package com.deliveryoptimizer.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.core.SearchStatistics;
+import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
+
+/**
+ * Streams scenarios and route results into the binary snapshot format
+ * Records go out as they are written; strings and locations are interned into tables that are
+ * written, together with the record index, when the writer is closed.
+ */
+public class SnapshotWriter implements Closeable {
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private long position;
+    private boolean closed;
+
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final Map<LocationKey, Integer> locationIds = new HashMap<>();
+    private final List<Location> locations = new ArrayList<>();
+
+    private long[] scenarioOffsets = new long[64];
+    private int scenarioCount;
+    private long[] resultOffsets = new long[64];
+    private int[] resultScenarios = new int[64];
+    private int resultCount;
+
+    /**
+     * Write to a channel; the channel is closed with the writer
+     */
+    public SnapshotWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        buffer.putInt(SnapshotFormat.MAGIC);
+        buffer.putShort(SnapshotFormat.VERSION);
+        buffer.putShort((short) 0);
+    }
+
+    public static SnapshotWriter create(Path file) throws IOException {
+        return new SnapshotWriter(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Append a scenario and return its index in the snapshot
+     */
+    public int writeScenario(DeliveryScenario scenario) throws IOException {
+        List<DeliveryOrder> orders = scenario.getOrders();
+        int payload = SnapshotFormat.SCENARIO_FIXED_BYTES + orders.size() * SnapshotFormat.ORDER_BYTES;
+        long offset = beginRecord(SnapshotFormat.SCENARIO_RECORD, payload);
+        buffer.putInt(stringId(scenario.getScenarioName()));
+        buffer.putInt(locationId(scenario.getStartLocation()));
+        buffer.putInt(orders.size());
+        for (DeliveryOrder order : orders) {
+            buffer.putInt(stringId(order.getOrderId()));
+            buffer.putInt(locationId(order.getRestaurantLocation()));
+            buffer.putInt(locationId(order.getConsumerLocation()));
+            buffer.putInt(order.getPreparationTimeMinutes());
+            buffer.put((byte) order.getPriority().ordinal());
+        }
+        if (scenarioCount == scenarioOffsets.length) {
+            scenarioOffsets = Arrays.copyOf(scenarioOffsets, scenarioCount * 2);
+        }
+        scenarioOffsets[scenarioCount] = offset;
+        return scenarioCount++;
+    }
+
+    /**
+     * Append a result computed for the scenario with the given index
+     */
+    public void writeResult(int scenarioIndex, RouteResult result) throws IOException {
+        if (scenarioIndex < 0 || scenarioIndex >= scenarioCount) {
+            throw new IllegalArgumentException("No scenario with index " + scenarioIndex);
+        }
+        List<String> route = result.getRoute();
+        List<String> actions = result.getStepByStepActions();
+        int payload = SnapshotFormat.RESULT_FIXED_BYTES + (route.size() + actions.size()) * 4;
+        long offset = beginRecord(SnapshotFormat.RESULT_RECORD, payload);
+        SearchStatistics statistics = result.getSearchStatistics();
+        buffer.putInt(scenarioIndex);
+        buffer.putInt(stringId(result.getStrategy()));
+        buffer.putDouble(result.getTotalTimeMinutes());
+        buffer.putDouble(result.getLowerBoundMinutes());
+        buffer.putLong(statistics.getSequencesEvaluated());
+        buffer.putLong(statistics.getNodesExpanded());
+        buffer.putLong(statistics.getNodesPruned());
+        buffer.putLong(statistics.getDistanceCalls());
+        buffer.put((byte) (statistics.isCacheHit() ? 1 : 0));
+        buffer.putLong(statistics.getSolveTimeNanos());
+        buffer.putInt(route.size());
+        for (String stop : route) {
+            buffer.putInt(stringId(stop));
+        }
+        buffer.putInt(actions.size());
+        for (String action : actions) {
+            buffer.putInt(stringId(action));
+        }
+        if (resultCount == resultOffsets.length) {
+            resultOffsets = Arrays.copyOf(resultOffsets, resultCount * 2);
+            resultScenarios = Arrays.copyOf(resultScenarios, resultCount * 2);
+        }
+        resultOffsets[resultCount] = offset;
+        resultScenarios[resultCount] = scenarioIndex;
+        resultCount++;
+    }
+
+    public int getScenarioCount() {
+        return scenarioCount;
+    }
+
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    /**
+     * Write the tables, index and footer, then close the channel
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            long tablesOffset = position + buffer.position();
+
+            // String table (location names and addresses are interned before it is written)
+            int[] nameIds = new int[locations.size()];
+            int[] addressIds = new int[locations.size()];
+            for (int i = 0; i < locations.size(); i++) {
+                nameIds[i] = stringId(locations.get(i).getName());
+                addressIds[i] = stringId(locations.get(i).getAddress());
+            }
+            reserve(4);
+            buffer.putInt(strings.size());
+            for (String value : strings) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                reserve(4 + bytes.length);
+                buffer.putInt(bytes.length);
+                buffer.put(bytes);
+            }
+
+            // Location table as primitive columns
+            reserve(4);
+            buffer.putInt(locations.size());
+            for (int id : nameIds) {
+                reserve(4);
+                buffer.putInt(id);
+            }
+            for (int id : addressIds) {
+                reserve(4);
+                buffer.putInt(id);
+            }
+            for (Location location : locations) {
+                reserve(8);
+                buffer.putDouble(location.getLatitude());
+            }
+            for (Location location : locations) {
+                reserve(8);
+                buffer.putDouble(location.getLongitude());
+            }
+
+            reserve(4);
+            buffer.putInt(scenarioCount);
+            for (int i = 0; i < scenarioCount; i++) {
+                reserve(8);
+                buffer.putLong(scenarioOffsets[i]);
+            }
+            reserve(4);
+            buffer.putInt(resultCount);
+            for (int i = 0; i < resultCount; i++) {
+                reserve(8);
+                buffer.putLong(resultOffsets[i]);
+            }
+            for (int i = 0; i < resultCount; i++) {
+                reserve(4);
+                buffer.putInt(resultScenarios[i]);
+            }
+
+            reserve(SnapshotFormat.FOOTER_BYTES);
+            buffer.putLong(tablesOffset);
+            buffer.putInt(SnapshotFormat.VERSION);
+            buffer.putInt(SnapshotFormat.MAGIC);
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private long beginRecord(byte type, int payloadBytes) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Snapshot writer is closed");
+        }
+        int recordBytes = SnapshotFormat.RECORD_HEADER_BYTES + payloadBytes;
+        if (buffer.remaining() < recordBytes) {
+            flush();
+            if (buffer.capacity() < recordBytes) {
+                buffer = ByteBuffer.allocate(recordBytes);
+            }
+        }
+        long offset = position + buffer.position();
+        buffer.put(type);
+        buffer.putInt(payloadBytes);
+        return offset;
+    }
+
+    private void reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocate(bytes);
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        position += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private int stringId(String value) {
+        String key = value == null ? "" : value;
+        Integer id = stringIds.get(key);
+        if (id == null) {
+            id = strings.size();
+            strings.add(key);
+            stringIds.put(key, id);
+        }
+        return id;
+    }
+
+    private int locationId(Location location) {
+        LocationKey key = new LocationKey(location);
+        Integer id = locationIds.get(key);
+        if (id == null) {
+            id = locations.size();
+            locations.add(location);
+            locationIds.put(key, id);
+        }
+        return id;
+    }
+
+    /**
+     * Location.hashCode only covers the name, and generated scenarios reuse names such as "COURIER"
+     * for every courier start; hashing the coordinates as well keeps the intern table flat.
+     */
+    private static final class LocationKey {
+        private final Location location;
+        private final int hash;
+
+        LocationKey(Location location) {
+            this.location = location;
+            this.hash = 31 * location.hashCode()
+                        + Double.hashCode(location.getLatitude()) * 17 + Double.hashCode(location.getLongitude());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof LocationKey && location.equals(((LocationKey) obj).location);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.deliveryoptimizer.streamingdispatch;
+
+import java.util.*;
+
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.core.RouteResult;
+
+/**
+ * Snapshot of one courier's plan, emitted by the dispatcher whenever the plan changes
+ * Committed stops are fixed and will be executed as planned; flexible stops may still be reordered or
+ * extended by later windows. Unplanned orders are known but were left out of the flexible tail.
+ */
+public class CourierPlan {
+    private final String courierId;
+    private final long planTimeMillis;
+    private final Location position;
+    private final List<PlannedStop> committedStops;
+    private final List<PlannedStop> flexibleStops;
+    private final int unplannedOrders;
+    private final RouteResult tailResult;
+
+    public CourierPlan(String courierId, long planTimeMillis, Location position, List<PlannedStop> committedStops,
+                       List<PlannedStop> flexibleStops, int unplannedOrders, RouteResult tailResult) {
+        this.courierId = courierId;
+        this.planTimeMillis = planTimeMillis;
+        this.position = position;
+        this.committedStops = new ArrayList<>(committedStops);
+        this.flexibleStops = new ArrayList<>(flexibleStops);
+        this.unplannedOrders = unplannedOrders;
+        this.tailResult = tailResult;
+    }
+
+    public String getCourierId() {
+        return courierId;
+    }
+
+    public long getPlanTimeMillis() {
+        return planTimeMillis;
+    }
+
+    /**
+     * Location of the courier's last completed stop
+     */
+    public Location getPosition() {
+        return position;
+    }
+
+    public List<PlannedStop> getCommittedStops() {
+        return Collections.unmodifiableList(committedStops);
+    }
+
+    public List<PlannedStop> getFlexibleStops() {
+        return Collections.unmodifiableList(flexibleStops);
+    }
+
+    public int getUnplannedOrders() {
+        return unplannedOrders;
+    }
+
+    /**
+     * Strategy result for the flexible tail if it was re-optimized in this window, otherwise null
+     * Its route names tail tasks (P0, D0, P1, ...); the flexible stops carry the real locations.
+     */
+    public RouteResult getTailResult() {
+        return tailResult;
+    }
+
+    public boolean isReoptimized() {
+        return tailResult != null;
+    }
+
+    /**
+     * Planned completion time of the last stop, or the plan time when the courier has nothing to do
+     */
+    public long getCompletionMillis() {
+        if (!flexibleStops.isEmpty()) {
+            return flexibleStops.get(flexibleStops.size() - 1).getCompletionMillis();
+        }
+        if (!committedStops.isEmpty()) {
+            return committedStops.get(committedStops.size() - 1).getCompletionMillis();
+        }
+        return planTimeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CourierPlan[%s at %d ms: %d committed, %d flexible, %d unplanned%s]",
+                courierId, planTimeMillis, committedStops.size(), flexibleStops.size(), unplannedOrders,
+                isReoptimized() ? ", re-optimized" : "");
+    }
+}
@@ -0,0 +1,121 @@
+package com.deliveryoptimizer.streamingdispatch;
+
+import java.util.*;
+
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.core.RouteResult;
+
+/**
+ * Mutable per-courier state of the dispatcher: outstanding orders, the committed segment and the flexible tail
+ * Only touched by the thread running the dispatch windows.
+ */
+final class CourierState {
+
+    /**
+     * An order of this courier that has not been delivered yet
+     */
+    static final class PendingOrder {
+        final OrderEvent event;
+        boolean pickupCommitted;
+        boolean deliveryCommitted;
+        boolean planned;
+
+        PendingOrder(OrderEvent event) {
+            this.event = event;
+        }
+
+        String getOrderId() {
+            return event.getOrder().getOrderId();
+        }
+    }
+
+    final String courierId;
+    Location position;
+    final Map<String, PendingOrder> orders = new LinkedHashMap<>();
+    final ArrayDeque<PlannedStop> committed = new ArrayDeque<>();
+    List<PlannedStop> flexible = new ArrayList<>();
+    boolean dirty;
+
+    CourierState(String courierId, Location position) {
+        this.courierId = courierId;
+        this.position = position;
+    }
+
+    /**
+     * Location the flexible tail starts from: the end of the committed segment
+     */
+    Location tailStartLocation() {
+        return committed.isEmpty() ? position : committed.peekLast().getLocation();
+    }
+
+    /**
+     * Time the flexible tail starts: when the committed segment is done, but never in the past
+     */
+    long tailStartMillis(long nowMillis) {
+        return committed.isEmpty() ? nowMillis : Math.max(nowMillis, committed.peekLast().getCompletionMillis());
+    }
+
+    /**
+     * Complete every committed stop finished by the given time; delivered orders are forgotten
+     * @return number of stops completed
+     */
+    int execute(long nowMillis) {
+        int completed = 0;
+        while (!committed.isEmpty() && committed.peekFirst().getCompletionMillis() <= nowMillis) {
+            PlannedStop stop = committed.pollFirst();
+            position = stop.getLocation();
+            if (!stop.isPickup()) {
+                orders.remove(stop.getOrderId());
+            }
+            completed++;
+        }
+        return completed;
+    }
+
+    /**
+     * Move the head of the flexible tail into the committed segment
+     * The first stop is committed as soon as the courier has nothing else to do, since it has to start
+     * driving towards it; further stops once their planned arrival falls within the horizon.
+     * @return number of stops committed
+     */
+    int commit(long nowMillis, long horizonMillis) {
+        int count = 0;
+        while (count < flexible.size()) {
+            PlannedStop stop = flexible.get(count);
+            if (!committed.isEmpty() && stop.getArrivalMillis() > nowMillis + horizonMillis) {
+                break;
+            }
+            committed.addLast(stop);
+            PendingOrder order = orders.get(stop.getOrderId());
+            if (stop.isPickup()) {
+                order.pickupCommitted = true;
+            } else {
+                order.deliveryCommitted = true;
+            }
+            count++;
+        }
+        if (count > 0) {
+            flexible = new ArrayList<>(flexible.subList(count, flexible.size()));
+        }
+        return count;
+    }
+
+    boolean hasOutstandingOrders() {
+        return !orders.isEmpty();
+    }
+
+    int unplannedOrderCount() {
+        int count = 0;
+        for (PendingOrder order : orders.values()) {
+            if (!order.deliveryCommitted && !order.planned) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    CourierPlan toPlan(long nowMillis, RouteResult tailResult) {
+        return new CourierPlan(courierId, nowMillis, position, new ArrayList<>(committed), flexible,
+                               unplannedOrderCount(), tailResult);
+    }
+}
@@ -0,0 +1,18 @@
+package com.deliveryoptimizer.streamingdispatch;
+
+/**
+ * Time source of the rolling-horizon dispatcher
+ * Lets the same dispatcher run against wall-clock time or a simulated clock that jumps from window to window.
+ */
+public interface DispatchClock {
+
+    /**
+     * Current time in milliseconds
+     */
+    long currentTimeMillis();
+
+    /**
+     * Return once the clock has reached the given time
+     */
+    void awaitUntil(long timeMillis) throws InterruptedException;
+}
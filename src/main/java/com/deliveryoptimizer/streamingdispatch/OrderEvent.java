@@ -0,0 +1,51 @@
+package com.deliveryoptimizer.streamingdispatch;
+
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+
+/**
+ * An order placed at a point in time and assigned to a courier
+ * The order's preparation time counts from the event time. The courier location is only used to register
+ * a courier the dispatcher has not seen yet.
+ */
+public class OrderEvent {
+    private final long timeMillis;
+    private final String courierId;
+    private final Location courierLocation;
+    private final DeliveryOrder order;
+
+    public OrderEvent(long timeMillis, String courierId, Location courierLocation, DeliveryOrder order) {
+        this.timeMillis = timeMillis;
+        this.courierId = courierId;
+        this.courierLocation = courierLocation;
+        this.order = order;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public String getCourierId() {
+        return courierId;
+    }
+
+    public Location getCourierLocation() {
+        return courierLocation;
+    }
+
+    public DeliveryOrder getOrder() {
+        return order;
+    }
+
+    /**
+     * Time at which the food is ready for pickup
+     */
+    public long getReadyTimeMillis() {
+        return timeMillis + order.getPreparationTimeMinutes() * 60_000L;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("OrderEvent[%d ms, courier=%s, order=%s]", timeMillis, courierId, order.getOrderId());
+    }
+}
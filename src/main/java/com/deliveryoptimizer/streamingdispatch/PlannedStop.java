@@ -0,0 +1,48 @@
+package com.deliveryoptimizer.streamingdispatch;
+
+import com.deliveryoptimizer.core.Location;
+
+/**
+ * One pickup or delivery in a courier plan, with its planned arrival and completion time
+ * Completion is later than arrival when the courier has to wait for the food.
+ */
+public class PlannedStop {
+    private final String orderId;
+    private final boolean pickup;
+    private final Location location;
+    private final long arrivalMillis;
+    private final long completionMillis;
+
+    public PlannedStop(String orderId, boolean pickup, Location location, long arrivalMillis, long completionMillis) {
+        this.orderId = orderId;
+        this.pickup = pickup;
+        this.location = location;
+        this.arrivalMillis = arrivalMillis;
+        this.completionMillis = completionMillis;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public boolean isPickup() {
+        return pickup;
+    }
+
+    public Location getLocation() {
+        return location;
+    }
+
+    public long getArrivalMillis() {
+        return arrivalMillis;
+    }
+
+    public long getCompletionMillis() {
+        return completionMillis;
+    }
+
+    @Override
+    public String toString() {
+        return (pickup ? "P " : "D ") + orderId + "@" + location.getName() + " " + arrivalMillis;
+    }
+}
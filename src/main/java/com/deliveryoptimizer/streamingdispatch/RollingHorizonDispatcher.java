@@ -0,0 +1,602 @@
+package com.deliveryoptimizer.streamingdispatch;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+import com.deliveryoptimizer.DeliveryRouteOptimizationContext;
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.TimeDependentDistanceCalculator;
+import com.deliveryoptimizer.optimizationstrategy.GreedyNearestNeighborStrategy;
+import com.deliveryoptimizer.orderingest.OrderLogLoader;
+import com.deliveryoptimizer.streamingdispatch.CourierState.PendingOrder;
+import com.deliveryoptimizer.warmstart.WarmStartStore;
+
+/**
+ * Rolling-horizon dispatcher for a live stream of orders
+ * Orders arrive as OrderEvents at any time; every window the dispatcher completes the stops that are done,
+ * re-optimizes the flexible tail of each courier that received new orders, commits the stops that are about
+ * to be driven, and hands every changed CourierPlan to the plan sink. Re-optimization runs through the
+ * optimization context, so its strategy, cache and observers apply to every tail.
+ *
+ * Per-window work is bounded: tails are capped at maxFlexibleOrders (older orders first, orders already
+ * picked up always included), and once the window's CPU budget is spent the remaining couriers keep their
+ * previous plan and are re-optimized first in the next window. At least one courier is solved per window.
+ *
+ * With a TimeDependentDistanceCalculator, each tail is solved and scheduled on a view of it whose route time 0
+ * is the tail's own start, so a tail planned at 19:00 sees evening speeds. Dispatcher time clockOriginMillis
+ * falls at the calculator's routeStartMinuteOfDay.
+ *
+ * Events may be submitted from any thread. Windows run on one thread: either the caller's, through
+ * runWindow() or the replay methods, or the dispatcher's own thread started with start().
+ */
+public class RollingHorizonDispatcher implements AutoCloseable {
+
+    public static final long DEFAULT_WINDOW_MILLIS = 30_000;
+    public static final long DEFAULT_COMMIT_HORIZON_MILLIS = 5 * 60_000;
+    public static final long DEFAULT_WINDOW_CPU_BUDGET_MILLIS = 200;
+    public static final int DEFAULT_MAX_FLEXIBLE_ORDERS = 12;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final char PICKUP_PREFIX = 'P';
+    private static final char DELIVERY_PREFIX = 'D';
+
+    private final DeliveryRouteOptimizationContext context;
+    private final DispatchClock clock;
+    private final Consumer<CourierPlan> planSink;
+
+    private long windowMillis = DEFAULT_WINDOW_MILLIS;
+    private long commitHorizonMillis = DEFAULT_COMMIT_HORIZON_MILLIS;
+    private long windowCpuBudgetNanos = DEFAULT_WINDOW_CPU_BUDGET_MILLIS * 1_000_000;
+    private int maxFlexibleOrders = DEFAULT_MAX_FLEXIBLE_ORDERS;
+    private WarmStartStore warmStartStore;
+    private long clockOriginMillis;
+
+    private final ConcurrentLinkedQueue<OrderEvent> intake = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<CourierState> newCouriers = new ConcurrentLinkedQueue<>();
+    private final Map<String, CourierState> couriers = new LinkedHashMap<>();
+    private int solveCursor;
+    private long replayWindowEnd = Long.MIN_VALUE;
+
+    private Thread windowThread;
+    private volatile boolean running;
+
+    private volatile long windows;
+    private volatile long solves;
+    private volatile long deferredSolves;
+    private volatile long failedSolves;
+    private volatile long budgetOverruns;
+    private volatile long maxWindowCpuNanos;
+    private volatile long ordersReceived;
+    private volatile long ordersDelivered;
+    private volatile long rejectedEvents;
+
+    public RollingHorizonDispatcher(DeliveryRouteOptimizationContext context, DispatchClock clock,
+                                    Consumer<CourierPlan> planSink) {
+        this.context = context;
+        this.clock = clock;
+        this.planSink = planSink;
+    }
+
+    public RollingHorizonDispatcher setWindowMillis(long windowMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("windowMillis must be positive: " + windowMillis);
+        }
+        this.windowMillis = windowMillis;
+        return this;
+    }
+
+    /**
+     * Flexible stops whose planned arrival is within this time of the window start are committed
+     */
+    public RollingHorizonDispatcher setCommitHorizonMillis(long commitHorizonMillis) {
+        if (commitHorizonMillis < 0) {
+            throw new IllegalArgumentException("commitHorizonMillis must not be negative: " + commitHorizonMillis);
+        }
+        this.commitHorizonMillis = commitHorizonMillis;
+        return this;
+    }
+
+    /**
+     * CPU time after which a window stops starting new re-optimizations
+     */
+    public RollingHorizonDispatcher setWindowCpuBudgetMillis(long windowCpuBudgetMillis) {
+        if (windowCpuBudgetMillis <= 0) {
+            throw new IllegalArgumentException("windowCpuBudgetMillis must be positive: " + windowCpuBudgetMillis);
+        }
+        this.windowCpuBudgetNanos = windowCpuBudgetMillis * 1_000_000;
+        return this;
+    }
+
+    /**
+     * Largest number of orders handed to the strategy for one courier tail
+     */
+    public RollingHorizonDispatcher setMaxFlexibleOrders(int maxFlexibleOrders) {
+        if (maxFlexibleOrders <= 0) {
+            throw new IllegalArgumentException("maxFlexibleOrders must be positive: " + maxFlexibleOrders);
+        }
+        this.maxFlexibleOrders = maxFlexibleOrders;
+        return this;
+    }
+
+    /**
+     * Dispatcher time at which a time-dependent calculator's routeStartMinuteOfDay falls (default 0)
+     * E.g. with routeStartMinuteOfDay 0, the epoch millis of the local midnight the replayed times count from.
+     */
+    public RollingHorizonDispatcher setClockOriginMillis(long clockOriginMillis) {
+        this.clockOriginMillis = clockOriginMillis;
+        return this;
+    }
+
+    /**
+     * Seed every tail solve with the courier's previous plan (null disables warm starts)
+     * Only strategies implementing WarmStartStrategy use the seed; the store also keeps the solved routes.
+     */
+    public RollingHorizonDispatcher setWarmStartStore(WarmStartStore warmStartStore) {
+        this.warmStartStore = warmStartStore;
+        return this;
+    }
+
+    public WarmStartStore getWarmStartStore() {
+        return warmStartStore;
+    }
+
+    /**
+     * Register a courier; couriers are also registered by their first order event
+     */
+    public void addCourier(String courierId, Location location) {
+        newCouriers.add(new CourierState(courierId, location));
+    }
+
+    /**
+     * Queue an order for the next window; safe to call from any thread
+     */
+    public void submit(OrderEvent event) {
+        intake.add(event);
+    }
+
+    /**
+     * Run one dispatch window at the clock's current time
+     */
+    public void runWindow() {
+        long now = clock.currentTimeMillis();
+        long cpuStart = cpuTimeNanos();
+        registerCouriers();
+        drainIntake();
+
+        List<CourierState> active = new ArrayList<>(couriers.values());
+        Set<CourierState> changed = new HashSet<>();
+        for (CourierState courier : active) {
+            int outstanding = courier.orders.size();
+            if (courier.execute(now) > 0) {
+                changed.add(courier);
+                ordersDelivered += outstanding - courier.orders.size();
+            }
+        }
+
+        // Re-optimize dirty tails round-robin until the CPU budget is spent
+        Map<CourierState, RouteResult> solved = new HashMap<>();
+        int count = active.size();
+        for (int i = 0; i < count; i++) {
+            int index = (solveCursor + i) % count;
+            CourierState courier = active.get(index);
+            if (!courier.dirty) {
+                continue;
+            }
+            if (!solved.isEmpty() && cpuTimeNanos() - cpuStart >= windowCpuBudgetNanos) {
+                for (int j = i; j < count; j++) {
+                    if (active.get((solveCursor + j) % count).dirty) {
+                        deferredSolves++;
+                    }
+                }
+                // Start the next window with the first courier that missed out
+                solveCursor = index;
+                break;
+            }
+            solved.put(courier, reoptimize(courier, now));
+            changed.add(courier);
+        }
+
+        for (CourierState courier : active) {
+            if (courier.commit(now, commitHorizonMillis) > 0) {
+                changed.add(courier);
+                // Committing shortened the tail: make room for orders left out by the tail cap
+                if (courier.unplannedOrderCount() > 0) {
+                    courier.dirty = true;
+                }
+            }
+        }
+        for (CourierState courier : active) {
+            if (changed.contains(courier)) {
+                planSink.accept(courier.toPlan(now, solved.get(courier)));
+            }
+        }
+
+        long cpuNanos = cpuTimeNanos() - cpuStart;
+        if (cpuNanos > windowCpuBudgetNanos) {
+            budgetOverruns++;
+        }
+        if (cpuNanos > maxWindowCpuNanos) {
+            maxWindowCpuNanos = cpuNanos;
+        }
+        windows++;
+    }
+
+    /**
+     * Feed one event of a time-ordered replay
+     * Every window that ends at or before the event time is run first, waiting on the clock for each, so the
+     * dispatcher sees the events exactly as a live stream would deliver them. Idle stretches with no
+     * outstanding orders are skipped.
+     */
+    public void replayEvent(OrderEvent event) throws InterruptedException {
+        if (replayWindowEnd == Long.MIN_VALUE) {
+            replayWindowEnd = clock.currentTimeMillis() + windowMillis;
+        }
+        while (event.getTimeMillis() >= replayWindowEnd) {
+            if (!hasOutstandingWork()) {
+                replayWindowEnd += (event.getTimeMillis() - replayWindowEnd) / windowMillis * windowMillis;
+            }
+            clock.awaitUntil(replayWindowEnd);
+            runWindow();
+            replayWindowEnd += windowMillis;
+        }
+        submit(event);
+    }
+
+    /**
+     * Keep running windows after the last replayed event until every order is delivered
+     */
+    public void finishReplay() throws InterruptedException {
+        if (replayWindowEnd == Long.MIN_VALUE) {
+            replayWindowEnd = clock.currentTimeMillis() + windowMillis;
+        }
+        while (hasOutstandingWork()) {
+            clock.awaitUntil(replayWindowEnd);
+            runWindow();
+            replayWindowEnd += windowMillis;
+        }
+    }
+
+    public void replay(Iterator<OrderEvent> events) throws InterruptedException {
+        while (events.hasNext()) {
+            replayEvent(events.next());
+        }
+        finishReplay();
+    }
+
+    /**
+     * Run windows on a background thread, one every windowMillis of clock time, until closed
+     */
+    public synchronized void start() {
+        if (windowThread != null) {
+            throw new IllegalStateException("Dispatcher already started");
+        }
+        running = true;
+        windowThread = new Thread(this::runWindows, "rolling-horizon-dispatcher");
+        windowThread.setDaemon(true);
+        windowThread.start();
+    }
+
+    /**
+     * Stop the background thread after its current window
+     * If the caller is interrupted while waiting for that window, it returns with its interrupt flag set.
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (windowThread != null) {
+            windowThread.interrupt();
+            try {
+                windowThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            windowThread = null;
+        }
+    }
+
+    public long getWindowCount() {
+        return windows;
+    }
+
+    public long getSolveCount() {
+        return solves;
+    }
+
+    /**
+     * Courier re-optimizations postponed to a later window because the CPU budget was spent
+     */
+    public long getDeferredSolveCount() {
+        return deferredSolves;
+    }
+
+    public long getFailedSolveCount() {
+        return failedSolves;
+    }
+
+    /**
+     * Windows whose CPU time exceeded the budget (a single tail solve cannot be interrupted)
+     */
+    public long getBudgetOverrunCount() {
+        return budgetOverruns;
+    }
+
+    public long getMaxWindowCpuNanos() {
+        return maxWindowCpuNanos;
+    }
+
+    public long getOrdersReceived() {
+        return ordersReceived;
+    }
+
+    public long getOrdersDelivered() {
+        return ordersDelivered;
+    }
+
+    /**
+     * Events dropped because their order id was already outstanding or the courier was unknown and had no location
+     */
+    public long getRejectedEventCount() {
+        return rejectedEvents;
+    }
+
+    private void runWindows() {
+        long next = clock.currentTimeMillis() + windowMillis;
+        while (running) {
+            try {
+                clock.awaitUntil(next);
+            } catch (InterruptedException e) {
+                break;
+            }
+            runWindow();
+            next += windowMillis;
+            long now = clock.currentTimeMillis();
+            if (next <= now) {
+                // Fell behind: realign instead of running windows back to back
+                next = now + windowMillis;
+            }
+        }
+    }
+
+    private boolean hasOutstandingWork() {
+        if (!intake.isEmpty()) {
+            return true;
+        }
+        for (CourierState courier : couriers.values()) {
+            if (courier.hasOutstandingOrders()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void registerCouriers() {
+        CourierState courier;
+        while ((courier = newCouriers.poll()) != null) {
+            couriers.putIfAbsent(courier.courierId, courier);
+        }
+    }
+
+    private void drainIntake() {
+        OrderEvent event;
+        while ((event = intake.poll()) != null) {
+            CourierState courier = couriers.get(event.getCourierId());
+            if (courier == null) {
+                if (event.getCourierLocation() == null) {
+                    rejectedEvents++;
+                    continue;
+                }
+                courier = new CourierState(event.getCourierId(), event.getCourierLocation());
+                couriers.put(courier.courierId, courier);
+            }
+            String orderId = event.getOrder().getOrderId();
+            if (courier.orders.containsKey(orderId)) {
+                rejectedEvents++;
+                continue;
+            }
+            courier.orders.put(orderId, new PendingOrder(event));
+            courier.dirty = true;
+            ordersReceived++;
+        }
+    }
+
+    /**
+     * Solve the courier's flexible tail and replace its flexible stops with the new plan
+     * @return the strategy result, or null if the strategy failed and the tail was planned in arrival order
+     */
+    private RouteResult reoptimize(CourierState courier, long now) {
+        Location start = courier.tailStartLocation();
+        long startMillis = courier.tailStartMillis(now);
+
+        // Orders already picked up (or about to be) must be in the tail; fill up with the oldest others
+        List<PendingOrder> tail = new ArrayList<>();
+        for (PendingOrder order : courier.orders.values()) {
+            if (order.pickupCommitted && !order.deliveryCommitted) {
+                tail.add(order);
+            }
+        }
+        for (PendingOrder order : courier.orders.values()) {
+            if (!order.pickupCommitted && tail.size() < maxFlexibleOrders) {
+                tail.add(order);
+            }
+        }
+
+        // Preparation time is re-based to the tail start; picked-up orders become zero-wait pickups at the start.
+        // Every task gets its own location name (P<i>, D<i>) so the strategy's route maps back unambiguously
+        // even when orders share a restaurant or consumer.
+        List<DeliveryOrder> orders = new ArrayList<>(tail.size());
+        for (int i = 0; i < tail.size(); i++) {
+            PendingOrder pending = tail.get(i);
+            DeliveryOrder order = pending.event.getOrder();
+            Location restaurant = pending.pickupCommitted ? start : order.getRestaurantLocation();
+            long remainingMillis = pending.pickupCommitted
+                    ? 0 : Math.max(0, pending.event.getReadyTimeMillis() - startMillis);
+            orders.add(new DeliveryOrder(order.getOrderId(), taskLocation(PICKUP_PREFIX, i, restaurant),
+                                         taskLocation(DELIVERY_PREFIX, i, order.getConsumerLocation()),
+                                         (int) ((remainingMillis + 59_999) / 60_000), order.getPriority()));
+        }
+
+        DistanceCalculator calculator = calculatorAt(startMillis);
+        WarmStartStore store = warmStartStore;
+        RouteResult result;
+        int[] sequence;
+        try {
+            int[] seed = store == null ? null : store.seed(courier.courierId, start, orders, calculator,
+                                                           context.getAverageSpeedKmh());
+            result = context.optimizeRoute(start, orders, seed, calculator);
+            sequence = mapRoute(result, tail.size());
+            if (store != null) {
+                store.put(courier.courierId, orders, sequence);
+            }
+            solves++;
+        } catch (RuntimeException e) {
+            // Observers were notified by the context; serve the tail first come, first served so it still progresses
+            failedSolves++;
+            result = null;
+            sequence = arrivalOrderSequence(tail);
+        }
+        for (PendingOrder order : courier.orders.values()) {
+            order.planned = false;
+        }
+        for (PendingOrder order : tail) {
+            order.planned = true;
+        }
+        courier.flexible = schedule(sequence, tail, start, startMillis, calculator);
+        courier.dirty = false;
+        return result;
+    }
+
+    /**
+     * The context's calculator with route time 0 at the given dispatcher time; time-independent ones as they are
+     */
+    private DistanceCalculator calculatorAt(long startMillis) {
+        DistanceCalculator calculator = context.getDistanceCalculator();
+        if (!(calculator instanceof TimeDependentDistanceCalculator)) {
+            return calculator;
+        }
+        TimeDependentDistanceCalculator timeDependent = (TimeDependentDistanceCalculator) calculator;
+        return timeDependent.startingAt(timeDependent.getRouteStartMinuteOfDay()
+                                        + (startMillis - clockOriginMillis) / 60_000.0);
+    }
+
+    private static Location taskLocation(char prefix, int index, Location location) {
+        return new Location(prefix + Integer.toString(index), location.getAddress(),
+                            location.getLatitude(), location.getLongitude());
+    }
+
+    /**
+     * Map the strategy's route, named by task location, back onto tail task indexes
+     * @return task sequence, 2 * tail index for a pickup and 2 * tail index + 1 for a delivery
+     */
+    private static int[] mapRoute(RouteResult result, int tailSize) {
+        List<String> route = result.getRoute();
+        if (route.size() != 2 * tailSize + 1) {
+            throw new IllegalStateException("Route has " + (route.size() - 1) + " stops for " + tailSize + " orders");
+        }
+        boolean[] served = new boolean[2 * tailSize];
+        int[] sequence = new int[2 * tailSize];
+        for (int r = 1; r < route.size(); r++) {
+            String name = route.get(r);
+            int task = 2 * Integer.parseInt(name, 1, name.length(), 10) + (name.charAt(0) == DELIVERY_PREFIX ? 1 : 0);
+            if (served[task] || task % 2 == 1 && !served[task - 1]) {
+                throw new IllegalStateException("Route serves task " + name + " out of order");
+            }
+            served[task] = true;
+            sequence[r - 1] = task;
+        }
+        return sequence;
+    }
+
+    private static int[] arrivalOrderSequence(List<PendingOrder> tail) {
+        int[] sequence = new int[2 * tail.size()];
+        for (int i = 0; i < sequence.length; i++) {
+            sequence[i] = i;
+        }
+        return sequence;
+    }
+
+    /**
+     * Turn a task sequence into stops with absolute arrival and completion times
+     * Pickups of orders already on board are skipped; pickups wait until the food is ready.
+     */
+    private List<PlannedStop> schedule(int[] sequence, List<PendingOrder> tail, Location start, long startMillis,
+                                       DistanceCalculator calculator) {
+        double speedKmh = context.getAverageSpeedKmh();
+        List<PlannedStop> stops = new ArrayList<>(sequence.length);
+        Location current = start;
+        double minutes = 0;
+        for (int task : sequence) {
+            PendingOrder order = tail.get(task / 2);
+            boolean pickup = task % 2 == 0;
+            if (pickup && order.pickupCommitted) {
+                continue;
+            }
+            Location location = pickup ? order.event.getOrder().getRestaurantLocation()
+                                       : order.event.getOrder().getConsumerLocation();
+            minutes += calculator.calculateTravelTime(current, location, speedKmh, minutes);
+            long arrival = startMillis + Math.round(minutes * 60_000);
+            long completion = arrival;
+            if (pickup && order.event.getReadyTimeMillis() > arrival) {
+                completion = order.event.getReadyTimeMillis();
+                minutes = (completion - startMillis) / 60_000.0;
+            }
+            stops.add(new PlannedStop(order.getOrderId(), pickup, location, arrival, completion));
+            current = location;
+        }
+        return stops;
+    }
+
+    private static long cpuTimeNanos() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * Replay an order log through the dispatcher on a simulation clock:
+     * RollingHorizonDispatcher file [windowSeconds] [cpuBudgetMillis]
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: RollingHorizonDispatcher <orders.csv|orders.jsonl> [windowSeconds] [cpuBudgetMillis]");
+            return;
+        }
+        Path file = Paths.get(args[0]);
+        long windowMillis = args.length > 1 ? Long.parseLong(args[1]) * 1000 : DEFAULT_WINDOW_MILLIS;
+        long budgetMillis = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_WINDOW_CPU_BUDGET_MILLIS;
+
+        DeliveryRouteOptimizationContext context = new DeliveryRouteOptimizationContext(
+                new GreedyNearestNeighborStrategy(), new HaversineDistanceCalculator(), 20.0);
+        long[] plans = new long[1];
+        RollingHorizonDispatcher dispatcher = new RollingHorizonDispatcher(context, new SimulationClock(0),
+                plan -> plans[0]++)
+                .setWindowMillis(windowMillis)
+                .setWindowCpuBudgetMillis(budgetMillis);
+
+        long started = System.nanoTime();
+        OrderLogLoader.LoadSummary summary = new OrderLogLoader().setSkipMalformed(true).loadRecords(file,
+                (courierId, courierLocation, orderMinute, order) -> {
+                    try {
+                        dispatcher.replayEvent(new OrderEvent(orderMinute * 60_000L, courierId, courierLocation, order));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Replay interrupted", e);
+                    }
+                });
+        dispatcher.finishReplay();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.println(summary);
+        System.out.printf("%d windows, %d plans, %d solves (%d deferred, %d failed), %d budget overruns, max window %.1f ms%n",
+                dispatcher.getWindowCount(), plans[0], dispatcher.getSolveCount(), dispatcher.getDeferredSolveCount(),
+                dispatcher.getFailedSolveCount(), dispatcher.getBudgetOverrunCount(),
+                dispatcher.getMaxWindowCpuNanos() / 1e6);
+        System.out.printf("Delivered %d of %d orders in %.1f s%n", dispatcher.getOrdersDelivered(),
+                dispatcher.getOrdersReceived(), seconds);
+    }
+}
@@ -0,0 +1,21 @@
+package com.deliveryoptimizer.streamingdispatch;
+
+/**
+ * Wall-clock time; awaiting sleeps until the target time
+ */
+public class SystemDispatchClock implements DispatchClock {
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void awaitUntil(long timeMillis) throws InterruptedException {
+        long remaining = timeMillis - System.currentTimeMillis();
+        while (remaining > 0) {
+            Thread.sleep(remaining);
+            remaining = timeMillis - System.currentTimeMillis();
+        }
+    }
+}
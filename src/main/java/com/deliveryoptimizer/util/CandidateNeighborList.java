@@ -0,0 +1,99 @@
+package com.deliveryoptimizer.util;
+
+import java.util.List;
+
+import com.deliveryoptimizer.constants.PriorityEnum;
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.distancestrategy.TravelTimeMatrix;
+
+/**
+ * Granular candidate lists holding the k nearest task slots of every location slot
+ * Lets heuristics evaluate moves against nearby stops only, O(nk) instead of O(n^2) per iteration
+ * Neighbors are sorted by travel time, then pickups before deliveries, then by order index
+ */
+public class CandidateNeighborList {
+
+    private final int k;
+    private final int[] neighbors;
+    private final int[] neighborCounts;
+
+    private CandidateNeighborList(int k, int[] neighbors, int[] neighborCounts) {
+        this.k = k;
+        this.neighbors = neighbors;
+        this.neighborCounts = neighborCounts;
+    }
+
+    /**
+     * Build candidate lists over every pickup and delivery slot
+     */
+    public static CandidateNeighborList build(TravelTimeMatrix matrix, int k) {
+        return build(matrix, k, null, null);
+    }
+
+    /**
+     * Build candidate lists keeping only slots whose order has at least the given priority
+     * @param orders Orders the matrix was built from (ignored when minimumPriority is null)
+     * @param minimumPriority Lowest priority admitted as a neighbor, or null for no filtering
+     */
+    public static CandidateNeighborList build(TravelTimeMatrix matrix, int k, List<DeliveryOrder> orders,
+                                              PriorityEnum minimumPriority) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        int slotCount = matrix.getSlotCount();
+        int[] neighbors = new int[slotCount * k];
+        int[] neighborCounts = new int[slotCount];
+        double[] bestTimes = new double[k];
+
+        for (int from = 0; from < slotCount; from++) {
+            int base = from * k;
+            int count = 0;
+            for (int to = 1; to < slotCount; to++) {
+                if (to == from) continue;
+                if (minimumPriority != null && orders.get(TravelTimeMatrix.orderIndexOf(to)).getPriority()
+                        .getWeight() < minimumPriority.getWeight()) continue;
+
+                double time = matrix.getTravelTime(from, to);
+                if (count == k && !isCloser(time, to, bestTimes[k - 1], neighbors[base + k - 1])) continue;
+
+                // Insertion into the bounded sorted window
+                int pos = count < k ? count++ : k - 1;
+                while (pos > 0 && isCloser(time, to, bestTimes[pos - 1], neighbors[base + pos - 1])) {
+                    bestTimes[pos] = bestTimes[pos - 1];
+                    neighbors[base + pos] = neighbors[base + pos - 1];
+                    pos--;
+                }
+                bestTimes[pos] = time;
+                neighbors[base + pos] = to;
+            }
+            neighborCounts[from] = count;
+        }
+        return new CandidateNeighborList(k, neighbors, neighborCounts);
+    }
+
+    /**
+     * Number of candidates stored for a slot (at most k)
+     */
+    public int getNeighborCount(int slot) {
+        return neighborCounts[slot];
+    }
+
+    /**
+     * Candidate of the given rank for a slot, nearest first
+     */
+    public int getNeighbor(int slot, int rank) {
+        return neighbors[slot * k + rank];
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    private static boolean isCloser(double time, int slot, double otherTime, int otherSlot) {
+        if (time != otherTime) return time < otherTime;
+        boolean pickup = TravelTimeMatrix.isPickupSlot(slot);
+        boolean otherPickup = TravelTimeMatrix.isPickupSlot(otherSlot);
+        if (pickup != otherPickup) return pickup;
+        return slot < otherSlot;
+    }
+}
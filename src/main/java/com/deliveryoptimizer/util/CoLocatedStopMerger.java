@@ -0,0 +1,121 @@
+package com.deliveryoptimizer.util;
+
+import java.util.*;
+
+import com.deliveryoptimizer.core.CompositeStop;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.core.SearchStatistics;
+import com.deliveryoptimizer.core.Task;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+
+/**
+ * Utility class for detecting co-located tasks and merging them into composite stops
+ * Tasks whose locations lie within a tolerance share a stop id, and consecutive tasks
+ * with the same stop id are served in one visit
+ */
+public class CoLocatedStopMerger {
+
+    /**
+     * Assign a stop id to every task; tasks within toleranceKm of a stop's
+     * representative (its first task's location) share that stop's id
+     * @param allTasks Tasks in generateAllTasks layout
+     * @param toleranceKm Merge radius; 0 merges only identical coordinates
+     * @return stop id per task index, numbered from 0 in first-seen order
+     */
+    public static int[] assignStopIds(List<Task> allTasks, DistanceCalculator distanceCalculator,
+                                      double toleranceKm) {
+        return assignStopIds(allTasks, distanceCalculator, toleranceKm, null);
+    }
+
+    /**
+     * Same as assignStopIds, counting the distance calculations it makes
+     * @param statistics Receives the distance calls; may be null
+     */
+    public static int[] assignStopIds(List<Task> allTasks, DistanceCalculator distanceCalculator,
+                                      double toleranceKm, SearchStatistics statistics) {
+        int[] stopIds = new int[allTasks.size()];
+        List<Location> representatives = new ArrayList<>();
+
+        for (int t = 0; t < allTasks.size(); t++) {
+            Location location = allTasks.get(t).getLocation();
+            int stopId = -1;
+            for (int s = 0; s < representatives.size(); s++) {
+                if (isSamePlace(representatives.get(s), location, distanceCalculator, toleranceKm, statistics)) {
+                    stopId = s;
+                    break;
+                }
+            }
+            if (stopId < 0) {
+                stopId = representatives.size();
+                representatives.add(location);
+            }
+            stopIds[t] = stopId;
+        }
+        return stopIds;
+    }
+
+    /**
+     * Representative location of each stop id produced by assignStopIds
+     */
+    public static Location[] stopLocations(List<Task> allTasks, int[] stopIds) {
+        int stopCount = 0;
+        for (int stopId : stopIds) {
+            stopCount = Math.max(stopCount, stopId + 1);
+        }
+        Location[] locations = new Location[stopCount];
+        for (int t = 0; t < stopIds.length; t++) {
+            if (locations[stopIds[t]] == null) {
+                locations[stopIds[t]] = allTasks.get(t).getLocation();
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Collapse consecutive tasks that share a stop id into composite stops
+     */
+    public static List<CompositeStop> mergeSequence(List<Task> sequence, int[] stopIds, Location[] stopLocations) {
+        List<CompositeStop> stops = new ArrayList<>();
+        List<Task> pending = new ArrayList<>();
+        int pendingStop = -1;
+
+        for (Task task : sequence) {
+            int stopId = stopIds[TaskSequenceGenerator.taskIndex(task)];
+            if (stopId != pendingStop && !pending.isEmpty()) {
+                stops.add(new CompositeStop(stopLocations[pendingStop], pending));
+                pending.clear();
+            }
+            pending.add(task);
+            pendingStop = stopId;
+        }
+        if (!pending.isEmpty()) {
+            stops.add(new CompositeStop(stopLocations[pendingStop], pending));
+        }
+        return stops;
+    }
+
+    /**
+     * Expand composite stops back into the full per-order task sequence
+     */
+    public static List<Task> expand(List<CompositeStop> stops) {
+        List<Task> sequence = new ArrayList<>();
+        for (CompositeStop stop : stops) {
+            sequence.addAll(stop.getTasks());
+        }
+        return sequence;
+    }
+
+    private static boolean isSamePlace(Location a, Location b, DistanceCalculator distanceCalculator,
+                                       double toleranceKm, SearchStatistics statistics) {
+        if (a.getLatitude() == b.getLatitude() && a.getLongitude() == b.getLongitude()) {
+            return true;
+        }
+        if (toleranceKm <= 0) {
+            return false;
+        }
+        if (statistics != null) {
+            statistics.addDistanceCalls(1);
+        }
+        return distanceCalculator.calculateDistance(a, b) <= toleranceKm;
+    }
+}
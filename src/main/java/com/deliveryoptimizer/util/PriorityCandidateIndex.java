@@ -0,0 +1,275 @@
+package com.deliveryoptimizer.util;
+
+import java.util.Arrays;
+
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.TimeDependentDistanceCalculator;
+
+/**
+ * Incrementally maintained index of open task slots, grouped by priority weight
+ * Answers "best next slot" queries ordered by (priority weight desc, travel time, ready time)
+ * without rescanning every order: each priority class keeps its slots in a uniform
+ * latitude/longitude grid that is searched ring by ring outward from the courier
+ * Ring pruning bounds travel times by great-circle distance, so it is only used over a
+ * HaversineDistanceCalculator; any other calculator gets a full scan of the class
+ */
+public class PriorityCandidateIndex {
+
+    // Below this class size a plain scan beats the ring search
+    private static final int LINEAR_SCAN_LIMIT = 32;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    // Keeps the ring lower bound conservative against the flat-cell approximation
+    private static final double BOUND_SAFETY_FACTOR = 0.9;
+    private static final double TARGET_SLOTS_PER_CELL = 2.0;
+
+    private final Location[] slotLocations;
+    private final int[] slotWeights;
+    private final double[] slotReadyTimes;
+    private final DistanceCalculator distanceCalculator;
+    private final double speedKmh;
+    private final boolean ringPruning;
+
+    // Grid geometry shared by all classes
+    private final double minLat;
+    private final double minLng;
+    private final double cellLatDeg;
+    private final double cellLngDeg;
+    private final int rows;
+    private final int cols;
+    private final double minCellKm;
+    private final int[] slotCells;
+
+    // Per-class membership: compact slot lists and per-cell buckets
+    private final int[][] classSlots;
+    private final int[] classSizes;
+    private final int[][][] cellSlots;
+    private final int[][] cellSizes;
+    private final int[] slotClassPositions;
+    private final int[] slotCellPositions;
+
+    private double lastTravelTime;
+    private long distanceCalls;
+
+    /**
+     * @param slotLocations Location of every slot
+     * @param slotWeights Priority weight of every slot (PriorityEnum weights, at least 1)
+     * @param slotReadyTimes Earliest service time of every slot, used to break travel-time ties
+     */
+    public PriorityCandidateIndex(Location[] slotLocations, int[] slotWeights, double[] slotReadyTimes,
+                                  DistanceCalculator distanceCalculator, double speedKmh) {
+        this.slotLocations = slotLocations;
+        this.slotWeights = slotWeights;
+        this.slotReadyTimes = slotReadyTimes;
+        this.distanceCalculator = distanceCalculator;
+        this.speedKmh = speedKmh;
+        this.ringPruning = isGreatCircle(distanceCalculator);
+
+        int slotCount = slotLocations.length;
+        double loLat = Double.MAX_VALUE, hiLat = -Double.MAX_VALUE;
+        double loLng = Double.MAX_VALUE, hiLng = -Double.MAX_VALUE;
+        for (Location location : slotLocations) {
+            loLat = Math.min(loLat, location.getLatitude());
+            hiLat = Math.max(hiLat, location.getLatitude());
+            loLng = Math.min(loLng, location.getLongitude());
+            hiLng = Math.max(hiLng, location.getLongitude());
+        }
+        int side = Math.max(1, (int) Math.sqrt(slotCount / TARGET_SLOTS_PER_CELL));
+        this.minLat = loLat;
+        this.minLng = loLng;
+        this.rows = hiLat > loLat ? side : 1;
+        this.cols = hiLng > loLng ? side : 1;
+        this.cellLatDeg = Math.max((hiLat - loLat) / rows, 1e-9);
+        this.cellLngDeg = Math.max((hiLng - loLng) / cols, 1e-9);
+        double maxAbsLat = Math.min(89.0, Math.max(Math.abs(loLat), Math.abs(hiLat)));
+        double cellLatKm = EARTH_RADIUS_KM * Math.toRadians(cellLatDeg);
+        double cellLngKm = EARTH_RADIUS_KM * Math.toRadians(cellLngDeg) * Math.cos(Math.toRadians(maxAbsLat));
+        this.minCellKm = Math.min(cellLatKm, cellLngKm) * BOUND_SAFETY_FACTOR;
+
+        this.slotCells = new int[slotCount];
+        for (int slot = 0; slot < slotCount; slot++) {
+            slotCells[slot] = cellOf(slotLocations[slot]);
+        }
+
+        int classCount = 1;
+        for (int weight : slotWeights) {
+            classCount = Math.max(classCount, weight + 1);
+        }
+        this.classSlots = new int[classCount][];
+        this.classSizes = new int[classCount];
+        this.cellSlots = new int[classCount][][];
+        this.cellSizes = new int[classCount][];
+        this.slotClassPositions = new int[slotCount];
+        this.slotCellPositions = new int[slotCount];
+    }
+
+    /**
+     * Make a slot eligible for selection
+     */
+    public void add(int slot) {
+        int cls = slotWeights[slot];
+        if (classSlots[cls] == null) {
+            classSlots[cls] = new int[16];
+            cellSlots[cls] = new int[rows * cols][];
+            cellSizes[cls] = new int[rows * cols];
+        }
+        if (classSizes[cls] == classSlots[cls].length) {
+            classSlots[cls] = Arrays.copyOf(classSlots[cls], classSizes[cls] * 2);
+        }
+        slotClassPositions[slot] = classSizes[cls];
+        classSlots[cls][classSizes[cls]++] = slot;
+
+        int cell = slotCells[slot];
+        int[] bucket = cellSlots[cls][cell];
+        int size = cellSizes[cls][cell];
+        if (bucket == null) {
+            bucket = cellSlots[cls][cell] = new int[4];
+        } else if (size == bucket.length) {
+            bucket = cellSlots[cls][cell] = Arrays.copyOf(bucket, size * 2);
+        }
+        slotCellPositions[slot] = size;
+        bucket[size] = slot;
+        cellSizes[cls][cell] = size + 1;
+    }
+
+    /**
+     * Remove a slot that has been served
+     */
+    public void remove(int slot) {
+        int cls = slotWeights[slot];
+
+        // Swap-remove from the class list
+        int pos = slotClassPositions[slot];
+        int lastSlot = classSlots[cls][--classSizes[cls]];
+        classSlots[cls][pos] = lastSlot;
+        slotClassPositions[lastSlot] = pos;
+
+        // Swap-remove from the cell bucket
+        int cell = slotCells[slot];
+        int[] bucket = cellSlots[cls][cell];
+        int cellPos = slotCellPositions[slot];
+        int lastInCell = bucket[--cellSizes[cls][cell]];
+        bucket[cellPos] = lastInCell;
+        slotCellPositions[lastInCell] = cellPos;
+    }
+
+    public boolean isEmpty() {
+        for (int size : classSizes) {
+            if (size > 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Find the best open slot from the given location: highest priority weight first,
+     * then shortest travel time, then earliest ready time, then lowest slot
+     * @return the slot, or -1 when the index is empty
+     */
+    public int findBest(Location from) {
+        for (int cls = classSizes.length - 1; cls >= 0; cls--) {
+            if (classSizes[cls] > 0) {
+                return classSizes[cls] <= LINEAR_SCAN_LIMIT || !ringPruning ? scanClass(cls, from)
+                                                                            : searchRings(cls, from);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Travel time from the query location to the slot returned by the last findBest call
+     */
+    public double getLastTravelTime() {
+        return lastTravelTime;
+    }
+
+    /**
+     * Travel-time calculations performed by all queries so far
+     */
+    public long getDistanceCalls() {
+        return distanceCalls;
+    }
+
+    /**
+     * Whether nominal travel times are great-circle distances over the speed, which the ring bound relies on
+     * Subclasses of the Haversine calculator may scale or replace distances, so only the class itself qualifies.
+     */
+    static boolean isGreatCircle(DistanceCalculator distanceCalculator) {
+        if (distanceCalculator instanceof TimeDependentDistanceCalculator) {
+            // Nominal times come from the wrapped calculator
+            distanceCalculator = ((TimeDependentDistanceCalculator) distanceCalculator).getBaseCalculator();
+        }
+        return distanceCalculator.getClass() == HaversineDistanceCalculator.class;
+    }
+
+    private int scanClass(int cls, Location from) {
+        int best = -1;
+        double bestTime = Double.MAX_VALUE;
+        for (int i = 0; i < classSizes[cls]; i++) {
+            int slot = classSlots[cls][i];
+            double time = distanceCalculator.calculateTravelTime(from, slotLocations[slot], speedKmh);
+            distanceCalls++;
+            if (isBetter(slot, time, best, bestTime)) {
+                best = slot;
+                bestTime = time;
+            }
+        }
+        lastTravelTime = bestTime;
+        return best;
+    }
+
+    private int searchRings(int cls, Location from) {
+        int originCell = cellOf(from);
+        int originRow = originCell / cols;
+        int originCol = originCell % cols;
+        int maxRing = Math.max(Math.max(originRow, rows - 1 - originRow), Math.max(originCol, cols - 1 - originCol));
+
+        int best = -1;
+        double bestTime = Double.MAX_VALUE;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (best >= 0 && ring >= 2) {
+                // Anything in this ring is at least (ring - 1) full cells away
+                double lowerBound = (ring - 1) * minCellKm / speedKmh * 60;
+                if (lowerBound > bestTime) break;
+            }
+            int rowLo = Math.max(0, originRow - ring), rowHi = Math.min(rows - 1, originRow + ring);
+            int colLo = Math.max(0, originCol - ring), colHi = Math.min(cols - 1, originCol + ring);
+            for (int row = rowLo; row <= rowHi; row++) {
+                boolean edgeRow = row == originRow - ring || row == originRow + ring;
+                // Interior rows of a ring only contribute their two edge cells
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int col = originCol - ring; col <= originCol + ring; col += step) {
+                    if (col < colLo || col > colHi) continue;
+                    int cell = row * cols + col;
+                    int[] bucket = cellSlots[cls][cell];
+                    for (int i = 0; i < cellSizes[cls][cell]; i++) {
+                        int slot = bucket[i];
+                        double time = distanceCalculator.calculateTravelTime(from, slotLocations[slot], speedKmh);
+                        distanceCalls++;
+                        if (isBetter(slot, time, best, bestTime)) {
+                            best = slot;
+                            bestTime = time;
+                        }
+                    }
+                }
+            }
+        }
+        lastTravelTime = bestTime;
+        return best;
+    }
+
+    private boolean isBetter(int slot, double time, int best, double bestTime) {
+        if (best < 0) return true;
+        if (time != bestTime) return time < bestTime;
+        if (slotReadyTimes[slot] != slotReadyTimes[best]) return slotReadyTimes[slot] < slotReadyTimes[best];
+        return slot < best;
+    }
+
+    private int cellOf(Location location) {
+        int row = (int) ((location.getLatitude() - minLat) / cellLatDeg);
+        int col = (int) ((location.getLongitude() - minLng) / cellLngDeg);
+        row = Math.max(0, Math.min(rows - 1, row));
+        col = Math.max(0, Math.min(cols - 1, col));
+        return row * cols + col;
+    }
+}
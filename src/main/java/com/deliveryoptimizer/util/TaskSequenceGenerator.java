@@ -24,6 +24,31 @@ public class TaskSequenceGenerator {
         return tasks;
     }
     
+    /**
+     * Position of a task in the list produced by generateAllTasks
+     */
+    public static int taskIndex(Task task) {
+        return task.getOrderIndex() * 2 + (task.isPickup() ? 0 : 1);
+    }
+
+    /**
+     * True when the sequence of task indexes serves every task of orderCount orders once, each pickup before
+     * its delivery
+     */
+    public static boolean isValidSequence(int[] sequence, int orderCount) {
+        if (sequence.length != orderCount * 2) {
+            return false;
+        }
+        boolean[] used = new boolean[sequence.length];
+        for (int t : sequence) {
+            if (t < 0 || t >= used.length || used[t] || (t & 1) == 1 && !used[t - 1]) {
+                return false;
+            }
+            used[t] = true;
+        }
+        return true;
+    }
+
     /**
      * Generate all valid task sequences ensuring pickup happens before delivery for each order
      */
@@ -62,4 +87,46 @@ public class TaskSequenceGenerator {
             }
         }
     }
+    
+    /**
+     * Generate valid task sequences with symmetric orderings of co-located tasks removed.
+     * Consecutive tasks sharing a stop id are only emitted in ascending task index order,
+     * since any order of them takes the same time.
+     * @param stopIds Stop id per task index, as produced by CoLocatedStopMerger.assignStopIds
+     */
+    public static List<List<Task>> generateCanonicalTaskSequences(List<Task> allTasks, int[] stopIds) {
+        List<List<Task>> result = new ArrayList<>();
+        generateCanonicalSequencesRecursive(allTasks, stopIds, new ArrayList<>(), new boolean[allTasks.size()],
+                                            -1, result);
+        return result;
+    }
+    
+    /**
+     * Recursive helper to generate canonical sequences
+     */
+    private static void generateCanonicalSequencesRecursive(List<Task> allTasks, int[] stopIds,
+                                                            List<Task> currentSequence, boolean[] used,
+                                                            int lastTaskIndex, List<List<Task>> result) {
+        if (currentSequence.size() == allTasks.size()) {
+            result.add(new ArrayList<>(currentSequence));
+            return;
+        }
+        
+        for (int t = 0; t < allTasks.size(); t++) {
+            if (used[t]) continue;
+            Task task = allTasks.get(t);
+            
+            // Delivery only after its pickup (pickup of order i sits at index 2i)
+            if (!task.isPickup() && !used[t - 1]) continue;
+            
+            // Skip the mirrored ordering of tasks served in the same composite stop
+            if (lastTaskIndex >= 0 && stopIds[t] == stopIds[lastTaskIndex] && t < lastTaskIndex) continue;
+            
+            used[t] = true;
+            currentSequence.add(task);
+            generateCanonicalSequencesRecursive(allTasks, stopIds, currentSequence, used, t, result);
+            currentSequence.remove(currentSequence.size() - 1);
+            used[t] = false;
+        }
+    }
 }
@@ -0,0 +1,244 @@
+package com.deliveryoptimizer.warmstart;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+
+/**
+ * Last route solved for each courier, kept as a seed for the courier's next re-plan
+ * A route is stored as its task order by order id, so it survives the orders being renumbered between dispatch
+ * ticks. seed() projects it onto the current orders: tasks of delivered or reassigned orders are dropped,
+ * pickups already at the start location (orders on board) move to the front, and tasks of new orders are
+ * inserted where they add the least nominal travel time. The result is a valid sequence for a
+ * WarmStartStrategy, typically a few minutes of route away from the new optimum.
+ *
+ * Bounded by courier count with least-recently-used eviction; safe to use from any thread.
+ */
+public class WarmStartStore {
+
+    public static final int DEFAULT_MAX_COURIERS = 10_000;
+
+    private final int maxCouriers;
+    private final Map<String, StoredRoute> routes;
+
+    private final AtomicLong exactHits = new AtomicLong();
+    private final AtomicLong projectedHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public WarmStartStore() {
+        this(DEFAULT_MAX_COURIERS);
+    }
+
+    public WarmStartStore(int maxCouriers) {
+        if (maxCouriers <= 0) {
+            throw new IllegalArgumentException("maxCouriers must be positive: " + maxCouriers);
+        }
+        this.maxCouriers = maxCouriers;
+        // Access-ordered map gives LRU iteration order for size eviction
+        this.routes = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Remember the courier's route
+     * @param taskSequence Task indexes over the orders, 2i the pickup and 2i + 1 the delivery of orders.get(i)
+     */
+    public void put(String courierId, List<DeliveryOrder> orders, int[] taskSequence) {
+        String[] orderIds = new String[taskSequence.length];
+        boolean[] pickups = new boolean[taskSequence.length];
+        for (int k = 0; k < taskSequence.length; k++) {
+            orderIds[k] = orders.get(taskSequence[k] >> 1).getOrderId();
+            pickups[k] = (taskSequence[k] & 1) == 0;
+        }
+        StoredRoute route = new StoredRoute(orderIds, pickups);
+        synchronized (this) {
+            routes.put(courierId, route);
+            Iterator<StoredRoute> eldest = routes.values().iterator();
+            while (routes.size() > maxCouriers && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Seed for the courier's next solve over the given orders, or null when no route of the courier is known
+     * or none of its orders are still outstanding
+     */
+    public int[] seed(String courierId, Location startLocation, List<DeliveryOrder> orders,
+                      DistanceCalculator distanceCalculator, double speedKmh) {
+        StoredRoute route;
+        synchronized (this) {
+            route = routes.get(courierId);
+        }
+        if (route == null || orders.isEmpty()) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        Map<String, Integer> indexes = new HashMap<>(orders.size() * 2);
+        for (int i = 0; i < orders.size(); i++) {
+            indexes.put(orders.get(i).getOrderId(), i);
+        }
+        int taskCount = orders.size() * 2;
+        boolean[] placed = new boolean[taskCount];
+        List<Integer> sequence = new ArrayList<>(taskCount);
+
+        // Orders on board are picked up where the courier stands, so their pickups go first at no cost
+        for (int i = 0; i < orders.size(); i++) {
+            if (sameCoordinates(orders.get(i).getRestaurantLocation(), startLocation)) {
+                sequence.add(2 * i);
+                placed[2 * i] = true;
+            }
+        }
+        int kept = 0;
+        for (int k = 0; k < route.orderIds.length; k++) {
+            Integer index = indexes.get(route.orderIds[k]);
+            if (index == null) {
+                continue;
+            }
+            int task = 2 * index + (route.pickups[k] ? 0 : 1);
+            if (placed[task]) {
+                continue;
+            }
+            kept++;
+            if ((task & 1) == 1 && !placed[task - 1]) {
+                // The pickup is inserted below and the delivery after it
+                continue;
+            }
+            sequence.add(task);
+            placed[task] = true;
+        }
+        if (kept == 0) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        boolean exact = true;
+        for (int task = 0; task < taskCount; task += 2) {
+            if (!placed[task]) {
+                exact = false;
+                insertPair(sequence, task, startLocation, orders, distanceCalculator, speedKmh);
+                placed[task] = true;
+                placed[task + 1] = true;
+            } else if (!placed[task + 1]) {
+                exact = false;
+                insertDelivery(sequence, task + 1, startLocation, orders, distanceCalculator, speedKmh);
+                placed[task + 1] = true;
+            }
+        }
+        if (exact && route.orderIds.length == taskCount) {
+            exactHits.incrementAndGet();
+        } else {
+            projectedHits.incrementAndGet();
+        }
+        int[] seed = new int[taskCount];
+        for (int k = 0; k < taskCount; k++) {
+            seed[k] = sequence.get(k);
+        }
+        return seed;
+    }
+
+    /**
+     * Forget the courier, e.g. when it goes off shift
+     */
+    public synchronized void remove(String courierId) {
+        routes.remove(courierId);
+    }
+
+    public synchronized int size() {
+        return routes.size();
+    }
+
+    /**
+     * Seeds over exactly the orders of the stored route
+     */
+    public long getExactHitCount() {
+        return exactHits.get();
+    }
+
+    /**
+     * Seeds projected from a route over a different order set
+     */
+    public long getProjectedHitCount() {
+        return projectedHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WarmStartStore[size=%d, exact=%d, projected=%d, misses=%d, evictions=%d]",
+                size(), getExactHitCount(), getProjectedHitCount(), getMissCount(), getEvictionCount());
+    }
+
+    /**
+     * Insert a pickup at its cheapest position, then its delivery at the cheapest position after it
+     */
+    private static void insertPair(List<Integer> sequence, int pickup, Location start, List<DeliveryOrder> orders,
+                                   DistanceCalculator calculator, double speedKmh) {
+        int at = cheapestPosition(sequence, pickup, 0, start, orders, calculator, speedKmh);
+        sequence.add(at, pickup);
+        sequence.add(cheapestPosition(sequence, pickup + 1, at + 1, start, orders, calculator, speedKmh), pickup + 1);
+    }
+
+    private static void insertDelivery(List<Integer> sequence, int delivery, Location start,
+                                       List<DeliveryOrder> orders, DistanceCalculator calculator, double speedKmh) {
+        int from = sequence.indexOf(delivery - 1) + 1;
+        sequence.add(cheapestPosition(sequence, delivery, from, start, orders, calculator, speedKmh), delivery);
+    }
+
+    /**
+     * Position at or after from where the task adds the least nominal travel time
+     */
+    private static int cheapestPosition(List<Integer> sequence, int task, int from, Location start,
+                                        List<DeliveryOrder> orders, DistanceCalculator calculator,
+                                        double speedKmh) {
+        Location location = locationOf(task, orders);
+        int best = sequence.size();
+        double bestCost = Double.MAX_VALUE;
+        for (int position = from; position <= sequence.size(); position++) {
+            Location before = position == 0 ? start : locationOf(sequence.get(position - 1), orders);
+            double cost = calculator.calculateTravelTime(before, location, speedKmh);
+            if (position < sequence.size()) {
+                Location after = locationOf(sequence.get(position), orders);
+                cost += calculator.calculateTravelTime(location, after, speedKmh)
+                        - calculator.calculateTravelTime(before, after, speedKmh);
+            }
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = position;
+            }
+        }
+        return best;
+    }
+
+    private static Location locationOf(int task, List<DeliveryOrder> orders) {
+        DeliveryOrder order = orders.get(task >> 1);
+        return (task & 1) == 0 ? order.getRestaurantLocation() : order.getConsumerLocation();
+    }
+
+    private static boolean sameCoordinates(Location a, Location b) {
+        return a.getLatitude() == b.getLatitude() && a.getLongitude() == b.getLongitude();
+    }
+
+    private static final class StoredRoute {
+        final String[] orderIds;
+        final boolean[] pickups;
+
+        StoredRoute(String[] orderIds, boolean[] pickups) {
+            this.orderIds = orderIds;
+            this.pickups = pickups;
+        }
+    }
+}
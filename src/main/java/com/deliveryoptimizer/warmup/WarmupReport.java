@@ -0,0 +1,52 @@
+package com.deliveryoptimizer.warmup;
+
+/**
+ * Outcome of a WarmupRunner run
+ */
+public final class WarmupReport {
+    private final int rounds;
+    private final long solves;
+    private final long elapsedMillis;
+    private final long compileMillis;
+    private final boolean converged;
+
+    WarmupReport(int rounds, long solves, long elapsedMillis, long compileMillis, boolean converged) {
+        this.rounds = rounds;
+        this.solves = solves;
+        this.elapsedMillis = elapsedMillis;
+        this.compileMillis = compileMillis;
+        this.converged = converged;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    public long getSolves() {
+        return solves;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * JIT compilation time spent while warming up, or -1 when the JVM does not report it
+     */
+    public long getCompileMillis() {
+        return compileMillis;
+    }
+
+    /**
+     * True when compilation went quiet before the time limit
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rounds, %d solves in %d ms (%d ms compiling, %s)", rounds, solves, elapsedMillis,
+                             compileMillis, converged ? "converged" : "time limit reached");
+    }
+}
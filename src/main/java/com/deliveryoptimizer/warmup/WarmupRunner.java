@@ -0,0 +1,185 @@
+package com.deliveryoptimizer.warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.deliveryoptimizer.DeliveryRouteOptimizationContext;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.SpeedProfileTable;
+import com.deliveryoptimizer.distancestrategy.TimeDependentDistanceCalculator;
+import com.deliveryoptimizer.optimizationstrategy.BeamSearchOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.ExhaustiveSearchOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.GreedyNearestNeighborStrategy;
+import com.deliveryoptimizer.optimizationstrategy.LocalSearchOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.PriorityBasedOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.RouteOptimizationStrategy;
+import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
+import com.deliveryoptimizer.scenariofactory.SyntheticScenarioGenerator;
+
+/**
+ * Replays a generated workload through every strategy and distance calculator until the JIT has compiled them
+ * Each round solves a fresh set of synthetic scenarios with every strategy, through one
+ * DeliveryRouteOptimizationContext per calculator so the lower bound and observer paths are exercised too;
+ * exhaustive search only sees the small scenarios. Warm-up ends once the JVM's total compilation time grew by
+ * at most the quiet threshold in each of the last few rounds, or when the time limit runs out. Run at startup
+ * before reporting ready, and as the training run of a class-data-sharing archive.
+ */
+public class WarmupRunner {
+
+    public static final long DEFAULT_MAX_DURATION_MILLIS = 20_000;
+    public static final long DEFAULT_QUIET_COMPILE_MILLIS = 2;
+
+    private static final int[] ORDER_COUNTS = {3, 4, 8, 15, 30};
+    private static final int EXHAUSTIVE_MAX_ORDERS = 4;
+    private static final int SCENARIO_VARIANTS = 8;
+    private static final int MIN_ROUNDS = 5;
+    private static final int QUIET_ROUNDS = 3;
+    private static final long SEED = 1_234;
+    private static final double SPEED_KMH = 20.0;
+    private static final String SPEED_PROFILES = "/speedprofiles/bangalore-speed-profiles.txt";
+
+    private final List<Supplier<RouteOptimizationStrategy>> strategies = new ArrayList<>(Arrays.asList(
+            GreedyNearestNeighborStrategy::new, PriorityBasedOptimizationStrategy::new,
+            BeamSearchOptimizationStrategy::new, LocalSearchOptimizationStrategy::new,
+            ExhaustiveSearchOptimizationStrategy::new));
+    private final List<DistanceCalculator> calculators = new ArrayList<>();
+    private long maxDurationMillis = DEFAULT_MAX_DURATION_MILLIS;
+    private long quietCompileMillis = DEFAULT_QUIET_COMPILE_MILLIS;
+
+    public WarmupRunner() {
+        DistanceCalculator haversine = new HaversineDistanceCalculator();
+        calculators.add(haversine);
+        calculators.add(new TimeDependentDistanceCalculator(haversine, loadSpeedProfiles(), 8 * 60));
+    }
+
+    /**
+     * Give up waiting for compilation to settle after this long
+     */
+    public WarmupRunner setMaxDurationMillis(long maxDurationMillis) {
+        if (maxDurationMillis <= 0) {
+            throw new IllegalArgumentException("maxDurationMillis must be positive: " + maxDurationMillis);
+        }
+        this.maxDurationMillis = maxDurationMillis;
+        return this;
+    }
+
+    /**
+     * Compilation time a round may add and still count as quiet
+     */
+    public WarmupRunner setQuietCompileMillis(long quietCompileMillis) {
+        if (quietCompileMillis < 0) {
+            throw new IllegalArgumentException("quietCompileMillis must not be negative: " + quietCompileMillis);
+        }
+        this.quietCompileMillis = quietCompileMillis;
+        return this;
+    }
+
+    /**
+     * Also warm up a calculator the application uses, e.g. one with its own speed profiles
+     */
+    public WarmupRunner addDistanceCalculator(DistanceCalculator calculator) {
+        calculators.add(calculator);
+        return this;
+    }
+
+    public WarmupRunner addStrategy(Supplier<RouteOptimizationStrategy> strategyFactory) {
+        strategies.add(strategyFactory);
+        return this;
+    }
+
+    public WarmupReport run() {
+        return run(result -> { });
+    }
+
+    /**
+     * Warm up, handing every result to the sink so the caller's own result path (encoding, caching) warms too
+     */
+    public WarmupReport run(Consumer<RouteResult> sink) {
+        CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+        boolean compileTimeKnown = compiler != null && compiler.isCompilationTimeMonitoringSupported();
+        long compileStart = compileTimeKnown ? compiler.getTotalCompilationTime() : 0;
+
+        List<DeliveryRouteOptimizationContext> contexts = new ArrayList<>();
+        for (DistanceCalculator calculator : calculators) {
+            contexts.add(new DeliveryRouteOptimizationContext(null, calculator, SPEED_KMH));
+        }
+        List<RouteOptimizationStrategy> instances = new ArrayList<>();
+        for (Supplier<RouteOptimizationStrategy> factory : strategies) {
+            instances.add(factory.get());
+        }
+        SyntheticScenarioGenerator generator = new SyntheticScenarioGenerator(SEED);
+
+        long started = System.nanoTime();
+        long deadline = started + maxDurationMillis * 1_000_000;
+        long lastCompile = compileStart;
+        int quietRounds = 0;
+        int rounds = 0;
+        long solves = 0;
+        boolean converged = false;
+        while (System.nanoTime() - deadline < 0) {
+            int variant = rounds % SCENARIO_VARIANTS;
+            for (int orderCount : ORDER_COUNTS) {
+                DeliveryScenario scenario = generator.generate(orderCount, variant);
+                for (RouteOptimizationStrategy strategy : instances) {
+                    if (strategy instanceof ExhaustiveSearchOptimizationStrategy && orderCount > EXHAUSTIVE_MAX_ORDERS) {
+                        continue;
+                    }
+                    for (DeliveryRouteOptimizationContext context : contexts) {
+                        context.setOptimizationStrategy(strategy);
+                        sink.accept(context.optimizeRoute(scenario.getStartLocation(), scenario.getOrders()));
+                        solves++;
+                    }
+                }
+            }
+            rounds++;
+            if (!compileTimeKnown) {
+                // Without compilation times, settle for a fixed amount of work
+                converged = rounds >= MIN_ROUNDS * 20;
+            } else {
+                long compile = compiler.getTotalCompilationTime();
+                quietRounds = compile - lastCompile <= quietCompileMillis ? quietRounds + 1 : 0;
+                lastCompile = compile;
+                converged = rounds >= MIN_ROUNDS && quietRounds >= QUIET_ROUNDS;
+            }
+            if (converged) {
+                break;
+            }
+        }
+        long compileMillis = compileTimeKnown ? compiler.getTotalCompilationTime() - compileStart : -1;
+        return new WarmupReport(rounds, solves, (System.nanoTime() - started) / 1_000_000, compileMillis, converged);
+    }
+
+    private static SpeedProfileTable loadSpeedProfiles() {
+        InputStream in = WarmupRunner.class.getResourceAsStream(SPEED_PROFILES);
+        if (in == null) {
+            throw new IllegalStateException("Missing resource " + SPEED_PROFILES);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return SpeedProfileTable.parse(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Warm up once and print the report: WarmupRunner [maxDurationMillis]
+     */
+    public static void main(String[] args) {
+        WarmupRunner runner = new WarmupRunner();
+        if (args.length > 0) {
+            runner.setMaxDurationMillis(Long.parseLong(args[0]));
+        }
+        System.out.println("Warm-up: " + runner.run());
+    }
+}
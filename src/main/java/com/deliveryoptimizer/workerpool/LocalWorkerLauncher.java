@@ -0,0 +1,86 @@
+package com.deliveryoptimizer.workerpool;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts OptimizationWorker processes on this machine, one JVM each, with the launcher's own class path
+ * Lets a single host run the whole pool, e.g. to use more cores than one JVM's heap and GC scale to or to
+ * exercise re-dispatch by killing a worker. Workers inherit stderr; close() stops every one still running.
+ */
+public class LocalWorkerLauncher implements AutoCloseable {
+
+    private final List<String> jvmOptions = new ArrayList<>();
+    private final List<Process> processes = new ArrayList<>();
+
+    /**
+     * Extra JVM options for every worker started afterwards, e.g. -Xmx512m
+     */
+    public LocalWorkerLauncher addJvmOption(String option) {
+        jvmOptions.add(option);
+        return this;
+    }
+
+    /**
+     * Start count workers connecting to a coordinator on this machine's loopback port
+     */
+    public synchronized void launch(int count, int port, int solverThreadsPerWorker) throws IOException {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        for (int i = 0; i < count; i++) {
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            command.addAll(jvmOptions);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(OptimizationWorker.class.getName());
+            command.add("127.0.0.1");
+            command.add(Integer.toString(port));
+            command.add(Integer.toString(solverThreadsPerWorker));
+            command.add("worker-" + processes.size());
+            processes.add(new ProcessBuilder(command)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+        }
+    }
+
+    public synchronized int getLaunchedCount() {
+        return processes.size();
+    }
+
+    /**
+     * Kill a worker without letting it shut down cleanly, as a crash would
+     */
+    public synchronized void kill(int index) {
+        processes.get(index).destroyForcibly();
+    }
+
+    /**
+     * Ask every worker to exit and kill the ones still running after five seconds
+     * An interrupted caller kills the remaining workers at once and keeps its interrupt flag.
+     */
+    @Override
+    public synchronized void close() {
+        for (Process process : processes) {
+            process.destroy();
+        }
+        try {
+            for (Process process : processes) {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Process process : processes) {
+                process.destroyForcibly();
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.deliveryoptimizer.workerpool;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.deliveryoptimizer.DeliveryRouteOptimizationContext;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.distancestrategy.DistanceCalculator;
+import com.deliveryoptimizer.distancestrategy.HaversineDistanceCalculator;
+import com.deliveryoptimizer.optimizationstrategy.BeamSearchOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.ExhaustiveSearchOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.GreedyNearestNeighborStrategy;
+import com.deliveryoptimizer.optimizationstrategy.LocalSearchOptimizationStrategy;
+import com.deliveryoptimizer.optimizationstrategy.PriorityBasedOptimizationStrategy;
+import com.deliveryoptimizer.routedelta.RouteDeltaEncoder;
+import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
+
+/**
+ * Worker process of a sharded worker pool
+ * Connects to a ShardedOptimizationCoordinator, announces its solver thread count and then solves every scenario
+ * it is sent on a fixed pool of solver threads, answering each with a RESULT or FAILED frame in completion order.
+ * A separate thread sends a heartbeat every heartbeat interval, so a worker busy with long solves is still seen
+ * alive. The worker exits when the coordinator closes the connection or sends SHUTDOWN.
+ */
+public class OptimizationWorker {
+
+    public static final long DEFAULT_HEARTBEAT_MILLIS = 500;
+
+    private final Map<String, DeliveryRouteOptimizationContext> contexts = new LinkedHashMap<>();
+    private final int solverThreads;
+    private long heartbeatMillis = DEFAULT_HEARTBEAT_MILLIS;
+    private final ThreadLocal<RouteDeltaEncoder> encoders = ThreadLocal.withInitial(RouteDeltaEncoder::new);
+    private final AtomicInteger solved = new AtomicInteger();
+
+    public OptimizationWorker(DistanceCalculator distanceCalculator, double averageSpeedKmh, int solverThreads) {
+        if (solverThreads <= 0) {
+            throw new IllegalArgumentException("solverThreads must be positive: " + solverThreads);
+        }
+        this.solverThreads = solverThreads;
+        // Strategies are stateless between calls, so one context per strategy serves every solver thread
+        contexts.put("greedy", new DeliveryRouteOptimizationContext(
+                new GreedyNearestNeighborStrategy(), distanceCalculator, averageSpeedKmh));
+        contexts.put("exhaustive", new DeliveryRouteOptimizationContext(
+                new ExhaustiveSearchOptimizationStrategy(), distanceCalculator, averageSpeedKmh));
+        contexts.put("priority", new DeliveryRouteOptimizationContext(
+                new PriorityBasedOptimizationStrategy(), distanceCalculator, averageSpeedKmh));
+        // The solver threads already fill the cores
+        contexts.put("beam", new DeliveryRouteOptimizationContext(
+                new BeamSearchOptimizationStrategy(BeamSearchOptimizationStrategy.DEFAULT_BEAM_WIDTH, null, 1),
+                distanceCalculator, averageSpeedKmh));
+        contexts.put("local", new DeliveryRouteOptimizationContext(
+                new LocalSearchOptimizationStrategy(), distanceCalculator, averageSpeedKmh));
+    }
+
+    public OptimizationWorker setHeartbeatMillis(long heartbeatMillis) {
+        if (heartbeatMillis <= 0) {
+            throw new IllegalArgumentException("heartbeatMillis must be positive: " + heartbeatMillis);
+        }
+        this.heartbeatMillis = heartbeatMillis;
+        return this;
+    }
+
+    /**
+     * Serve the coordinator until it disconnects
+     * @return number of scenarios solved
+     */
+    public int run(String host, int port, String workerName) throws IOException {
+        AtomicInteger solverIndex = new AtomicInteger();
+        ExecutorService solvers = Executors.newFixedThreadPool(solverThreads, runnable -> {
+            Thread thread = new Thread(runnable, "worker-solver-" + solverIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            send(out, WorkerProtocol.hello(solverThreads, workerName));
+
+            Thread heartbeat = new Thread(() -> heartbeats(out), "worker-heartbeat");
+            heartbeat.setDaemon(true);
+            heartbeat.start();
+            try {
+                DataInputStream frame;
+                while ((frame = WorkerProtocol.readFrame(in)) != null) {
+                    byte type = frame.readByte();
+                    if (type == WorkerProtocol.SHUTDOWN) {
+                        break;
+                    }
+                    if (type != WorkerProtocol.SOLVE) {
+                        throw new IOException("Unexpected frame type " + type);
+                    }
+                    long jobId = frame.readLong();
+                    String strategy = frame.readUTF();
+                    DeliveryScenario scenario = WorkerProtocol.readScenario(frame);
+                    solvers.execute(() -> solve(out, jobId, strategy, scenario));
+                }
+            } finally {
+                heartbeat.interrupt();
+            }
+        } finally {
+            solvers.shutdownNow();
+        }
+        return solved.get();
+    }
+
+    private void solve(DataOutputStream out, long jobId, String strategy, DeliveryScenario scenario) {
+        WorkerProtocol.Frame reply;
+        try {
+            DeliveryRouteOptimizationContext context = contexts.get(strategy);
+            if (context == null) {
+                reply = WorkerProtocol.failed(jobId, "Unknown strategy: " + strategy);
+            } else {
+                try {
+                    RouteResult result = context.optimizeRoute(scenario.getStartLocation(), scenario.getOrders());
+                    reply = WorkerProtocol.result(jobId, result, encoders.get());
+                    solved.incrementAndGet();
+                } catch (RuntimeException e) {
+                    reply = WorkerProtocol.failed(jobId, String.valueOf(e.getMessage()));
+                }
+            }
+            send(out, reply);
+        } catch (IOException e) {
+            // The connection is gone; the reader sees it too and shuts the worker down
+        }
+    }
+
+    private void heartbeats(DataOutputStream out) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.sleep(heartbeatMillis);
+                send(out, new WorkerProtocol.Frame(WorkerProtocol.HEARTBEAT));
+            }
+        } catch (InterruptedException | IOException e) {
+            // Shutting down or disconnected
+        }
+    }
+
+    private static void send(DataOutputStream out, WorkerProtocol.Frame frame) throws IOException {
+        synchronized (out) {
+            frame.sendTo(out);
+            out.flush();
+        }
+    }
+
+    /**
+     * Run one worker process: OptimizationWorker host port [solverThreads] [workerName]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: OptimizationWorker <host> <port> [solverThreads] [workerName]");
+            System.exit(2);
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        String name = args.length > 3 ? args[3] : "worker-" + ProcessHandle.current().pid();
+        int solved = new OptimizationWorker(new HaversineDistanceCalculator(), 20.0, threads)
+                .run(args[0], Integer.parseInt(args[1]), name);
+        System.err.println(name + " solved " + solved + " scenarios");
+    }
+}
@@ -0,0 +1,700 @@
+package com.deliveryoptimizer.workerpool;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
+import com.deliveryoptimizer.scenariofactory.SyntheticScenarioGenerator;
+
+/**
+ * Coordinator of a pool of OptimizationWorker processes connected over loopback sockets
+ * Scenarios are sharded by zone, a grid cell of the courier's start location: each zone ranks the live workers
+ * by rendezvous hash and goes to the less loaded of its top two, so a zone sticks to at most two workers while a
+ * hot zone cannot pile up on one of them. Each worker gets up to two scenarios per solver thread in flight and
+ * a queue for the rest.
+ *
+ * A worker is declared dead when its connection fails or no frame arrived within the heartbeat timeout; its
+ * in-flight and queued scenarios are dispatched again to the remaining workers, up to maxAttempts times per
+ * scenario so that one scenario crashing workers cannot take down the pool. Scenarios submitted while no worker
+ * is connected wait for the next one to join. Results complete the futures returned by submit().
+ * Lost workers and rejected connections are counted and reported to the Listener, if one is set.
+ */
+public class ShardedOptimizationCoordinator implements AutoCloseable {
+
+    /**
+     * Pool events a caller may want to log or alert on
+     * Called on the coordinator's acceptor, monitor and reader threads, so implementations must neither block
+     * nor throw.
+     */
+    public interface Listener {
+
+        default void onWorkerLost(String workerName, String reason) {
+        }
+
+        default void onConnectionRejected(String reason) {
+        }
+
+        /**
+         * The listening socket failed; no further workers can join
+         */
+        default void onAcceptStopped(IOException cause) {
+        }
+    }
+
+    private static final Listener NO_LISTENER = new Listener() {
+    };
+
+    public static final long DEFAULT_HEARTBEAT_TIMEOUT_MILLIS = 3_000;
+    public static final double DEFAULT_ZONE_SIZE_DEGREES = 0.02;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private static final int IN_FLIGHT_PER_SOLVER_THREAD = 2;
+    private static final int HELLO_TIMEOUT_MILLIS = 5_000;
+
+    private int port;
+    private long heartbeatTimeoutMillis = DEFAULT_HEARTBEAT_TIMEOUT_MILLIS;
+    private double zoneSizeDegrees = DEFAULT_ZONE_SIZE_DEGREES;
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    private ServerSocket server;
+    private Thread acceptor;
+    private Thread monitor;
+    private volatile boolean running;
+    private volatile Listener listener = NO_LISTENER;
+
+    // Guarded by this
+    private final List<WorkerLink> live = new ArrayList<>();
+    private final ArrayDeque<Job> unassigned = new ArrayDeque<>();
+    private int nextWorkerId;
+
+    private final AtomicLong nextJobId = new AtomicLong();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder redispatched = new LongAdder();
+    private final LongAdder workerDeaths = new LongAdder();
+    private final LongAdder rejectedConnections = new LongAdder();
+
+    /**
+     * Port to listen on; 0, the default, picks a free one (see getPort)
+     */
+    public ShardedOptimizationCoordinator setPort(int port) {
+        if (port < 0) {
+            throw new IllegalArgumentException("port must not be negative: " + port);
+        }
+        this.port = port;
+        return this;
+    }
+
+    /**
+     * Silence after which a worker is declared dead; must exceed the workers' heartbeat interval
+     */
+    public ShardedOptimizationCoordinator setHeartbeatTimeoutMillis(long heartbeatTimeoutMillis) {
+        if (heartbeatTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("heartbeatTimeoutMillis must be positive: " + heartbeatTimeoutMillis);
+        }
+        this.heartbeatTimeoutMillis = heartbeatTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Edge of the square latitude/longitude cells scenarios are sharded by
+     */
+    public ShardedOptimizationCoordinator setZoneSizeDegrees(double zoneSizeDegrees) {
+        if (!(zoneSizeDegrees > 0)) {
+            throw new IllegalArgumentException("zoneSizeDegrees must be positive: " + zoneSizeDegrees);
+        }
+        this.zoneSizeDegrees = zoneSizeDegrees;
+        return this;
+    }
+
+    /**
+     * Workers a scenario may be sent to before it fails
+     */
+    public ShardedOptimizationCoordinator setMaxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * Receiver of worker losses and rejected connections; null removes it
+     */
+    public ShardedOptimizationCoordinator setListener(Listener listener) {
+        this.listener = listener != null ? listener : NO_LISTENER;
+        return this;
+    }
+
+    /**
+     * Listen on the loopback interface for workers
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Coordinator already started");
+        }
+        server = new ServerSocket();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        running = true;
+        acceptor = new Thread(this::acceptWorkers, "worker-pool-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        monitor = new Thread(this::monitorHeartbeats, "worker-pool-monitor");
+        monitor.setDaemon(true);
+        monitor.start();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Wait until at least count workers are connected
+     * @return false if the timeout elapsed first
+     */
+    public synchronized boolean awaitWorkers(int count, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (live.size() < count) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Queue a scenario for the pool
+     * @param strategy Worker strategy name: greedy, exhaustive, priority, beam or local
+     * @return the route, or an exceptional completion if the strategy failed, the scenario used up its attempts
+     *         or the coordinator was closed
+     */
+    public CompletableFuture<RouteResult> submit(DeliveryScenario scenario, String strategy) {
+        Job job = new Job(nextJobId.incrementAndGet(), zoneOf(scenario.getStartLocation()), strategy, scenario);
+        if (!running) {
+            job.result.completeExceptionally(new CancellationException("Coordinator is not running"));
+            return job.result;
+        }
+        dispatch(job);
+        return job.result;
+    }
+
+    /**
+     * Solve every scenario and return the routes in input order
+     * @throws CompletionException with the cause of the first scenario that failed
+     */
+    public List<RouteResult> solveAll(List<DeliveryScenario> scenarios, String strategy) {
+        List<CompletableFuture<RouteResult>> futures = new ArrayList<>(scenarios.size());
+        for (DeliveryScenario scenario : scenarios) {
+            futures.add(submit(scenario, strategy));
+        }
+        List<RouteResult> results = new ArrayList<>(scenarios.size());
+        for (CompletableFuture<RouteResult> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    public synchronized int getLiveWorkerCount() {
+        return live.size();
+    }
+
+    /**
+     * Solver threads over all live workers
+     */
+    public synchronized int getLiveSolverThreads() {
+        int threads = 0;
+        for (WorkerLink link : live) {
+            threads += link.threads;
+        }
+        return threads;
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Scenarios sent again because their worker died
+     */
+    public long getRedispatchCount() {
+        return redispatched.sum();
+    }
+
+    public long getWorkerDeathCount() {
+        return workerDeaths.sum();
+    }
+
+    /**
+     * Connections closed during the handshake: no HELLO, a different protocol version, or an I/O error
+     */
+    public long getRejectedConnectionCount() {
+        return rejectedConnections.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder workers = new StringBuilder();
+        synchronized (this) {
+            for (WorkerLink link : live) {
+                if (workers.length() > 0) {
+                    workers.append(", ");
+                }
+                workers.append(link.name).append('=').append(link.completed.sum());
+            }
+        }
+        return String.format("ShardedOptimizationCoordinator[live=%d, completed=%d, failed=%d, redispatched=%d, "
+                             + "workerDeaths=%d, rejectedConnections=%d, solvedBy={%s}]", getLiveWorkerCount(),
+                             getCompletedCount(), getFailedCount(), getRedispatchCount(), getWorkerDeathCount(),
+                             getRejectedConnectionCount(), workers);
+    }
+
+    /**
+     * Tell every worker to shut down, close the sockets and cancel scenarios not yet solved
+     * An interrupted caller stops waiting for the acceptor and monitor threads and keeps its interrupt flag.
+     */
+    @Override
+    public void close() {
+        List<WorkerLink> links;
+        List<Job> waiting;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            links = new ArrayList<>(live);
+            waiting = new ArrayList<>(unassigned);
+            unassigned.clear();
+        }
+        try {
+            server.close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+        acceptor.interrupt();
+        monitor.interrupt();
+        for (WorkerLink link : links) {
+            try {
+                link.send(new WorkerProtocol.Frame(WorkerProtocol.SHUTDOWN));
+            } catch (IOException e) {
+                // Already gone
+            }
+            workerDied(link, "coordinator closed");
+        }
+        for (Job job : waiting) {
+            cancel(job);
+        }
+        try {
+            acceptor.join();
+            monitor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long zoneOf(Location location) {
+        long row = (long) Math.floor(location.getLatitude() / zoneSizeDegrees);
+        long column = (long) Math.floor(location.getLongitude() / zoneSizeDegrees);
+        return row << 32 ^ column & 0xFFFF_FFFFL;
+    }
+
+    /**
+     * Rendezvous weight of a worker for a zone; the heaviest workers own the zone
+     */
+    private static long weight(long zone, int workerId) {
+        long h = zone ^ (workerId + 1) * 0x9E3779B97F4A7C15L;
+        h = (h ^ h >>> 33) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ h >>> 33) * 0xC4CEB9FE1A85EC53L;
+        return h ^ h >>> 33;
+    }
+
+    private synchronized void dispatch(Job job) {
+        if (live.isEmpty()) {
+            unassigned.add(job);
+            return;
+        }
+        WorkerLink first = null;
+        WorkerLink second = null;
+        long firstWeight = Long.MIN_VALUE;
+        long secondWeight = Long.MIN_VALUE;
+        for (WorkerLink link : live) {
+            long w = weight(job.zone, link.id);
+            if (first == null || w > firstWeight) {
+                second = first;
+                secondWeight = firstWeight;
+                first = link;
+                firstWeight = w;
+            } else if (second == null || w > secondWeight) {
+                second = link;
+                secondWeight = w;
+            }
+        }
+        WorkerLink target = second != null && second.load() < first.load() ? second : first;
+        target.queue.add(job);
+    }
+
+    /**
+     * Send a scenario whose worker died to another one, or fail it once it used up its attempts
+     */
+    private void redispatch(Job job) {
+        if (job.result.isDone()) {
+            return;
+        }
+        if (!running) {
+            cancel(job);
+            return;
+        }
+        job.attempts++;
+        if (job.attempts >= maxAttempts) {
+            failed.increment();
+            job.result.completeExceptionally(new IllegalStateException(
+                    "Scenario " + job.scenario.getScenarioName() + " lost with " + job.attempts + " workers"));
+            return;
+        }
+        redispatched.increment();
+        dispatch(job);
+    }
+
+    private static void cancel(Job job) {
+        job.result.completeExceptionally(new CancellationException("Coordinator closed"));
+    }
+
+    private void workerDied(WorkerLink link, String reason) {
+        synchronized (link) {
+            if (!link.alive) {
+                return;
+            }
+            link.alive = false;
+        }
+        synchronized (this) {
+            live.remove(link);
+        }
+        if (running) {
+            workerDeaths.increment();
+            listener.onWorkerLost(link.name, reason);
+        }
+        link.closeSocket();
+        link.sender.interrupt();
+        // No scenario enters inFlight once alive is false, so this collects every one the worker held
+        List<Job> orphans = new ArrayList<>(link.inFlight.values());
+        link.inFlight.clear();
+        link.queue.drainTo(orphans);
+        for (Job job : orphans) {
+            redispatch(job);
+        }
+    }
+
+    private void acceptWorkers() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                if (running) {
+                    listener.onAcceptStopped(e);
+                }
+                return;
+            }
+            try {
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(HELLO_TIMEOUT_MILLIS);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataInputStream hello = WorkerProtocol.readFrame(in);
+                if (hello == null || hello.readByte() != WorkerProtocol.HELLO) {
+                    throw new IOException("Expected HELLO");
+                }
+                int version = hello.readInt();
+                if (version != WorkerProtocol.VERSION) {
+                    throw new IOException("Unsupported worker protocol version " + version);
+                }
+                int threads = hello.readInt();
+                String name = hello.readUTF();
+                socket.setSoTimeout(0);
+                join(new WorkerLink(socket, in, threads, name));
+            } catch (IOException e) {
+                rejectedConnections.increment();
+                listener.onConnectionRejected(e.getMessage());
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // Nothing left to release
+                }
+            }
+        }
+    }
+
+    private void join(WorkerLink link) throws IOException {
+        synchronized (this) {
+            if (!running) {
+                throw new SocketException("Coordinator closed");
+            }
+            link.id = nextWorkerId++;
+            live.add(link);
+            link.reader.start();
+            link.sender.start();
+            Job job;
+            while ((job = unassigned.poll()) != null) {
+                dispatch(job);
+            }
+            notifyAll();
+        }
+    }
+
+    private void monitorHeartbeats() {
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatTimeoutMillis);
+        while (running) {
+            try {
+                Thread.sleep(Math.max(1, heartbeatTimeoutMillis / 4));
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<WorkerLink> links;
+            synchronized (this) {
+                links = new ArrayList<>(live);
+            }
+            long now = System.nanoTime();
+            for (WorkerLink link : links) {
+                if (now - link.lastHeardNanos > timeoutNanos) {
+                    workerDied(link, "no heartbeat for " + heartbeatTimeoutMillis + " ms");
+                }
+            }
+        }
+    }
+
+    private static final class Job {
+        final long id;
+        final long zone;
+        final String strategy;
+        final DeliveryScenario scenario;
+        final CompletableFuture<RouteResult> result = new CompletableFuture<>();
+        // Only touched by the thread re-dispatching the job after its worker died
+        int attempts;
+
+        Job(long id, long zone, String strategy, DeliveryScenario scenario) {
+            this.id = id;
+            this.zone = zone;
+            this.strategy = strategy;
+            this.scenario = scenario;
+        }
+    }
+
+    /**
+     * Connection to one worker, with a reader thread for its replies and a sender thread for its queue
+     */
+    private final class WorkerLink {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+        final int threads;
+        final String name;
+        final LinkedBlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+        final ConcurrentHashMap<Long, Job> inFlight = new ConcurrentHashMap<>();
+        final Semaphore window;
+        final LongAdder completed = new LongAdder();
+        final Thread reader;
+        final Thread sender;
+        int id;
+        volatile long lastHeardNanos = System.nanoTime();
+        // Guarded by this
+        boolean alive = true;
+
+        WorkerLink(Socket socket, DataInputStream in, int threads, String name) throws IOException {
+            this.socket = socket;
+            this.in = in;
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            this.threads = Math.max(1, threads);
+            this.name = name;
+            this.window = new Semaphore(this.threads * IN_FLIGHT_PER_SOLVER_THREAD);
+            reader = new Thread(this::read, "worker-pool-reader-" + name);
+            reader.setDaemon(true);
+            sender = new Thread(this::sendJobs, "worker-pool-sender-" + name);
+            sender.setDaemon(true);
+        }
+
+        /**
+         * Outstanding scenarios per solver thread
+         */
+        double load() {
+            return (double) (inFlight.size() + queue.size()) / threads;
+        }
+
+        void send(WorkerProtocol.Frame frame) throws IOException {
+            synchronized (out) {
+                frame.sendTo(out);
+                out.flush();
+            }
+        }
+
+        void closeSocket() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+
+        private void sendJobs() {
+            try {
+                while (true) {
+                    window.acquire();
+                    Job job = queue.take();
+                    WorkerProtocol.Frame frame;
+                    try {
+                        frame = WorkerProtocol.solve(job.id, job.strategy, job.scenario);
+                    } catch (IOException e) {
+                        // Not encodable, e.g. a name beyond 64 KiB; no worker could take it
+                        window.release();
+                        failed.increment();
+                        job.result.completeExceptionally(e);
+                        continue;
+                    }
+                    synchronized (this) {
+                        if (!alive) {
+                            redispatch(job);
+                            return;
+                        }
+                        inFlight.put(job.id, job);
+                    }
+                    synchronized (out) {
+                        frame.sendTo(out);
+                        // Batch frames while more are ready to go out right away
+                        if (queue.isEmpty() || window.availablePermits() == 0) {
+                            out.flush();
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Worker died or coordinator closed
+            } catch (IOException e) {
+                workerDied(this, e.getMessage());
+            }
+        }
+
+        private void read() {
+            try {
+                DataInputStream frame;
+                while ((frame = WorkerProtocol.readFrame(in)) != null) {
+                    lastHeardNanos = System.nanoTime();
+                    byte type = frame.readByte();
+                    if (type == WorkerProtocol.HEARTBEAT) {
+                        continue;
+                    }
+                    if (type != WorkerProtocol.RESULT && type != WorkerProtocol.FAILED) {
+                        throw new IOException("Unexpected frame type " + type);
+                    }
+                    Job job = inFlight.remove(frame.readLong());
+                    if (type == WorkerProtocol.RESULT) {
+                        RouteResult result = WorkerProtocol.readResult(frame);
+                        if (job != null) {
+                            window.release();
+                            completed.increment();
+                            ShardedOptimizationCoordinator.this.completed.increment();
+                            job.result.complete(result);
+                        }
+                    } else {
+                        String message = frame.readUTF();
+                        if (job != null) {
+                            window.release();
+                            failed.increment();
+                            job.result.completeExceptionally(new IllegalStateException(
+                                    "Worker " + name + " failed " + job.scenario.getScenarioName() + ": " + message));
+                        }
+                    }
+                }
+                workerDied(this, "connection closed");
+            } catch (IOException e) {
+                workerDied(this, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Start local worker processes and solve generated scenarios on them:
+     * ShardedOptimizationCoordinator [workers] [scenarios] [ordersPerScenario] [strategy] [killAfterMillis]
+     * With killAfterMillis, the first worker is killed that long into the run to exercise re-dispatch.
+     */
+    public static void main(String[] args) throws Exception {
+        int workers = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int scenarioCount = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int orders = args.length > 2 ? Integer.parseInt(args[2]) : 6;
+        String strategy = args.length > 3 ? args[3] : "exhaustive";
+        long killAfterMillis = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        int threadsPerWorker = Math.max(1, Runtime.getRuntime().availableProcessors() / workers);
+
+        SyntheticScenarioGenerator generator = new SyntheticScenarioGenerator(42);
+        List<DeliveryScenario> warmup = new ArrayList<>();
+        List<DeliveryScenario> scenarios = new ArrayList<>(scenarioCount);
+        for (int i = 0; i < scenarioCount; i++) {
+            scenarios.add(generator.generate(orders, i));
+        }
+        for (int i = 0; i < Math.max(workers * 50, scenarioCount / 10); i++) {
+            warmup.add(generator.generate(orders, scenarioCount + i));
+        }
+
+        // Closed in reverse, so the coordinator shuts the workers down before the launcher reaps them
+        try (LocalWorkerLauncher launcher = new LocalWorkerLauncher();
+             ShardedOptimizationCoordinator coordinator = new ShardedOptimizationCoordinator()) {
+            coordinator.setListener(new Listener() {
+                @Override
+                public void onWorkerLost(String workerName, String reason) {
+                    System.err.println("Worker " + workerName + " lost: " + reason);
+                }
+
+                @Override
+                public void onConnectionRejected(String reason) {
+                    System.err.println("Rejected worker connection: " + reason);
+                }
+
+                @Override
+                public void onAcceptStopped(IOException cause) {
+                    System.err.println("Worker pool stopped accepting: " + cause.getMessage());
+                }
+            }).start();
+            launcher.launch(workers, coordinator.getPort(), threadsPerWorker);
+            if (!coordinator.awaitWorkers(workers, 30_000)) {
+                throw new IllegalStateException("Only " + coordinator.getLiveWorkerCount() + " of " + workers
+                                                + " workers connected");
+            }
+            coordinator.solveAll(warmup, strategy);
+
+            if (killAfterMillis > 0) {
+                Thread killer = new Thread(() -> {
+                    try {
+                        Thread.sleep(killAfterMillis);
+                        launcher.kill(0);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, "worker-pool-killer");
+                killer.setDaemon(true);
+                killer.start();
+            }
+            long started = System.nanoTime();
+            List<RouteResult> results = coordinator.solveAll(scenarios, strategy);
+            double seconds = (System.nanoTime() - started) / 1e9;
+            double totalMinutes = 0;
+            for (RouteResult result : results) {
+                totalMinutes += result.getTotalTimeMinutes();
+            }
+            System.out.printf("%d scenarios of %d orders with %s on %d workers x %d threads in %.2f s: "
+                              + "%.1f scenarios/s, total route time %.0f minutes%n", results.size(), orders, strategy,
+                              workers, threadsPerWorker, seconds, results.size() / seconds, totalMinutes);
+            System.out.println(coordinator);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.deliveryoptimizer.workerpool;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.deliveryoptimizer.constants.PriorityEnum;
+import com.deliveryoptimizer.core.DeliveryOrder;
+import com.deliveryoptimizer.core.Location;
+import com.deliveryoptimizer.core.RouteResult;
+import com.deliveryoptimizer.core.SearchStatistics;
+import com.deliveryoptimizer.routedelta.RouteDeltaDecoder;
+import com.deliveryoptimizer.routedelta.RouteDeltaEncoder;
+import com.deliveryoptimizer.scenariofactory.DeliveryScenario;
+
+/**
+ * Binary protocol between a ShardedOptimizationCoordinator and its OptimizationWorkers
+ *
+ * <pre>
+ * frame      int length, byte type, body (length counts the type byte and the body)
+ * HELLO      int version, int solverThreads, string workerName      worker to coordinator, first
+ * SOLVE      long jobId, string strategy, scenario                  coordinator to worker
+ * RESULT     long jobId, statistics, int length, full route delta   worker to coordinator
+ * FAILED     long jobId, string message                             worker to coordinator
+ * HEARTBEAT  (empty)                                                worker to coordinator
+ * SHUTDOWN   (empty)                                                coordinator to worker
+ *
+ * scenario   string name, location start, int orderCount, orderCount x
+ *            (string orderId, location restaurant, location consumer, int prepMinutes, byte priority ordinal)
+ * location   string name, string address, double latitude, double longitude
+ * statistics long sequencesEvaluated, long nodesExpanded, long nodesPruned, long distanceCalls,
+ *            boolean cacheHit, long solveTimeNanos
+ * </pre>
+ *
+ * Strings are modified UTF-8 as written by DataOutput.writeUTF, numbers are big-endian. The route itself travels
+ * as a full RouteDeltaEncoder encoding, which packs the stop names and actions far tighter than Java serialization.
+ * Frames are built in memory first, so a stream shared by several threads is only locked while a finished frame
+ * is copied into it.
+ */
+final class WorkerProtocol {
+
+    static final int VERSION = 1;
+
+    static final byte HELLO = 1;
+    static final byte SOLVE = 2;
+    static final byte RESULT = 3;
+    static final byte FAILED = 4;
+    static final byte HEARTBEAT = 5;
+    static final byte SHUTDOWN = 6;
+
+    // Larger frames mean a corrupt stream, not a big scenario
+    static final int MAX_FRAME_BYTES = 16 << 20;
+
+    private static final PriorityEnum[] PRIORITIES = PriorityEnum.values();
+
+    private WorkerProtocol() {
+    }
+
+    /**
+     * Frame under construction; the type byte is already written
+     */
+    static final class Frame extends DataOutputStream {
+        Frame(byte type) {
+            super(new ByteArrayOutputStream(256));
+            try {
+                writeByte(type);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Write the length prefix and the frame; callers sharing the stream synchronize on it
+         */
+        void sendTo(DataOutputStream stream) throws IOException {
+            ByteArrayOutputStream body = (ByteArrayOutputStream) out;
+            stream.writeInt(body.size());
+            body.writeTo(stream);
+        }
+    }
+
+    /**
+     * Read the next frame, returning its body with the type byte first; null at a clean end of stream
+     */
+    static DataInputStream readFrame(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length <= 0 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Bad frame length " + length);
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        return new DataInputStream(new ByteArrayInputStream(body));
+    }
+
+    static Frame hello(int solverThreads, String workerName) throws IOException {
+        Frame frame = new Frame(HELLO);
+        frame.writeInt(VERSION);
+        frame.writeInt(solverThreads);
+        frame.writeUTF(workerName);
+        return frame;
+    }
+
+    static Frame solve(long jobId, String strategy, DeliveryScenario scenario) throws IOException {
+        Frame frame = new Frame(SOLVE);
+        frame.writeLong(jobId);
+        frame.writeUTF(strategy);
+        frame.writeUTF(scenario.getScenarioName());
+        writeLocation(frame, scenario.getStartLocation());
+        List<DeliveryOrder> orders = scenario.getOrders();
+        frame.writeInt(orders.size());
+        for (DeliveryOrder order : orders) {
+            frame.writeUTF(order.getOrderId());
+            writeLocation(frame, order.getRestaurantLocation());
+            writeLocation(frame, order.getConsumerLocation());
+            frame.writeInt(order.getPreparationTimeMinutes());
+            frame.writeByte(order.getPriority().ordinal());
+        }
+        return frame;
+    }
+
+    static DeliveryScenario readScenario(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        Location start = readLocation(in);
+        int count = in.readInt();
+        List<DeliveryOrder> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String orderId = in.readUTF();
+            Location restaurant = readLocation(in);
+            Location consumer = readLocation(in);
+            int prepMinutes = in.readInt();
+            int priority = in.readUnsignedByte();
+            if (priority >= PRIORITIES.length) {
+                throw new IOException("Bad priority " + priority);
+            }
+            orders.add(new DeliveryOrder(orderId, restaurant, consumer, prepMinutes, PRIORITIES[priority]));
+        }
+        return new DeliveryScenario(name, start, orders);
+    }
+
+    static Frame result(long jobId, RouteResult result, RouteDeltaEncoder encoder) throws IOException {
+        Frame frame = new Frame(RESULT);
+        frame.writeLong(jobId);
+        SearchStatistics statistics = result.getSearchStatistics();
+        frame.writeLong(statistics.getSequencesEvaluated());
+        frame.writeLong(statistics.getNodesExpanded());
+        frame.writeLong(statistics.getNodesPruned());
+        frame.writeLong(statistics.getDistanceCalls());
+        frame.writeBoolean(statistics.isCacheHit());
+        frame.writeLong(statistics.getSolveTimeNanos());
+        byte[] route = encoder.encode(result).toByteArray();
+        frame.writeInt(route.length);
+        frame.write(route);
+        return frame;
+    }
+
+    static RouteResult readResult(DataInputStream in) throws IOException {
+        SearchStatistics statistics = new SearchStatistics();
+        statistics.addSequencesEvaluated(in.readLong());
+        statistics.addNodesExpanded(in.readLong());
+        statistics.addNodesPruned(in.readLong());
+        statistics.addDistanceCalls(in.readLong());
+        statistics.setCacheHit(in.readBoolean());
+        statistics.setSolveTimeNanos(in.readLong());
+        byte[] route = new byte[in.readInt()];
+        in.readFully(route);
+        RouteResult decoded;
+        try {
+            decoded = RouteDeltaDecoder.apply(route);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Bad route in result frame", e);
+        }
+        RouteResult result = new RouteResult(decoded.getRoute(), decoded.getTotalTimeMinutes(),
+                                             decoded.getStrategy(), decoded.getStepByStepActions(), statistics);
+        result.setLowerBoundMinutes(decoded.getLowerBoundMinutes());
+        return result;
+    }
+
+    static Frame failed(long jobId, String message) throws IOException {
+        Frame frame = new Frame(FAILED);
+        frame.writeLong(jobId);
+        frame.writeUTF(message == null ? "" : message);
+        return frame;
+    }
+
+    private static void writeLocation(DataOutputStream out, Location location) throws IOException {
+        out.writeUTF(location.getName());
+        out.writeUTF(location.getAddress() == null ? "" : location.getAddress());
+        out.writeDouble(location.getLatitude());
+        out.writeDouble(location.getLongitude());
+    }
+
+    private static Location readLocation(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        String address = in.readUTF();
+        return new Location(name, address, in.readDouble(), in.readDouble());
+    }
+}